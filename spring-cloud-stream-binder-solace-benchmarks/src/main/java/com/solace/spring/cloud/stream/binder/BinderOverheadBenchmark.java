@@ -0,0 +1,239 @@
+package com.solace.spring.cloud.stream.binder;
+
+import com.solace.spring.cloud.stream.binder.benchmarks.BenchmarkMessages;
+import com.solace.spring.cloud.stream.binder.benchmarks.BenchmarkMessages.PayloadType;
+import com.solace.spring.cloud.stream.binder.inbound.JCSMPInboundChannelAdapter;
+import com.solace.spring.cloud.stream.binder.outbound.JCSMPOutboundMessageHandler;
+import com.solace.spring.cloud.stream.binder.properties.SolaceProducerProperties;
+import com.solace.spring.cloud.stream.binder.test.InMemoryBroker;
+import com.solace.spring.cloud.stream.binder.util.JCSMPSessionProducerManager;
+import com.solacesystems.jcsmp.BytesMessage;
+import com.solacesystems.jcsmp.BytesXMLMessage;
+import com.solacesystems.jcsmp.ConsumerFlowProperties;
+import com.solacesystems.jcsmp.DeliveryMode;
+import com.solacesystems.jcsmp.EndpointProperties;
+import com.solacesystems.jcsmp.FlowReceiver;
+import com.solacesystems.jcsmp.JCSMPException;
+import com.solacesystems.jcsmp.JCSMPFactory;
+import com.solacesystems.jcsmp.JCSMPProperties;
+import com.solacesystems.jcsmp.JCSMPSession;
+import com.solacesystems.jcsmp.JCSMPStreamingPublishCorrelatingEventHandler;
+import com.solacesystems.jcsmp.Queue;
+import com.solacesystems.jcsmp.SDTException;
+import com.solacesystems.jcsmp.SDTMap;
+import com.solacesystems.jcsmp.Topic;
+import com.solacesystems.jcsmp.XMLMessageListener;
+import com.solacesystems.jcsmp.XMLMessageProducer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.cloud.stream.binder.ExtendedProducerProperties;
+import org.springframework.cloud.stream.provisioning.ProducerDestination;
+import org.springframework.integration.channel.DirectChannel;
+import org.springframework.messaging.Message;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Publishes a message and waits until it was consumed, once through the binder's message handler and inbound channel
+ * adapter and once directly through a JCSMP producer and flow, both against the same {@link InMemoryBroker}. The
+ * difference between the two is what the binder costs on top of JCSMP.
+ * <p>Sample time mode reports the p50, p99 and p99.9 round trip latencies, and the GC profiler the allocations per
+ * message. The broker's own allocations count towards both.</p>
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+public class BinderOverheadBenchmark {
+	private static final String TOPIC = "benchmark/binder-overhead";
+	private static final String QUEUE = "benchmark-binder-overhead";
+
+	@State(Scope.Thread)
+	public static class BinderPath {
+		@Param({"0", "10"})
+		public int headerCount;
+
+		private JCSMPSession session;
+		private JCSMPOutboundMessageHandler messageHandler;
+		private JCSMPInboundChannelAdapter inboundAdapter;
+		private Message<?> message;
+		private final Receipts receipts = new Receipts();
+
+		@Setup
+		public void setup() throws Exception {
+			session = createSessionWithQueue();
+
+			messageHandler = new JCSMPOutboundMessageHandler(new ProducerDestination() {
+				@Override
+				public String getName() {
+					return TOPIC;
+				}
+
+				@Override
+				public String getNameForPartition(int partition) {
+					return TOPIC;
+				}
+			}, session, null, new ExtendedProducerProperties<>(new SolaceProducerProperties()),
+					new JCSMPSessionProducerManager(session));
+			messageHandler.start();
+
+			DirectChannel outputChannel = new DirectChannel();
+			outputChannel.subscribe(consumedMessage -> receipts.received());
+			inboundAdapter = new JCSMPInboundChannelAdapter(() -> QUEUE, session, null, null);
+			inboundAdapter.setOutputChannel(outputChannel);
+			inboundAdapter.afterPropertiesSet();
+			inboundAdapter.start();
+
+			message = BenchmarkMessages.createMessage(PayloadType.BYTES, headerCount);
+		}
+
+		@TearDown
+		public void teardown() {
+			inboundAdapter.stop();
+			messageHandler.stop();
+			session.closeSession();
+		}
+	}
+
+	@State(Scope.Thread)
+	public static class JCSMPPath {
+		@Param({"0", "10"})
+		public int headerCount;
+
+		private JCSMPSession session;
+		private XMLMessageProducer producer;
+		private FlowReceiver flowReceiver;
+		private Topic topic;
+		private byte[] payload;
+		private final Receipts receipts = new Receipts();
+
+		@Setup
+		public void setup() throws Exception {
+			session = createSessionWithQueue();
+			producer = session.getMessageProducer(new JCSMPStreamingPublishCorrelatingEventHandler() {
+				@Override
+				public void responseReceivedEx(Object key) {}
+
+				@Override
+				public void handleErrorEx(Object key, JCSMPException cause, long timestamp) {}
+
+				@Override
+				public void responseReceived(String messageID) {}
+
+				@Override
+				public void handleError(String messageID, JCSMPException cause, long timestamp) {}
+			});
+
+			ConsumerFlowProperties flowProperties = new ConsumerFlowProperties();
+			flowProperties.setEndpoint(JCSMPFactory.onlyInstance().createQueue(QUEUE));
+			flowProperties.setAckMode(JCSMPProperties.SUPPORTED_MESSAGE_ACK_CLIENT);
+			flowReceiver = session.createFlow(new XMLMessageListener() {
+				@Override
+				public void onReceive(BytesXMLMessage xmlMessage) {
+					// Read what the binder reads, then acknowledge like the binder does
+					if (xmlMessage instanceof BytesMessage) {
+						((BytesMessage) xmlMessage).getData();
+					}
+					xmlMessage.getProperties();
+					xmlMessage.ackMessage();
+					receipts.received();
+				}
+
+				@Override
+				public void onException(JCSMPException e) {}
+			}, flowProperties);
+			flowReceiver.start();
+
+			topic = JCSMPFactory.onlyInstance().createTopic(TOPIC);
+			payload = (byte[]) BenchmarkMessages.createPayload(PayloadType.BYTES);
+		}
+
+		BytesMessage createMessage() throws SDTException {
+			BytesMessage xmlMessage = JCSMPFactory.onlyInstance().createMessage(BytesMessage.class);
+			xmlMessage.setData(payload);
+			xmlMessage.setDeliveryMode(DeliveryMode.PERSISTENT);
+			if (headerCount > 0) {
+				SDTMap properties = JCSMPFactory.onlyInstance().createMap();
+				for (int i = 0; i < headerCount; i++) {
+					properties.putString("benchmark-header-" + i, "benchmark-header-value-" + i);
+				}
+				xmlMessage.setProperties(properties);
+			}
+			return xmlMessage;
+		}
+
+		@TearDown
+		public void teardown() {
+			flowReceiver.close();
+			producer.close();
+			session.closeSession();
+		}
+	}
+
+	@Benchmark
+	public void binder(BinderPath path) {
+		long expected = path.receipts.sent();
+		path.messageHandler.handleMessage(path.message);
+		path.receipts.await(expected);
+	}
+
+	@Benchmark
+	public void jcsmp(JCSMPPath path) throws JCSMPException {
+		long expected = path.receipts.sent();
+		path.producer.send(path.createMessage(), path.topic);
+		path.receipts.await(expected);
+	}
+
+	private static JCSMPSession createSessionWithQueue() throws JCSMPException {
+		JCSMPSession session = new InMemoryBroker().createSession();
+		session.connect();
+		Queue queue = JCSMPFactory.onlyInstance().createQueue(QUEUE);
+		session.provision(queue, new EndpointProperties(), JCSMPSession.FLAG_IGNORE_ALREADY_EXISTS);
+		session.addSubscription(queue, JCSMPFactory.onlyInstance().createTopic(TOPIC), JCSMPSession.WAIT_FOR_CONFIRM);
+		return session;
+	}
+
+	/**
+	 * Counts consumed messages. The benchmark thread spins rather than blocks while it waits, so that thread wake-up
+	 * latency doesn't drown out the difference between the two paths.
+	 */
+	private static final class Receipts {
+		private static final long TIMEOUT_NANOS = TimeUnit.SECONDS.toNanos(10);
+		private final AtomicLong receivedCount = new AtomicLong();
+		private long sentCount = 0;
+
+		void received() {
+			receivedCount.incrementAndGet();
+		}
+
+		/**
+		 * @return the received count to wait for
+		 */
+		long sent() {
+			return ++sentCount;
+		}
+
+		void await(long expected) {
+			long deadline = System.nanoTime() + TIMEOUT_NANOS;
+			while (receivedCount.get() < expected) {
+				if (System.nanoTime() - deadline > 0) {
+					throw new IllegalStateException(String.format(
+							"Message %s was not consumed within %s seconds", expected,
+							TimeUnit.NANOSECONDS.toSeconds(TIMEOUT_NANOS)));
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,136 @@
+package com.solace.spring.cloud.stream.binder.benchmarks;
+
+import com.solace.spring.cloud.stream.binder.properties.SolaceProducerProperties;
+import com.solace.spring.cloud.stream.binder.serialization.CompactPayloadSerializer;
+import com.solace.spring.cloud.stream.binder.util.XMLMessageMapper;
+import com.solacesystems.jcsmp.BytesXMLMessage;
+import com.solacesystems.jcsmp.XMLMessage;
+import org.springframework.integration.support.MessageBuilder;
+import org.springframework.messaging.Message;
+import org.springframework.util.ClassUtils;
+
+import java.io.Serializable;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Proxy;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Messages shared by the benchmarks.
+ */
+public final class BenchmarkMessages {
+	private BenchmarkMessages() {}
+
+	public enum PayloadType {
+		BYTES, HEAP_BYTE_BUFFER, DIRECT_BYTE_BUFFER, TEXT, JAVA_SERIALIZED, COMPACT_SERIALIZED
+	}
+
+	/**
+	 * Byte buffer payloads hold the same bytes as {@link PayloadType#BYTES}, so that they can be compared with it.
+	 */
+	public static Object createPayload(PayloadType payloadType) {
+		switch (payloadType) {
+			case BYTES:
+				return createBytes();
+			case HEAP_BYTE_BUFFER:
+				return ByteBuffer.wrap(createBytes());
+			case DIRECT_BYTE_BUFFER:
+				byte[] data = createBytes();
+				ByteBuffer buffer = ByteBuffer.allocateDirect(data.length);
+				buffer.put(data);
+				buffer.flip();
+				return buffer;
+			case TEXT:
+				StringBuilder text = new StringBuilder();
+				for (int i = 0; i < 32; i++) {
+					text.append("payload-").append(i);
+				}
+				return text.toString();
+			default:
+				return new Pojo("benchmark", 42, Arrays.asList(1, 2, 3, 4, 5, 6, 7, 8));
+		}
+	}
+
+	private static byte[] createBytes() {
+		byte[] bytes = new byte[256];
+		Arrays.fill(bytes, (byte) 'a');
+		return bytes;
+	}
+
+	public static Message<?> createMessage(PayloadType payloadType, int headerCount) {
+		MessageBuilder<Object> builder = MessageBuilder.withPayload(createPayload(payloadType));
+		for (int i = 0; i < headerCount; i++) {
+			builder.setHeader("benchmark-header-" + i, "benchmark-header-value-" + i);
+		}
+		return builder.build();
+	}
+
+	public static SolaceProducerProperties createProducerProperties(PayloadType payloadType) {
+		SolaceProducerProperties producerProperties = new SolaceProducerProperties();
+		if (payloadType == PayloadType.COMPACT_SERIALIZED) {
+			producerProperties.setPayloadSerializer(CompactPayloadSerializer.ID);
+		}
+		return producerProperties;
+	}
+
+	/**
+	 * @return an inbound message as a consumer would receive it, except that acknowledging it has no effect
+	 */
+	public static BytesXMLMessage createInboundMessage(PayloadType payloadType, int headerCount) {
+		XMLMessage xmlMessage = new XMLMessageMapper().map(createMessage(payloadType, headerCount),
+				createProducerProperties(payloadType));
+		return withoutAcknowledgement((BytesXMLMessage) xmlMessage);
+	}
+
+	/**
+	 * Messages which weren't received from a flow cannot be acknowledged, so stub out {@code ackMessage()} and
+	 * delegate everything else. This adds the same constant overhead to every run.
+	 */
+	public static BytesXMLMessage withoutAcknowledgement(BytesXMLMessage xmlMessage) {
+		List<Class<?>> interfaces = new ArrayList<>();
+		for (Class<?> type : ClassUtils.getAllInterfacesForClassAsSet(xmlMessage.getClass())) {
+			if (Modifier.isPublic(type.getModifiers())) { // A proxy cannot mix in other packages' private interfaces
+				interfaces.add(type);
+			}
+		}
+		return (BytesXMLMessage) Proxy.newProxyInstance(BenchmarkMessages.class.getClassLoader(),
+				interfaces.toArray(new Class<?>[0]), (proxy, method, args) -> {
+					if ("ackMessage".equals(method.getName())) return null;
+					try {
+						return method.invoke(xmlMessage, args);
+					} catch (InvocationTargetException e) {
+						throw e.getCause();
+					}
+				});
+	}
+
+	public static class Pojo implements Serializable {
+		private static final long serialVersionUID = 1L;
+		private String name;
+		private int count;
+		private List<Integer> values;
+
+		public Pojo() {}
+
+		Pojo(String name, int count, List<Integer> values) {
+			this.name = name;
+			this.count = count;
+			this.values = values;
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		public int getCount() {
+			return count;
+		}
+
+		public List<Integer> getValues() {
+			return values;
+		}
+	}
+}
@@ -0,0 +1,54 @@
+package com.solace.spring.cloud.stream.binder.inbound;
+
+import com.solace.spring.cloud.stream.binder.benchmarks.BenchmarkMessages;
+import com.solace.spring.cloud.stream.binder.benchmarks.BenchmarkMessages.PayloadType;
+import com.solacesystems.jcsmp.BytesXMLMessage;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.messaging.Message;
+
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+@State(Scope.Thread)
+public class InboundXMLMessageListenerBenchmark {
+	@Param({"BYTES", "JAVA_SERIALIZED"})
+	public PayloadType payloadType;
+
+	@Param({"0", "10"})
+	public int headerCount;
+
+	@Param({"false", "true"})
+	public boolean deferPayloadDecoding;
+
+	private InboundXMLMessageListener listener;
+	private BytesXMLMessage xmlMessage;
+	private Message<?> consumedMessage;
+
+	@Setup
+	public void setup() {
+		listener = new InboundXMLMessageListener(() -> "benchmark", message -> consumedMessage = message,
+				null, new ThreadLocal<>(), false);
+		listener.setDeferPayloadDecoding(deferPayloadDecoding);
+		xmlMessage = BenchmarkMessages.createInboundMessage(payloadType, headerCount);
+	}
+
+	@Benchmark
+	public Message<?> onReceive() {
+		listener.onReceive(xmlMessage);
+		return consumedMessage;
+	}
+}
@@ -0,0 +1,50 @@
+package com.solace.spring.cloud.stream.binder.util;
+
+import com.solace.spring.cloud.stream.binder.benchmarks.BenchmarkMessages;
+import com.solace.spring.cloud.stream.binder.benchmarks.BenchmarkMessages.PayloadType;
+import com.solacesystems.jcsmp.XMLMessage;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.integration.support.AckUtils;
+import org.springframework.integration.support.AcknowledgmentCallback;
+
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+@State(Scope.Thread)
+public class JCSMPAcknowledgementCallbackBenchmark {
+	private final JCSMPAcknowledgementCallbackFactory callbackFactory = new JCSMPAcknowledgementCallbackFactory();
+	private XMLMessage xmlMessage;
+
+	@Setup
+	public void setup() {
+		xmlMessage = BenchmarkMessages.createInboundMessage(PayloadType.BYTES, 0);
+	}
+
+	@Benchmark
+	public AcknowledgmentCallback createCallback() {
+		return callbackFactory.createCallback(xmlMessage);
+	}
+
+	/**
+	 * What the inbound listener does for every successfully consumed message.
+	 */
+	@Benchmark
+	public AcknowledgmentCallback autoAck() {
+		AcknowledgmentCallback callback = callbackFactory.createCallback(xmlMessage);
+		AckUtils.autoAck(callback);
+		return callback;
+	}
+}
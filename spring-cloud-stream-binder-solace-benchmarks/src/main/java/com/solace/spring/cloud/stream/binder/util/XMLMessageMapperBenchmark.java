@@ -0,0 +1,84 @@
+package com.solace.spring.cloud.stream.binder.util;
+
+import com.solace.spring.cloud.stream.binder.benchmarks.BenchmarkMessages;
+import com.solace.spring.cloud.stream.binder.benchmarks.BenchmarkMessages.PayloadType;
+import com.solace.spring.cloud.stream.binder.properties.SolaceProducerProperties;
+import com.solacesystems.jcsmp.DeliveryMode;
+import com.solacesystems.jcsmp.XMLMessage;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.messaging.Message;
+
+import java.util.HashMap;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+@State(Scope.Thread)
+public class XMLMessageMapperBenchmark {
+	@Param({"BYTES", "HEAP_BYTE_BUFFER", "DIRECT_BYTE_BUFFER", "TEXT", "JAVA_SERIALIZED", "COMPACT_SERIALIZED"})
+	public PayloadType payloadType;
+
+	@Param({"0", "10", "50"})
+	public int headerCount;
+
+	@Param({"false", "true"})
+	public boolean compactHeaderValues;
+
+	private final XMLMessageMapper xmlMessageMapper = new XMLMessageMapper();
+	private SolaceProducerProperties producerProperties;
+	private SolaceProducerProperties directProducerProperties;
+	private Message<?> springMessage;
+	private XMLMessage xmlMessage;
+
+	@Setup
+	public void setup() {
+		xmlMessageMapper.setCompactHeaderValues(compactHeaderValues);
+		producerProperties = BenchmarkMessages.createProducerProperties(payloadType);
+		// Only direct messages are mapped into reused message instances
+		directProducerProperties = BenchmarkMessages.createProducerProperties(payloadType);
+		directProducerProperties.setDeliveryMode(DeliveryMode.DIRECT);
+		springMessage = BenchmarkMessages.createMessage(payloadType, headerCount);
+		xmlMessage = xmlMessageMapper.map(springMessage, producerProperties);
+	}
+
+	@Benchmark
+	public XMLMessage mapOutbound() {
+		return xmlMessageMapper.map(springMessage, producerProperties);
+	}
+
+	@Benchmark
+	public void mapOutboundReusable(Blackhole blackhole) {
+		XMLMessage reusableMessage = xmlMessageMapper.mapReusable(springMessage, directProducerProperties);
+		blackhole.consume(reusableMessage);
+		xmlMessageMapper.release(reusableMessage);
+	}
+
+	@Benchmark
+	public Message<?> mapInbound() {
+		return xmlMessageMapper.map(xmlMessage);
+	}
+
+	/**
+	 * Inbound mapping where the consumer reads the payload and every header.
+	 */
+	@Benchmark
+	public void mapInboundAndReadAll(Blackhole blackhole) {
+		Message<?> message = xmlMessageMapper.map(xmlMessage);
+		blackhole.consume(message.getPayload());
+		blackhole.consume(new HashMap<>(message.getHeaders()));
+	}
+}
@@ -0,0 +1,121 @@
+package com.solace.spring.cloud.stream.binder.inbound;
+
+import com.solacesystems.jcsmp.BytesXMLMessage;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.messaging.Message;
+import org.springframework.util.Assert;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Collects inbound messages into batches, and flushes a batch once it holds the maximum number of messages, or once
+ * its first message has waited for the batch timeout. Batches are flushed one at a time, and messages which arrive
+ * while a batch is being flushed wait for it.
+ */
+class BatchCollector {
+	private static final Log logger = LogFactory.getLog(BatchCollector.class);
+
+	private final String name;
+	private final int maxSize;
+	private final long timeoutMillis;
+	private final Flusher flusher;
+	private List<Message<?>> messages;
+	private List<BytesXMLMessage> bytesXMLMessages;
+	private ScheduledExecutorService timer;
+	private ScheduledFuture<?> timeout;
+	private boolean running = false;
+
+	/**
+	 * @param name used to name the timer's thread
+	 * @param maxSize the maximum number of messages per batch
+	 * @param timeoutMillis how long a batch may wait for more messages
+	 * @param flusher handles a batch
+	 */
+	BatchCollector(String name, int maxSize, long timeoutMillis, Flusher flusher) {
+		Assert.isTrue(maxSize > 0, "The maximum batch size must be greater than 0");
+		Assert.isTrue(timeoutMillis > 0, "The batch timeout must be greater than 0");
+		this.name = name;
+		this.maxSize = maxSize;
+		this.timeoutMillis = timeoutMillis;
+		this.flusher = flusher;
+		newBatch();
+	}
+
+	synchronized void start() {
+		if (running) return;
+		running = true;
+		timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, String.format("%s-timer", name));
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	/**
+	 * Adds the message to the current batch, and flushes the batch on the calling thread if it's full.
+	 */
+	synchronized void add(Message<?> message, BytesXMLMessage bytesXMLMessage) {
+		messages.add(message);
+		bytesXMLMessages.add(bytesXMLMessage);
+		if (messages.size() >= maxSize) {
+			flush();
+		} else if (messages.size() == 1 && running) {
+			List<Message<?>> batch = messages;
+			timeout = timer.schedule(() -> flushOnTimeout(batch), timeoutMillis, TimeUnit.MILLISECONDS);
+		}
+	}
+
+	/**
+	 * Flushes the current batch and stops the timer.
+	 */
+	synchronized void stop() {
+		if (!running) return;
+		running = false;
+		flush();
+		timer.shutdownNow();
+	}
+
+	private synchronized void flushOnTimeout(List<Message<?>> batch) {
+		// The batch may already have been flushed because it was full
+		if (batch == messages) {
+			flush();
+		}
+	}
+
+	private void flush() {
+		if (timeout != null) {
+			timeout.cancel(false);
+			timeout = null;
+		}
+
+		if (messages.isEmpty()) return;
+		List<Message<?>> batch = messages;
+		List<BytesXMLMessage> bytesXMLBatch = bytesXMLMessages;
+		newBatch();
+		try {
+			flusher.flush(batch, bytesXMLBatch);
+		} catch (RuntimeException e) {
+			logger.warn(String.format("Failed to flush a batch of %s messages from %s", batch.size(), name), e);
+		}
+	}
+
+	private void newBatch() {
+		messages = new ArrayList<>(maxSize);
+		bytesXMLMessages = new ArrayList<>(maxSize);
+	}
+
+	@FunctionalInterface
+	interface Flusher {
+		/**
+		 * @param messages the batch's messages
+		 * @param bytesXMLMessages the raw messages the batch's messages were mapped from, in the same order
+		 */
+		void flush(List<Message<?>> messages, List<BytesXMLMessage> bytesXMLMessages);
+	}
+}
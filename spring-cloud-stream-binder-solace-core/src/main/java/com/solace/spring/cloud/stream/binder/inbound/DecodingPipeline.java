@@ -0,0 +1,217 @@
+package com.solace.spring.cloud.stream.binder.inbound;
+
+import com.solacesystems.jcsmp.BytesXMLMessage;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.messaging.Message;
+import org.springframework.util.Assert;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Decodes inbound messages on a pool of decoder threads, then delivers them on a single delivery thread in the order
+ * they were submitted in.
+ * <p>Every submitted message is numbered and, once decoded, stored in a reorder buffer at its number. The delivery
+ * thread waits for the next number in line, so a message which is slow to decode holds back the messages behind it,
+ * but never lets them overtake it. The buffer holds a bounded number of messages, and {@link #submit} blocks while it
+ * is full.</p>
+ */
+class DecodingPipeline {
+	private static final Log logger = LogFactory.getLog(DecodingPipeline.class);
+
+	private final String name;
+	private final int decoderCount;
+	private final Decoder decoder;
+	private final Delivery delivery;
+	private final Decoded[] reorderBuffer;
+	private final Semaphore permits;
+	private final ReentrantLock lock = new ReentrantLock();
+	private final Condition nextDecoded = lock.newCondition();
+	private ExecutorService decoders;
+	private Thread deliveryThread;
+	// Guarded by the lock
+	private long submittedCount = 0;
+	private long deliveredCount = 0;
+	private volatile boolean running = false;
+
+	/**
+	 * @param name used to name the pipeline's threads
+	 * @param decoderCount the number of decoder threads
+	 * @param capacity the number of messages which may be decoding or waiting for delivery
+	 * @param decoder maps a message, may throw a {@link RuntimeException} if it can't
+	 * @param delivery handles messages in order on the delivery thread
+	 */
+	DecodingPipeline(String name, int decoderCount, int capacity, Decoder decoder, Delivery delivery) {
+		Assert.isTrue(decoderCount > 0, "There must be at least one decoder thread");
+		Assert.isTrue(capacity > 0, "The decoding pipeline capacity must be greater than 0");
+		this.name = name;
+		this.decoderCount = decoderCount;
+		this.decoder = decoder;
+		this.delivery = delivery;
+		this.reorderBuffer = new Decoded[capacity];
+		this.permits = new Semaphore(capacity);
+	}
+
+	synchronized void start() {
+		if (running) return;
+		running = true;
+		AtomicInteger decoderIndex = new AtomicInteger();
+		decoders = Executors.newFixedThreadPool(decoderCount, runnable -> {
+			Thread thread = new Thread(runnable, String.format("%s-decoder-%s", name, decoderIndex.getAndIncrement()));
+			thread.setDaemon(true);
+			return thread;
+		});
+		deliveryThread = new Thread(this::deliver, String.format("%s-delivery", name));
+		deliveryThread.setDaemon(true);
+		deliveryThread.start();
+	}
+
+	/**
+	 * Queues the message for decoding. Blocks while the pipeline is full. Must only be called from one thread at a
+	 * time, since messages are delivered in the order of these calls.
+	 */
+	void submit(BytesXMLMessage bytesXMLMessage) {
+		try {
+			permits.acquire();
+		} catch (InterruptedException e) {
+			// Dropped before decoding, so it's still unacknowledged and gets redelivered when the flow is rebound
+			Thread.currentThread().interrupt();
+			logger.warn(String.format("Interrupted while waiting to submit message %s to %s",
+					bytesXMLMessage.getMessageId(), name));
+			return;
+		}
+
+		final long sequence;
+		lock.lock();
+		try {
+			sequence = submittedCount++;
+		} finally {
+			lock.unlock();
+		}
+
+		try {
+			decoders.execute(() -> decode(sequence, bytesXMLMessage));
+		} catch (RejectedExecutionException e) {
+			// Stopped, leave the message unacknowledged
+			lock.lock();
+			try {
+				submittedCount--;
+			} finally {
+				lock.unlock();
+			}
+			permits.release();
+			logger.warn(String.format("Dropping message %s since %s is stopped, it will be redelivered",
+					bytesXMLMessage.getMessageId(), name));
+		}
+	}
+
+	/**
+	 * Stops decoding, and waits for the messages which were already submitted to be delivered.
+	 * @param timeoutMillis how long to wait for the pipeline to drain
+	 * @return true if every submitted message was delivered in time
+	 */
+	boolean stop(long timeoutMillis) {
+		synchronized (this) {
+			if (!running) return true;
+			running = false;
+		}
+
+		long deadline = System.currentTimeMillis() + timeoutMillis;
+		decoders.shutdown();
+		try {
+			decoders.awaitTermination(timeoutMillis, TimeUnit.MILLISECONDS);
+			deliveryThread.join(Math.max(1, deadline - System.currentTimeMillis()));
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+
+		if (deliveryThread.isAlive()) {
+			decoders.shutdownNow();
+			deliveryThread.interrupt();
+			logger.warn(String.format("%s did not deliver its messages within %s ms, undelivered messages will be " +
+					"redelivered", name, timeoutMillis));
+			return false;
+		}
+		return true;
+	}
+
+	private void decode(long sequence, BytesXMLMessage bytesXMLMessage) {
+		Decoded decoded;
+		try {
+			decoded = new Decoded(bytesXMLMessage, decoder.decode(bytesXMLMessage), null);
+		} catch (RuntimeException e) {
+			decoded = new Decoded(bytesXMLMessage, null, e);
+		}
+
+		lock.lock();
+		try {
+			reorderBuffer[(int) (sequence % reorderBuffer.length)] = decoded;
+			nextDecoded.signal();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	private void deliver() {
+		while (true) {
+			Decoded decoded;
+			lock.lock();
+			try {
+				int index;
+				while (reorderBuffer[index = (int) (deliveredCount % reorderBuffer.length)] == null) {
+					if (!running && deliveredCount == submittedCount) return;
+					nextDecoded.await(100, TimeUnit.MILLISECONDS);
+				}
+				decoded = reorderBuffer[index];
+				reorderBuffer[index] = null;
+				deliveredCount++;
+			} catch (InterruptedException e) {
+				return;
+			} finally {
+				lock.unlock();
+			}
+
+			try {
+				delivery.deliver(decoded.bytesXMLMessage, decoded.message, decoded.error);
+			} catch (RuntimeException e) {
+				logger.warn(String.format("Failed to deliver message %s from %s",
+						decoded.bytesXMLMessage.getMessageId(), name), e);
+			} finally {
+				permits.release();
+			}
+		}
+	}
+
+	@FunctionalInterface
+	interface Decoder {
+		Message<?> decode(BytesXMLMessage bytesXMLMessage);
+	}
+
+	@FunctionalInterface
+	interface Delivery {
+		/**
+		 * @param message the decoded message, or null if it couldn't be decoded
+		 * @param error why the message couldn't be decoded
+		 */
+		void deliver(BytesXMLMessage bytesXMLMessage, Message<?> message, RuntimeException error);
+	}
+
+	private static final class Decoded {
+		private final BytesXMLMessage bytesXMLMessage;
+		private final Message<?> message;
+		private final RuntimeException error;
+
+		Decoded(BytesXMLMessage bytesXMLMessage, Message<?> message, RuntimeException error) {
+			this.bytesXMLMessage = bytesXMLMessage;
+			this.message = message;
+			this.error = error;
+		}
+	}
+}
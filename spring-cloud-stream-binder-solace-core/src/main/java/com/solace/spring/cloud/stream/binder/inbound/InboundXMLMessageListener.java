@@ -1,5 +1,8 @@
 package com.solace.spring.cloud.stream.binder.inbound;
 
+import com.solace.spring.cloud.stream.binder.messaging.SolaceBinderHeaders;
+import com.solace.spring.cloud.stream.binder.util.JCSMPAckEngine;
+import com.solace.spring.cloud.stream.binder.util.SolaceBinderMetrics;
 import com.solace.spring.cloud.stream.binder.util.SolaceMessageConversionException;
 import com.solace.spring.cloud.stream.binder.util.SolaceMessageHeaderErrorMessageStrategy;
 import com.solace.spring.cloud.stream.binder.util.XMLMessageMapper;
@@ -7,13 +10,20 @@ import com.solacesystems.jcsmp.BytesXMLMessage;
 import com.solacesystems.jcsmp.JCSMPException;
 import com.solacesystems.jcsmp.XMLMessage;
 import com.solacesystems.jcsmp.XMLMessageListener;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
 import org.springframework.cloud.stream.provisioning.ConsumerDestination;
 import org.springframework.core.AttributeAccessor;
 import org.springframework.integration.support.AckUtils;
+import org.springframework.integration.support.AcknowledgmentCallback;
 import org.springframework.integration.support.ErrorMessageUtils;
+import org.springframework.integration.support.MessageBuilder;
 import org.springframework.integration.support.StaticMessageHeaderAccessor;
 import org.springframework.messaging.Message;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
 import java.util.function.Function;
@@ -26,6 +36,16 @@ class InboundXMLMessageListener implements XMLMessageListener {
 	private final Function<RuntimeException,Boolean> errorHandlerFunction;
 	private final boolean needHolder;
 	private final boolean needAttributes;
+	private boolean deferPayloadDecoding = false;
+	private SolaceBinderMetrics.ConsumerMetrics metrics = SolaceBinderMetrics.ConsumerMetrics.NOOP;
+	private KeyOrderedDispatcher dispatcher;
+	private DecodingPipeline decodingPipeline;
+	private BatchCollector batchCollector;
+	private Consumer<Message<?>> batchConsumer;
+	private boolean batchSplitOnFailure = true;
+	private JCSMPAckEngine ackEngine;
+
+	private static final Log logger = LogFactory.getLog(InboundXMLMessageListener.class);
 
 	InboundXMLMessageListener(ConsumerDestination consumerDestination,
 							  Consumer<Message<?>> messageConsumer,
@@ -51,12 +71,17 @@ class InboundXMLMessageListener implements XMLMessageListener {
 
 	@Override
 	public void onReceive(BytesXMLMessage bytesXMLMessage) {
-		final Message<?> message;
+		metrics.received();
+		if (decodingPipeline != null) {
+			decodingPipeline.submit(bytesXMLMessage);
+			return;
+		}
+
 		try {
-			message = xmlMessageMapper.map(bytesXMLMessage);
-			handleMessage(message, bytesXMLMessage);
+			handleMappedMessage(mapMessage(bytesXMLMessage), bytesXMLMessage);
 		} catch (SolaceMessageConversionException e) {
-			handleError(e, bytesXMLMessage, bytesXMLMessage::ackMessage);
+			metrics.conversionFailed();
+			handleError(e, bytesXMLMessage, () -> ackMessage(bytesXMLMessage));
 		} finally {
 			if (needHolder) {
 				attributesHolder.remove();
@@ -64,22 +89,153 @@ class InboundXMLMessageListener implements XMLMessageListener {
 		}
 	}
 
+	Message<?> mapMessage(BytesXMLMessage bytesXMLMessage) throws SolaceMessageConversionException {
+		long startTime = metrics.isEnabled() ? System.nanoTime() : 0;
+		Message<?> message = xmlMessageMapper.map(bytesXMLMessage, false, deferPayloadDecoding, ackEngine);
+		if (metrics.isEnabled()) {
+			metrics.mapped(System.nanoTime() - startTime);
+		}
+		return message;
+	}
+
+	/**
+	 * Handles a message which was mapped by the decoding pipeline, on the pipeline's delivery thread.
+	 */
+	void handleDecodedMessage(BytesXMLMessage bytesXMLMessage, Message<?> message, RuntimeException error) {
+		try {
+			if (error instanceof SolaceMessageConversionException) {
+				metrics.conversionFailed();
+				handleError(error, bytesXMLMessage, () -> ackMessage(bytesXMLMessage));
+			} else if (error != null) {
+				throw error;
+			} else {
+				handleMappedMessage(message, bytesXMLMessage);
+			}
+		} finally {
+			if (needHolder) {
+				attributesHolder.remove();
+			}
+		}
+	}
+
+	private void handleMappedMessage(final Message<?> message, final BytesXMLMessage bytesXMLMessage) {
+		if (batchCollector != null) {
+			batchCollector.add(message, bytesXMLMessage);
+		} else if (dispatcher != null) {
+			dispatcher.dispatch(message, () -> handleDispatchedMessage(message, bytesXMLMessage));
+		} else {
+			handleMessage(message, bytesXMLMessage);
+		}
+	}
+
 	void handleMessage(final Message<?> message, BytesXMLMessage bytesXMLMessage) {
 		try {
 			sendToConsumer(message, bytesXMLMessage);
-			AckUtils.autoAck(StaticMessageHeaderAccessor.getAcknowledgmentCallback(message));
+			autoAck(message);
 		} catch (RuntimeException e) {
 			handleError(e, bytesXMLMessage, () -> AckUtils.autoNack(StaticMessageHeaderAccessor.getAcknowledgmentCallback(message)));
 		}
 	}
 
+	private void handleDispatchedMessage(final Message<?> message, BytesXMLMessage bytesXMLMessage) {
+		try {
+			handleMessage(message, bytesXMLMessage);
+		} finally {
+			if (needHolder) {
+				attributesHolder.remove();
+			}
+		}
+	}
+
+	/**
+	 * Handles a batch which was flushed by the batch collector.
+	 */
+	void handleBatch(List<Message<?>> messages, List<BytesXMLMessage> bytesXMLMessages) {
+		try {
+			sendBatch(messages, bytesXMLMessages);
+		} finally {
+			if (needHolder) {
+				attributesHolder.remove();
+			}
+		}
+	}
+
+	private void sendBatch(List<Message<?>> messages, List<BytesXMLMessage> bytesXMLMessages) {
+		try {
+			sendBatchToConsumer(messages);
+			for (Message<?> message : messages) {
+				autoAck(message);
+			}
+		} catch (RuntimeException e) {
+			if (batchSplitOnFailure && messages.size() > 1) {
+				logger.warn(String.format("Failed to consume a batch of %s messages from destination %s, " +
+						"splitting it", messages.size(), consumerDestination.getName()), e);
+				int half = messages.size() / 2;
+				sendBatch(messages.subList(0, half), bytesXMLMessages.subList(0, half));
+				sendBatch(messages.subList(half, messages.size()),
+						bytesXMLMessages.subList(half, bytesXMLMessages.size()));
+			} else {
+				for (int i = 0; i < messages.size(); i++) {
+					handleFailedBatchMessage(e, messages.get(i), bytesXMLMessages.get(i));
+				}
+			}
+		}
+	}
+
+	private void sendBatchToConsumer(List<Message<?>> messages) {
+		List<Object> payloads = new ArrayList<>(messages.size());
+		List<Map<String, Object>> headers = new ArrayList<>(messages.size());
+		for (Message<?> message : messages) {
+			payloads.add(message.getPayload());
+			headers.add(message.getHeaders());
+		}
+
+		long startTime = metrics.isEnabled() ? System.nanoTime() : 0;
+		batchConsumer.accept(MessageBuilder.withPayload(payloads)
+				.setHeader(SolaceBinderHeaders.BATCHED_HEADERS, headers)
+				.build());
+		if (metrics.isEnabled()) {
+			metrics.handled(System.nanoTime() - startTime);
+		}
+	}
+
+	private void handleFailedBatchMessage(RuntimeException e, Message<?> message, BytesXMLMessage bytesXMLMessage) {
+		try {
+			handleError(e, bytesXMLMessage,
+					() -> AckUtils.autoNack(StaticMessageHeaderAccessor.getAcknowledgmentCallback(message)));
+		} catch (RuntimeException unhandled) {
+			logger.warn(String.format("Failed to consume message %s of a batch from destination %s",
+					bytesXMLMessage.getMessageId(), consumerDestination.getName()), unhandled);
+		}
+	}
+
 	void sendToConsumer(final Message<?> message, final BytesXMLMessage bytesXMLMessage) throws RuntimeException {
 		setAttributesIfNecessary(bytesXMLMessage, message);
 		AtomicInteger deliveryAttempt = StaticMessageHeaderAccessor.getDeliveryAttempt(message);
 		if (deliveryAttempt != null) {
 			deliveryAttempt.incrementAndGet();
 		}
+		long startTime = metrics.isEnabled() ? System.nanoTime() : 0;
 		messageConsumer.accept(message);
+		if (metrics.isEnabled()) {
+			metrics.handled(System.nanoTime() - startTime);
+		}
+	}
+
+	private void ackMessage(BytesXMLMessage bytesXMLMessage) {
+		if (ackEngine != null) {
+			ackEngine.ack(bytesXMLMessage);
+		} else {
+			bytesXMLMessage.ackMessage();
+		}
+	}
+
+	void autoAck(Message<?> message) {
+		AcknowledgmentCallback acknowledgmentCallback = StaticMessageHeaderAccessor.getAcknowledgmentCallback(message);
+		AckUtils.autoAck(acknowledgmentCallback);
+		if (acknowledgmentCallback != null && acknowledgmentCallback.isAcknowledged()) {
+			metrics.acknowledged();
+		}
 	}
 
 	@Override
@@ -87,6 +243,57 @@ class InboundXMLMessageListener implements XMLMessageListener {
 //		logger.warn("An unrecoverable error was received while listening for messages", e);
 	}
 
+	void setDeferPayloadDecoding(boolean deferPayloadDecoding) {
+		this.deferPayloadDecoding = deferPayloadDecoding;
+	}
+
+	void setMaxInflatedPayloadSize(int maxInflatedPayloadSize) {
+		xmlMessageMapper.setMaxInflatedPayloadSize(maxInflatedPayloadSize);
+	}
+
+	void setMetrics(SolaceBinderMetrics.ConsumerMetrics metrics) {
+		this.metrics = metrics;
+	}
+
+	/**
+	 * Process messages on the dispatcher's lanes instead of on the JCSMP dispatcher thread.
+	 */
+	void setDispatcher(KeyOrderedDispatcher dispatcher) {
+		this.dispatcher = dispatcher;
+	}
+
+	/**
+	 * Map messages on the pipeline's decoder threads instead of on the JCSMP dispatcher thread.
+	 */
+	void setDecodingPipeline(DecodingPipeline decodingPipeline) {
+		this.decodingPipeline = decodingPipeline;
+	}
+
+	/**
+	 * Collect messages into batches, and send batches to the given consumer instead of single messages.
+	 * @param batchConsumer sends a batch without routing failures to the error channel, so that failed batches can
+	 *                      be split
+	 */
+	void setBatchCollector(BatchCollector batchCollector, Consumer<Message<?>> batchConsumer) {
+		this.batchCollector = batchCollector;
+		this.batchConsumer = batchConsumer;
+	}
+
+	/**
+	 * @param batchSplitOnFailure whether to split a failed batch in two and send both halves again, down to single
+	 *                            messages, or to handle every message of a failed batch as a failed message
+	 */
+	void setBatchSplitOnFailure(boolean batchSplitOnFailure) {
+		this.batchSplitOnFailure = batchSplitOnFailure;
+	}
+
+	/**
+	 * Acknowledge messages through the ack engine instead of on the thread which processed them.
+	 */
+	void setAckEngine(JCSMPAckEngine ackEngine) {
+		this.ackEngine = ackEngine;
+	}
+
 	void setAttributesIfNecessary(XMLMessage xmlMessage, org.springframework.messaging.Message<?> message) {
 		if (needHolder) {
 			attributesHolder.set(ErrorMessageUtils.getAttributeAccessor(null, null));
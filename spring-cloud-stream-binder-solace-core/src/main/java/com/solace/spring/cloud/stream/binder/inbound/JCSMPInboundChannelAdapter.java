@@ -1,5 +1,9 @@
 package com.solace.spring.cloud.stream.binder.inbound;
 
+import com.solace.spring.cloud.stream.binder.properties.SolaceConsumerProperties;
+import com.solace.spring.cloud.stream.binder.util.JCSMPAckEngine;
+import com.solace.spring.cloud.stream.binder.util.SolaceBinderMetrics;
+import com.solace.spring.cloud.stream.binder.util.SolaceErrorMessageHandler;
 import com.solacesystems.jcsmp.ConsumerFlowProperties;
 import com.solacesystems.jcsmp.EndpointProperties;
 import com.solacesystems.jcsmp.FlowReceiver;
@@ -8,66 +12,162 @@ import com.solacesystems.jcsmp.JCSMPFactory;
 import com.solacesystems.jcsmp.JCSMPProperties;
 import com.solacesystems.jcsmp.JCSMPSession;
 import com.solacesystems.jcsmp.Queue;
-import com.solacesystems.jcsmp.XMLMessageListener;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.springframework.cloud.stream.provisioning.ConsumerDestination;
 import org.springframework.core.AttributeAccessor;
+import org.springframework.expression.Expression;
 import org.springframework.integration.context.OrderlyShutdownCapable;
 import org.springframework.integration.endpoint.MessageProducerSupport;
+import org.springframework.integration.support.context.NamedComponent;
 import org.springframework.lang.Nullable;
+import org.springframework.messaging.MessageChannel;
 import org.springframework.messaging.MessagingException;
 import org.springframework.retry.RecoveryCallback;
 import org.springframework.retry.support.RetryTemplate;
 import org.springframework.util.Assert;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.UUID;
 import java.util.function.Consumer;
 
 public class JCSMPInboundChannelAdapter extends MessageProducerSupport implements OrderlyShutdownCapable {
 	private final String id = UUID.randomUUID().toString();
 	private final ConsumerDestination consumerDestination;
-	private final JCSMPSession jcsmpSession;
 	private final EndpointProperties endpointProperties;
 	private final Consumer<Queue> postStart;
 	private RetryTemplate retryTemplate;
 	private RecoveryCallback<?> recoveryCallback;
-	private FlowReceiver consumerFlowReceiver;
+	private boolean deferPayloadDecoding = false;
+	private int maxInflatedPayloadSize = SolaceConsumerProperties.DEFAULT_MAX_INFLATED_PAYLOAD_SIZE;
+	private SolaceBinderMetrics metrics = SolaceBinderMetrics.NOOP;
+	private SolaceErrorMessageHandler errorMessageHandler;
+	private List<JCSMPSession> flowSessions;
+	private List<FlowReceiver> consumerFlowReceivers = Collections.emptyList();
+	private int dispatchLaneCount = 0;
+	private int dispatchLaneCapacity = 1000;
+	private Expression dispatchKeyExpression;
+	private KeyOrderedDispatcher dispatcher;
+	private int decodingThreads = 0;
+	private int decodingPipelineCapacity = 256;
+	private List<DecodingPipeline> decodingPipelines = Collections.emptyList();
+	private int batchMaxSize = 0;
+	private long batchTimeout = 100;
+	private boolean batchSplitOnFailure = true;
+	private List<BatchCollector> batchCollectors = Collections.emptyList();
+	private boolean asyncAck = false;
+	private int asyncAckMaxBatchSize = 256;
+	private List<JCSMPAckEngine> ackEngines = Collections.emptyList();
 
 	private static final Log logger = LogFactory.getLog(JCSMPInboundChannelAdapter.class);
 	private static final ThreadLocal<AttributeAccessor> attributesHolder = new ThreadLocal<>();
+	private static final long DRAIN_TIMEOUT_MILLIS = 10000;
 
 	public JCSMPInboundChannelAdapter(ConsumerDestination consumerDestination, JCSMPSession jcsmpSession,
 							   @Nullable EndpointProperties endpointProperties, @Nullable Consumer<Queue> postStart) {
 		this.consumerDestination = consumerDestination;
-		this.jcsmpSession = jcsmpSession;
 		this.endpointProperties = endpointProperties;
 		this.postStart = postStart;
+		this.flowSessions = Collections.singletonList(jcsmpSession);
 	}
 
 	@Override
 	protected void doStart() {
 		final String queueName = consumerDestination.getName();
-		logger.info(String.format("Creating consumer flow for queue %s <inbound adapter %s>", queueName, id));
+		logger.info(String.format("Creating %s consumer flow(s) for queue %s <inbound adapter %s>",
+				flowSessions.size(), queueName, id));
 
 		if (isRunning()) {
 			logger.warn(String.format("Nothing to do. Inbound message channel adapter %s is already running", id));
 			return;
 		}
 
-		XMLMessageListener listener = buildListener();
+		SolaceBinderMetrics.ConsumerMetrics consumerMetrics = metrics.consumer(getBindingName(), queueName);
+		if (errorMessageHandler != null) {
+			errorMessageHandler.setMetrics(consumerMetrics);
+		}
 		Queue queue = JCSMPFactory.onlyInstance().createQueue(queueName);
+		List<FlowReceiver> flowReceivers = new ArrayList<>(flowSessions.size());
+		List<DecodingPipeline> pipelines = new ArrayList<>();
+		List<BatchCollector> collectors = new ArrayList<>();
+		List<JCSMPAckEngine> engines = new ArrayList<>();
+		KeyOrderedDispatcher keyOrderedDispatcher = dispatchLaneCount > 0 ?
+				createDispatcher(queueName, flowReceivers) : null;
 		try {
 			final ConsumerFlowProperties flowProperties = new ConsumerFlowProperties();
 			flowProperties.setEndpoint(queue);
 			flowProperties.setAckMode(JCSMPProperties.SUPPORTED_MESSAGE_ACK_CLIENT);
-			consumerFlowReceiver = jcsmpSession.createFlow(listener, flowProperties, endpointProperties);
-			consumerFlowReceiver.start();
+			for (JCSMPSession flowSession : flowSessions) {
+				// Every flow gets its own listener, since flows of different sessions are dispatched concurrently
+				InboundXMLMessageListener listener = buildListener(consumerMetrics, keyOrderedDispatcher);
+				if (asyncAck) {
+					JCSMPAckEngine ackEngine = new JCSMPAckEngine(
+							String.format("solace-ack-%s-%s", queueName, flowReceivers.size()),
+							asyncAckMaxBatchSize, consumerMetrics);
+					listener.setAckEngine(ackEngine);
+					engines.add(ackEngine);
+				}
+				if (batchMaxSize > 0) {
+					BatchCollector collector = new BatchCollector(
+							String.format("solace-batch-%s-%s", queueName, flowReceivers.size()),
+							batchMaxSize, batchTimeout, listener::handleBatch);
+					listener.setBatchCollector(collector, batch -> getOutputChannel().send(batch));
+					listener.setBatchSplitOnFailure(batchSplitOnFailure);
+					collectors.add(collector);
+				}
+				if (decodingThreads > 0) {
+					DecodingPipeline pipeline = new DecodingPipeline(
+							String.format("solace-decoding-%s-%s", queueName, flowReceivers.size()),
+							decodingThreads, decodingPipelineCapacity, listener::mapMessage,
+							listener::handleDecodedMessage);
+					listener.setDecodingPipeline(pipeline);
+					pipelines.add(pipeline);
+				}
+				flowReceivers.add(flowSession.createFlow(listener, flowProperties, endpointProperties));
+			}
+			for (JCSMPAckEngine ackEngine : engines) {
+				ackEngine.start();
+			}
+			if (keyOrderedDispatcher != null) {
+				keyOrderedDispatcher.start();
+			}
+			for (BatchCollector collector : collectors) {
+				collector.start();
+			}
+			for (DecodingPipeline pipeline : pipelines) {
+				pipeline.start();
+			}
+			// Only start consuming once every flow could be created
+			for (FlowReceiver flowReceiver : flowReceivers) {
+				flowReceiver.start();
+			}
 		} catch (JCSMPException e) {
+			for (FlowReceiver flowReceiver : flowReceivers) {
+				flowReceiver.close();
+			}
+			for (DecodingPipeline pipeline : pipelines) {
+				pipeline.stop(0);
+			}
+			for (BatchCollector collector : collectors) {
+				collector.stop();
+			}
+			if (keyOrderedDispatcher != null) {
+				keyOrderedDispatcher.stop(0);
+			}
+			for (JCSMPAckEngine ackEngine : engines) {
+				ackEngine.stop(0);
+			}
 			String msg = "Failed to get message consumer from session";
 			logger.warn(msg, e);
 			throw new MessagingException(msg, e);
 		}
+		consumerFlowReceivers = flowReceivers;
+		dispatcher = keyOrderedDispatcher;
+		decodingPipelines = pipelines;
+		batchCollectors = collectors;
+		ackEngines = engines;
 
 		if (postStart != null) {
 			postStart.accept(queue);
@@ -78,18 +178,31 @@ public class JCSMPInboundChannelAdapter extends MessageProducerSupport implement
 	protected void doStop() {
 		if (!isRunning()) return;
 		final String queueName = consumerDestination.getName();
-		logger.info(String.format("Stopping consumer flow from queue %s <inbound adapter ID: %s>", queueName, id));
-		consumerFlowReceiver.close();
+		logger.info(String.format("Stopping consumer flow(s) from queue %s <inbound adapter ID: %s>", queueName, id));
+		drain();
+		for (FlowReceiver flowReceiver : consumerFlowReceivers) {
+			flowReceiver.close();
+		}
+		consumerFlowReceivers = Collections.emptyList();
+		dispatcher = null;
+		decodingPipelines = Collections.emptyList();
+		batchCollectors = Collections.emptyList();
+		ackEngines = Collections.emptyList();
 	}
 
+	/**
+	 * Stop delivering messages, but keep the flows open so that messages which are being processed can still be
+	 * acknowledged.
+	 */
 	@Override
 	public int beforeShutdown() {
-		this.stop();
+		drain();
 		return 0;
 	}
 
 	@Override
 	public int afterShutdown() {
+		this.stop();
 		return 0;
 	}
 
@@ -101,14 +214,153 @@ public class JCSMPInboundChannelAdapter extends MessageProducerSupport implement
 		this.recoveryCallback = recoveryCallback;
 	}
 
+	/**
+	 * Consume the queue through one flow per session, instead of through a single flow of this adapter's session.
+	 * Flows of the same session share its dispatcher thread, so flows only consume in parallel on different sessions.
+	 * More than one flow requires a non-exclusive durable queue.
+	 */
+	public void setFlowSessions(List<JCSMPSession> flowSessions) {
+		Assert.notEmpty(flowSessions, "At least one flow session is required");
+		this.flowSessions = new ArrayList<>(flowSessions);
+	}
+
+	public void setDeferPayloadDecoding(boolean deferPayloadDecoding) {
+		this.deferPayloadDecoding = deferPayloadDecoding;
+	}
+
+	public void setMaxInflatedPayloadSize(int maxInflatedPayloadSize) {
+		this.maxInflatedPayloadSize = maxInflatedPayloadSize;
+	}
+
+	public void setMetrics(SolaceBinderMetrics metrics) {
+		this.metrics = metrics;
+	}
+
+	/**
+	 * The handler of this binding's failed messages, which records them in this binding's metrics once started.
+	 */
+	public void setErrorMessageHandler(SolaceErrorMessageHandler errorMessageHandler) {
+		this.errorMessageHandler = errorMessageHandler;
+	}
+
+	/**
+	 * Process messages on this many lanes instead of on the JCSMP dispatcher thread. Messages are assigned to lanes by
+	 * their {@link #setDispatchKeyExpression(Expression) key}. 0 processes messages on the dispatcher thread.
+	 */
+	public void setDispatchLaneCount(int dispatchLaneCount) {
+		this.dispatchLaneCount = dispatchLaneCount;
+	}
+
+	public void setDispatchLaneCapacity(int dispatchLaneCapacity) {
+		this.dispatchLaneCapacity = dispatchLaneCapacity;
+	}
+
+	public void setDispatchKeyExpression(Expression dispatchKeyExpression) {
+		this.dispatchKeyExpression = dispatchKeyExpression;
+	}
+
+	/**
+	 * Map messages on this many threads per flow instead of on the JCSMP dispatcher thread. Mapped messages are still
+	 * handled in the order they were received in. 0 maps messages on the dispatcher thread.
+	 */
+	public void setDecodingThreads(int decodingThreads) {
+		this.decodingThreads = decodingThreads;
+	}
+
+	public void setDecodingPipelineCapacity(int decodingPipelineCapacity) {
+		this.decodingPipelineCapacity = decodingPipelineCapacity;
+	}
+
+	/**
+	 * Send batches of up to this many messages as a single message whose payload is the list of their payloads.
+	 * 0 sends single messages.
+	 */
+	public void setBatchMaxSize(int batchMaxSize) {
+		this.batchMaxSize = batchMaxSize;
+	}
+
+	public void setBatchTimeout(long batchTimeout) {
+		this.batchTimeout = batchTimeout;
+	}
+
+	public void setBatchSplitOnFailure(boolean batchSplitOnFailure) {
+		this.batchSplitOnFailure = batchSplitOnFailure;
+	}
+
+	/**
+	 * Acknowledge messages on a dedicated thread per flow, instead of on the thread which processed them.
+	 */
+	public void setAsyncAck(boolean asyncAck) {
+		this.asyncAck = asyncAck;
+	}
+
+	public void setAsyncAckMaxBatchSize(int asyncAckMaxBatchSize) {
+		this.asyncAckMaxBatchSize = asyncAckMaxBatchSize;
+	}
+
 	@Override
 	protected AttributeAccessor getErrorMessageAttributes(org.springframework.messaging.Message<?> message) {
 		AttributeAccessor attributes = attributesHolder.get();
 		return attributes == null ? super.getErrorMessageAttributes(message) : attributes;
 	}
 
-	private XMLMessageListener buildListener() {
-		XMLMessageListener listener;
+	private KeyOrderedDispatcher createDispatcher(String queueName, List<FlowReceiver> flowReceivers) {
+		Assert.state(dispatchKeyExpression != null, "A dispatch key expression is required for dispatch lanes");
+		return new KeyOrderedDispatcher(String.format("solace-dispatch-%s", queueName), dispatchKeyExpression,
+				dispatchLaneCount, dispatchLaneCapacity,
+				() -> flowReceivers.forEach(FlowReceiver::stop),
+				() -> {
+					for (FlowReceiver flowReceiver : flowReceivers) {
+						try {
+							flowReceiver.start();
+						} catch (JCSMPException e) {
+							logger.warn(String.format("Failed to resume a consumer flow from queue %s <inbound adapter %s>",
+									queueName, id), e);
+						}
+					}
+				});
+	}
+
+	/**
+	 * Stops delivery from the flows, flushes the pending batches and waits for the decoding pipelines and dispatch lanes
+	 * to process the messages they already hold, and for the ack engines to send their acknowledgements, so that those
+	 * messages can still be acknowledged.
+	 */
+	private void drain() {
+		if (dispatcher != null) {
+			// Before stopping the flows, so that draining lanes can't resume them
+			dispatcher.close();
+		}
+		for (FlowReceiver flowReceiver : consumerFlowReceivers) {
+			flowReceiver.stop();
+		}
+		for (DecodingPipeline pipeline : decodingPipelines) {
+			pipeline.stop(DRAIN_TIMEOUT_MILLIS);
+		}
+		for (BatchCollector collector : batchCollectors) {
+			collector.stop();
+		}
+		if (dispatcher != null) {
+			dispatcher.stop(DRAIN_TIMEOUT_MILLIS);
+		}
+		for (JCSMPAckEngine ackEngine : ackEngines) {
+			ackEngine.stop(DRAIN_TIMEOUT_MILLIS);
+		}
+	}
+
+	/**
+	 * @return the name of the channel this adapter is bound to, or its queue's name if the channel has none
+	 */
+	private String getBindingName() {
+		MessageChannel outputChannel = getOutputChannel();
+		String name = outputChannel instanceof NamedComponent ?
+				((NamedComponent) outputChannel).getComponentName() : null;
+		return name != null ? name : consumerDestination.getName();
+	}
+
+	private InboundXMLMessageListener buildListener(SolaceBinderMetrics.ConsumerMetrics consumerMetrics,
+											 @Nullable KeyOrderedDispatcher keyOrderedDispatcher) {
+		InboundXMLMessageListener listener;
 		if (retryTemplate != null) {
 			Assert.state(getErrorChannel() == null,
 					"Cannot have an 'errorChannel' property when a 'RetryTemplate' is provided; " +
@@ -133,6 +385,10 @@ public class JCSMPInboundChannelAdapter extends MessageProducerSupport implement
 					this.getErrorChannel() != null
 			);
 		}
+		listener.setDeferPayloadDecoding(deferPayloadDecoding);
+		listener.setMaxInflatedPayloadSize(maxInflatedPayloadSize);
+		listener.setMetrics(consumerMetrics);
+		listener.setDispatcher(keyOrderedDispatcher);
 		return listener;
 	}
 }
@@ -2,6 +2,8 @@ package com.solace.spring.cloud.stream.binder.inbound;
 
 import com.solace.spring.cloud.stream.binder.properties.SolaceConsumerProperties;
 import com.solace.spring.cloud.stream.binder.util.ClosedChannelBindingException;
+import com.solace.spring.cloud.stream.binder.util.SolaceBinderMetrics;
+import com.solace.spring.cloud.stream.binder.util.SolaceMessageConversionException;
 import com.solace.spring.cloud.stream.binder.util.XMLMessageMapper;
 import com.solacesystems.jcsmp.BytesXMLMessage;
 import com.solacesystems.jcsmp.ConsumerFlowProperties;
@@ -30,6 +32,7 @@ public class JCSMPMessageSource extends AbstractMessageSource<Object> implements
 	private ExtendedConsumerProperties<SolaceConsumerProperties> consumerProperties;
 	private FlowReceiver consumerFlowReceiver;
 	private final XMLMessageMapper xmlMessageMapper = new XMLMessageMapper();
+	private SolaceBinderMetrics.ConsumerMetrics metrics = SolaceBinderMetrics.ConsumerMetrics.NOOP;
 	private boolean isRunning = false;
 
 	public JCSMPMessageSource(ConsumerDestination destination,
@@ -42,6 +45,7 @@ public class JCSMPMessageSource extends AbstractMessageSource<Object> implements
 		this.consumerProperties = consumerProperties;
 		this.endpointProperties = endpointProperties;
 		this.postStart = postStart;
+		xmlMessageMapper.setMaxInflatedPayloadSize(consumerProperties.getExtension().getMaxInflatedPayloadSize());
 	}
 
 	@Override
@@ -70,7 +74,30 @@ public class JCSMPMessageSource extends AbstractMessageSource<Object> implements
 			}
 		}
 
-		return xmlMessage != null ? xmlMessageMapper.map(xmlMessage, true) : null;
+		if (xmlMessage == null) {
+			return null;
+		}
+
+		metrics.received();
+		long startTime = metrics.isEnabled() ? System.nanoTime() : 0;
+		Object message;
+		try {
+			message = xmlMessageMapper.map(xmlMessage, true, consumerProperties.getExtension().isDeferPayloadDecoding());
+		} catch (SolaceMessageConversionException e) {
+			metrics.conversionFailed();
+			throw e;
+		}
+		if (metrics.isEnabled()) {
+			metrics.mapped(System.nanoTime() - startTime);
+		}
+		return message;
+	}
+
+	/**
+	 * Polled bindings have no channel of their own, so they're named after their queue.
+	 */
+	public void setMetrics(SolaceBinderMetrics metrics) {
+		this.metrics = metrics.consumer(queueName, queueName);
 	}
 
 	@Override
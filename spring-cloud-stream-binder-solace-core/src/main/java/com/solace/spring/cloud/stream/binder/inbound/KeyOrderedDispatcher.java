@@ -0,0 +1,275 @@
+package com.solace.spring.cloud.stream.binder.inbound;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.expression.EvaluationContext;
+import org.springframework.expression.Expression;
+import org.springframework.expression.spel.support.SimpleEvaluationContext;
+import org.springframework.lang.Nullable;
+import org.springframework.messaging.Message;
+import org.springframework.util.Assert;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Hands inbound messages over to a fixed number of lanes, each of which processes its messages in order on its own
+ * thread. A message's lane is picked by the hash of a key evaluated over the message, so messages with the same key are
+ * processed in the order they were received, while messages with different keys may be processed in parallel.
+ * <p>Lanes hold a bounded number of messages. Once a lane is full, the flows are paused and the lane's further messages
+ * are set aside in its overflow, so that the JCSMP dispatcher thread never waits for a lane. The overflow only takes the
+ * messages which the flows already had in transit when they were paused, and is moved into the lane as it drains. The
+ * flows resume once every overflow is empty and every lane has drained to half of its capacity.</p>
+ * <p>The flows are paused and resumed without holding any lock which dispatching threads wait for, since stopping a
+ * flow may wait for its session's dispatcher thread.</p>
+ */
+class KeyOrderedDispatcher {
+	private static final Log logger = LogFactory.getLog(KeyOrderedDispatcher.class);
+	private static final EvaluationContext EVALUATION_CONTEXT = SimpleEvaluationContext.forReadOnlyDataBinding().build();
+
+	private final String name;
+	private final Expression keyExpression;
+	private final Lane[] lanes;
+	private final int resumeThreshold;
+	private final Runnable pauseFlows;
+	private final Runnable resumeFlows;
+	private volatile boolean running = false;
+	private volatile boolean paused = false;
+	private volatile boolean closing = false;
+	private boolean flowsPaused = false; // Guarded by the flow control lock
+	private final Lock flowControlLock = new ReentrantLock();
+	private final AtomicInteger flowControlRequests = new AtomicInteger();
+
+	/**
+	 * @param name used to name the lanes' threads
+	 * @param keyExpression evaluated against the message, messages with a {@code null} key all go to the first lane
+	 * @param laneCount the number of lanes
+	 * @param laneCapacity the number of messages a lane may hold before the flows are paused
+	 * @param pauseFlows stops delivery from the flows
+	 * @param resumeFlows starts delivery from the flows
+	 */
+	KeyOrderedDispatcher(String name, Expression keyExpression, int laneCount, int laneCapacity,
+						 Runnable pauseFlows, Runnable resumeFlows) {
+		Assert.isTrue(laneCount > 0, "There must be at least one dispatch lane");
+		Assert.isTrue(laneCapacity > 0, "The dispatch lane capacity must be greater than 0");
+		this.name = name;
+		this.keyExpression = keyExpression;
+		this.lanes = new Lane[laneCount];
+		for (int i = 0; i < laneCount; i++) {
+			lanes[i] = new Lane(laneCapacity);
+		}
+		this.resumeThreshold = laneCapacity / 2;
+		this.pauseFlows = pauseFlows;
+		this.resumeFlows = resumeFlows;
+	}
+
+	synchronized void start() {
+		if (running) return;
+		running = true;
+		for (int i = 0; i < lanes.length; i++) {
+			Thread thread = new Thread(lanes[i], String.format("%s-lane-%s", name, i));
+			thread.setDaemon(true);
+			lanes[i].thread = thread;
+			thread.start();
+		}
+	}
+
+	/**
+	 * Processes the task on the lane of the message's key. Never blocks: if that lane is full, the task is set aside
+	 * in the lane's overflow and the flows are paused.
+	 * @param message the message to evaluate the key over
+	 * @param task processes and acknowledges the message
+	 */
+	void dispatch(Message<?> message, Runnable task) {
+		Lane lane = lanes[laneIndex(keyExpression.getValue(EVALUATION_CONTEXT, message))];
+		// Checked under the lane's lock, which the lane also holds when it checks for tasks before exiting
+		synchronized (lane) {
+			if (!running) {
+				refuse(message);
+				return;
+			}
+			// Once a lane overflows, its later tasks must queue up behind the overflow to keep their order
+			if (lane.overflow.isEmpty() && lane.queue.offer(task)) {
+				return;
+			}
+		}
+
+		// Pause before overflowing, so that the lane sees the pause once it has drained its overflow and resumes
+		pause();
+		synchronized (lane) {
+			if (!running) {
+				refuse(message);
+				return;
+			}
+			if (lane.overflow.isEmpty() && lane.queue.offer(task)) {
+				return;
+			}
+			lane.overflow.add(task);
+		}
+	}
+
+	/**
+	 * Stops pausing and resuming the flows, so that flows which are being stopped stay stopped. Messages are still
+	 * accepted until the dispatcher is {@link #stop(long) stopped}. Waits for the flows to be paused or resumed if
+	 * that is in progress.
+	 */
+	void close() {
+		flowControlLock.lock();
+		try {
+			closing = true;
+		} finally {
+			flowControlLock.unlock();
+		}
+	}
+
+	/**
+	 * Stops accepting messages and waits for the lanes to process the messages they already hold. Closes the
+	 * dispatcher first.
+	 * @param timeoutMillis how long to wait for every lane
+	 * @return true if every lane finished in time
+	 */
+	boolean stop(long timeoutMillis) {
+		close();
+		synchronized (this) {
+			if (!running) return true;
+			running = false;
+		}
+
+		long deadline = System.currentTimeMillis() + timeoutMillis;
+		boolean drained = true;
+		for (Lane lane : lanes) {
+			try {
+				lane.thread.join(Math.max(1, deadline - System.currentTimeMillis()));
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+
+			if (lane.thread.isAlive()) {
+				drained = false;
+				lane.thread.interrupt();
+			}
+		}
+
+		if (!drained) {
+			logger.warn(String.format("Dispatch lanes of %s did not finish within %s ms, unprocessed messages will be " +
+					"redelivered", name, timeoutMillis));
+		}
+		return drained;
+	}
+
+	int laneIndex(@Nullable Object key) {
+		return key == null ? 0 : Math.floorMod(key.hashCode(), lanes.length);
+	}
+
+	int getQueuedCount() {
+		int count = 0;
+		for (Lane lane : lanes) {
+			synchronized (lane) {
+				count += lane.queue.size() + lane.overflow.size();
+			}
+		}
+		return count;
+	}
+
+	boolean isPaused() {
+		return paused;
+	}
+
+	private void pause() {
+		synchronized (this) {
+			if (paused || !running || closing) return;
+			paused = true;
+		}
+		logger.info(String.format("Pausing consumer flow(s) since a dispatch lane of %s is full", name));
+		updateFlows();
+	}
+
+	private void resumeIfDrained() {
+		if (!paused) return;
+		synchronized (this) {
+			if (!paused || !running || closing) return;
+			for (Lane lane : lanes) {
+				synchronized (lane) {
+					if (!lane.overflow.isEmpty() || lane.queue.size() > resumeThreshold) return;
+				}
+			}
+			paused = false;
+		}
+		logger.info(String.format("Resuming consumer flow(s) since the dispatch lanes of %s have drained", name));
+		updateFlows();
+	}
+
+	/**
+	 * Pauses or resumes the flows until they match {@link #paused}. Only one thread does so at a time, others which
+	 * request it meanwhile leave it to that thread instead of waiting for it.
+	 */
+	private void updateFlows() {
+		if (flowControlRequests.getAndIncrement() != 0) return;
+		int missed = 1;
+		do {
+			flowControlLock.lock();
+			try {
+				boolean pause = paused;
+				if (!closing && pause != flowsPaused) {
+					(pause ? pauseFlows : resumeFlows).run();
+					flowsPaused = pause;
+				}
+			} finally {
+				flowControlLock.unlock();
+			}
+			missed = flowControlRequests.addAndGet(-missed);
+		} while (missed != 0);
+	}
+
+	private void refuse(Message<?> message) {
+		logger.warn(String.format("Dropping message %s since the dispatch lanes of %s are stopped, it will be " +
+				"redelivered", message.getHeaders().getId(), name));
+	}
+
+	private final class Lane implements Runnable {
+		private final BlockingQueue<Runnable> queue;
+		private final Queue<Runnable> overflow = new ArrayDeque<>(); // Guarded by the lane
+		private Thread thread;
+
+		Lane(int capacity) {
+			this.queue = new ArrayBlockingQueue<>(capacity);
+		}
+
+		@Override
+		public void run() {
+			while (running || hasTasks()) {
+				refill();
+				Runnable task;
+				try {
+					task = queue.poll(100, TimeUnit.MILLISECONDS);
+				} catch (InterruptedException e) {
+					return;
+				}
+
+				if (task == null) continue;
+				try {
+					task.run();
+				} catch (RuntimeException e) {
+					logger.warn(String.format("Failed to process a message on a dispatch lane of %s", name), e);
+				}
+				resumeIfDrained();
+			}
+		}
+
+		private synchronized boolean hasTasks() {
+			return !queue.isEmpty() || !overflow.isEmpty();
+		}
+
+		private synchronized void refill() {
+			while (!overflow.isEmpty() && queue.offer(overflow.peek())) {
+				overflow.remove();
+			}
+		}
+	}
+}
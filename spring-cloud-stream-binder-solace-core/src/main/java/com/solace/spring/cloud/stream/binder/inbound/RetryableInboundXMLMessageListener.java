@@ -38,7 +38,7 @@ class RetryableInboundXMLMessageListener extends InboundXMLMessageListener imple
 	void handleMessage(final Message<?> message, final BytesXMLMessage bytesXMLMessage) {
 		retryTemplate.execute((context) -> {
 			sendToConsumer(message, bytesXMLMessage);
-			AckUtils.autoAck(StaticMessageHeaderAccessor.getAcknowledgmentCallback(message));
+			autoAck(message);
 			return null;
 		}, (context) -> {
 			setAttributesIfNecessary(bytesXMLMessage, null);
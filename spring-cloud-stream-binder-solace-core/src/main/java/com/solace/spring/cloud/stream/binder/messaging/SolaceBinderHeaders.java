@@ -0,0 +1,44 @@
+package com.solace.spring.cloud.stream.binder.messaging;
+
+/**
+ * Spring message headers which are understood by the Solace binder.
+ */
+public final class SolaceBinderHeaders {
+	private static final String PREFIX = "solace_";
+
+	/**
+	 * <p>Acceptable Value Type: {@code CompletableFuture<Void>}</p>
+	 * <p>Set by the producer before sending. The future is completed once the message broker has acknowledged the
+	 * message, or is completed exceptionally if the message broker rejected it.</p>
+	 */
+	public static final String CONFIRMATION = PREFIX + "confirmation";
+
+	/**
+	 * <p>Acceptable Value Type: {@code DeliveryMode} or {@code String}</p>
+	 * <p>Set by the producer to override the delivery mode of the producer binding for this message.</p>
+	 */
+	public static final String DELIVERY_MODE = PREFIX + "deliveryMode";
+
+	/**
+	 * <p>Acceptable Value Type: {@code String} or {@code Destination}</p>
+	 * <p>Set by the producer to publish this message to the given destination instead of the binding's topic.
+	 * The binding's prefix is not applied to this destination.</p>
+	 */
+	public static final String TARGET_DESTINATION = PREFIX + "targetDestination";
+
+	/**
+	 * <p>Acceptable Value Type: {@code String}</p>
+	 * <p>Set by the producer to specify whether the {@link #TARGET_DESTINATION} header names a {@code topic} or a
+	 * {@code queue}. Defaults to {@code topic}.</p>
+	 */
+	public static final String TARGET_DESTINATION_TYPE = PREFIX + "targetDestinationType";
+
+	/**
+	 * <p>Acceptable Value Type: {@code List<Map<String, Object>>}</p>
+	 * <p>Set by batch consumers. The headers of each message of the batch, in the same order as the batch's payloads.
+	 * </p>
+	 */
+	public static final String BATCHED_HEADERS = PREFIX + "batchedHeaders";
+
+	private SolaceBinderHeaders() {}
+}
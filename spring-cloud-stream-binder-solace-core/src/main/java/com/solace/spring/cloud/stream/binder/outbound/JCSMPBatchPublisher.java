@@ -0,0 +1,141 @@
+package com.solace.spring.cloud.stream.binder.outbound;
+
+import com.solace.spring.cloud.stream.binder.util.ErrorChannelSendingCorrelationKey;
+import com.solacesystems.jcsmp.DeliveryMode;
+import com.solacesystems.jcsmp.Destination;
+import com.solacesystems.jcsmp.JCSMPException;
+import com.solacesystems.jcsmp.JCSMPSendMultipleEntry;
+import com.solacesystems.jcsmp.XMLMessage;
+import com.solacesystems.jcsmp.XMLMessageProducer;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Accumulates messages and publishes them through {@link XMLMessageProducer#sendMultiple} once either the batch is
+ * full or the oldest message has lingered for the configured amount of time. Without a linger time, each message is
+ * published as soon as it's added.
+ * <p>Publishing failures are reported through each message's {@link ErrorChannelSendingCorrelationKey}.</p>
+ */
+class JCSMPBatchPublisher {
+	// Keep each sendMultiple call within the API's per-call message limit
+	static final int MAX_SEND_MULTIPLE_ENTRIES = 50;
+
+	private final String id;
+	private final XMLMessageProducer producer;
+	private final int batchMaxSize;
+	private final long lingerTimeInMillis;
+	private final JCSMPSendMultipleEntry[] entries;
+	private final XMLMessage[] messages;
+	private int size = 0;
+	private ScheduledFuture<?> lingerFuture;
+	private final Object lock = new Object();
+
+	private static final Log logger = LogFactory.getLog(JCSMPBatchPublisher.class);
+	private static final ScheduledExecutorService lingerScheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+		Thread thread = new Thread(r, "solace-batch-publisher-linger");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	JCSMPBatchPublisher(String id, XMLMessageProducer producer, int batchMaxSize, long lingerTimeInMillis) {
+		this.id = id;
+		this.producer = producer;
+		this.batchMaxSize = batchMaxSize;
+		this.lingerTimeInMillis = lingerTimeInMillis;
+		this.entries = new JCSMPSendMultipleEntry[batchMaxSize];
+		this.messages = new XMLMessage[batchMaxSize];
+	}
+
+	void add(XMLMessage xmlMessage, Destination destination) {
+		synchronized (lock) {
+			append(xmlMessage, destination);
+			if (size >= batchMaxSize || lingerTimeInMillis <= 0) {
+				flush();
+			} else if (size == 1) {
+				lingerFuture = lingerScheduler.schedule(this::flush, lingerTimeInMillis, TimeUnit.MILLISECONDS);
+			}
+		}
+	}
+
+	/**
+	 * Publish an explicit batch. Anything already pending is published first so that ordering is preserved.
+	 */
+	void addAll(List<XMLMessage> xmlMessages, List<Destination> destinations) {
+		synchronized (lock) {
+			for (int i = 0; i < xmlMessages.size(); i++) {
+				append(xmlMessages.get(i), destinations.get(i));
+				if (size >= batchMaxSize) {
+					flush();
+				}
+			}
+			flush();
+		}
+	}
+
+	void flush() {
+		synchronized (lock) {
+			if (lingerFuture != null) {
+				lingerFuture.cancel(false);
+				lingerFuture = null;
+			}
+
+			int offset = 0;
+			try {
+				while (offset < size) {
+					int length = Math.min(size - offset, MAX_SEND_MULTIPLE_ENTRIES);
+					int sent = producer.sendMultiple(entries, offset, length, 0);
+					if (sent <= 0) {
+						throw new JCSMPException(String.format("The producer accepted none of the %s remaining messages",
+								size - offset));
+					}
+					// The producer may accept only part of the entries, the remainder goes out with the next call
+					confirmDirectEntries(offset, sent);
+					offset += sent;
+				}
+			} catch (JCSMPException e) {
+				handleFailedEntries(offset, e);
+			} finally {
+				for (int i = 0; i < size; i++) {
+					entries[i] = null;
+					messages[i] = null;
+				}
+				size = 0;
+			}
+		}
+	}
+
+	private void append(XMLMessage xmlMessage, Destination destination) {
+		entries[size] = new JCSMPSendMultipleEntry(xmlMessage, destination);
+		messages[size] = xmlMessage;
+		size++;
+	}
+
+	private void confirmDirectEntries(int offset, int length) {
+		for (int i = offset; i < offset + length; i++) {
+			Object correlationKey = messages[i].getCorrelationKey();
+			if (correlationKey instanceof ErrorChannelSendingCorrelationKey &&
+					messages[i].getDeliveryMode() == DeliveryMode.DIRECT) {
+				// Direct messages are never acknowledged by the message broker
+				((ErrorChannelSendingCorrelationKey) correlationKey).confirm();
+			}
+		}
+	}
+
+	private void handleFailedEntries(int offset, JCSMPException e) {
+		String msg = String.format("Unable to publish a batch of %s messages <message handler ID: %s>",
+				size - offset, id);
+		logger.warn(msg, e);
+		for (int i = offset; i < size; i++) {
+			Object correlationKey = messages[i].getCorrelationKey();
+			if (correlationKey instanceof ErrorChannelSendingCorrelationKey) {
+				((ErrorChannelSendingCorrelationKey) correlationKey).send(msg, e);
+			}
+		}
+	}
+}
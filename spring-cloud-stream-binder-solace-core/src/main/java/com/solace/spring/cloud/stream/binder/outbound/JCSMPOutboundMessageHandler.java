@@ -1,9 +1,20 @@
 package com.solace.spring.cloud.stream.binder.outbound;
 
+import com.solace.spring.cloud.stream.binder.messaging.SolaceBinderHeaders;
 import com.solace.spring.cloud.stream.binder.properties.SolaceProducerProperties;
+import com.solace.spring.cloud.stream.binder.serialization.PayloadSerializers;
 import com.solace.spring.cloud.stream.binder.util.ClosedChannelBindingException;
+import com.solace.spring.cloud.stream.binder.util.DestinationCache;
+import com.solace.spring.cloud.stream.binder.util.ErrorChannelSendingCorrelationKey;
+import com.solace.spring.cloud.stream.binder.util.HeaderPropagationFilter;
 import com.solace.spring.cloud.stream.binder.util.JCSMPSessionProducerManager;
+import com.solace.spring.cloud.stream.binder.util.PublisherInFlightWindow;
+import com.solace.spring.cloud.stream.binder.util.PublisherWindowFullException;
+import com.solace.spring.cloud.stream.binder.util.SolaceBinderMetrics;
+import com.solace.spring.cloud.stream.binder.util.SolaceMessageConversionException;
 import com.solace.spring.cloud.stream.binder.util.XMLMessageMapper;
+import com.solacesystems.jcsmp.DeliveryMode;
+import com.solacesystems.jcsmp.Destination;
 import com.solacesystems.jcsmp.JCSMPException;
 import com.solacesystems.jcsmp.JCSMPFactory;
 import com.solacesystems.jcsmp.JCSMPSession;
@@ -12,28 +23,42 @@ import com.solacesystems.jcsmp.XMLMessage;
 import com.solacesystems.jcsmp.XMLMessageProducer;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.springframework.cloud.stream.binder.BinderHeaders;
 import org.springframework.cloud.stream.binder.ExtendedProducerProperties;
 import org.springframework.cloud.stream.provisioning.ProducerDestination;
 import org.springframework.context.Lifecycle;
 import org.springframework.integration.support.ErrorMessageStrategy;
+import org.springframework.integration.support.MessageBuilder;
+import org.springframework.lang.Nullable;
 import org.springframework.messaging.Message;
 import org.springframework.messaging.MessageChannel;
 import org.springframework.messaging.MessageHandler;
 import org.springframework.messaging.MessagingException;
+import org.springframework.util.ObjectUtils;
+import org.springframework.util.StringUtils;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 public class JCSMPOutboundMessageHandler implements MessageHandler, Lifecycle {
 	private final String id = UUID.randomUUID().toString();
 	private final Topic topic;
+	private final Topic[] partitionTopics;
 	private final JCSMPSession jcsmpSession;
 	private MessageChannel errorChannel;
 	private JCSMPSessionProducerManager producerManager;
 	private ExtendedProducerProperties<SolaceProducerProperties> producerProperties;
 	private XMLMessageProducer producer;
-	private final XMLMessageMapper xmlMessageMapper = new XMLMessageMapper();
-	private boolean isRunning = false;
+	private volatile JCSMPBatchPublisher batchPublisher;
+	private final DestinationCache destinationCache;
+	private final PublisherInFlightWindow inFlightWindow;
+	private final HeaderPropagationFilter headerFilter;
+	private final XMLMessageMapper xmlMessageMapper;
+	private volatile boolean isRunning = false;
 	private ErrorMessageStrategy errorMessageStrategy;
+	private SolaceBinderMetrics.ProducerMetrics metrics = SolaceBinderMetrics.ProducerMetrics.NOOP;
 
 	private static final Log logger = LogFactory.getLog(JCSMPOutboundMessageHandler.class);
 
@@ -43,10 +68,40 @@ public class JCSMPOutboundMessageHandler implements MessageHandler, Lifecycle {
 									   ExtendedProducerProperties<SolaceProducerProperties> producerProperties,
 									   JCSMPSessionProducerManager producerManager) {
 		this.topic = JCSMPFactory.onlyInstance().createTopic(destination.getName());
+		if (producerProperties.isPartitioned()) {
+			this.partitionTopics = new Topic[producerProperties.getPartitionCount()];
+			for (int partition = 0; partition < partitionTopics.length; partition++) {
+				partitionTopics[partition] = JCSMPFactory.onlyInstance()
+						.createTopic(destination.getNameForPartition(partition));
+			}
+		} else {
+			this.partitionTopics = null;
+		}
 		this.jcsmpSession = jcsmpSession;
 		this.errorChannel = errorChannel;
 		this.producerManager = producerManager;
 		this.producerProperties = producerProperties;
+		this.destinationCache = new DestinationCache(producerProperties.getExtension().getDestinationCacheSize());
+
+		SolaceProducerProperties solaceProperties = producerProperties.getExtension();
+		PayloadSerializers.get(solaceProperties.getPayloadSerializer()); // Fail on unknown serializers before binding
+		if (ObjectUtils.isEmpty(solaceProperties.getHeaderIncludePatterns()) &&
+				ObjectUtils.isEmpty(solaceProperties.getHeaderExcludePatterns())) {
+			this.headerFilter = null;
+		} else {
+			this.headerFilter = new HeaderPropagationFilter(solaceProperties.getHeaderIncludePatterns(),
+					solaceProperties.getHeaderExcludePatterns());
+		}
+		this.xmlMessageMapper = new XMLMessageMapper(headerFilter);
+		this.xmlMessageMapper.setCompactHeaderValues(solaceProperties.isCompactHeaderValues());
+
+		if (solaceProperties.getInFlightMaxMessages() > 0 || solaceProperties.getInFlightMaxBytes() > 0) {
+			this.inFlightWindow = new PublisherInFlightWindow(id, solaceProperties.getInFlightMaxMessages(),
+					solaceProperties.getInFlightMaxBytes(), solaceProperties.getInFlightPolicy(),
+					solaceProperties.getInFlightBlockTimeoutInMillis());
+		} else {
+			this.inFlightWindow = null;
+		}
 	}
 
 	@Override
@@ -57,13 +112,50 @@ public class JCSMPOutboundMessageHandler implements MessageHandler, Lifecycle {
 			throw handleMessagingException(msg0, message, new ClosedChannelBindingException(msg1));
 		}
 
-		XMLMessage xmlMessage = xmlMessageMapper.map(message, producerProperties.getExtension());
+		// Read once, stop() may clear it at any time
+		JCSMPBatchPublisher batchPublisher = this.batchPublisher;
+		if (batchPublisher != null && message.getPayload() instanceof List) {
+			sendBatch(message, batchPublisher);
+			return;
+		}
 
+		Destination destination = resolveDestination(message);
+		// Direct messages which are sent right away can reuse this thread's message instance, queued messages can't
+		XMLMessage xmlMessage = mapMessage(message, batchPublisher == null);
+		ErrorChannelSendingCorrelationKey correlationKey;
+		boolean isDirect;
 		try {
-			producer.send(xmlMessage, topic);
-		} catch (JCSMPException e) {
-			throw handleMessagingException(
-					String.format("Unable to send message to topic %s", topic.getName()), message, e);
+			correlationKey = createCorrelationKey(message, getConfirmation(message));
+			if (correlationKey != null) {
+				xmlMessage.setCorrelationKey(correlationKey);
+			}
+			acquireInFlightWindow(correlationKey, xmlMessage);
+
+			if (batchPublisher != null) {
+				batchPublisher.add(xmlMessage, destination);
+				metrics.published(1);
+				return;
+			}
+
+			isDirect = xmlMessage.getDeliveryMode() == DeliveryMode.DIRECT;
+			try {
+				producer.send(xmlMessage, destination);
+				metrics.published(1);
+			} catch (JCSMPException e) {
+				String msg = String.format("Unable to send message to destination %s", destination.getName());
+				if (correlationKey != null) {
+					logger.warn(msg, e);
+					throw correlationKey.send(msg, e);
+				} else {
+					throw handleMessagingException(msg, message, e);
+				}
+			}
+		} finally {
+			xmlMessageMapper.release(xmlMessage);
+		}
+
+		if (correlationKey != null && isDirect) {
+			correlationKey.confirm(); // Direct messages are never acknowledged by the message broker
 		}
 	}
 
@@ -83,6 +175,12 @@ public class JCSMPOutboundMessageHandler implements MessageHandler, Lifecycle {
 			throw new RuntimeException(msg, e);
 		}
 
+		int batchMaxSize = producerProperties.getExtension().getPublishBatchMaxSize();
+		if (batchMaxSize > 1) {
+			batchPublisher = new JCSMPBatchPublisher(id, producer, batchMaxSize,
+					producerProperties.getExtension().getPublishBatchLingerTimeInMillis());
+		}
+
 		isRunning = true;
 	}
 
@@ -90,6 +188,11 @@ public class JCSMPOutboundMessageHandler implements MessageHandler, Lifecycle {
 	public void stop() {
 		if (!isRunning()) return;
 		logger.info(String.format("Stopping producer to topic %s <message handler ID: %s>", topic.getName(), id));
+		JCSMPBatchPublisher batchPublisher = this.batchPublisher;
+		if (batchPublisher != null) {
+			this.batchPublisher = null;
+			batchPublisher.flush();
+		}
 		producerManager.release(id);
 		isRunning = false;
 	}
@@ -103,6 +206,222 @@ public class JCSMPOutboundMessageHandler implements MessageHandler, Lifecycle {
 		this.errorMessageStrategy = errorMessageStrategy;
 	}
 
+	/**
+	 * @param bindingName the name of the binding's output channel, or null to name the binding after its topic
+	 */
+	public void setMetrics(SolaceBinderMetrics binderMetrics, @Nullable String bindingName) {
+		this.metrics = binderMetrics.producer(bindingName != null ? bindingName : topic.getName(), topic.getName());
+		metrics.bindDestinationCache(destinationCache);
+		if (inFlightWindow != null) {
+			metrics.bindInFlightWindow(inFlightWindow);
+		}
+		if (headerFilter != null) {
+			metrics.bindHeaderFilter(headerFilter);
+		}
+	}
+
+	public DestinationCache getDestinationCache() {
+		return destinationCache;
+	}
+
+	/**
+	 * @return the header filter of this producer, or null if all headers are propagated
+	 */
+	public HeaderPropagationFilter getHeaderFilter() {
+		return headerFilter;
+	}
+
+	/**
+	 * @return the in-flight window of this producer, or null if in-flight messages are not limited
+	 */
+	public PublisherInFlightWindow getInFlightWindow() {
+		return inFlightWindow;
+	}
+
+	/**
+	 * Each element of the payload is published as its own message. Elements which are themselves Spring messages keep
+	 * their own headers, any other element inherits the headers of the batch message.
+	 */
+	private void sendBatch(Message<?> message, JCSMPBatchPublisher batchPublisher) {
+		List<?> payload = (List<?>) message.getPayload();
+		CompletableFuture<Void> batchConfirmation = getConfirmation(message);
+		List<XMLMessage> xmlMessages = new ArrayList<>(payload.size());
+		List<Destination> destinations = new ArrayList<>(payload.size());
+		CompletableFuture<?>[] confirmations = null;
+		if (batchConfirmation != null) {
+			confirmations = new CompletableFuture<?>[payload.size()];
+			for (int i = 0; i < confirmations.length; i++) {
+				confirmations[i] = new CompletableFuture<Void>();
+			}
+			CompletableFuture.allOf(confirmations).whenComplete((v, e) -> {
+				if (e != null) {
+					batchConfirmation.completeExceptionally(e);
+				} else {
+					batchConfirmation.complete(null);
+				}
+			});
+		}
+
+		for (int i = 0; i < payload.size(); i++) {
+			try {
+				addBatchElement(message, payload.get(i), confirmations != null ? confirmations[i] : null,
+						batchPublisher, xmlMessages, destinations);
+			} catch (RuntimeException e) {
+				// Without an in-flight window, none of the elements have been handed over to the batch publisher yet
+				int unsent = i;
+				if (inFlightWindow != null) {
+					batchPublisher.flush();
+				} else {
+					unsent = 0;
+				}
+
+				if (confirmations != null) {
+					// Elements which were never sent would otherwise leave the batch unconfirmed forever
+					for (int j = unsent; j < confirmations.length; j++) {
+						confirmations[j].completeExceptionally(e);
+					}
+				}
+				throw e;
+			}
+		}
+
+		if (inFlightWindow != null) {
+			batchPublisher.flush();
+		} else {
+			batchPublisher.addAll(xmlMessages, destinations);
+		}
+		metrics.published(payload.size());
+	}
+
+	@SuppressWarnings("unchecked")
+	private void addBatchElement(Message<?> batchMessage, Object element, CompletableFuture<?> confirmation,
+								 JCSMPBatchPublisher batchPublisher, List<XMLMessage> xmlMessages,
+								 List<Destination> destinations) {
+		Message<?> elementMessage = element instanceof Message ? (Message<?>) element :
+				MessageBuilder.withPayload(element)
+						.copyHeaders(batchMessage.getHeaders())
+						.removeHeader(SolaceBinderHeaders.CONFIRMATION)
+						.build();
+
+		Destination destination = resolveDestination(elementMessage);
+		XMLMessage xmlMessage = mapMessage(elementMessage, false);
+		ErrorChannelSendingCorrelationKey correlationKey = createCorrelationKey(elementMessage,
+				(CompletableFuture<Void>) confirmation);
+		if (correlationKey != null) {
+			xmlMessage.setCorrelationKey(correlationKey);
+		}
+
+		if (inFlightWindow != null) {
+			// Hand over every message as soon as it has entered the window, otherwise a batch which is larger than
+			// the window would wait on itself
+			acquireInFlightWindow(correlationKey, xmlMessage);
+			batchPublisher.add(xmlMessage, destination);
+		} else {
+			xmlMessages.add(xmlMessage);
+			destinations.add(destination);
+		}
+	}
+
+	/**
+	 * @param reusable whether the message is sent right away, and can therefore reuse this thread's message instance
+	 */
+	private XMLMessage mapMessage(Message<?> message, boolean reusable) {
+		long startTime = metrics.isEnabled() ? System.nanoTime() : 0;
+		XMLMessage xmlMessage;
+		try {
+			xmlMessage = reusable ?
+					xmlMessageMapper.mapReusable(message, producerProperties.getExtension()) :
+					xmlMessageMapper.map(message, producerProperties.getExtension());
+		} catch (SolaceMessageConversionException e) {
+			metrics.conversionFailed();
+			throw e;
+		}
+		if (metrics.isEnabled()) {
+			metrics.mapped(System.nanoTime() - startTime);
+		}
+		return xmlMessage;
+	}
+
+	private Destination resolveDestination(Message<?> message) {
+		Object targetDestination = message.getHeaders().get(SolaceBinderHeaders.TARGET_DESTINATION);
+		if (targetDestination == null) {
+			return partitionTopics != null ? getPartitionTopic(message) : topic;
+		} else if (targetDestination instanceof Destination) {
+			return (Destination) targetDestination;
+		} else if (!(targetDestination instanceof String) || !StringUtils.hasText((String) targetDestination)) {
+			String msg = String.format("Invalid value for header %s: %s",
+					SolaceBinderHeaders.TARGET_DESTINATION, targetDestination);
+			throw handleMessagingException(msg, message, new IllegalArgumentException(msg));
+		}
+
+		Object destinationType = message.getHeaders().get(SolaceBinderHeaders.TARGET_DESTINATION_TYPE);
+		if (destinationType == null || "topic".equalsIgnoreCase(destinationType.toString())) {
+			return destinationCache.getTopic((String) targetDestination);
+		} else if ("queue".equalsIgnoreCase(destinationType.toString())) {
+			return destinationCache.getQueue((String) targetDestination);
+		} else {
+			String msg = String.format("Invalid value for header %s: %s. Expected topic or queue",
+					SolaceBinderHeaders.TARGET_DESTINATION_TYPE, destinationType);
+			throw handleMessagingException(msg, message, new IllegalArgumentException(msg));
+		}
+	}
+
+	private Topic getPartitionTopic(Message<?> message) {
+		Object partition = message.getHeaders().get(BinderHeaders.PARTITION_HEADER);
+		if (partition instanceof Integer && (Integer) partition >= 0 && (Integer) partition < partitionTopics.length) {
+			return partitionTopics[(Integer) partition];
+		}
+
+		String msg = String.format("Invalid value for header %s: %s. Expected a partition between 0 and %s",
+				BinderHeaders.PARTITION_HEADER, partition, partitionTopics.length - 1);
+		throw handleMessagingException(msg, message, new IllegalArgumentException(msg));
+	}
+
+	@SuppressWarnings("unchecked")
+	private CompletableFuture<Void> getConfirmation(Message<?> message) {
+		Object confirmation = message.getHeaders().get(SolaceBinderHeaders.CONFIRMATION);
+		if (confirmation != null && !(confirmation instanceof CompletableFuture)) {
+			logger.warn(String.format("Ignoring header %s, expected a %s but got a %s", SolaceBinderHeaders.CONFIRMATION,
+					CompletableFuture.class.getSimpleName(), confirmation.getClass().getSimpleName()));
+			return null;
+		}
+		return (CompletableFuture<Void>) confirmation;
+	}
+
+	/**
+	 * Broker acknowledgements are only correlated when someone is listening for them, either through the error
+	 * channel or through a confirmation future supplied by the caller, when they're needed to release the
+	 * in-flight window, or when broker rejections are counted.
+	 */
+	private ErrorChannelSendingCorrelationKey createCorrelationKey(Message<?> message,
+																   CompletableFuture<Void> confirmation) {
+		if (confirmation == null && errorChannel == null && inFlightWindow == null && !metrics.isEnabled()) {
+			return null;
+		}
+
+		ErrorChannelSendingCorrelationKey correlationKey = new ErrorChannelSendingCorrelationKey(message, errorChannel,
+				errorMessageStrategy, confirmation);
+		correlationKey.setProducerMetrics(metrics);
+		return correlationKey;
+	}
+
+	private void acquireInFlightWindow(ErrorChannelSendingCorrelationKey correlationKey, XMLMessage xmlMessage) {
+		if (inFlightWindow == null) return;
+
+		try {
+			inFlightWindow.acquire(correlationKey,
+					xmlMessage.getContentLength() + xmlMessage.getAttachmentContentLength());
+		} catch (PublisherWindowFullException e) {
+			logger.warn(e.getMessage());
+			throw correlationKey.send(e.getMessage(), e);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			String msg = String.format("Interrupted while waiting for room in the in-flight window of producer %s", id);
+			logger.warn(msg, e);
+			throw correlationKey.send(msg, e);
+		}
+	}
+
 	private MessagingException handleMessagingException(String msg, Message<?> message, Exception e)
 			throws MessagingException {
 		logger.warn(msg, e);
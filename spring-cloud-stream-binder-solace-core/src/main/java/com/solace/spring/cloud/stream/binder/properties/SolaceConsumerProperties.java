@@ -3,9 +3,25 @@ package com.solace.spring.cloud.stream.binder.properties;
 import com.solacesystems.jcsmp.EndpointProperties;
 
 public class SolaceConsumerProperties extends SolaceCommonProperties {
+	public static final int DEFAULT_MAX_INFLATED_PAYLOAD_SIZE = 64 * 1024 * 1024;
+
 	private String anonymousGroupPostfix = "anon";
 	private int polledConsumerWaitTimeInMillis = 100;
 	private boolean requeueRejected = false;
+	private int partitionCount = 0;
+	private boolean deferPayloadDecoding = false;
+	private int maxInflatedPayloadSize = DEFAULT_MAX_INFLATED_PAYLOAD_SIZE;
+	private int dispatchLanes = 0;
+	private int dispatchLaneCapacity = 1000;
+	private String dispatchKeyHeader = null;
+	private String dispatchKeyExpression = null;
+	private int decodingThreads = 0;
+	private int decodingPipelineCapacity = 256;
+	private int batchMaxSize = 0;
+	private long batchTimeout = 100;
+	private boolean batchSplitOnFailure = true;
+	private boolean asyncAck = false;
+	private int asyncAckMaxBatchSize = 256;
 
 	private String[] queueAdditionalSubscriptions = new String[0];
 
@@ -124,4 +140,116 @@ public class SolaceConsumerProperties extends SolaceCommonProperties {
 	public void setRepublishedMsgTtl(Long republishedMsgTtl) {
 		this.republishedMsgTtl = republishedMsgTtl;
 	}
+
+	public int getPartitionCount() {
+		return partitionCount;
+	}
+
+	public void setPartitionCount(int partitionCount) {
+		this.partitionCount = partitionCount;
+	}
+
+	public boolean isDeferPayloadDecoding() {
+		return deferPayloadDecoding;
+	}
+
+	public void setDeferPayloadDecoding(boolean deferPayloadDecoding) {
+		this.deferPayloadDecoding = deferPayloadDecoding;
+	}
+
+	public int getMaxInflatedPayloadSize() {
+		return maxInflatedPayloadSize;
+	}
+
+	public void setMaxInflatedPayloadSize(int maxInflatedPayloadSize) {
+		this.maxInflatedPayloadSize = maxInflatedPayloadSize;
+	}
+
+	public int getDispatchLanes() {
+		return dispatchLanes;
+	}
+
+	public void setDispatchLanes(int dispatchLanes) {
+		this.dispatchLanes = dispatchLanes;
+	}
+
+	public int getDispatchLaneCapacity() {
+		return dispatchLaneCapacity;
+	}
+
+	public void setDispatchLaneCapacity(int dispatchLaneCapacity) {
+		this.dispatchLaneCapacity = dispatchLaneCapacity;
+	}
+
+	public String getDispatchKeyHeader() {
+		return dispatchKeyHeader;
+	}
+
+	public void setDispatchKeyHeader(String dispatchKeyHeader) {
+		this.dispatchKeyHeader = dispatchKeyHeader;
+	}
+
+	public String getDispatchKeyExpression() {
+		return dispatchKeyExpression;
+	}
+
+	public void setDispatchKeyExpression(String dispatchKeyExpression) {
+		this.dispatchKeyExpression = dispatchKeyExpression;
+	}
+
+	public int getDecodingThreads() {
+		return decodingThreads;
+	}
+
+	public void setDecodingThreads(int decodingThreads) {
+		this.decodingThreads = decodingThreads;
+	}
+
+	public int getDecodingPipelineCapacity() {
+		return decodingPipelineCapacity;
+	}
+
+	public void setDecodingPipelineCapacity(int decodingPipelineCapacity) {
+		this.decodingPipelineCapacity = decodingPipelineCapacity;
+	}
+
+	public int getBatchMaxSize() {
+		return batchMaxSize;
+	}
+
+	public void setBatchMaxSize(int batchMaxSize) {
+		this.batchMaxSize = batchMaxSize;
+	}
+
+	public long getBatchTimeout() {
+		return batchTimeout;
+	}
+
+	public void setBatchTimeout(long batchTimeout) {
+		this.batchTimeout = batchTimeout;
+	}
+
+	public boolean isBatchSplitOnFailure() {
+		return batchSplitOnFailure;
+	}
+
+	public void setBatchSplitOnFailure(boolean batchSplitOnFailure) {
+		this.batchSplitOnFailure = batchSplitOnFailure;
+	}
+
+	public boolean isAsyncAck() {
+		return asyncAck;
+	}
+
+	public void setAsyncAck(boolean asyncAck) {
+		this.asyncAck = asyncAck;
+	}
+
+	public int getAsyncAckMaxBatchSize() {
+		return asyncAckMaxBatchSize;
+	}
+
+	public void setAsyncAckMaxBatchSize(int asyncAckMaxBatchSize) {
+		this.asyncAckMaxBatchSize = asyncAckMaxBatchSize;
+	}
 }
@@ -1,12 +1,46 @@
 package com.solace.spring.cloud.stream.binder.properties;
 
+import com.solace.spring.cloud.stream.binder.serialization.JavaPayloadSerializer;
+import com.solace.spring.cloud.stream.binder.util.PublisherInFlightWindow;
+import com.solacesystems.jcsmp.DeliveryMode;
+
 import java.util.HashMap;
 import java.util.Map;
 
 public class SolaceProducerProperties extends SolaceCommonProperties {
+	private DeliveryMode deliveryMode = DeliveryMode.PERSISTENT;
 	private Long msgTtl = null;
 	private boolean msgInternalDmqEligible = false;
 	private Map<String,String[]> queueAdditionalSubscriptions = new HashMap<>();
+	private int requiredGroupInstanceCount = 0;
+	private int destinationCacheSize = 1000;
+	private boolean compressPayload = false;
+	private int compressionThreshold = 1024;
+	private String payloadSerializer = JavaPayloadSerializer.ID;
+	private String[] headerIncludePatterns = new String[0];
+	private String[] headerExcludePatterns = new String[0];
+	private boolean compactHeaderNames = false;
+	private boolean compactHeaderValues = false;
+
+	// Batching Properties ----
+	private int publishBatchMaxSize = 1;
+	private int publishBatchLingerTimeInMillis = 10;
+	// ------------------------
+
+	// In-Flight Window Properties ----
+	private long inFlightMaxMessages = 0;
+	private long inFlightMaxBytes = 0;
+	private PublisherInFlightWindow.Policy inFlightPolicy = PublisherInFlightWindow.Policy.BLOCK;
+	private long inFlightBlockTimeoutInMillis = 30000;
+	// ------------------------
+
+	public DeliveryMode getDeliveryMode() {
+		return deliveryMode;
+	}
+
+	public void setDeliveryMode(DeliveryMode deliveryMode) {
+		this.deliveryMode = deliveryMode;
+	}
 
 	public Long getMsgTtl() {
 		return msgTtl;
@@ -31,4 +65,124 @@ public class SolaceProducerProperties extends SolaceCommonProperties {
 	public void setQueueAdditionalSubscriptions(Map<String, String[]> queueAdditionalSubscriptions) {
 		this.queueAdditionalSubscriptions = queueAdditionalSubscriptions;
 	}
+
+	public int getRequiredGroupInstanceCount() {
+		return requiredGroupInstanceCount;
+	}
+
+	public void setRequiredGroupInstanceCount(int requiredGroupInstanceCount) {
+		this.requiredGroupInstanceCount = requiredGroupInstanceCount;
+	}
+
+	public int getPublishBatchMaxSize() {
+		return publishBatchMaxSize;
+	}
+
+	public void setPublishBatchMaxSize(int publishBatchMaxSize) {
+		this.publishBatchMaxSize = publishBatchMaxSize;
+	}
+
+	public int getPublishBatchLingerTimeInMillis() {
+		return publishBatchLingerTimeInMillis;
+	}
+
+	public void setPublishBatchLingerTimeInMillis(int publishBatchLingerTimeInMillis) {
+		this.publishBatchLingerTimeInMillis = publishBatchLingerTimeInMillis;
+	}
+
+	public int getDestinationCacheSize() {
+		return destinationCacheSize;
+	}
+
+	public void setDestinationCacheSize(int destinationCacheSize) {
+		this.destinationCacheSize = destinationCacheSize;
+	}
+
+	public long getInFlightMaxMessages() {
+		return inFlightMaxMessages;
+	}
+
+	public void setInFlightMaxMessages(long inFlightMaxMessages) {
+		this.inFlightMaxMessages = inFlightMaxMessages;
+	}
+
+	public long getInFlightMaxBytes() {
+		return inFlightMaxBytes;
+	}
+
+	public void setInFlightMaxBytes(long inFlightMaxBytes) {
+		this.inFlightMaxBytes = inFlightMaxBytes;
+	}
+
+	public PublisherInFlightWindow.Policy getInFlightPolicy() {
+		return inFlightPolicy;
+	}
+
+	public void setInFlightPolicy(PublisherInFlightWindow.Policy inFlightPolicy) {
+		this.inFlightPolicy = inFlightPolicy;
+	}
+
+	public long getInFlightBlockTimeoutInMillis() {
+		return inFlightBlockTimeoutInMillis;
+	}
+
+	public void setInFlightBlockTimeoutInMillis(long inFlightBlockTimeoutInMillis) {
+		this.inFlightBlockTimeoutInMillis = inFlightBlockTimeoutInMillis;
+	}
+
+	public boolean isCompressPayload() {
+		return compressPayload;
+	}
+
+	public void setCompressPayload(boolean compressPayload) {
+		this.compressPayload = compressPayload;
+	}
+
+	public int getCompressionThreshold() {
+		return compressionThreshold;
+	}
+
+	public void setCompressionThreshold(int compressionThreshold) {
+		this.compressionThreshold = compressionThreshold;
+	}
+
+	public String getPayloadSerializer() {
+		return payloadSerializer;
+	}
+
+	public void setPayloadSerializer(String payloadSerializer) {
+		this.payloadSerializer = payloadSerializer;
+	}
+
+	public String[] getHeaderIncludePatterns() {
+		return headerIncludePatterns;
+	}
+
+	public void setHeaderIncludePatterns(String[] headerIncludePatterns) {
+		this.headerIncludePatterns = headerIncludePatterns;
+	}
+
+	public String[] getHeaderExcludePatterns() {
+		return headerExcludePatterns;
+	}
+
+	public void setHeaderExcludePatterns(String[] headerExcludePatterns) {
+		this.headerExcludePatterns = headerExcludePatterns;
+	}
+
+	public boolean isCompactHeaderNames() {
+		return compactHeaderNames;
+	}
+
+	public void setCompactHeaderNames(boolean compactHeaderNames) {
+		this.compactHeaderNames = compactHeaderNames;
+	}
+
+	public boolean isCompactHeaderValues() {
+		return compactHeaderValues;
+	}
+
+	public void setCompactHeaderValues(boolean compactHeaderValues) {
+		this.compactHeaderValues = compactHeaderValues;
+	}
 }
@@ -0,0 +1,26 @@
+package com.solace.spring.cloud.stream.binder.properties;
+
+import com.solace.spring.cloud.stream.binder.util.JCSMPSessionPool;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties("spring.cloud.stream.solace.session-pool")
+public class SolaceSessionPoolProperties {
+	private int size = 1;
+	private JCSMPSessionPool.AssignmentStrategy assignmentStrategy = JCSMPSessionPool.AssignmentStrategy.ROUND_ROBIN;
+
+	public int getSize() {
+		return size;
+	}
+
+	public void setSize(int size) {
+		this.size = size;
+	}
+
+	public JCSMPSessionPool.AssignmentStrategy getAssignmentStrategy() {
+		return assignmentStrategy;
+	}
+
+	public void setAssignmentStrategy(JCSMPSessionPool.AssignmentStrategy assignmentStrategy) {
+		this.assignmentStrategy = assignmentStrategy;
+	}
+}
@@ -1,5 +1,6 @@
 package com.solace.spring.cloud.stream.binder.provisioning;
 
+import com.solace.spring.cloud.stream.binder.util.SolaceProvisioningUtil;
 import org.springframework.cloud.stream.provisioning.ProducerDestination;
 
 class SolaceProducerDestination implements ProducerDestination {
@@ -16,7 +17,7 @@ class SolaceProducerDestination implements ProducerDestination {
 
 	@Override
 	public String getNameForPartition(int partition) {
-		return topicName;
+		return SolaceProvisioningUtil.getPartitionTopicName(topicName, partition);
 	}
 
 	@Override
@@ -1,6 +1,8 @@
 package com.solace.spring.cloud.stream.binder.provisioning;
 
+import com.solace.spring.cloud.stream.binder.util.JCSMPSessionPool;
 import com.solace.spring.cloud.stream.binder.util.SolaceProvisioningUtil;
+import com.solacesystems.jcsmp.DeliveryMode;
 import com.solacesystems.jcsmp.EndpointProperties;
 import com.solacesystems.jcsmp.JCSMPErrorResponseException;
 import com.solacesystems.jcsmp.JCSMPErrorResponseSubcodeEx;
@@ -20,9 +22,12 @@ import org.springframework.cloud.stream.provisioning.ProducerDestination;
 import org.springframework.cloud.stream.provisioning.ProvisioningException;
 import org.springframework.cloud.stream.provisioning.ProvisioningProvider;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.stream.Collectors;
@@ -30,13 +35,21 @@ import java.util.stream.Collectors;
 public class SolaceQueueProvisioner
 		implements ProvisioningProvider<ExtendedConsumerProperties<SolaceConsumerProperties>,ExtendedProducerProperties<SolaceProducerProperties>> {
 
-	private JCSMPSession jcsmpSession;
+	private final JCSMPSessionPool sessionPool;
 	private Map<String, Set<String>> queueToTopicBindings = new HashMap<>();
 
 	private static final Log logger = LogFactory.getLog(SolaceQueueProvisioner.class);
 
 	public SolaceQueueProvisioner(JCSMPSession jcsmpSession) {
-		this.jcsmpSession = jcsmpSession;
+		this(new JCSMPSessionPool(jcsmpSession));
+	}
+
+	public SolaceQueueProvisioner(JCSMPSessionPool sessionPool) {
+		this.sessionPool = sessionPool;
+	}
+
+	public JCSMPSessionPool getSessionPool() {
+		return sessionPool;
 	}
 
 	@Override
@@ -44,28 +57,35 @@ public class SolaceQueueProvisioner
 															ExtendedProducerProperties<SolaceProducerProperties> properties)
 			throws ProvisioningException {
 
-		if (properties.isPartitioned()) {
-			logger.warn("Partitioning is not supported with this version of Solace's cloud stream binder.\n" +
-					"Provisioning will continue under the assumption that it is disabled...");
-		}
-
 		String topicName = SolaceProvisioningUtil.getTopicName(name, properties.getExtension());
 
 		Set<String> requiredGroups = new HashSet<>(Arrays.asList(properties.getRequiredGroups()));
+		if (properties.getExtension().getDeliveryMode() == DeliveryMode.DIRECT && !requiredGroups.isEmpty()) {
+			// Still provisioned, since messages may override the delivery mode through a header
+			logger.warn(String.format(
+					"Producer to topic %s publishes %s messages which cannot be guaranteed to reach required groups [%s]",
+					topicName, DeliveryMode.DIRECT, String.join(", ", requiredGroups)));
+		}
 		Map<String,String[]> requiredGroupsExtraSubs = properties.getExtension().getQueueAdditionalSubscriptions();
 
 		for (String groupName : requiredGroups) {
 			String queueName = SolaceProvisioningUtil.getQueueName(name, groupName, properties.getExtension());
-			EndpointProperties endpointProperties = SolaceProvisioningUtil.getEndpointProperties(properties.getExtension());
-			logger.info(String.format("Creating durable queue %s for required consumer group %s", queueName, groupName));
-			Queue queue = provisionQueue(queueName, true, endpointProperties);
-
-			addSubscriptionToQueue(queue, topicName);
-			trackQueueToTopicBinding(queue.getName(), topicName);
-
-			for (String extraTopic : requiredGroupsExtraSubs.getOrDefault(groupName, new String[0])) {
-				addSubscriptionToQueue(queue, extraTopic);
-				trackQueueToTopicBinding(queue.getName(), extraTopic);
+			if (properties.isPartitioned()) {
+				// Provision the same queues that the group's consumer instances consume, each for its own partitions
+				int partitionCount = properties.getPartitionCount();
+				int instanceCount = properties.getExtension().getRequiredGroupInstanceCount() > 0 ?
+						properties.getExtension().getRequiredGroupInstanceCount() : partitionCount;
+				for (int instance = 0; instance < instanceCount; instance++) {
+					List<String> partitionTopics = new ArrayList<>();
+					for (int partition : SolaceProvisioningUtil.getInstancePartitions(instance, instanceCount, partitionCount)) {
+						partitionTopics.add(SolaceProvisioningUtil.getPartitionTopicName(topicName, partition));
+					}
+					provisionRequiredGroupQueue(SolaceProvisioningUtil.getPartitionQueueName(queueName, instance),
+							groupName, partitionTopics, requiredGroupsExtraSubs, properties.getExtension());
+				}
+			} else {
+				provisionRequiredGroupQueue(queueName, groupName, Collections.singletonList(topicName),
+						requiredGroupsExtraSubs, properties.getExtension());
 			}
 		}
 
@@ -83,27 +103,53 @@ public class SolaceQueueProvisioner
 		return new SolaceProducerDestination(topicName);
 	}
 
+	private void provisionRequiredGroupQueue(String queueName, String groupName, List<String> topicNames,
+											 Map<String,String[]> requiredGroupsExtraSubs,
+											 SolaceProducerProperties properties) {
+		EndpointProperties endpointProperties = SolaceProvisioningUtil.getEndpointProperties(properties);
+		logger.info(String.format("Creating durable queue %s for required consumer group %s", queueName, groupName));
+		Queue queue = provisionQueue(queueName, true, endpointProperties);
+
+		for (String topicName : topicNames) {
+			addSubscriptionToQueue(queue, topicName);
+			trackQueueToTopicBinding(queue.getName(), topicName);
+		}
+
+		for (String extraTopic : requiredGroupsExtraSubs.getOrDefault(groupName, new String[0])) {
+			addSubscriptionToQueue(queue, extraTopic);
+			trackQueueToTopicBinding(queue.getName(), extraTopic);
+		}
+	}
+
 	@Override
 	public ConsumerDestination provisionConsumerDestination(String name, String group,
 															ExtendedConsumerProperties<SolaceConsumerProperties> properties)
 			throws ProvisioningException {
 
-		if (properties.isPartitioned()) {
-			logger.warn("Partitioning is not supported with this version of Solace's cloud stream binder.\n" +
-					"Provisioning will continue under the assumption that it is disabled...");
-		}
-
 		String topicName = SolaceProvisioningUtil.getTopicName(name, properties.getExtension());
 		boolean isAnonQueue = SolaceProvisioningUtil.isAnonQueue(group);
 		boolean isDurableQueue = SolaceProvisioningUtil.isDurableQueue(group);
 		String queueName = SolaceProvisioningUtil.getQueueName(name, group, properties.getExtension(), isAnonQueue);
+		if (properties.isPartitioned() && !isAnonQueue) {
+			// Each instance of the group needs its own queue for its own partitions
+			queueName = SolaceProvisioningUtil.getPartitionQueueName(queueName, Math.max(properties.getInstanceIndex(), 0));
+		}
 
 		logger.info(isAnonQueue ?
 				String.format("Creating anonymous (temporary) queue %s", queueName) :
 				String.format("Creating %s queue %s for consumer group %s", isDurableQueue ? "durable" : "temporary", queueName, group));
 		EndpointProperties endpointProperties = SolaceProvisioningUtil.getEndpointProperties(properties.getExtension());
 		Queue queue = provisionQueue(queueName, isDurableQueue, endpointProperties);
-		trackQueueToTopicBinding(queue.getName(), topicName);
+		if (properties.isPartitioned()) {
+			List<Integer> partitions = SolaceProvisioningUtil.getConsumerPartitions(properties);
+			logger.info(String.format("Queue %s will consume from partitions %s of topic %s",
+					queue.getName(), partitions, topicName));
+			for (int partition : partitions) {
+				trackQueueToTopicBinding(queue.getName(), SolaceProvisioningUtil.getPartitionTopicName(topicName, partition));
+			}
+		} else {
+			trackQueueToTopicBinding(queue.getName(), topicName);
+		}
 
 		for (String additionalSubscription : properties.getExtension().getQueueAdditionalSubscriptions()) {
 			trackQueueToTopicBinding(queue.getName(), additionalSubscription);
@@ -117,6 +163,8 @@ public class SolaceQueueProvisioner
 	}
 
 	private Queue provisionQueue(String name, boolean isDurable, EndpointProperties endpointProperties) throws ProvisioningException {
+		// Temporary queues belong to the session which created them, so use the session their consumer will use
+		JCSMPSession jcsmpSession = sessionPool.getSession(name, JCSMPSessionPool.Role.CONSUMER);
 		Queue queue;
 		if (isDurable) {
 			try {
@@ -131,6 +179,7 @@ public class SolaceQueueProvisioner
 			try {
 				// EndpointProperties will be applied during consumer creation
 				queue = jcsmpSession.createTemporaryQueue(name);
+				sessionPool.assign(queue.getName(), JCSMPSessionPool.Role.CONSUMER, jcsmpSession);
 			} catch (JCSMPException e) {
 				String msg = String.format("Failed to create temporary queue %s", name);
 				logger.warn(msg, e);
@@ -151,6 +200,7 @@ public class SolaceQueueProvisioner
 		logger.info(String.format("Subscribing queue %s to topic %s", queue.getName(), topicName));
 		try {
 			Topic topic = JCSMPFactory.onlyInstance().createTopic(topicName);
+			JCSMPSession jcsmpSession = sessionPool.getSession(queue.getName(), JCSMPSessionPool.Role.CONSUMER);
 			try {
 				jcsmpSession.addSubscription(queue, topic, JCSMPSession.WAIT_FOR_CONFIRM);
 			} catch (JCSMPErrorResponseException e) {
@@ -0,0 +1,566 @@
+package com.solace.spring.cloud.stream.binder.serialization;
+
+import org.springframework.util.ClassUtils;
+
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * A compact, tagged binary format for common JDK value types, collections and simple POJOs.
+ * <p>POJOs must be {@link Serializable}, must have a no-arg constructor and must not customize their Java
+ * serialization. Their non-static, non-transient fields are written in name order without field names, so producers
+ * and consumers must share the same class definitions. Object graphs must not be cyclic and references are not
+ * shared. Lists, sets and maps are read back as {@link ArrayList}, {@link LinkedHashSet} and {@link LinkedHashMap}.
+ * Anything else is left to Java serialization.</p>
+ * <p>Class metadata is resolved once and cached.</p>
+ */
+public class CompactPayloadSerializer implements PayloadSerializer {
+	public static final String ID = "compact";
+
+	private static final byte FORMAT_VERSION = 1;
+	private static final int MAX_DEPTH = 128;
+
+	private static final byte NULL = 0;
+	private static final byte TRUE = 1;
+	private static final byte FALSE = 2;
+	private static final byte BYTE = 3;
+	private static final byte SHORT = 4;
+	private static final byte INT = 5;
+	private static final byte LONG = 6;
+	private static final byte FLOAT = 7;
+	private static final byte DOUBLE = 8;
+	private static final byte CHAR = 9;
+	private static final byte STRING = 10;
+	private static final byte BYTES = 11;
+	private static final byte UUID_VALUE = 12;
+	private static final byte BIG_DECIMAL = 13;
+	private static final byte BIG_INTEGER = 14;
+	private static final byte LIST = 15;
+	private static final byte SET = 16;
+	private static final byte MAP = 17;
+	private static final byte ENUM = 18;
+	private static final byte OBJECT = 19;
+	private static final byte INSTANT = 20;
+	private static final byte DATE = 21;
+
+	private final ClassLoader classLoader;
+	private final ConcurrentMap<Class<?>, ClassInfo> classInfoByType = new ConcurrentHashMap<>();
+	private final ConcurrentMap<String, ClassInfo> classInfoByName = new ConcurrentHashMap<>();
+
+	public CompactPayloadSerializer() {
+		this(ClassUtils.getDefaultClassLoader());
+	}
+
+	public CompactPayloadSerializer(ClassLoader classLoader) {
+		this.classLoader = classLoader;
+	}
+
+	@Override
+	public String getId() {
+		return ID;
+	}
+
+	@Override
+	public byte[] serialize(Object payload) throws IllegalAccessException {
+		Output output = new Output();
+		output.writeByte(FORMAT_VERSION);
+		writeValue(output, payload, Object.class, 0);
+		return output.toByteArray();
+	}
+
+	@Override
+	public Object deserialize(byte[] data) throws ReflectiveOperationException {
+		Input input = new Input(data);
+		byte version = input.readByte();
+		if (version != FORMAT_VERSION) {
+			throw new IllegalArgumentException(String.format("Unsupported format version %s", version));
+		}
+
+		Object payload = readValue(input);
+		if (input.position != data.length) {
+			throw new IllegalArgumentException(String.format("%s trailing bytes after payload",
+					data.length - input.position));
+		}
+		return payload;
+	}
+
+	private void writeValue(Output output, Object value, Class<?> declaredType, int depth)
+			throws IllegalAccessException {
+		if (depth > MAX_DEPTH) {
+			throw new UnsupportedPayloadException(String.format("Payload is nested deeper than %s levels", MAX_DEPTH));
+		}
+
+		if (value == null) {
+			output.writeByte(NULL);
+			return;
+		}
+
+		Class<?> type = value.getClass();
+		if (type == String.class) {
+			output.writeByte(STRING);
+			output.writeString((String) value);
+		} else if (type == Integer.class) {
+			output.writeByte(INT);
+			output.writeVarLong(zigZag((Integer) value));
+		} else if (type == Long.class) {
+			output.writeByte(LONG);
+			output.writeVarLong(zigZag((Long) value));
+		} else if (type == Boolean.class) {
+			output.writeByte((Boolean) value ? TRUE : FALSE);
+		} else if (type == Double.class) {
+			output.writeByte(DOUBLE);
+			output.writeFixedLong(Double.doubleToRawLongBits((Double) value));
+		} else if (type == Float.class) {
+			output.writeByte(FLOAT);
+			output.writeFixedInt(Float.floatToRawIntBits((Float) value));
+		} else if (type == Byte.class) {
+			output.writeByte(BYTE);
+			output.writeByte((Byte) value);
+		} else if (type == Short.class) {
+			output.writeByte(SHORT);
+			output.writeVarLong(zigZag((Short) value));
+		} else if (type == Character.class) {
+			output.writeByte(CHAR);
+			output.writeVarLong((Character) value);
+		} else if (type == byte[].class) {
+			output.writeByte(BYTES);
+			output.writeBytes((byte[]) value);
+		} else if (type == UUID.class) {
+			output.writeByte(UUID_VALUE);
+			output.writeFixedLong(((UUID) value).getMostSignificantBits());
+			output.writeFixedLong(((UUID) value).getLeastSignificantBits());
+		} else if (type == BigDecimal.class) {
+			output.writeByte(BIG_DECIMAL);
+			output.writeVarLong(zigZag(((BigDecimal) value).scale()));
+			output.writeBytes(((BigDecimal) value).unscaledValue().toByteArray());
+		} else if (type == BigInteger.class) {
+			output.writeByte(BIG_INTEGER);
+			output.writeBytes(((BigInteger) value).toByteArray());
+		} else if (type == Instant.class) {
+			output.writeByte(INSTANT);
+			output.writeVarLong(zigZag(((Instant) value).getEpochSecond()));
+			output.writeVarLong(((Instant) value).getNano());
+		} else if (type == Date.class) {
+			output.writeByte(DATE);
+			output.writeVarLong(zigZag(((Date) value).getTime()));
+		} else if (value instanceof List) {
+			checkReadBackType(ArrayList.class, declaredType, type);
+			output.writeByte(LIST);
+			writeElements(output, (List<?>) value, depth);
+		} else if (value instanceof Set) {
+			checkReadBackType(LinkedHashSet.class, declaredType, type);
+			output.writeByte(SET);
+			writeElements(output, (Set<?>) value, depth);
+		} else if (value instanceof Map) {
+			checkReadBackType(LinkedHashMap.class, declaredType, type);
+			output.writeByte(MAP);
+			Map<?, ?> map = (Map<?, ?>) value;
+			output.writeVarLong(map.size());
+			for (Map.Entry<?, ?> entry : map.entrySet()) {
+				writeValue(output, entry.getKey(), Object.class, depth + 1);
+				writeValue(output, entry.getValue(), Object.class, depth + 1);
+			}
+		} else if (value instanceof Enum) {
+			ClassInfo classInfo = getClassInfo(((Enum<?>) value).getDeclaringClass());
+			output.writeByte(ENUM);
+			output.writeClass(classInfo);
+			output.writeString(((Enum<?>) value).name());
+		} else {
+			ClassInfo classInfo = getClassInfo(type);
+			if (classInfo.constructor == null) {
+				throw new UnsupportedPayloadException(String.format("Unsupported type %s", type.getName()));
+			}
+			output.writeByte(OBJECT);
+			output.writeClass(classInfo);
+			for (Field field : classInfo.fields) {
+				writeValue(output, field.get(value), field.getType(), depth + 1);
+			}
+		}
+	}
+
+	private void writeElements(Output output, Collection<?> elements, int depth) throws IllegalAccessException {
+		output.writeVarLong(elements.size());
+		for (Object element : elements) {
+			writeValue(output, element, Object.class, depth + 1);
+		}
+	}
+
+	/**
+	 * Collections are read back as a fixed type, which must still fit wherever they came from.
+	 */
+	private void checkReadBackType(Class<?> readBackType, Class<?> declaredType, Class<?> actualType) {
+		if (!declaredType.isAssignableFrom(readBackType)) {
+			throw new UnsupportedPayloadException(String.format("%s cannot be read back into a %s field",
+					actualType.getName(), declaredType.getName()));
+		}
+	}
+
+	private Object readValue(Input input) throws ReflectiveOperationException {
+		byte tag = input.readByte();
+		switch (tag) {
+			case NULL:
+				return null;
+			case TRUE:
+				return Boolean.TRUE;
+			case FALSE:
+				return Boolean.FALSE;
+			case BYTE:
+				return input.readByte();
+			case SHORT:
+				return (short) unZigZag(input.readVarLong());
+			case INT:
+				return (int) unZigZag(input.readVarLong());
+			case LONG:
+				return unZigZag(input.readVarLong());
+			case FLOAT:
+				return Float.intBitsToFloat(input.readFixedInt());
+			case DOUBLE:
+				return Double.longBitsToDouble(input.readFixedLong());
+			case CHAR:
+				return (char) input.readVarLong();
+			case STRING:
+				return input.readString();
+			case BYTES:
+				return input.readBytes();
+			case UUID_VALUE:
+				return new UUID(input.readFixedLong(), input.readFixedLong());
+			case BIG_DECIMAL:
+				int scale = (int) unZigZag(input.readVarLong());
+				return new BigDecimal(new BigInteger(input.readBytes()), scale);
+			case BIG_INTEGER:
+				return new BigInteger(input.readBytes());
+			case INSTANT:
+				return Instant.ofEpochSecond(unZigZag(input.readVarLong()), input.readVarLong());
+			case DATE:
+				return new Date(unZigZag(input.readVarLong()));
+			case LIST:
+				int listSize = input.readSize();
+				return readElements(input, listSize, new ArrayList<>(listSize));
+			case SET:
+				int setSize = input.readSize();
+				return readElements(input, setSize, new LinkedHashSet<>());
+			case MAP:
+				int mapSize = input.readSize();
+				Map<Object, Object> map = new LinkedHashMap<>();
+				for (int i = 0; i < mapSize; i++) {
+					map.put(readValue(input), readValue(input));
+				}
+				return map;
+			case ENUM:
+				return readEnum(input.readClass(), input.readString());
+			case OBJECT:
+				ClassInfo classInfo = input.readClass();
+				if (classInfo.constructor == null) {
+					throw new IllegalArgumentException(String.format("Cannot instantiate %s", classInfo.type.getName()));
+				}
+				Object object = classInfo.constructor.newInstance();
+				for (Field field : classInfo.fields) {
+					field.set(object, readValue(input));
+				}
+				return object;
+			default:
+				throw new IllegalArgumentException(String.format("Unknown type tag %s at position %s",
+						tag, input.position - 1));
+		}
+	}
+
+	private <C extends Collection<Object>> C readElements(Input input, int size, C collection)
+			throws ReflectiveOperationException {
+		for (int i = 0; i < size; i++) {
+			collection.add(readValue(input));
+		}
+		return collection;
+	}
+
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	private Object readEnum(ClassInfo classInfo, String name) {
+		if (!classInfo.type.isEnum()) {
+			throw new IllegalArgumentException(String.format("%s is not an enum", classInfo.type.getName()));
+		}
+		return Enum.valueOf((Class<? extends Enum>) classInfo.type, name);
+	}
+
+	private ClassInfo getClassInfo(Class<?> type) {
+		ClassInfo classInfo = classInfoByType.get(type);
+		if (classInfo == null) {
+			classInfo = new ClassInfo(type);
+			classInfoByType.putIfAbsent(type, classInfo);
+		}
+		return classInfo;
+	}
+
+	private ClassInfo getClassInfo(String className) throws ClassNotFoundException {
+		ClassInfo classInfo = classInfoByName.get(className);
+		if (classInfo == null) {
+			classInfo = getClassInfo(ClassUtils.forName(className, classLoader));
+			classInfoByName.putIfAbsent(className, classInfo);
+		}
+		return classInfo;
+	}
+
+	private static long zigZag(long value) {
+		return (value << 1) ^ (value >> 63);
+	}
+
+	private static long unZigZag(long value) {
+		return (value >>> 1) ^ -(value & 1);
+	}
+
+	/**
+	 * Cached reflection metadata of a class.
+	 */
+	private static class ClassInfo {
+		final Class<?> type;
+		final Constructor<?> constructor; // null if instances of this class cannot be (de)serialized
+		final Field[] fields;
+
+		ClassInfo(Class<?> type) {
+			this.type = type;
+			if (type.isEnum()) {
+				this.constructor = null;
+				this.fields = new Field[0];
+			} else if (isSupportedObjectType(type)) {
+				this.fields = getSerializableFields(type);
+				this.constructor = getNoArgConstructor(type);
+			} else {
+				this.constructor = null;
+				this.fields = new Field[0];
+			}
+		}
+
+		private static boolean isSupportedObjectType(Class<?> type) {
+			if (!Serializable.class.isAssignableFrom(type) || type.isArray() || type.isInterface() ||
+					Modifier.isAbstract(type.getModifiers()) || type.getName().startsWith("java.") ||
+					type.getName().startsWith("javax.")) {
+				return false;
+			}
+
+			// Classes which customize their serialization may rely on it to maintain invariants
+			for (Class<?> current = type; current != null && current != Object.class; current = current.getSuperclass()) {
+				if (hasDeclaredMethod(current, "writeObject", ObjectOutputStream.class) ||
+						hasDeclaredMethod(current, "readObject", ObjectInputStream.class) ||
+						hasDeclaredMethod(current, "writeReplace") ||
+						hasDeclaredMethod(current, "readResolve")) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		private static boolean hasDeclaredMethod(Class<?> type, String name, Class<?>... parameterTypes) {
+			try {
+				type.getDeclaredMethod(name, parameterTypes);
+				return true;
+			} catch (NoSuchMethodException e) {
+				return false;
+			}
+		}
+
+		private static Constructor<?> getNoArgConstructor(Class<?> type) {
+			try {
+				Constructor<?> constructor = type.getDeclaredConstructor();
+				constructor.setAccessible(true);
+				return constructor;
+			} catch (NoSuchMethodException | SecurityException e) {
+				return null;
+			}
+		}
+
+		private static Field[] getSerializableFields(Class<?> type) {
+			List<Field> fields = new ArrayList<>();
+			for (Class<?> current = type; current != null && current != Object.class; current = current.getSuperclass()) {
+				for (Field field : current.getDeclaredFields()) {
+					int modifiers = field.getModifiers();
+					if (Modifier.isStatic(modifiers) || Modifier.isTransient(modifiers) || field.isSynthetic()) {
+						continue;
+					}
+					field.setAccessible(true);
+					fields.add(field);
+				}
+			}
+			Field[] sortedFields = fields.toArray(new Field[0]);
+			Arrays.sort(sortedFields, Comparator.comparing(Field::getName)
+					.thenComparing(field -> field.getDeclaringClass().getName()));
+			return sortedFields;
+		}
+	}
+
+	private static class Output {
+		private byte[] buffer = new byte[256];
+		private int position = 0;
+		private final Map<Class<?>, Integer> classReferences = new IdentityHashMap<>();
+
+		void writeByte(int value) {
+			ensureCapacity(1);
+			buffer[position++] = (byte) value;
+		}
+
+		void writeVarLong(long value) {
+			ensureCapacity(10);
+			while ((value & ~0x7FL) != 0) {
+				buffer[position++] = (byte) ((value & 0x7F) | 0x80);
+				value >>>= 7;
+			}
+			buffer[position++] = (byte) value;
+		}
+
+		void writeFixedInt(int value) {
+			ensureCapacity(4);
+			for (int shift = 24; shift >= 0; shift -= 8) {
+				buffer[position++] = (byte) (value >>> shift);
+			}
+		}
+
+		void writeFixedLong(long value) {
+			ensureCapacity(8);
+			for (int shift = 56; shift >= 0; shift -= 8) {
+				buffer[position++] = (byte) (value >>> shift);
+			}
+		}
+
+		void writeBytes(byte[] bytes) {
+			writeVarLong(bytes.length);
+			ensureCapacity(bytes.length);
+			System.arraycopy(bytes, 0, buffer, position, bytes.length);
+			position += bytes.length;
+		}
+
+		void writeString(String value) {
+			writeBytes(value.getBytes(StandardCharsets.UTF_8));
+		}
+
+		/**
+		 * A class is written out by name, along with its field count, the first time it's referenced. Later
+		 * references to it refer back to it by index.
+		 */
+		void writeClass(ClassInfo classInfo) {
+			Integer reference = classReferences.get(classInfo.type);
+			if (reference != null) {
+				writeVarLong(reference + 1);
+			} else {
+				writeVarLong(0);
+				writeString(classInfo.type.getName());
+				writeVarLong(classInfo.fields.length);
+				classReferences.put(classInfo.type, classReferences.size());
+			}
+		}
+
+		byte[] toByteArray() {
+			return Arrays.copyOf(buffer, position);
+		}
+
+		private void ensureCapacity(int length) {
+			if (position + length > buffer.length) {
+				buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, position + length));
+			}
+		}
+	}
+
+	private class Input {
+		private final byte[] buffer;
+		private int position = 0;
+		private final List<ClassInfo> classReferences = new ArrayList<>();
+
+		Input(byte[] buffer) {
+			this.buffer = buffer;
+		}
+
+		byte readByte() {
+			if (position >= buffer.length) {
+				throw new IllegalArgumentException("Unexpected end of payload");
+			}
+			return buffer[position++];
+		}
+
+		long readVarLong() {
+			long value = 0;
+			for (int shift = 0; shift < 64; shift += 7) {
+				byte b = readByte();
+				value |= (long) (b & 0x7F) << shift;
+				if ((b & 0x80) == 0) return value;
+			}
+			throw new IllegalArgumentException("Malformed variable-length integer");
+		}
+
+		int readSize() {
+			long size = readVarLong();
+			if (size < 0 || size > buffer.length - position) { // Every element takes at least one byte
+				throw new IllegalArgumentException(String.format("Invalid size %s", size));
+			}
+			return (int) size;
+		}
+
+		int readFixedInt() {
+			int value = 0;
+			for (int i = 0; i < 4; i++) {
+				value = (value << 8) | (readByte() & 0xFF);
+			}
+			return value;
+		}
+
+		long readFixedLong() {
+			long value = 0;
+			for (int i = 0; i < 8; i++) {
+				value = (value << 8) | (readByte() & 0xFF);
+			}
+			return value;
+		}
+
+		byte[] readBytes() {
+			int length = readSize();
+			byte[] bytes = Arrays.copyOfRange(buffer, position, position + length);
+			position += length;
+			return bytes;
+		}
+
+		String readString() {
+			int length = readSize();
+			String value = new String(buffer, position, length, StandardCharsets.UTF_8);
+			position += length;
+			return value;
+		}
+
+		ClassInfo readClass() throws ClassNotFoundException {
+			long reference = readVarLong();
+			if (reference > 0) {
+				if (reference > classReferences.size()) {
+					throw new IllegalArgumentException(String.format("Invalid class reference %s", reference));
+				}
+				return classReferences.get((int) reference - 1);
+			}
+
+			String className = readString();
+			long fieldCount = readVarLong();
+			ClassInfo classInfo = getClassInfo(className);
+			if (fieldCount != classInfo.fields.length) {
+				throw new IllegalArgumentException(String.format(
+						"Class %s was serialized with %s fields, but the local class has %s",
+						className, fieldCount, classInfo.fields.length));
+			}
+			classReferences.add(classInfo);
+			return classInfo;
+		}
+	}
+}
@@ -0,0 +1,68 @@
+package com.solace.spring.cloud.stream.binder.serialization;
+
+import org.springframework.core.ConfigurableObjectInputStream;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.SerializationUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectStreamClass;
+import java.io.Serializable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Standard Java serialization. Resolved classes are cached instead of being looked up again for every message.
+ */
+public class JavaPayloadSerializer implements PayloadSerializer {
+	public static final String ID = "java";
+
+	private final ClassLoader classLoader;
+	private final ConcurrentMap<String, Class<?>> resolvedClasses = new ConcurrentHashMap<>();
+
+	public JavaPayloadSerializer() {
+		this(ClassUtils.getDefaultClassLoader());
+	}
+
+	public JavaPayloadSerializer(ClassLoader classLoader) {
+		this.classLoader = classLoader;
+	}
+
+	@Override
+	public String getId() {
+		return ID;
+	}
+
+	@Override
+	public byte[] serialize(Object payload) {
+		if (!(payload instanceof Serializable)) {
+			throw new UnsupportedPayloadException(String.format("%s is not %s",
+					payload.getClass().getName(), Serializable.class.getSimpleName()));
+		}
+		return SerializationUtils.serialize(payload);
+	}
+
+	@Override
+	public Object deserialize(byte[] data) throws IOException, ClassNotFoundException {
+		try (ObjectInputStream inputStream = new CachingObjectInputStream(new ByteArrayInputStream(data))) {
+			return inputStream.readObject();
+		}
+	}
+
+	private class CachingObjectInputStream extends ConfigurableObjectInputStream {
+		CachingObjectInputStream(ByteArrayInputStream inputStream) throws IOException {
+			super(inputStream, classLoader);
+		}
+
+		@Override
+		protected Class<?> resolveClass(ObjectStreamClass classDesc) throws IOException, ClassNotFoundException {
+			Class<?> type = resolvedClasses.get(classDesc.getName());
+			if (type == null) {
+				type = super.resolveClass(classDesc);
+				resolvedClasses.putIfAbsent(classDesc.getName(), type);
+			}
+			return type;
+		}
+	}
+}
@@ -0,0 +1,31 @@
+package com.solace.spring.cloud.stream.binder.serialization;
+
+/**
+ * Converts payloads which are not natively supported by Solace messages to and from bytes.
+ * <p>Serializers are selected per producer binding by their ID, which is sent along with each message so that
+ * consumers can pick the matching serializer. Besides the built-in serializers, implementations may be registered
+ * through {@link java.util.ServiceLoader}.</p>
+ * <p>Implementations must be thread-safe.</p>
+ */
+public interface PayloadSerializer {
+	/**
+	 * @return a short identifier which is unique among all serializers
+	 */
+	String getId();
+
+	/**
+	 * @param payload the payload to serialize
+	 * @return the serialized payload
+	 * @throws UnsupportedPayloadException if this serializer cannot serialize this payload, in which case Java
+	 * serialization is used instead
+	 * @throws Exception if serialization failed
+	 */
+	byte[] serialize(Object payload) throws Exception;
+
+	/**
+	 * @param data the output of {@link #serialize(Object)}
+	 * @return the deserialized payload
+	 * @throws Exception if deserialization failed
+	 */
+	Object deserialize(byte[] data) throws Exception;
+}
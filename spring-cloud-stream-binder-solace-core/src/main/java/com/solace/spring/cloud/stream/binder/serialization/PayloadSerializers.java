@@ -0,0 +1,64 @@
+package com.solace.spring.cloud.stream.binder.serialization;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.ServiceLoader;
+import java.util.Set;
+
+/**
+ * Registry of the built-in {@link PayloadSerializer}s and of those registered through {@link ServiceLoader}.
+ */
+public final class PayloadSerializers {
+	private static final Log logger = LogFactory.getLog(PayloadSerializers.class);
+	private static final Map<String, PayloadSerializer> SERIALIZERS;
+	private static final PayloadSerializer DEFAULT_SERIALIZER = new JavaPayloadSerializer();
+
+	static {
+		Map<String, PayloadSerializer> serializers = new LinkedHashMap<>();
+		register(serializers, DEFAULT_SERIALIZER);
+		register(serializers, new CompactPayloadSerializer());
+		for (PayloadSerializer serializer : ServiceLoader.load(PayloadSerializer.class)) {
+			register(serializers, serializer);
+		}
+		SERIALIZERS = Collections.unmodifiableMap(serializers);
+	}
+
+	private PayloadSerializers() {}
+
+	private static void register(Map<String, PayloadSerializer> serializers, PayloadSerializer serializer) {
+		PayloadSerializer existing = serializers.putIfAbsent(serializer.getId(), serializer);
+		if (existing != null) {
+			logger.warn(String.format("Ignoring payload serializer %s, its ID %s is already used by %s",
+					serializer.getClass().getName(), serializer.getId(), existing.getClass().getName()));
+		}
+	}
+
+	/**
+	 * @param id the ID of the serializer
+	 * @return the serializer
+	 * @throws IllegalArgumentException if there is no serializer with this ID
+	 */
+	public static PayloadSerializer get(String id) {
+		PayloadSerializer serializer = SERIALIZERS.get(id);
+		if (serializer == null) {
+			throw new IllegalArgumentException(String.format("Unknown payload serializer %s. Expected one of: %s",
+					id, String.join(", ", SERIALIZERS.keySet())));
+		}
+		return serializer;
+	}
+
+	/**
+	 * @return the Java serializer
+	 */
+	public static PayloadSerializer getDefault() {
+		return DEFAULT_SERIALIZER;
+	}
+
+	public static Set<String> getIds() {
+		return SERIALIZERS.keySet();
+	}
+}
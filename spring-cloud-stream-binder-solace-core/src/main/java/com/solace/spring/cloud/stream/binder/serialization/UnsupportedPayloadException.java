@@ -0,0 +1,7 @@
+package com.solace.spring.cloud.stream.binder.serialization;
+
+public class UnsupportedPayloadException extends RuntimeException {
+	public UnsupportedPayloadException(String message) {
+		super(message);
+	}
+}
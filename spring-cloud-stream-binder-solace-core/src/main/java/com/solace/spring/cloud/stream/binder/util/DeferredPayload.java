@@ -0,0 +1,65 @@
+package com.solace.spring.cloud.stream.binder.util;
+
+import com.solacesystems.jcsmp.SDTMap;
+
+import java.util.function.BiFunction;
+
+/**
+ * The payload of an inbound message whose decompression or deserialization was deferred until its first access.
+ * <p>Until it is decoded, publishing a message with this payload sends the original bytes along with their original
+ * encoding as is.</p>
+ */
+public final class DeferredPayload {
+	private final byte[] rawData;
+	private final SDTMap metadata;
+	private final BiFunction<byte[], SDTMap, Object> decoder;
+	private volatile boolean decoded = false;
+	private Object value;
+
+	DeferredPayload(byte[] rawData, SDTMap metadata, BiFunction<byte[], SDTMap, Object> decoder) {
+		this.rawData = rawData;
+		this.metadata = metadata;
+		this.decoder = decoder;
+	}
+
+	/**
+	 * Decode the payload if it wasn't yet.
+	 * @return the decoded payload
+	 * @throws SolaceMessageConversionException if the payload could not be decoded
+	 */
+	public Object get() {
+		if (!decoded) {
+			synchronized (this) {
+				if (!decoded) {
+					value = decoder.apply(rawData, metadata);
+					decoded = true;
+				}
+			}
+		}
+		return value;
+	}
+
+	/**
+	 * @return the payload as it was received, still compressed and/or serialized
+	 */
+	public byte[] getRawData() {
+		return rawData;
+	}
+
+	public boolean isDecoded() {
+		return decoded;
+	}
+
+	/**
+	 * @return the metadata describing how the raw data is encoded
+	 */
+	SDTMap getMetadata() {
+		return metadata;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%s{rawData=%s bytes, decoded=%s}", DeferredPayload.class.getSimpleName(),
+				rawData.length, decoded);
+	}
+}
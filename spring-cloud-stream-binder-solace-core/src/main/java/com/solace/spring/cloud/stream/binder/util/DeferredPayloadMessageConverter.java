@@ -0,0 +1,23 @@
+package com.solace.spring.cloud.stream.binder.util;
+
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.converter.MessageConverter;
+
+/**
+ * Decodes a {@link DeferredPayload} when a handler asks for its payload as any type other than
+ * {@link DeferredPayload} itself.
+ */
+public class DeferredPayloadMessageConverter implements MessageConverter {
+	@Override
+	public Object fromMessage(Message<?> message, Class<?> targetClass) {
+		if (!(message.getPayload() instanceof DeferredPayload)) return null;
+		Object payload = ((DeferredPayload) message.getPayload()).get();
+		return targetClass.isInstance(payload) ? payload : null;
+	}
+
+	@Override
+	public Message<?> toMessage(Object payload, MessageHeaders headers) {
+		return null;
+	}
+}
@@ -0,0 +1,71 @@
+package com.solace.spring.cloud.stream.binder.util;
+
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Deflate compression of message payloads. Deflaters and inflaters hold native memory, so one of each is kept per
+ * thread instead of being created per message.
+ */
+final class DeflateCodec {
+	static final String ENCODING = "deflate";
+
+	private static final ThreadLocal<Deflater> deflater = ThreadLocal.withInitial(Deflater::new);
+	private static final ThreadLocal<Inflater> inflater = ThreadLocal.withInitial(Inflater::new);
+
+	private DeflateCodec() {}
+
+	/**
+	 * @param data the data to compress
+	 * @return the compressed data, or null if compressing would not make the data any smaller
+	 */
+	static byte[] deflate(byte[] data) {
+		Deflater deflater = DeflateCodec.deflater.get();
+		deflater.reset();
+		deflater.setInput(data);
+		deflater.finish();
+
+		// Give up as soon as the output would be at least as large as the input
+		byte[] output = new byte[data.length];
+		int length = 0;
+		while (!deflater.finished()) {
+			if (length == output.length) return null;
+			length += deflater.deflate(output, length, output.length - length);
+		}
+		return Arrays.copyOf(output, length);
+	}
+
+	/**
+	 * @param data the data to decompress
+	 * @param maxSize the maximum size of the decompressed data, or 0 for no limit
+	 * @return the decompressed data
+	 * @throws DataFormatException if the data is corrupt, or would decompress to more than the maximum size
+	 */
+	static byte[] inflate(byte[] data, int maxSize) throws DataFormatException {
+		Inflater inflater = DeflateCodec.inflater.get();
+		inflater.reset();
+		inflater.setInput(data);
+
+		// Leave room for one byte past the maximum, so that exceeding it can be told apart from reaching it
+		int limit = maxSize > 0 && maxSize < Integer.MAX_VALUE ? maxSize + 1 : Integer.MAX_VALUE;
+		byte[] output = new byte[(int) Math.min(Math.max((long) data.length * 4, 64), limit)];
+		int length = 0;
+		while (!inflater.finished()) {
+			if (length == output.length) {
+				if (length == limit) {
+					throw new DataFormatException(String.format(
+							"Compressed payload inflates to more than the maximum of %s bytes", maxSize));
+				}
+				output = Arrays.copyOf(output, (int) Math.min((long) output.length * 2, limit));
+			}
+			int inflated = inflater.inflate(output, length, output.length - length);
+			if (inflated == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+				throw new DataFormatException("Compressed payload is truncated");
+			}
+			length += inflated;
+		}
+		return length == output.length ? output : Arrays.copyOf(output, length);
+	}
+}
@@ -0,0 +1,133 @@
+package com.solace.spring.cloud.stream.binder.util;
+
+import com.solacesystems.jcsmp.Destination;
+import com.solacesystems.jcsmp.JCSMPFactory;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A bounded cache of {@link Destination} objects keyed by their name, which evicts the least recently used destination
+ * once it's full. Topics and queues share the bound.
+ * <p>The cache is split into stripes by name, each an access-ordered LRU with its own lock and its share of the bound,
+ * so that lookups of different names rarely contend and an eviction never has to scan the cache. Caches too small to
+ * be worth splitting are a single exact LRU.</p>
+ */
+public class DestinationCache {
+	private static final int MAX_STRIPES = 16;
+	private static final int MIN_STRIPE_SIZE = 64;
+
+	private final Stripe[] stripes;
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+
+	public DestinationCache(int maxSize) {
+		int size = Math.max(maxSize, 0);
+		int stripeCount = Integer.highestOneBit(Math.max(1, Math.min(MAX_STRIPES, size / MIN_STRIPE_SIZE)));
+		this.stripes = new Stripe[stripeCount];
+		for (int i = 0; i < stripeCount; i++) {
+			// Spread the remainder so that the stripes add up to exactly the maximum size
+			stripes[i] = new Stripe(size / stripeCount + (i < size % stripeCount ? 1 : 0));
+		}
+	}
+
+	public Destination getTopic(String name) {
+		return get(name, true);
+	}
+
+	public Destination getQueue(String name) {
+		return get(name, false);
+	}
+
+	public long getHitCount() {
+		return hits.sum();
+	}
+
+	public long getMissCount() {
+		return misses.sum();
+	}
+
+	public int size() {
+		int size = 0;
+		for (Stripe stripe : stripes) {
+			size += stripe.size();
+		}
+		return size;
+	}
+
+	private Destination get(String name, boolean isTopic) {
+		int hash = name.hashCode();
+		Stripe stripe = stripes[(hash ^ (hash >>> 16)) & (stripes.length - 1)];
+		Destination destination = stripe.get(name, isTopic);
+		if (destination != null) {
+			hits.increment();
+			return destination;
+		}
+
+		misses.increment();
+		return stripe.put(name, isTopic);
+	}
+
+	private static final class Stripe {
+		private final int maxSize;
+		private final LinkedHashMap<String,Entry> topics = new LinkedHashMap<>(16, 0.75f, true);
+		private final LinkedHashMap<String,Entry> queues = new LinkedHashMap<>(16, 0.75f, true);
+		private long clock = 0; // Orders accesses across both maps
+
+		Stripe(int maxSize) {
+			this.maxSize = maxSize;
+		}
+
+		synchronized Destination get(String name, boolean isTopic) {
+			Entry entry = (isTopic ? topics : queues).get(name);
+			if (entry == null) return null;
+			entry.lastAccess = ++clock;
+			return entry.destination;
+		}
+
+		synchronized Destination put(String name, boolean isTopic) {
+			LinkedHashMap<String,Entry> cache = isTopic ? topics : queues;
+			Entry entry = cache.get(name);
+			if (entry != null) { // Another thread got here first
+				entry.lastAccess = ++clock;
+				return entry.destination;
+			}
+
+			entry = new Entry(isTopic ? JCSMPFactory.onlyInstance().createTopic(name) :
+					JCSMPFactory.onlyInstance().createQueue(name));
+			entry.lastAccess = ++clock;
+			cache.put(name, entry);
+			while (topics.size() + queues.size() > maxSize) {
+				evictEldest();
+			}
+			return entry.destination;
+		}
+
+		synchronized int size() {
+			return topics.size() + queues.size();
+		}
+
+		/**
+		 * Each map is in access order, so the least recently used entry is the older of their first entries.
+		 */
+		private void evictEldest() {
+			Entry eldestTopic = topics.isEmpty() ? null : topics.values().iterator().next();
+			Entry eldestQueue = queues.isEmpty() ? null : queues.values().iterator().next();
+			boolean evictTopic = eldestQueue == null ||
+					(eldestTopic != null && eldestTopic.lastAccess < eldestQueue.lastAccess);
+			Iterator<Entry> eldest = (evictTopic ? topics : queues).values().iterator();
+			eldest.next();
+			eldest.remove();
+		}
+	}
+
+	private static final class Entry {
+		private final Destination destination;
+		private long lastAccess;
+
+		Entry(Destination destination) {
+			this.destination = destination;
+		}
+	}
+}
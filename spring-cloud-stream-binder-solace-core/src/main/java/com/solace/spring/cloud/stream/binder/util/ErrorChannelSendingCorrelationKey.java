@@ -0,0 +1,106 @@
+package com.solace.spring.cloud.stream.binder.util;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.integration.support.ErrorMessageStrategy;
+import org.springframework.integration.support.ErrorMessageUtils;
+import org.springframework.lang.Nullable;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessagingException;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Correlation key attached to published messages so that broker acknowledgements can be traced back to the Spring
+ * message which produced them.
+ */
+public class ErrorChannelSendingCorrelationKey {
+	private final Message<?> inputMessage;
+	private final MessageChannel errorChannel;
+	private final ErrorMessageStrategy errorMessageStrategy;
+	private final CompletableFuture<Void> confirmation;
+	private volatile PublisherInFlightWindow inFlightWindow;
+	private volatile long inFlightBytes;
+	private SolaceBinderMetrics.ProducerMetrics producerMetrics = SolaceBinderMetrics.ProducerMetrics.NOOP;
+
+	private static final Log logger = LogFactory.getLog(ErrorChannelSendingCorrelationKey.class);
+
+	public ErrorChannelSendingCorrelationKey(Message<?> inputMessage,
+											 @Nullable MessageChannel errorChannel,
+											 @Nullable ErrorMessageStrategy errorMessageStrategy,
+											 @Nullable CompletableFuture<Void> confirmation) {
+		this.inputMessage = inputMessage;
+		this.errorChannel = errorChannel;
+		this.errorMessageStrategy = errorMessageStrategy;
+		this.confirmation = confirmation;
+	}
+
+	public Message<?> getInputMessage() {
+		return inputMessage;
+	}
+
+	public CompletableFuture<Void> getConfirmation() {
+		return confirmation;
+	}
+
+	/**
+	 * Mark the message as accepted by the message broker.
+	 */
+	public void confirm() {
+		releaseInFlightWindow();
+		if (confirmation != null) {
+			confirmation.complete(null);
+		}
+	}
+
+	/**
+	 * Send the failed message to the error channel and complete its confirmation exceptionally.
+	 * @param msg the error message
+	 * @param cause the cause of the failure
+	 * @return the exception which was sent
+	 */
+	public MessagingException send(String msg, Exception cause) {
+		releaseInFlightWindow();
+		MessagingException exception = new MessagingException(inputMessage, msg, cause);
+		if (errorChannel != null && errorMessageStrategy != null) {
+			try {
+				errorChannel.send(errorMessageStrategy.buildErrorMessage(exception,
+						ErrorMessageUtils.getAttributeAccessor(inputMessage, null)));
+			} catch (RuntimeException e) {
+				logger.warn(String.format("Failed to send error message for Spring message %s",
+						inputMessage.getHeaders().getId()), e);
+			}
+		}
+
+		if (confirmation != null) {
+			confirmation.completeExceptionally(exception);
+		}
+		return exception;
+	}
+
+	public SolaceBinderMetrics.ProducerMetrics getProducerMetrics() {
+		return producerMetrics;
+	}
+
+	public void setProducerMetrics(SolaceBinderMetrics.ProducerMetrics producerMetrics) {
+		this.producerMetrics = producerMetrics;
+	}
+
+	long getInFlightBytes() {
+		return inFlightBytes;
+	}
+
+	void setInFlightWindow(PublisherInFlightWindow inFlightWindow, long bytes) {
+		this.inFlightBytes = bytes;
+		this.inFlightWindow = inFlightWindow;
+	}
+
+	private void releaseInFlightWindow() {
+		PublisherInFlightWindow window = inFlightWindow;
+		if (window != null) {
+			inFlightWindow = null;
+			window.release(this, inFlightBytes);
+		}
+	}
+}
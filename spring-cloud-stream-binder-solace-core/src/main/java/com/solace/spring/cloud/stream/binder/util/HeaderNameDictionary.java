@@ -0,0 +1,134 @@
+package com.solace.spring.cloud.stream.binder.util;
+
+import com.solacesystems.common.util.ByteArray;
+import com.solacesystems.jcsmp.JCSMPFactory;
+import com.solacesystems.jcsmp.SDTException;
+import com.solacesystems.jcsmp.SDTMap;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Replaces well-known metadata keys by short codes.
+ * <p>Coded metadata is marked by {@link #VERSION_KEY}, holding the version of the dictionary it was coded with. Keys
+ * are coded as follows:</p>
+ * <ul>
+ *     <li>{@code ~<index>}: the dictionary entry at this index</li>
+ *     <li>{@code ~j<name>}: the legacy Java serialization flag of header {@code <name>}</li>
+ *     <li>{@code ~~<rest>}: a key which started with {@code ~} to begin with</li>
+ *     <li>anything else: the key as is</li>
+ * </ul>
+ */
+final class HeaderNameDictionary {
+	static final String VERSION_KEY = "~v";
+	static final int VERSION = 1;
+
+	private static final char CODE_PREFIX = '~';
+	private static final String JAVA_SERIALIZED_HEADER_PREFIX = "_isJavaSerializedObject-";
+	private static final String JAVA_SERIALIZED_HEADER_CODE_PREFIX = "~j";
+	private static final String ESCAPED_PREFIX = "~~";
+
+	// Append only, a name's index is its code. Bump VERSION whenever names are added.
+	private static final String[] NAMES = {
+			"contentType",
+			"timestamp",
+			"solaceSpringCloudStreamBinderVersion",
+			"solaceSpringCloudStreamBinderPayloadEncoding",
+			"isCompressedText",
+			"solaceSpringCloudStreamBinderPayloadSerializer",
+			"isJavaSerializedObject",
+			"_e-id",
+			"_e-contentType",
+			"spring_json_header_types",
+			"scst_partition",
+			"originalContentType",
+			"correlationId",
+			"sequenceNumber",
+			"sequenceSize",
+			"deliveryAttempt",
+			"priority",
+			"expirationDate"
+	};
+	private static final Map<String, String> CODES = new HashMap<>();
+
+	static {
+		for (int i = 0; i < NAMES.length; i++) {
+			CODES.put(NAMES[i], String.valueOf(CODE_PREFIX) + i);
+		}
+	}
+
+	private HeaderNameDictionary() {}
+
+	static String encodeKey(String key) {
+		String code = CODES.get(key);
+		if (code != null) return code;
+		if (key.startsWith(JAVA_SERIALIZED_HEADER_PREFIX)) {
+			return JAVA_SERIALIZED_HEADER_CODE_PREFIX + key.substring(JAVA_SERIALIZED_HEADER_PREFIX.length());
+		}
+		if (!key.isEmpty() && key.charAt(0) == CODE_PREFIX) return CODE_PREFIX + key;
+		return key;
+	}
+
+	static String decodeKey(String key) {
+		if (key.length() < 2 || key.charAt(0) != CODE_PREFIX) return key;
+		if (key.startsWith(ESCAPED_PREFIX)) return key.substring(1);
+		if (key.startsWith(JAVA_SERIALIZED_HEADER_CODE_PREFIX)) {
+			return JAVA_SERIALIZED_HEADER_PREFIX + key.substring(JAVA_SERIALIZED_HEADER_CODE_PREFIX.length());
+		}
+
+		int index;
+		try {
+			index = Integer.parseInt(key.substring(1));
+		} catch (NumberFormatException e) {
+			throw new IllegalArgumentException(String.format("Invalid coded metadata key %s", key), e);
+		}
+		if (index < 0 || index >= NAMES.length) {
+			throw new IllegalArgumentException(String.format("Unknown coded metadata key %s", key));
+		}
+		return NAMES[index];
+	}
+
+	/**
+	 * Code the keys of the given metadata in place.
+	 */
+	static void encode(SDTMap metadata) throws SDTException {
+		List<String> keys = new ArrayList<>(metadata.keySet());
+		for (String key : keys) {
+			String code = encodeKey(key);
+			if (code.equals(key)) continue;
+			Object value = metadata.get(key);
+			metadata.remove(key);
+			putObject(metadata, code, value);
+		}
+		metadata.putInteger(VERSION_KEY, VERSION);
+	}
+
+	/**
+	 * @return metadata with plain keys, which is the given metadata itself if it was not coded
+	 */
+	static SDTMap decode(SDTMap metadata) throws SDTException {
+		if (metadata == null || !metadata.containsKey(VERSION_KEY)) return metadata;
+
+		Integer version = metadata.getInteger(VERSION_KEY);
+		if (version == null || version < 1 || version > VERSION) {
+			// Dictionaries are append only, so older versions can still be decoded
+			throw new IllegalArgumentException(String.format("Unsupported header dictionary version %s", version));
+		}
+
+		SDTMap decoded = JCSMPFactory.onlyInstance().createMap();
+		for (String key : metadata.keySet()) {
+			if (VERSION_KEY.equals(key)) continue;
+			putObject(decoded, decodeKey(key), metadata.get(key));
+		}
+		return decoded;
+	}
+
+	private static void putObject(SDTMap metadata, String key, Object value) throws SDTException {
+		if (value instanceof ByteArray) {
+			value = ((ByteArray) value).getBuffer();
+		}
+		metadata.putObject(key, value);
+	}
+}
@@ -0,0 +1,113 @@
+package com.solace.spring.cloud.stream.binder.util;
+
+import org.springframework.util.PatternMatchUtils;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Decides which headers a producer propagates to the message broker.
+ * <p>Patterns may contain {@code *} wildcards. A header is propagated if it matches any include pattern (or if there
+ * are none), unless it also matches an exclude pattern. Patterns are split into exact names and wildcard patterns up
+ * front, and decisions are cached per header name.</p>
+ */
+public class HeaderPropagationFilter {
+	private static final int MAX_CACHED_DECISIONS = 1024;
+
+	private final Set<String> includedNames = new HashSet<>();
+	private final String[] includedPatterns;
+	private final Set<String> excludedNames = new HashSet<>();
+	private final String[] excludedPatterns;
+	private final boolean includeAll;
+	private final ConcurrentMap<String, Boolean> decisions = new ConcurrentHashMap<>();
+	private final LongAdder filteredHeaders = new LongAdder();
+	private final LongAdder filteredBytes = new LongAdder();
+
+	/**
+	 * @param includePatterns the headers to propagate, or an empty array to propagate all headers
+	 * @param excludePatterns the headers not to propagate
+	 */
+	public HeaderPropagationFilter(String[] includePatterns, String[] excludePatterns) {
+		this.includedPatterns = compile(includePatterns, includedNames);
+		this.excludedPatterns = compile(excludePatterns, excludedNames);
+		this.includeAll = includedNames.isEmpty() && includedPatterns.length == 0;
+	}
+
+	private static String[] compile(String[] patterns, Set<String> exactNames) {
+		List<String> wildcardPatterns = new ArrayList<>();
+		if (patterns != null) {
+			for (String pattern : patterns) {
+				if (pattern == null || pattern.trim().isEmpty()) continue;
+				pattern = pattern.trim();
+				if (pattern.indexOf('*') >= 0) {
+					wildcardPatterns.add(pattern);
+				} else {
+					exactNames.add(pattern);
+				}
+			}
+		}
+		return wildcardPatterns.toArray(new String[0]);
+	}
+
+	/**
+	 * @param headerName the name of the header
+	 * @param value the value of the header, only used to account for the bytes saved by filtering it
+	 * @return whether to propagate the header
+	 */
+	public boolean isPropagated(String headerName, Object value) {
+		Boolean propagated = decisions.get(headerName);
+		if (propagated == null) {
+			propagated = decide(headerName);
+			if (decisions.size() < MAX_CACHED_DECISIONS) {
+				decisions.putIfAbsent(headerName, propagated);
+			}
+		}
+
+		if (!propagated) {
+			filteredHeaders.increment();
+			filteredBytes.add(headerName.length() + estimateSize(value));
+		}
+		return propagated;
+	}
+
+	private boolean decide(String headerName) {
+		if (excludedNames.contains(headerName) || PatternMatchUtils.simpleMatch(excludedPatterns, headerName)) {
+			return false;
+		}
+		return includeAll || includedNames.contains(headerName) ||
+				PatternMatchUtils.simpleMatch(includedPatterns, headerName);
+	}
+
+	private static long estimateSize(Object value) {
+		if (value instanceof String) return ((String) value).length();
+		if (value instanceof byte[]) return ((byte[]) value).length;
+		if (value instanceof ByteBuffer) return ((ByteBuffer) value).remaining();
+		if (value instanceof UUID) return 16;
+		if (value instanceof Long || value instanceof Double) return 8;
+		if (value instanceof Number) return 4;
+		if (value != null) return 1;
+		return 0;
+	}
+
+	/**
+	 * @return the number of headers which were not propagated
+	 */
+	public long getFilteredHeaderCount() {
+		return filteredHeaders.sum();
+	}
+
+	/**
+	 * @return an estimate of the header names and values in bytes which were not propagated, excluding the overhead
+	 * of the metadata encoding itself
+	 */
+	public long getFilteredHeaderBytes() {
+		return filteredBytes.sum();
+	}
+}
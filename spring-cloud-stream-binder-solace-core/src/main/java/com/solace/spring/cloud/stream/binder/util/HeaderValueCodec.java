@@ -0,0 +1,95 @@
+package com.solace.spring.cloud.stream.binder.util;
+
+import com.solacesystems.jcsmp.SDTException;
+import com.solacesystems.jcsmp.SDTMap;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.util.MimeType;
+
+import java.util.UUID;
+
+/**
+ * Compact encodings for common header types which Solace metadata does not support natively.
+ * <p>An encoded header is flagged by a {@link #METADATA_KEY_PREFIX}-prefixed metadata entry holding its encoding,
+ * so that these headers no longer go through Java serialization. Only values of exactly the encoded classes are
+ * encoded, values of their subclasses are still serialized.</p>
+ */
+final class HeaderValueCodec {
+	static final String METADATA_KEY_PREFIX = "_e-";
+
+	static final byte NONE = 0;
+	static final byte UUID_ENCODING = 1;
+	static final byte MIME_TYPE_ENCODING = 2;
+
+	private static final String ID_METADATA_KEY = METADATA_KEY_PREFIX + MessageHeaders.ID;
+	private static final String CONTENT_TYPE_METADATA_KEY = METADATA_KEY_PREFIX + MessageHeaders.CONTENT_TYPE;
+
+	private HeaderValueCodec() {}
+
+	/**
+	 * @return the encoding for this value, or {@link #NONE} if it has no compact encoding
+	 */
+	static byte getEncoding(Object value) {
+		if (value == null) return NONE;
+		// Match the exact class, subclasses such as MediaType would otherwise decode as their superclass
+		if (value.getClass() == UUID.class) return UUID_ENCODING;
+		if (value.getClass() == MimeType.class) return MIME_TYPE_ENCODING;
+		return NONE;
+	}
+
+	static String getMetadataKey(String headerName) {
+		// Spares building the key for the headers which are on nearly every message
+		if (MessageHeaders.ID.equals(headerName)) return ID_METADATA_KEY;
+		if (MessageHeaders.CONTENT_TYPE.equals(headerName)) return CONTENT_TYPE_METADATA_KEY;
+		return METADATA_KEY_PREFIX + headerName;
+	}
+
+	static void encode(SDTMap metadata, String headerName, Object value, byte encoding) throws SDTException {
+		switch (encoding) {
+			case UUID_ENCODING:
+				metadata.putBytes(headerName, toBytes((UUID) value));
+				break;
+			case MIME_TYPE_ENCODING:
+				metadata.putString(headerName, value.toString());
+				break;
+			default:
+				throw new IllegalArgumentException(String.format("Unknown header encoding %s", encoding));
+		}
+		metadata.putByte(getMetadataKey(headerName), encoding);
+	}
+
+	static Object decode(SDTMap metadata, String headerName, byte encoding) throws SDTException {
+		switch (encoding) {
+			case UUID_ENCODING:
+				return toUUID(metadata.getBytes(headerName));
+			case MIME_TYPE_ENCODING:
+				return MimeType.valueOf(metadata.getString(headerName));
+			default:
+				throw new IllegalArgumentException(String.format("Unknown encoding %s of header %s",
+						encoding, headerName));
+		}
+	}
+
+	private static byte[] toBytes(UUID uuid) {
+		byte[] bytes = new byte[16];
+		long msb = uuid.getMostSignificantBits();
+		long lsb = uuid.getLeastSignificantBits();
+		for (int i = 0; i < 8; i++) {
+			bytes[i] = (byte) (msb >>> (56 - 8 * i));
+			bytes[i + 8] = (byte) (lsb >>> (56 - 8 * i));
+		}
+		return bytes;
+	}
+
+	private static UUID toUUID(byte[] bytes) {
+		if (bytes == null || bytes.length != 16) {
+			throw new IllegalArgumentException("A UUID must be encoded as 16 bytes");
+		}
+		long msb = 0;
+		long lsb = 0;
+		for (int i = 0; i < 8; i++) {
+			msb = (msb << 8) | (bytes[i] & 0xFF);
+			lsb = (lsb << 8) | (bytes[i + 8] & 0xFF);
+		}
+		return new UUID(msb, lsb);
+	}
+}
@@ -0,0 +1,143 @@
+package com.solace.spring.cloud.stream.binder.util;
+
+import com.solacesystems.jcsmp.XMLMessage;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.util.Assert;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Acknowledges the messages of a flow on a dedicated thread, so that the threads which process messages only have to
+ * queue their acknowledgements.
+ * <p>Acknowledgements are sent in bursts of whatever is queued, up to the maximum batch size. A burst never waits for
+ * more acknowledgements: JCSMP has no cumulative acknowledgement of client acknowledged messages, so every message of a
+ * burst is still acknowledged on its own, and waiting would only delay them.</p>
+ * <p>The queue isn't bounded, since a flow never has more unacknowledged messages than its queue's maximum of
+ * delivered unacknowledged messages per flow.</p>
+ */
+public class JCSMPAckEngine {
+	private static final Log logger = LogFactory.getLog(JCSMPAckEngine.class);
+
+	private final String name;
+	private final int maxBatchSize;
+	private final SolaceBinderMetrics.ConsumerMetrics metrics;
+	private final BlockingQueue<PendingAck> queue = new LinkedBlockingQueue<>();
+	private Thread thread;
+	private volatile boolean running = false;
+
+	/**
+	 * @param name used to name the engine's thread
+	 * @param maxBatchSize the maximum number of messages to acknowledge per burst
+	 */
+	public JCSMPAckEngine(String name, int maxBatchSize, SolaceBinderMetrics.ConsumerMetrics metrics) {
+		Assert.isTrue(maxBatchSize > 0, "The maximum acknowledgement batch size must be greater than 0");
+		this.name = name;
+		this.maxBatchSize = maxBatchSize;
+		this.metrics = metrics;
+	}
+
+	public synchronized void start() {
+		if (running) return;
+		running = true;
+		thread = new Thread(this::run, name);
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	/**
+	 * Queues the message to be acknowledged. Messages are acknowledged right away once the engine was stopped.
+	 */
+	public void ack(XMLMessage xmlMessage) {
+		// Checked and queued under the lock which stop() takes, so nothing is queued after its final drain
+		synchronized (this) {
+			if (running) {
+				queue.add(new PendingAck(xmlMessage, System.nanoTime()));
+				metrics.ackQueued();
+				return;
+			}
+		}
+		xmlMessage.ackMessage();
+	}
+
+	/**
+	 * Stops accepting acknowledgements and waits for the queued ones to be sent.
+	 * @return true if every queued acknowledgement was sent in time
+	 */
+	public boolean stop(long timeoutMillis) {
+		synchronized (this) {
+			if (!running) return true;
+			running = false;
+		}
+
+		try {
+			thread.join(timeoutMillis);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+
+		List<PendingAck> remaining = new ArrayList<>();
+		if (thread.isAlive()) {
+			thread.interrupt();
+			queue.drainTo(remaining);
+			metrics.acksDropped(remaining.size());
+			logger.warn(String.format("%s did not send its %s queued acknowledgements within %s ms, the messages " +
+					"will be redelivered", name, remaining.size(), timeoutMillis));
+			return false;
+		}
+
+		// Acknowledgements which were queued while the engine stopped
+		queue.drainTo(remaining);
+		flush(remaining);
+		return true;
+	}
+
+	public int getBacklog() {
+		return queue.size();
+	}
+
+	private void run() {
+		List<PendingAck> batch = new ArrayList<>(maxBatchSize);
+		try {
+			while (running || !queue.isEmpty()) {
+				PendingAck first = queue.poll(100, TimeUnit.MILLISECONDS);
+				if (first == null) continue;
+
+				batch.add(first);
+				queue.drainTo(batch, maxBatchSize - 1);
+				flush(batch);
+				batch.clear();
+			}
+		} catch (InterruptedException e) {
+			// Unsent acknowledgements are redelivered once the flow is closed
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private void flush(List<PendingAck> batch) {
+		long now = System.nanoTime();
+		for (PendingAck pendingAck : batch) {
+			try {
+				pendingAck.xmlMessage.ackMessage();
+			} catch (RuntimeException e) {
+				logger.warn(String.format("Failed to acknowledge message %s from %s",
+						pendingAck.xmlMessage.getMessageId(), name), e);
+			}
+			metrics.ackFlushed(now - pendingAck.queuedNanos);
+		}
+	}
+
+	private static final class PendingAck {
+		private final XMLMessage xmlMessage;
+		private final long queuedNanos;
+
+		PendingAck(XMLMessage xmlMessage, long queuedNanos) {
+			this.xmlMessage = xmlMessage;
+			this.queuedNanos = queuedNanos;
+		}
+	}
+}
@@ -3,39 +3,57 @@ package com.solace.spring.cloud.stream.binder.util;
 import com.solacesystems.jcsmp.XMLMessage;
 import org.springframework.integration.support.AcknowledgmentCallback;
 import org.springframework.integration.support.AcknowledgmentCallbackFactory;
+import org.springframework.lang.Nullable;
 
 class JCSMPAcknowledgementCallbackFactory implements AcknowledgmentCallbackFactory<XMLMessage> {
 
 	@Override
 	public AcknowledgmentCallback createCallback(XMLMessage xmlMessage) {
-		return new JCSMPAcknowledgementCallback(xmlMessage);
+		return new JCSMPAcknowledgementCallback(xmlMessage, null);
+	}
+
+	/**
+	 * @param ackEngine acknowledges the message asynchronously, or null to acknowledge it on the calling thread
+	 */
+	public AcknowledgmentCallback createCallback(XMLMessage xmlMessage, @Nullable JCSMPAckEngine ackEngine) {
+		return new JCSMPAcknowledgementCallback(xmlMessage, ackEngine);
 	}
 
 	static class JCSMPAcknowledgementCallback implements AcknowledgmentCallback {
 		private XMLMessage xmlMessage;
+		private final JCSMPAckEngine ackEngine;
 		private boolean acknowledged = false;
 		private boolean autoAckEnabled = true;
 
-		JCSMPAcknowledgementCallback(XMLMessage xmlMessage) {
+		JCSMPAcknowledgementCallback(XMLMessage xmlMessage, @Nullable JCSMPAckEngine ackEngine) {
 			this.xmlMessage = xmlMessage;
+			this.ackEngine = ackEngine;
 		}
 
 		@Override
 		public void acknowledge(Status status) {
 			switch (status) {
 				case ACCEPT:
-					xmlMessage.ackMessage();
+					ackMessage();
 					break;
 				case REJECT:
-					xmlMessage.ackMessage();
+					ackMessage();
 					break;
 				case REQUEUE:
-					xmlMessage.ackMessage();
+					ackMessage();
 			}
 
 			acknowledged = true;
 		}
 
+		private void ackMessage() {
+			if (ackEngine != null) {
+				ackEngine.ack(xmlMessage);
+			} else {
+				xmlMessage.ackMessage();
+			}
+		}
+
 		@Override
 		public boolean isAcknowledged() {
 			return acknowledged;
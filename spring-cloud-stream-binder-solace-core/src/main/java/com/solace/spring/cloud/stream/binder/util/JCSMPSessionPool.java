@@ -0,0 +1,179 @@
+package com.solace.spring.cloud.stream.binder.util;
+
+import com.solacesystems.jcsmp.Context;
+import com.solacesystems.jcsmp.JCSMPException;
+import com.solacesystems.jcsmp.JCSMPSession;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A fixed pool of connected sessions from which bindings are assigned a session.
+ * <p>Assignments are sticky: the same key is always assigned the same session. This matters for temporary queues,
+ * which can only be used through the session that created them.</p>
+ */
+public class JCSMPSessionPool {
+	private final List<JCSMPSession> sessions;
+	private final List<Context> contexts;
+	private final AssignmentStrategy assignmentStrategy;
+	private final Map<JCSMPSession,JCSMPSessionProducerManager> producerManagers = new IdentityHashMap<>();
+	private final Map<String,JCSMPSession> assignments = new HashMap<>();
+	private final int[] nextIndex = new int[Role.values().length];
+
+	private static final Log logger = LogFactory.getLog(JCSMPSessionPool.class);
+
+	public enum AssignmentStrategy {
+		/** Sessions are assigned to bindings in turn. */
+		ROUND_ROBIN,
+		/** Consumers and producers are assigned sessions from separate halves of the pool. */
+		DEDICATED,
+		/** Bindings are assigned sessions based on the hash of their destination name. */
+		PINNED
+	}
+
+	public enum Role {
+		PRODUCER, CONSUMER
+	}
+
+	/**
+	 * Creates and connects the sessions of a pool. If a session fails to connect, the sessions which were already
+	 * created are closed before the failure is rethrown.
+	 * @param size the number of sessions
+	 * @param assignmentStrategy how sessions are assigned to bindings
+	 * @param sessionFactory creates each session
+	 * @return a pool of connected sessions
+	 * @throws JCSMPException if a session could not be created or connected
+	 */
+	public static JCSMPSessionPool connect(int size, AssignmentStrategy assignmentStrategy,
+										   SessionFactory sessionFactory) throws JCSMPException {
+		int poolSize = Math.max(size, 1);
+		List<JCSMPSession> sessions = new ArrayList<>(poolSize);
+		List<Context> contexts = new ArrayList<>();
+		try {
+			for (int i = 0; i < poolSize; i++) {
+				JCSMPSession session = sessionFactory.createSession(i, contexts);
+				sessions.add(session);
+				session.connect();
+			}
+		} catch (JCSMPException | RuntimeException e) {
+			logger.warn(String.format("Unable to connect session %s of a pool of %s, closing the pool's other sessions",
+					sessions.size(), poolSize), e);
+			close(sessions, contexts);
+			throw e;
+		}
+		return new JCSMPSessionPool(sessions, contexts, assignmentStrategy);
+	}
+
+	public JCSMPSessionPool(JCSMPSession session) {
+		this(Collections.singletonList(session), Collections.emptyList(), AssignmentStrategy.ROUND_ROBIN);
+	}
+
+	/**
+	 * @param sessions connected sessions
+	 * @param contexts contexts which were created for these sessions and must be destroyed along with them
+	 * @param assignmentStrategy how sessions are assigned to bindings
+	 */
+	public JCSMPSessionPool(List<JCSMPSession> sessions, List<Context> contexts, AssignmentStrategy assignmentStrategy) {
+		if (sessions.isEmpty()) {
+			throw new IllegalArgumentException("A session pool requires at least one session");
+		}
+		this.sessions = new ArrayList<>(sessions);
+		this.contexts = new ArrayList<>(contexts);
+		this.assignmentStrategy = assignmentStrategy;
+		for (JCSMPSession session : this.sessions) {
+			producerManagers.put(session, new JCSMPSessionProducerManager(session));
+		}
+	}
+
+	/**
+	 * @return the session used for operations which are not tied to a particular binding
+	 */
+	public JCSMPSession getDefaultSession() {
+		return sessions.get(0);
+	}
+
+	public List<JCSMPSession> getSessions() {
+		return Collections.unmodifiableList(sessions);
+	}
+
+	public JCSMPSessionProducerManager getProducerManager(JCSMPSession session) {
+		return producerManagers.get(session);
+	}
+
+	public Iterable<JCSMPSessionProducerManager> getProducerManagers() {
+		return Collections.unmodifiableCollection(producerManagers.values());
+	}
+
+	/**
+	 * @param key the name of the binding's destination
+	 * @param role whether the session will be used to consume or to produce
+	 * @return the session assigned to this key
+	 */
+	public synchronized JCSMPSession getSession(String key, Role role) {
+		String assignmentKey = role + ":" + key;
+		JCSMPSession session = assignments.get(assignmentKey);
+		if (session == null) {
+			session = sessions.get(selectIndex(key, role));
+			assignments.put(assignmentKey, session);
+			if (sessions.size() > 1) {
+				logger.info(String.format("Assigned %s %s to session %s",
+						role.name().toLowerCase(), key, session.getSessionName()));
+			}
+		}
+		return session;
+	}
+
+	/**
+	 * Assign a specific session to a key.
+	 */
+	public synchronized void assign(String key, Role role, JCSMPSession session) {
+		assignments.put(role + ":" + key, session);
+	}
+
+	private int selectIndex(String key, Role role) {
+		int size = sessions.size();
+		switch (assignmentStrategy) {
+			case PINNED:
+				return Math.floorMod(key.hashCode(), size);
+			case DEDICATED:
+				if (size == 1) return 0;
+				int producerSessions = size / 2;
+				int offset = role == Role.PRODUCER ? 0 : producerSessions;
+				int roleSize = role == Role.PRODUCER ? producerSessions : size - producerSessions;
+				return offset + Math.floorMod(nextIndex[role.ordinal()]++, roleSize);
+			case ROUND_ROBIN:
+			default:
+				return Math.floorMod(nextIndex[0]++, size);
+		}
+	}
+
+	public void close() {
+		close(sessions, contexts);
+	}
+
+	private static void close(List<JCSMPSession> sessions, List<Context> contexts) {
+		for (JCSMPSession session : sessions) {
+			session.closeSession();
+		}
+		for (Context context : contexts) {
+			context.destroy();
+		}
+	}
+
+	@FunctionalInterface
+	public interface SessionFactory {
+		/**
+		 * @param index the index of the session within the pool
+		 * @param contexts collects any context created for the session, which is destroyed along with the pool
+		 * @return an unconnected session
+		 * @throws JCSMPException if the session could not be created
+		 */
+		JCSMPSession createSession(int index, List<Context> contexts) throws JCSMPException;
+	}
+}
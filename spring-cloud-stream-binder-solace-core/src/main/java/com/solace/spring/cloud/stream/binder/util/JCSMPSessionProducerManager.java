@@ -2,7 +2,7 @@ package com.solace.spring.cloud.stream.binder.util;
 
 import com.solacesystems.jcsmp.JCSMPException;
 import com.solacesystems.jcsmp.JCSMPSession;
-import com.solacesystems.jcsmp.JCSMPStreamingPublishEventHandler;
+import com.solacesystems.jcsmp.JCSMPStreamingPublishCorrelatingEventHandler;
 import com.solacesystems.jcsmp.XMLMessageProducer;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -27,7 +27,28 @@ public class JCSMPSessionProducerManager extends SharedResourceManager<XMLMessag
 		sharedResource.close();
 	}
 
-	private JCSMPStreamingPublishEventHandler publisherEventHandler = new JCSMPStreamingPublishEventHandler() {
+	private JCSMPStreamingPublishCorrelatingEventHandler publisherEventHandler = new JCSMPStreamingPublishCorrelatingEventHandler() {
+		@Override
+		public void responseReceivedEx(Object correlationKey) {
+			if (correlationKey instanceof ErrorChannelSendingCorrelationKey) {
+				((ErrorChannelSendingCorrelationKey) correlationKey).confirm();
+			} else if (logger.isDebugEnabled()) {
+				logger.debug("Producer received response for correlation key: " + correlationKey);
+			}
+		}
+
+		@Override
+		public void handleErrorEx(Object correlationKey, JCSMPException e, long timestamp) {
+			if (correlationKey instanceof ErrorChannelSendingCorrelationKey) {
+				ErrorChannelSendingCorrelationKey key = (ErrorChannelSendingCorrelationKey) correlationKey;
+				key.getProducerMetrics().nacked();
+				key.send(String.format("Producer received error for Spring message %s - %s",
+						key.getInputMessage().getHeaders().getId(), timestamp), e);
+			} else {
+				logger.warn("Producer received error for correlation key: " + correlationKey + " - " + timestamp, e);
+			}
+		}
+
 		@Override
 		public void responseReceived(String messageID) {
 			logger.debug("Producer received response for msg: " + messageID);
@@ -0,0 +1,220 @@
+package com.solace.spring.cloud.stream.binder.util;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Records the binder's metrics in a Micrometer {@link MeterRegistry}. Meters are tagged by {@code binding}, producer
+ * meters also by {@code topic} and consumer meters by {@code queue}.
+ */
+public class MicrometerSolaceBinderMetrics implements SolaceBinderMetrics {
+	public static final String PREFIX = "solace.binder.";
+
+	private final MeterRegistry registry;
+	// Gauges are bound to the metrics which first registered them, so each binding keeps its metrics
+	private final Map<List<String>, ProducerMetrics> producerMetrics = new ConcurrentHashMap<>();
+	private final Map<List<String>, ConsumerMetrics> consumerMetrics = new ConcurrentHashMap<>();
+
+	public MicrometerSolaceBinderMetrics(MeterRegistry registry) {
+		this.registry = registry;
+	}
+
+	@Override
+	public ProducerMetrics producer(String bindingName, String topic) {
+		return producerMetrics.computeIfAbsent(Arrays.asList(bindingName, topic),
+				key -> new MicrometerProducerMetrics(registry, Tags.of("binding", bindingName, "topic", topic)));
+	}
+
+	@Override
+	public ConsumerMetrics consumer(String bindingName, String queueName) {
+		return consumerMetrics.computeIfAbsent(Arrays.asList(bindingName, queueName),
+				key -> new MicrometerConsumerMetrics(registry, Tags.of("binding", bindingName, "queue", queueName)));
+	}
+
+	private static Counter counter(MeterRegistry registry, String name, Tags tags, String description) {
+		return Counter.builder(PREFIX + name).tags(tags).description(description).register(registry);
+	}
+
+	private static Timer timer(MeterRegistry registry, String name, Tags tags, String description) {
+		return Timer.builder(PREFIX + name).tags(tags).description(description).register(registry);
+	}
+
+	private static class MicrometerProducerMetrics implements ProducerMetrics {
+		private final MeterRegistry registry;
+		private final Tags tags;
+		private final Counter published;
+		private final Counter nacked;
+		private final Timer mapping;
+		private final Counter conversionFailures;
+
+		MicrometerProducerMetrics(MeterRegistry registry, Tags tags) {
+			this.registry = registry;
+			this.tags = tags;
+			published = counter(registry, "producer.published", tags, "Messages handed to the producer");
+			nacked = counter(registry, "producer.nacks", tags, "Messages rejected by the message broker");
+			mapping = timer(registry, "producer.mapping", tags, "Mapping Spring messages to Solace messages");
+			conversionFailures = counter(registry, "producer.conversion.failures", tags,
+					"Spring messages which could not be mapped");
+		}
+
+		@Override
+		public void published(int count) {
+			published.increment(count);
+		}
+
+		@Override
+		public void nacked() {
+			nacked.increment();
+		}
+
+		@Override
+		public void mapped(long nanos) {
+			mapping.record(nanos, TimeUnit.NANOSECONDS);
+		}
+
+		@Override
+		public void conversionFailed() {
+			conversionFailures.increment();
+		}
+
+		@Override
+		public void bindInFlightWindow(PublisherInFlightWindow inFlightWindow) {
+			Gauge.builder(PREFIX + "producer.inflight.messages", inFlightWindow,
+					PublisherInFlightWindow::getInFlightMessages).tags(tags)
+					.description("Published messages awaiting an acknowledgement").register(registry);
+			Gauge.builder(PREFIX + "producer.inflight.bytes", inFlightWindow, PublisherInFlightWindow::getInFlightBytes)
+					.tags(tags).description("Bytes of published messages awaiting an acknowledgement").register(registry);
+			Gauge.builder(PREFIX + "producer.inflight.utilization.messages", inFlightWindow,
+					PublisherInFlightWindow::getMessageUtilization).tags(tags)
+					.description("Fraction of the in-flight message limit in use").register(registry);
+			Gauge.builder(PREFIX + "producer.inflight.utilization.bytes", inFlightWindow,
+					PublisherInFlightWindow::getByteUtilization).tags(tags)
+					.description("Fraction of the in-flight byte limit in use").register(registry);
+			FunctionCounter.builder(PREFIX + "producer.inflight.rejected", inFlightWindow,
+					PublisherInFlightWindow::getRejectedCount).tags(tags)
+					.description("Messages failed because the in-flight window was full").register(registry);
+			FunctionCounter.builder(PREFIX + "producer.inflight.dropped", inFlightWindow,
+					PublisherInFlightWindow::getDroppedCount).tags(tags)
+					.description("In-flight messages dropped to make room for newer ones").register(registry);
+		}
+
+		@Override
+		public void bindHeaderFilter(HeaderPropagationFilter headerFilter) {
+			FunctionCounter.builder(PREFIX + "producer.headers.filtered", headerFilter,
+					HeaderPropagationFilter::getFilteredHeaderCount).tags(tags)
+					.description("Headers which were not propagated to the message broker").register(registry);
+			FunctionCounter.builder(PREFIX + "producer.headers.filtered.bytes", headerFilter,
+					HeaderPropagationFilter::getFilteredHeaderBytes).tags(tags)
+					.description("Estimated bytes of the headers which were not propagated").register(registry);
+		}
+
+		@Override
+		public void bindDestinationCache(DestinationCache destinationCache) {
+			FunctionCounter.builder(PREFIX + "producer.destination.cache.hits", destinationCache,
+					DestinationCache::getHitCount).tags(tags)
+					.description("Target destinations found in the destination cache").register(registry);
+			FunctionCounter.builder(PREFIX + "producer.destination.cache.misses", destinationCache,
+					DestinationCache::getMissCount).tags(tags)
+					.description("Target destinations created because they were not cached").register(registry);
+			Gauge.builder(PREFIX + "producer.destination.cache.size", destinationCache, DestinationCache::size)
+					.tags(tags).description("Destinations in the destination cache").register(registry);
+		}
+	}
+
+	private static class MicrometerConsumerMetrics implements ConsumerMetrics {
+		private final Counter received;
+		private final Counter acknowledged;
+		private final Timer mapping;
+		private final Timer handler;
+		private final Counter conversionFailures;
+		private final Counter republishedToDmq;
+		private final Counter requeued;
+		private final Counter rejected;
+		private final Timer ackLatency;
+		private final AtomicLong ackBacklog = new AtomicLong();
+
+		MicrometerConsumerMetrics(MeterRegistry registry, Tags tags) {
+			received = counter(registry, "consumer.received", tags, "Messages received from the queue");
+			acknowledged = counter(registry, "consumer.acks", tags, "Messages acknowledged by the binder");
+			mapping = timer(registry, "consumer.mapping", tags, "Mapping Solace messages to Spring messages");
+			handler = timer(registry, "consumer.handler", tags, "Handling messages in the bound consumer");
+			conversionFailures = counter(registry, "consumer.conversion.failures", tags,
+					"Solace messages which could not be mapped");
+			republishedToDmq = counter(registry, "consumer.dmq.republished", tags,
+					"Failed messages republished to the dead message queue");
+			requeued = counter(registry, "consumer.requeued", tags, "Failed messages requeued onto the queue");
+			rejected = counter(registry, "consumer.rejected", tags, "Failed messages which were discarded");
+			ackLatency = timer(registry, "consumer.ack.latency", tags,
+					"Acknowledgements waiting in the ack engine before they were sent");
+			Gauge.builder(PREFIX + "consumer.ack.backlog", ackBacklog, AtomicLong::get).tags(tags)
+					.description("Acknowledgements queued in the ack engine").register(registry);
+		}
+
+		@Override
+		public void received() {
+			received.increment();
+		}
+
+		@Override
+		public void acknowledged() {
+			acknowledged.increment();
+		}
+
+		@Override
+		public void ackQueued() {
+			ackBacklog.incrementAndGet();
+		}
+
+		@Override
+		public void ackFlushed(long nanos) {
+			ackBacklog.decrementAndGet();
+			ackLatency.record(nanos, TimeUnit.NANOSECONDS);
+		}
+
+		@Override
+		public void acksDropped(int count) {
+			ackBacklog.addAndGet(-count);
+		}
+
+		@Override
+		public void mapped(long nanos) {
+			mapping.record(nanos, TimeUnit.NANOSECONDS);
+		}
+
+		@Override
+		public void handled(long nanos) {
+			handler.record(nanos, TimeUnit.NANOSECONDS);
+		}
+
+		@Override
+		public void conversionFailed() {
+			conversionFailures.increment();
+		}
+
+		@Override
+		public void republishedToDmq() {
+			republishedToDmq.increment();
+		}
+
+		@Override
+		public void requeued() {
+			requeued.increment();
+		}
+
+		@Override
+		public void rejected() {
+			rejected.increment();
+		}
+	}
+}
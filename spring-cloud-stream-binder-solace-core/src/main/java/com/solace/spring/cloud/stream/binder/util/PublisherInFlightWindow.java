@@ -0,0 +1,207 @@
+package com.solace.spring.cloud.stream.binder.util;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bounds the number of messages and bytes which a producer has published but which the message broker has not yet
+ * acknowledged.
+ * <p>Messages enter the window through {@link #acquire} and leave it once their
+ * {@link ErrorChannelSendingCorrelationKey} is either confirmed or failed.</p>
+ */
+public class PublisherInFlightWindow {
+	public enum Policy {
+		/** Wait for room in the window, failing the message if none frees up within the block timeout. */
+		BLOCK,
+		/** Fail the message immediately. */
+		FAIL_FAST,
+		/** Stop tracking the oldest in-flight messages and fail their confirmations to make room. */
+		DROP_OLDEST
+	}
+
+	private final String id;
+	private final long maxMessages;
+	private final long maxBytes;
+	private final Policy policy;
+	private final long blockTimeoutInMillis;
+
+	private final ReentrantLock lock = new ReentrantLock();
+	private final Condition released = lock.newCondition();
+	private final LinkedHashSet<ErrorChannelSendingCorrelationKey> inFlight = new LinkedHashSet<>();
+	private long inFlightBytes = 0;
+	private final LongAdder rejectedCount = new LongAdder();
+	private final LongAdder droppedCount = new LongAdder();
+
+	private static final Log logger = LogFactory.getLog(PublisherInFlightWindow.class);
+
+	/**
+	 * @param id identifier used for logging
+	 * @param maxMessages the maximum number of in-flight messages, or 0 for no limit
+	 * @param maxBytes the maximum number of in-flight bytes, or 0 for no limit
+	 * @param policy what to do when the window is full
+	 * @param blockTimeoutInMillis how long to wait for room in the window when using {@link Policy#BLOCK}
+	 */
+	public PublisherInFlightWindow(String id, long maxMessages, long maxBytes, Policy policy,
+								   long blockTimeoutInMillis) {
+		this.id = id;
+		this.maxMessages = maxMessages;
+		this.maxBytes = maxBytes;
+		this.policy = policy;
+		this.blockTimeoutInMillis = blockTimeoutInMillis;
+	}
+
+	/**
+	 * Reserve room in the window for a message which is about to be published.
+	 * A message larger than the byte limit is still admitted once the window is empty.
+	 * @param correlationKey the correlation key of the message
+	 * @param bytes the size of the message
+	 * @throws PublisherWindowFullException if no room could be made for the message
+	 * @throws InterruptedException if interrupted while waiting for room in the window
+	 */
+	public void acquire(ErrorChannelSendingCorrelationKey correlationKey, long bytes) throws InterruptedException {
+		List<ErrorChannelSendingCorrelationKey> dropped = null;
+		lock.lock();
+		try {
+			if (!hasRoom(bytes)) {
+				switch (policy) {
+					case DROP_OLDEST:
+						dropped = dropOldest(bytes);
+						break;
+					case BLOCK:
+						long remainingNanos = TimeUnit.MILLISECONDS.toNanos(blockTimeoutInMillis);
+						while (!hasRoom(bytes)) {
+							if (remainingNanos <= 0) {
+								throw reject(String.format(
+										"Timed out after %s ms waiting for room in the in-flight window of producer %s",
+										blockTimeoutInMillis, id));
+							}
+							remainingNanos = released.awaitNanos(remainingNanos);
+						}
+						break;
+					case FAIL_FAST:
+					default:
+						throw reject(String.format("The in-flight window of producer %s is full", id));
+				}
+			}
+
+			inFlight.add(correlationKey);
+			inFlightBytes += bytes;
+			correlationKey.setInFlightWindow(this, bytes);
+		} finally {
+			lock.unlock();
+		}
+
+		if (dropped != null) {
+			for (ErrorChannelSendingCorrelationKey droppedKey : dropped) {
+				// The message may still reach the broker, it just no longer holds up the window
+				String msg = String.format("Dropped in-flight message %s to make room in the window of producer %s",
+						droppedKey.getInputMessage().getHeaders().getId(), id);
+				logger.debug(msg);
+				droppedKey.send(msg, new PublisherWindowFullException(msg));
+			}
+		}
+	}
+
+	void release(ErrorChannelSendingCorrelationKey correlationKey, long bytes) {
+		lock.lock();
+		try {
+			if (inFlight.remove(correlationKey)) {
+				inFlightBytes -= bytes;
+				released.signalAll();
+			}
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	public long getInFlightMessages() {
+		lock.lock();
+		try {
+			return inFlight.size();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	public long getInFlightBytes() {
+		lock.lock();
+		try {
+			return inFlightBytes;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * @return the fraction of the message limit currently in use, or 0 if messages are not limited
+	 */
+	public double getMessageUtilization() {
+		return maxMessages > 0 ? (double) getInFlightMessages() / maxMessages : 0;
+	}
+
+	/**
+	 * @return the fraction of the byte limit currently in use, or 0 if bytes are not limited
+	 */
+	public double getByteUtilization() {
+		return maxBytes > 0 ? (double) getInFlightBytes() / maxBytes : 0;
+	}
+
+	/**
+	 * @return the number of messages which were failed because the window was full
+	 */
+	public long getRejectedCount() {
+		return rejectedCount.sum();
+	}
+
+	/**
+	 * @return the number of in-flight messages which were dropped to make room for newer ones
+	 */
+	public long getDroppedCount() {
+		return droppedCount.sum();
+	}
+
+	public long getMaxMessages() {
+		return maxMessages;
+	}
+
+	public long getMaxBytes() {
+		return maxBytes;
+	}
+
+	public Policy getPolicy() {
+		return policy;
+	}
+
+	private boolean hasRoom(long bytes) {
+		if (inFlight.isEmpty()) return true;
+		if (maxMessages > 0 && inFlight.size() >= maxMessages) return false;
+		return maxBytes <= 0 || inFlightBytes + bytes <= maxBytes;
+	}
+
+	private List<ErrorChannelSendingCorrelationKey> dropOldest(long bytes) {
+		List<ErrorChannelSendingCorrelationKey> dropped = new ArrayList<>();
+		Iterator<ErrorChannelSendingCorrelationKey> iterator = inFlight.iterator();
+		while (!hasRoom(bytes) && iterator.hasNext()) {
+			ErrorChannelSendingCorrelationKey oldest = iterator.next();
+			iterator.remove();
+			inFlightBytes -= oldest.getInFlightBytes();
+			droppedCount.increment();
+			dropped.add(oldest);
+		}
+		return dropped;
+	}
+
+	private PublisherWindowFullException reject(String msg) {
+		rejectedCount.increment();
+		return new PublisherWindowFullException(msg);
+	}
+}
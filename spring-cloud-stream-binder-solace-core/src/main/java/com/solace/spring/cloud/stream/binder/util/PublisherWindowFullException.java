@@ -0,0 +1,7 @@
+package com.solace.spring.cloud.stream.binder.util;
+
+public class PublisherWindowFullException extends RuntimeException {
+	public PublisherWindowFullException(String message) {
+		super(message);
+	}
+}
@@ -0,0 +1,99 @@
+package com.solace.spring.cloud.stream.binder.util;
+
+import com.solacesystems.jcsmp.BytesMessage;
+import com.solacesystems.jcsmp.JCSMPFactory;
+import com.solacesystems.jcsmp.MapMessage;
+import com.solacesystems.jcsmp.SDTMap;
+import com.solacesystems.jcsmp.StreamMessage;
+import com.solacesystems.jcsmp.TextMessage;
+import com.solacesystems.jcsmp.XMLMessage;
+
+/**
+ * Per-thread JCSMP messages and header map which are reset and reused for every publish instead of being allocated
+ * per message.
+ * <p>Only one message may be checked out per thread at a time. A thread which publishes again while its message is
+ * still checked out (e.g. from within an error handler) gets {@code null} and must fall back to allocating.</p>
+ */
+final class ReusableXMLMessages {
+	private static final ThreadLocal<ReusableXMLMessages> instance = ThreadLocal.withInitial(ReusableXMLMessages::new);
+
+	private BytesMessage bytesMessage;
+	private TextMessage textMessage;
+	private StreamMessage streamMessage;
+	private MapMessage mapMessage;
+	private SDTMap metadata;
+	private XMLMessage checkedOut;
+	private boolean inUse = false;
+
+	private ReusableXMLMessages() {}
+
+	static ReusableXMLMessages acquire() {
+		ReusableXMLMessages messages = instance.get();
+		if (messages.inUse) return null;
+		messages.inUse = true;
+		return messages;
+	}
+
+	/**
+	 * Return the current thread's messages if {@code xmlMessage} is one of them.
+	 * @return true if the message was released
+	 */
+	static boolean release(XMLMessage xmlMessage) {
+		ReusableXMLMessages messages = instance.get();
+		if (!messages.inUse || messages.checkedOut != xmlMessage) return false;
+		messages.checkedOut = null;
+		messages.inUse = false;
+		return true;
+	}
+
+	boolean isCheckedOut(XMLMessage xmlMessage) {
+		return inUse && checkedOut == xmlMessage;
+	}
+
+	/**
+	 * Abandon a checkout whose message never made it out of the mapper.
+	 */
+	void cancel() {
+		checkedOut = null;
+		inUse = false;
+	}
+
+	/**
+	 * @return this thread's message of the given type, reset
+	 */
+	@SuppressWarnings("unchecked")
+	<T extends XMLMessage> T getMessage(Class<T> type) {
+		XMLMessage xmlMessage;
+		if (type == BytesMessage.class) {
+			xmlMessage = bytesMessage != null ? bytesMessage : (bytesMessage = createMessage(BytesMessage.class));
+		} else if (type == TextMessage.class) {
+			xmlMessage = textMessage != null ? textMessage : (textMessage = createMessage(TextMessage.class));
+		} else if (type == StreamMessage.class) {
+			xmlMessage = streamMessage != null ? streamMessage : (streamMessage = createMessage(StreamMessage.class));
+		} else if (type == MapMessage.class) {
+			xmlMessage = mapMessage != null ? mapMessage : (mapMessage = createMessage(MapMessage.class));
+		} else {
+			throw new IllegalArgumentException("Unsupported message type " + type.getName());
+		}
+
+		xmlMessage.reset();
+		checkedOut = xmlMessage;
+		return (T) xmlMessage;
+	}
+
+	/**
+	 * @return the header map, emptied
+	 */
+	SDTMap getMetadata() {
+		if (metadata == null) {
+			metadata = JCSMPFactory.onlyInstance().createMap();
+		} else {
+			metadata.clear();
+		}
+		return metadata;
+	}
+
+	private static <T extends XMLMessage> T createMessage(Class<T> type) {
+		return JCSMPFactory.onlyInstance().createMessage(type);
+	}
+}
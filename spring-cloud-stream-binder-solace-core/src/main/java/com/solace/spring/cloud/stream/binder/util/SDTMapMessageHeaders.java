@@ -0,0 +1,243 @@
+package com.solace.spring.cloud.stream.binder.util;
+
+import com.solacesystems.common.util.ByteArray;
+import com.solacesystems.jcsmp.SDTException;
+import com.solacesystems.jcsmp.SDTMap;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.util.SerializationUtils;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * {@link MessageHeaders} backed by the metadata of a Solace message.
+ * <p>Header names are indexed up front, but a header's value is only decoded from the metadata once it is first
+ * accessed, and is cached from then on. Headers given at construction take precedence over the metadata.</p>
+ * <p>Operations which need every value, such as iterating over the entries or copying the headers, decode all of
+ * them. Decoding failures surface as {@link SolaceMessageConversionException}s when the header is accessed.</p>
+ */
+final class SDTMapMessageHeaders extends MessageHeaders {
+	private static final long serialVersionUID = 1L;
+	private static final byte LEGACY_JAVA_SERIALIZED = -1;
+	private static final Object NULL_VALUE = new Object();
+
+	private final transient SDTMap metadata;
+	private final transient Set<String> metadataHeaderNames;
+	private final transient Map<String, Byte> encodings;
+	private final transient Set<String> headerNames;
+	private final transient ConcurrentMap<String, Object> decodedValues = new ConcurrentHashMap<>();
+	private final transient Map<String, Object> view = new View();
+
+	private SDTMapMessageHeaders(SDTMap metadata, Set<String> metadataHeaderNames, Map<String, Byte> encodings,
+								 Map<String, Object> headers) {
+		super(headers, null, null);
+		this.metadata = metadata;
+		this.metadataHeaderNames = metadataHeaderNames;
+		this.encodings = encodings;
+
+		Set<String> headerNames = new HashSet<>(metadataHeaderNames);
+		headerNames.addAll(getRawHeaders().keySet());
+		this.headerNames = Collections.unmodifiableSet(headerNames);
+	}
+
+	/**
+	 * @param metadata the metadata of the Solace message, may be null
+	 * @param headers headers which take precedence over the metadata
+	 * @param defaultHeaders headers which are only used if neither the metadata nor {@code headers} have them
+	 */
+	static SDTMapMessageHeaders create(SDTMap metadata, Map<String, Object> headers,
+									   Map<String, Object> defaultHeaders) {
+		Set<String> metadataHeaderNames = new HashSet<>();
+		Map<String, Byte> encodings = new HashMap<>();
+		try {
+			for (String key : metadata != null ? metadata.keySet() : Collections.<String>emptySet()) {
+				if (XMLMessageMapper.BINDER_INTERNAL_HEADERS.contains(key)) continue;
+
+				if (key.startsWith(HeaderValueCodec.METADATA_KEY_PREFIX)) {
+					encodings.put(key.substring(HeaderValueCodec.METADATA_KEY_PREFIX.length()), metadata.getByte(key));
+				} else if (key.startsWith(XMLMessageMapper.HEADER_JAVA_SERIALIZED_OBJECT_HEADER)) {
+					if (metadata.getBoolean(key)) {
+						encodings.putIfAbsent(key.substring(XMLMessageMapper.HEADER_JAVA_SERIALIZED_OBJECT_HEADER.length()),
+								LEGACY_JAVA_SERIALIZED);
+					}
+				} else {
+					metadataHeaderNames.add(key);
+				}
+			}
+		} catch (SDTException e) {
+			throw new SolaceMessageConversionException(e);
+		}
+
+		Map<String, Object> eagerHeaders = new HashMap<>(headers);
+		for (Map.Entry<String, Object> defaultHeader : defaultHeaders.entrySet()) {
+			if (defaultHeader.getValue() != null && !metadataHeaderNames.contains(defaultHeader.getKey())) {
+				eagerHeaders.putIfAbsent(defaultHeader.getKey(), defaultHeader.getValue());
+			}
+		}
+		return new SDTMapMessageHeaders(metadata, metadataHeaderNames, encodings, eagerHeaders);
+	}
+
+	@Override
+	public Object get(Object key) {
+		Map<String, Object> rawHeaders = getRawHeaders();
+		if (rawHeaders.containsKey(key)) return rawHeaders.get(key);
+		if (!metadataHeaderNames.contains(key)) return null;
+
+		String headerName = (String) key;
+		Object value = decodedValues.get(headerName);
+		if (value == null) {
+			value = decode(headerName);
+			decodedValues.putIfAbsent(headerName, value != null ? value : NULL_VALUE);
+		}
+		return value != NULL_VALUE ? value : null;
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public <T> T get(Object key, Class<T> type) {
+		Object value = get(key);
+		if (value == null) return null;
+		if (!type.isAssignableFrom(value.getClass())) {
+			throw new IllegalArgumentException(String.format(
+					"Incorrect type specified for header '%s'. Expected [%s] but actual type is [%s]",
+					key, type, value.getClass()));
+		}
+		return (T) value;
+	}
+
+	private Object decode(String headerName) {
+		try {
+			Byte encoding = encodings.get(headerName);
+			if (encoding == null) {
+				Object value = metadata.get(headerName);
+				return value instanceof ByteArray ? ((ByteArray) value).getBuffer() : value;
+			} else if (encoding == LEGACY_JAVA_SERIALIZED) {
+				return SerializationUtils.deserialize(metadata.getBytes(headerName));
+			} else {
+				return HeaderValueCodec.decode(metadata, headerName, encoding);
+			}
+		} catch (SDTException | RuntimeException e) {
+			throw new SolaceMessageConversionException(String.format("Failed to decode header %s", headerName), e);
+		}
+	}
+
+	@Override
+	public boolean containsKey(Object key) {
+		return headerNames.contains(key);
+	}
+
+	@Override
+	public boolean containsValue(Object value) {
+		return view.containsValue(value);
+	}
+
+	@Override
+	public Set<String> keySet() {
+		return headerNames;
+	}
+
+	@Override
+	public Set<Map.Entry<String, Object>> entrySet() {
+		return view.entrySet();
+	}
+
+	@Override
+	public Collection<Object> values() {
+		return view.values();
+	}
+
+	@Override
+	public int size() {
+		return headerNames.size();
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return headerNames.isEmpty();
+	}
+
+	@Override
+	public boolean equals(Object other) {
+		return this == other || (other instanceof MessageHeaders && view.equals(other));
+	}
+
+	@Override
+	public int hashCode() {
+		return view.hashCode();
+	}
+
+	@Override
+	public String toString() {
+		return view.toString();
+	}
+
+	/**
+	 * The metadata cannot be serialized, so serialize a fully decoded copy instead.
+	 */
+	private Object writeReplace() {
+		return new Snapshot(new HashMap<>(view), getId(), getTimestamp());
+	}
+
+	private class View extends AbstractMap<String, Object> {
+		@Override
+		public Set<Entry<String, Object>> entrySet() {
+			return new AbstractSet<Entry<String, Object>>() {
+				@Override
+				public Iterator<Entry<String, Object>> iterator() {
+					Iterator<String> names = headerNames.iterator();
+					return new Iterator<Entry<String, Object>>() {
+						@Override
+						public boolean hasNext() {
+							return names.hasNext();
+						}
+
+						@Override
+						public Entry<String, Object> next() {
+							String name = names.next();
+							return new SimpleImmutableEntry<>(name, SDTMapMessageHeaders.this.get(name));
+						}
+					};
+				}
+
+				@Override
+				public int size() {
+					return headerNames.size();
+				}
+			};
+		}
+
+		@Override
+		public Object get(Object key) {
+			return SDTMapMessageHeaders.this.get(key);
+		}
+
+		@Override
+		public boolean containsKey(Object key) {
+			return headerNames.contains(key);
+		}
+
+		@Override
+		public int size() {
+			return headerNames.size();
+		}
+	}
+
+	private static class Snapshot extends MessageHeaders {
+		private static final long serialVersionUID = 1L;
+
+		Snapshot(Map<String, Object> headers, UUID id, Long timestamp) {
+			super(headers, Objects.requireNonNull(id), timestamp);
+		}
+	}
+}
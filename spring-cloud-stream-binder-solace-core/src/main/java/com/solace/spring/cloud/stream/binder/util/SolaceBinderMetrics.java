@@ -0,0 +1,119 @@
+package com.solace.spring.cloud.stream.binder.util;
+
+/**
+ * Records the binder's metrics.
+ * <p>Bindings look up their {@link ProducerMetrics} or {@link ConsumerMetrics} once when they're created, so
+ * recording a message doesn't have to resolve any meters. Durations are in nanoseconds.</p>
+ * <p>Bindings are named after their bound channel, so that several bindings of the same destination are told
+ * apart.</p>
+ */
+public interface SolaceBinderMetrics {
+	SolaceBinderMetrics NOOP = new SolaceBinderMetrics() {
+		@Override
+		public ProducerMetrics producer(String bindingName, String topic) {
+			return ProducerMetrics.NOOP;
+		}
+
+		@Override
+		public ConsumerMetrics consumer(String bindingName, String queueName) {
+			return ConsumerMetrics.NOOP;
+		}
+	};
+
+	ProducerMetrics producer(String bindingName, String topic);
+
+	ConsumerMetrics consumer(String bindingName, String queueName);
+
+	interface ProducerMetrics {
+		ProducerMetrics NOOP = new ProducerMetrics() {
+			@Override
+			public boolean isEnabled() {
+				return false;
+			}
+		};
+
+		/**
+		 * @return false if nothing is recorded, so that callers can skip taking timestamps
+		 */
+		default boolean isEnabled() {
+			return true;
+		}
+
+		default void published(int count) {}
+
+		/**
+		 * A message was rejected by the message broker.
+		 */
+		default void nacked() {}
+
+		default void mapped(long nanos) {}
+
+		default void conversionFailed() {}
+
+		/**
+		 * Publishes the occupancy, rejections and drops of the producer's in-flight window.
+		 */
+		default void bindInFlightWindow(PublisherInFlightWindow inFlightWindow) {}
+
+		/**
+		 * Publishes the number and estimated size of the headers which the producer's header filter dropped.
+		 */
+		default void bindHeaderFilter(HeaderPropagationFilter headerFilter) {}
+
+		/**
+		 * Publishes the hits, misses and size of the producer's destination cache.
+		 */
+		default void bindDestinationCache(DestinationCache destinationCache) {}
+	}
+
+	interface ConsumerMetrics {
+		ConsumerMetrics NOOP = new ConsumerMetrics() {
+			@Override
+			public boolean isEnabled() {
+				return false;
+			}
+		};
+
+		/**
+		 * @return false if nothing is recorded, so that callers can skip taking timestamps
+		 */
+		default boolean isEnabled() {
+			return true;
+		}
+
+		default void received() {}
+
+		default void acknowledged() {}
+
+		/**
+		 * An acknowledgement was queued for the flow's ack engine.
+		 */
+		default void ackQueued() {}
+
+		/**
+		 * @param nanos how long the acknowledgement waited in the ack engine's queue before it was sent
+		 */
+		default void ackFlushed(long nanos) {}
+
+		/**
+		 * Queued acknowledgements were not sent because the ack engine didn't stop in time.
+		 * Their messages are redelivered.
+		 */
+		default void acksDropped(int count) {}
+
+		default void mapped(long nanos) {}
+
+		/**
+		 * @param nanos how long the binding's consumer took to handle the message
+		 */
+		default void handled(long nanos) {}
+
+		default void conversionFailed() {}
+
+		default void republishedToDmq() {}
+
+		default void requeued() {}
+
+		default void rejected() {}
+	}
+}
@@ -25,6 +25,7 @@ public class SolaceErrorMessageHandler implements MessageHandler {
 	private final String producerKey;
 	private final JCSMPSessionProducerManager producerManager;
 	private final XMLMessageMapper xmlMessageMapper = new XMLMessageMapper();
+	private SolaceBinderMetrics.ConsumerMetrics metrics = SolaceBinderMetrics.ConsumerMetrics.NOOP;
 
 	private static final Log logger = LogFactory.getLog(SolaceErrorMessageHandler.class);
 
@@ -38,6 +39,13 @@ public class SolaceErrorMessageHandler implements MessageHandler {
 		this.producerManager = producerManager;
 	}
 
+	/**
+	 * @param metrics the metrics of the consumer binding whose failed messages this handles
+	 */
+	public void setMetrics(SolaceBinderMetrics.ConsumerMetrics metrics) {
+		this.metrics = metrics;
+	}
+
 	@Override
 	public void handleMessage(Message<?> message) throws MessagingException {
 		XMLMessage rawMessage = (XMLMessage) message.getHeaders().get(SolaceMessageHeaderErrorMessageStrategy.SOLACE_RAW_MESSAGE);
@@ -84,6 +92,7 @@ public class SolaceErrorMessageHandler implements MessageHandler {
 		} else {
 			logger.info(String.format("Raw %s %s: Will be rejected",
 					XMLMessage.class.getSimpleName(), rawMessage.getMessageId()));
+			metrics.rejected();
 		}
 
 		AckUtils.autoNack(acknowledgmentCallback);
@@ -94,12 +103,14 @@ public class SolaceErrorMessageHandler implements MessageHandler {
 		logger.info(String.format("Raw %s %s: Will be republished to DMQ %s",
 				XMLMessage.class.getSimpleName(), rawMessage.getMessageId(), dmqName));
 		sendOneMessage(dmqName, xmlMessageMapper.map(rawMessage));
+		metrics.republishedToDmq();
 	}
 
 	private void requeue(XMLMessage rawMessage) {
 		logger.info(String.format("Raw %s %s: Will be re-queued onto queue %s",
 				XMLMessage.class.getSimpleName(), rawMessage.getMessageId(), consumerQueueName));
 		sendOneMessage(consumerQueueName, xmlMessageMapper.map(rawMessage));
+		metrics.requeued();
 	}
 
 	private void sendOneMessage(String queueName, Message<?> message) {
@@ -5,11 +5,16 @@ import com.solace.spring.cloud.stream.binder.properties.SolaceConsumerProperties
 import com.solace.spring.cloud.stream.binder.properties.SolaceProducerProperties;
 import com.solacesystems.jcsmp.EndpointProperties;
 import com.solacesystems.jcsmp.JCSMPFactory;
+import org.springframework.cloud.stream.binder.ExtendedConsumerProperties;
 import org.springframework.util.StringUtils;
 
+import java.util.ArrayList;
+import java.util.List;
+
 public class SolaceProvisioningUtil {
 	private static final String QUEUE_NAME_DELIM = ".";
 	private static final String DMQ_POSTFIX = "dmq";
+	private static final String PARTITION_DELIM = "/";
 
 	private SolaceProvisioningUtil() {}
 
@@ -74,6 +79,45 @@ public class SolaceProvisioningUtil {
 		return properties.getPrefix() + queueName;
 	}
 
+	/**
+	 * @return the topic which messages of the given partition are published to
+	 */
+	public static String getPartitionTopicName(String topicName, int partition) {
+		return topicName + PARTITION_DELIM + partition;
+	}
+
+	/**
+	 * @return the name of the queue which a partitioned consumer instance consumes from
+	 */
+	public static String getPartitionQueueName(String queueName, int instanceIndex) {
+		return queueName + QUEUE_NAME_DELIM + instanceIndex;
+	}
+
+	/**
+	 * Partitions are spread across consumer instances such that instance {@code i} consumes every partition {@code p}
+	 * where {@code p % instanceCount == i}.
+	 * If the consumer's partition count isn't set, there is assumed to be one partition per instance.
+	 * @return the partitions which the consumer instance consumes from
+	 */
+	public static List<Integer> getConsumerPartitions(ExtendedConsumerProperties<SolaceConsumerProperties> properties) {
+		int instanceCount = Math.max(properties.getInstanceCount(), 1);
+		int partitionCount = properties.getExtension().getPartitionCount() > 0 ?
+				properties.getExtension().getPartitionCount() : instanceCount;
+		return getInstancePartitions(Math.max(properties.getInstanceIndex(), 0), instanceCount, partitionCount);
+	}
+
+	/**
+	 * @return the partitions which consumer instance {@code instanceIndex} of {@code instanceCount} instances consumes
+	 * from, see {@link #getConsumerPartitions(ExtendedConsumerProperties)}
+	 */
+	public static List<Integer> getInstancePartitions(int instanceIndex, int instanceCount, int partitionCount) {
+		List<Integer> partitions = new ArrayList<>();
+		for (int partition = instanceIndex; partition < partitionCount; partition += instanceCount) {
+			partitions.add(partition);
+		}
+		return partitions;
+	}
+
 	public static String getDMQName(String queueName) {
 		return queueName + QUEUE_NAME_DELIM + DMQ_POSTFIX;
 	}
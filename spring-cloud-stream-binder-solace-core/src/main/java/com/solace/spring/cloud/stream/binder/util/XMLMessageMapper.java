@@ -1,12 +1,17 @@
 package com.solace.spring.cloud.stream.binder.util;
 
+import com.solace.spring.cloud.stream.binder.messaging.SolaceBinderHeaders;
 import com.solace.spring.cloud.stream.binder.properties.SolaceConsumerProperties;
 import com.solace.spring.cloud.stream.binder.properties.SolaceProducerProperties;
-import com.solacesystems.common.util.ByteArray;
+import com.solace.spring.cloud.stream.binder.serialization.JavaPayloadSerializer;
+import com.solace.spring.cloud.stream.binder.serialization.PayloadSerializer;
+import com.solace.spring.cloud.stream.binder.serialization.PayloadSerializers;
+import com.solace.spring.cloud.stream.binder.serialization.UnsupportedPayloadException;
 import com.solacesystems.jcsmp.BytesMessage;
 import com.solacesystems.jcsmp.DeliveryMode;
 import com.solacesystems.jcsmp.JCSMPFactory;
 import com.solacesystems.jcsmp.MapMessage;
+import com.solacesystems.jcsmp.SDTException;
 import com.solacesystems.jcsmp.SDTMap;
 import com.solacesystems.jcsmp.SDTStream;
 import com.solacesystems.jcsmp.StreamMessage;
@@ -16,46 +21,157 @@ import com.solacesystems.jcsmp.XMLMessage;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.springframework.integration.IntegrationMessageHeaderAccessor;
-import org.springframework.integration.support.DefaultMessageBuilderFactory;
-import org.springframework.integration.support.MessageBuilder;
 import org.springframework.integration.support.StaticMessageHeaderAccessor;
+import org.springframework.lang.Nullable;
 import org.springframework.messaging.Message;
 import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.support.ErrorMessage;
+import org.springframework.messaging.support.GenericMessage;
 import org.springframework.util.MimeType;
 import org.springframework.util.SerializationUtils;
 
 import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
-import java.util.UUID;
 import java.util.concurrent.atomic.AtomicInteger;
-import java.util.function.BiConsumer;
 import java.util.function.Function;
 
 public class XMLMessageMapper {
 	private static final Log logger = LogFactory.getLog(XMLMessageMapper.class);
 	private static final JCSMPAcknowledgementCallbackFactory ackCallbackFactory = new JCSMPAcknowledgementCallbackFactory();
 	static final Set<String> BINDER_INTERNAL_HEADERS;
+	private static final Set<String> NON_PROPAGATED_HEADERS;
 	static final String JAVA_SERIALIZED_OBJECT_HEADER = "isJavaSerializedObject";
-	private static final String HEADER_JAVA_SERIALIZED_OBJECT_HEADER = "_" + JAVA_SERIALIZED_OBJECT_HEADER + "-";
+	static final String HEADER_JAVA_SERIALIZED_OBJECT_HEADER = "_" + JAVA_SERIALIZED_OBJECT_HEADER + "-";
 	static final String BINDER_VERSION_HEADER = "solaceSpringCloudStreamBinderVersion";
+	static final String PAYLOAD_ENCODING_HEADER = "solaceSpringCloudStreamBinderPayloadEncoding";
+	static final String COMPRESSED_TEXT_HEADER = "isCompressedText";
+	static final String PAYLOAD_SERIALIZER_HEADER = "solaceSpringCloudStreamBinderPayloadSerializer";
 	static final String BINDER_VERSION = "0.1.0"; //TODO Determine this dynamically
 
+	// Metadata describing how a payload is encoded, carried over when republishing a still encoded payload
+	private static final String[] PAYLOAD_ENCODING_HEADERS = {PAYLOAD_ENCODING_HEADER, COMPRESSED_TEXT_HEADER,
+			PAYLOAD_SERIALIZER_HEADER, JAVA_SERIALIZED_OBJECT_HEADER};
+
+	private final HeaderPropagationFilter headerFilter;
+	private int maxInflatedPayloadSize = SolaceConsumerProperties.DEFAULT_MAX_INFLATED_PAYLOAD_SIZE;
+	private boolean compactHeaderValues = false;
+
 	static {
 		BINDER_INTERNAL_HEADERS = new HashSet<>();
 		BINDER_INTERNAL_HEADERS.add(JAVA_SERIALIZED_OBJECT_HEADER);
 		BINDER_INTERNAL_HEADERS.add(BINDER_VERSION_HEADER);
+		BINDER_INTERNAL_HEADERS.add(PAYLOAD_ENCODING_HEADER);
+		BINDER_INTERNAL_HEADERS.add(COMPRESSED_TEXT_HEADER);
+		BINDER_INTERNAL_HEADERS.add(PAYLOAD_SERIALIZER_HEADER);
+
+		NON_PROPAGATED_HEADERS = new HashSet<>();
+		NON_PROPAGATED_HEADERS.add(SolaceBinderHeaders.CONFIRMATION);
+		NON_PROPAGATED_HEADERS.add(SolaceBinderHeaders.DELIVERY_MODE);
+		NON_PROPAGATED_HEADERS.add(SolaceBinderHeaders.TARGET_DESTINATION);
+		NON_PROPAGATED_HEADERS.add(SolaceBinderHeaders.TARGET_DESTINATION_TYPE);
+	}
+
+	public XMLMessageMapper() {
+		this(null);
+	}
+
+	/**
+	 * @param headerFilter decides which headers get mapped to Solace messages, or null to map all of them
+	 */
+	public XMLMessageMapper(HeaderPropagationFilter headerFilter) {
+		this.headerFilter = headerFilter;
+	}
+
+	/**
+	 * @param maxInflatedPayloadSize the maximum size of a decompressed inbound payload, or 0 for no limit
+	 */
+	public void setMaxInflatedPayloadSize(int maxInflatedPayloadSize) {
+		this.maxInflatedPayloadSize = maxInflatedPayloadSize;
+	}
+
+	/**
+	 * @param compactHeaderValues whether to encode UUID and MimeType headers compactly instead of serializing them.
+	 *                            Consumers running older versions of this binder see the encodings as extra headers.
+	 */
+	public void setCompactHeaderValues(boolean compactHeaderValues) {
+		this.compactHeaderValues = compactHeaderValues;
 	}
 
 	public XMLMessage map(Message<?> message, SolaceProducerProperties producerProperties) {
-		XMLMessage xmlMessage = map(message);
+		return applyProducerProperties(map(message, getPayloadSerializer(producerProperties)), message,
+				producerProperties);
+	}
+
+	/**
+	 * Same as {@link #map(Message, SolaceProducerProperties)}, except that the returned message may be a per-thread
+	 * instance which is reset and reused by this thread's next call.
+	 * <p>Once sent, the message must be handed back through {@link #release(XMLMessage)} and must not be referenced
+	 * any further. Messages which are queued instead of being sent right away must not be mapped this way.</p>
+	 * <p>Only direct messages are reused. JCSMP holds on to a guaranteed message until the message broker acknowledges
+	 * it, and may have to retransmit it until then, so guaranteed messages are always allocated.</p>
+	 */
+	public XMLMessage mapReusable(Message<?> message, SolaceProducerProperties producerProperties) {
+		if (getDeliveryMode(message, producerProperties) != DeliveryMode.DIRECT) {
+			return map(message, producerProperties);
+		}
+
+		ReusableXMLMessages reusableMessages = ReusableXMLMessages.acquire();
+		if (reusableMessages == null) { // Publishing from within another publish on this thread
+			return map(message, producerProperties);
+		}
+
+		XMLMessage xmlMessage;
+		try {
+			xmlMessage = applyProducerProperties(map(message, getPayloadSerializer(producerProperties), reusableMessages),
+					message, producerProperties);
+		} catch (RuntimeException e) {
+			reusableMessages.cancel();
+			throw e;
+		}
+
+		if (!reusableMessages.isCheckedOut(xmlMessage)) { // e.g. text which was compressed into a bytes message
+			reusableMessages.cancel();
+		}
+		return xmlMessage;
+	}
+
+	/**
+	 * Hand back a message obtained from {@link #mapReusable(Message, SolaceProducerProperties)}.
+	 * Has no effect on any other message.
+	 */
+	public void release(XMLMessage xmlMessage) {
+		ReusableXMLMessages.release(xmlMessage);
+	}
+
+	private PayloadSerializer getPayloadSerializer(SolaceProducerProperties producerProperties) {
+		return rethrowableCall(PayloadSerializers::get, producerProperties.getPayloadSerializer());
+	}
+
+	private XMLMessage applyProducerProperties(XMLMessage xmlMessage, Message<?> message,
+											   SolaceProducerProperties producerProperties) {
+		if (producerProperties.isCompressPayload()) {
+			xmlMessage = compress(xmlMessage, producerProperties.getCompressionThreshold());
+		}
+		xmlMessage.setDeliveryMode(getDeliveryMode(message, producerProperties));
 		xmlMessage.setDMQEligible(producerProperties.isMsgInternalDmqEligible());
 		if (producerProperties.getMsgTtl() != null) {
 			xmlMessage.setTimeToLive(producerProperties.getMsgTtl());
 		}
+		if (producerProperties.isCompactHeaderNames()) {
+			SDTMap metadata = xmlMessage.getProperties();
+			try {
+				HeaderNameDictionary.encode(metadata);
+			} catch (SDTException e) {
+				throw wrapException(e);
+			}
+			xmlMessage.setProperties(metadata);
+		}
 		return xmlMessage;
 	}
 
@@ -67,38 +183,129 @@ public class XMLMessageMapper {
 		return xmlMessage;
 	}
 
+	private DeliveryMode getDeliveryMode(Message<?> message, SolaceProducerProperties producerProperties) {
+		Object deliveryMode = message.getHeaders().get(SolaceBinderHeaders.DELIVERY_MODE);
+		if (deliveryMode instanceof DeliveryMode) {
+			return (DeliveryMode) deliveryMode;
+		} else if (deliveryMode instanceof String) {
+			try {
+				return DeliveryMode.valueOf((String) deliveryMode);
+			} catch (IllegalArgumentException e) {
+				String msg = String.format("Invalid value for header %s: %s",
+						SolaceBinderHeaders.DELIVERY_MODE, deliveryMode);
+				SolaceMessageConversionException exception = new SolaceMessageConversionException(msg, e);
+				logger.warn(msg, exception);
+				throw exception;
+			}
+		} else if (deliveryMode != null) {
+			String msg = String.format("Invalid type for header %s. Expected %s or %s. Received: %s",
+					SolaceBinderHeaders.DELIVERY_MODE, DeliveryMode.class.getSimpleName(),
+					String.class.getSimpleName(), deliveryMode.getClass().getName());
+			SolaceMessageConversionException exception = new SolaceMessageConversionException(msg);
+			logger.warn(msg, exception);
+			throw exception;
+		}
+
+		return producerProperties.getDeliveryMode();
+	}
+
+	/**
+	 * Deflate the payload of bytes and text messages whose payload is at least {@code threshold} bytes long.
+	 * Compressed text is sent as a bytes message.
+	 */
+	private XMLMessage compress(XMLMessage xmlMessage, int threshold) {
+		SDTMap metadata = xmlMessage.getProperties();
+		if (metadata != null && metadata.containsKey(PAYLOAD_ENCODING_HEADER)) return xmlMessage; // Already encoded
+
+		byte[] data;
+		boolean isText = xmlMessage instanceof TextMessage;
+		if (xmlMessage instanceof BytesMessage) {
+			data = ((BytesMessage) xmlMessage).getData();
+		} else if (isText) {
+			String text = ((TextMessage) xmlMessage).getText();
+			if (text == null || text.length() < threshold) return xmlMessage; // UTF-8 never has fewer bytes than chars
+			data = text.getBytes(StandardCharsets.UTF_8);
+		} else {
+			return xmlMessage;
+		}
+
+		if (data == null || data.length < threshold) return xmlMessage;
+
+		byte[] compressed = DeflateCodec.deflate(data);
+		if (compressed == null) return xmlMessage; // Incompressible, send it as is
+
+		BytesMessage bytesMessage;
+		if (isText) {
+			bytesMessage = JCSMPFactory.onlyInstance().createMessage(BytesMessage.class);
+			bytesMessage.setHTTPContentType(xmlMessage.getHTTPContentType());
+			putBoolean(metadata, COMPRESSED_TEXT_HEADER, true);
+		} else {
+			bytesMessage = (BytesMessage) xmlMessage;
+		}
+		bytesMessage.setData(compressed);
+		putString(metadata, PAYLOAD_ENCODING_HEADER, DeflateCodec.ENCODING);
+		bytesMessage.setProperties(metadata);
+		return bytesMessage;
+	}
+
 	XMLMessage map(Message<?> message) {
+		return map(message, PayloadSerializers.getDefault());
+	}
+
+	XMLMessage map(Message<?> message, PayloadSerializer payloadSerializer) {
+		return map(message, payloadSerializer, null);
+	}
+
+	private XMLMessage map(Message<?> message, PayloadSerializer payloadSerializer,
+						   ReusableXMLMessages reusableMessages) {
 		XMLMessage xmlMessage;
+		byte[] serializedPayload;
 		Object payload = message.getPayload();
-		SDTMap metadata = map(message.getHeaders());
-		rethrowableCall(metadata::putString, BINDER_VERSION_HEADER, BINDER_VERSION);
+		if (payload instanceof DeferredPayload && ((DeferredPayload) payload).isDecoded()) {
+			payload = ((DeferredPayload) payload).get();
+		}
+		SDTMap metadata = reusableMessages != null ? reusableMessages.getMetadata() :
+				JCSMPFactory.onlyInstance().createMap();
+		map(message.getHeaders(), metadata);
+		// The only header identical on every message. SDTMap has no bulk copy, so a template would cost the same put
+		putString(metadata, BINDER_VERSION_HEADER, BINDER_VERSION);
 
 		if (payload instanceof byte[]) {
-			BytesMessage bytesMessage = JCSMPFactory.onlyInstance().createMessage(BytesMessage.class);
+			BytesMessage bytesMessage = createMessage(BytesMessage.class, reusableMessages);
 			bytesMessage.setData((byte[]) payload);
 			xmlMessage = bytesMessage;
+		} else if (payload instanceof ByteBuffer) {
+			BytesMessage bytesMessage = createMessage(BytesMessage.class, reusableMessages);
+			bytesMessage.setData(toByteArray((ByteBuffer) payload));
+			xmlMessage = bytesMessage;
 		} else if (payload instanceof String) {
-			TextMessage textMessage = JCSMPFactory.onlyInstance().createMessage(TextMessage.class);
+			TextMessage textMessage = createMessage(TextMessage.class, reusableMessages);
 			textMessage.setText((String) payload);
 			xmlMessage = textMessage;
 		} else if (payload instanceof SDTStream) {
-			StreamMessage streamMessage = JCSMPFactory.onlyInstance().createMessage(StreamMessage.class);
+			StreamMessage streamMessage = createMessage(StreamMessage.class, reusableMessages);
 			streamMessage.setStream((SDTStream) payload);
 			xmlMessage = streamMessage;
 		} else if (payload instanceof SDTMap) {
-			MapMessage mapMessage = JCSMPFactory.onlyInstance().createMessage(MapMessage.class);
+			MapMessage mapMessage = createMessage(MapMessage.class, reusableMessages);
 			mapMessage.setMap((SDTMap) payload);
 			xmlMessage = mapMessage;
-		} else if (payload instanceof Serializable) {
-			BytesMessage bytesMessage = JCSMPFactory.onlyInstance().createMessage(BytesMessage.class);
-			bytesMessage.setData(rethrowableCall(SerializationUtils::serialize, payload));
-			rethrowableCall(metadata::putBoolean, JAVA_SERIALIZED_OBJECT_HEADER, true);
+		} else if (payload instanceof DeferredPayload) {
+			DeferredPayload deferredPayload = (DeferredPayload) payload;
+			BytesMessage bytesMessage = createMessage(BytesMessage.class, reusableMessages);
+			bytesMessage.setData(deferredPayload.getRawData());
+			copyPayloadEncoding(deferredPayload.getMetadata(), metadata);
+			xmlMessage = bytesMessage;
+		} else if ((serializedPayload = serialize(payload, payloadSerializer, metadata)) != null) {
+			BytesMessage bytesMessage = createMessage(BytesMessage.class, reusableMessages);
+			bytesMessage.setData(serializedPayload);
 			xmlMessage = bytesMessage;
 		} else {
 			String msg = String.format(
 					"Invalid payload received. Expected %s. Received: %s",
 					String.join(", ",
 							byte[].class.getSimpleName(),
+							ByteBuffer.class.getSimpleName(),
 							String.class.getSimpleName(),
 							SDTStream.class.getSimpleName(),
 							SDTMap.class.getSimpleName(),
@@ -119,20 +326,103 @@ public class XMLMessageMapper {
 		return xmlMessage;
 	}
 
+	/**
+	 * Serialize the payload and flag which serializer was used. Payloads which the given serializer doesn't support are
+	 * Java serialized instead, which is flagged the same way as it always was so that older consumers can read them.
+	 * @return the serialized payload, or null if it cannot be serialized at all
+	 */
+	private byte[] serialize(Object payload, PayloadSerializer payloadSerializer, SDTMap metadata) {
+		if (!JavaPayloadSerializer.ID.equals(payloadSerializer.getId())) {
+			try {
+				byte[] data = payloadSerializer.serialize(payload);
+				putString(metadata, PAYLOAD_SERIALIZER_HEADER, payloadSerializer.getId());
+				return data;
+			} catch (UnsupportedPayloadException e) {
+				if (logger.isDebugEnabled()) {
+					logger.debug(String.format("Falling back to Java serialization: %s", e.getMessage()));
+				}
+			} catch (Exception e) {
+				throw wrapException(e);
+			}
+		}
+
+		if (!(payload instanceof Serializable)) return null;
+		byte[] data = rethrowableCall(PayloadSerializers.getDefault()::serialize, payload);
+		putBoolean(metadata, JAVA_SERIALIZED_OBJECT_HEADER, true);
+		return data;
+	}
+
+	private void copyPayloadEncoding(SDTMap source, SDTMap target) {
+		try {
+			for (String key : PAYLOAD_ENCODING_HEADERS) {
+				if (source.containsKey(key)) {
+					target.putObject(key, source.get(key));
+				}
+			}
+		} catch (SDTException e) {
+			throw wrapException(e);
+		}
+	}
+
+	/**
+	 * The remaining bytes of the buffer, leaving its position untouched.
+	 * A heap buffer which spans its whole backing array is returned without copying, anything else is copied once.
+	 */
+	private byte[] toByteArray(ByteBuffer buffer) {
+		if (buffer.hasArray() && buffer.arrayOffset() == 0 && buffer.position() == 0 &&
+				buffer.remaining() == buffer.array().length) {
+			return buffer.array();
+		}
+
+		byte[] data = new byte[buffer.remaining()];
+		buffer.duplicate().get(data);
+		return data;
+	}
+
+	private <T extends XMLMessage> T createMessage(Class<T> type, ReusableXMLMessages reusableMessages) {
+		return reusableMessages != null ? reusableMessages.getMessage(type) :
+				JCSMPFactory.onlyInstance().createMessage(type);
+	}
+
 	public Message<?> map(XMLMessage xmlMessage) throws SolaceMessageConversionException {
 		return map(xmlMessage, false);
 	}
 
 	public Message<?> map(XMLMessage xmlMessage, boolean setRawMessageHeader) throws SolaceMessageConversionException {
-		SDTMap metadata = xmlMessage.getProperties();
+		return map(xmlMessage, setRawMessageHeader, false);
+	}
+
+	/**
+	 * @param deferPayloadDecoding if true, a compressed or serialized payload is mapped to a {@link DeferredPayload}
+	 *                             instead of being decoded right away
+	 */
+	public Message<?> map(XMLMessage xmlMessage, boolean setRawMessageHeader, boolean deferPayloadDecoding)
+			throws SolaceMessageConversionException {
+		return map(xmlMessage, setRawMessageHeader, deferPayloadDecoding, null);
+	}
+
+	/**
+	 * @param ackEngine acknowledges the message when its acknowledgment callback is called, or null to acknowledge it
+	 *                  on the calling thread
+	 */
+	public Message<?> map(XMLMessage xmlMessage, boolean setRawMessageHeader, boolean deferPayloadDecoding,
+						  @Nullable JCSMPAckEngine ackEngine) throws SolaceMessageConversionException {
+		SDTMap metadata;
+		try {
+			metadata = HeaderNameDictionary.decode(xmlMessage.getProperties());
+		} catch (SDTException | IllegalArgumentException e) {
+			throw wrapException(e);
+		}
 
 		Object payload;
 		if (xmlMessage instanceof BytesMessage) {
-			payload = ((BytesMessage) xmlMessage).getData();
-			if (metadata != null &&
-					metadata.containsKey(JAVA_SERIALIZED_OBJECT_HEADER) &&
-					rethrowableCall(metadata::getBoolean, JAVA_SERIALIZED_OBJECT_HEADER)) {
-				payload = rethrowableCall(SerializationUtils::deserialize, (byte[]) payload);
+			byte[] data = ((BytesMessage) xmlMessage).getData();
+			if (data == null || metadata == null) {
+				payload = data;
+			} else if (deferPayloadDecoding && isEncoded(metadata)) {
+				payload = new DeferredPayload(data, metadata, this::decodePayload);
+			} else {
+				payload = decodePayload(data, metadata);
 			}
 		} else if (xmlMessage instanceof TextMessage) {
 			payload = ((TextMessage) xmlMessage).getText();
@@ -163,33 +453,92 @@ public class XMLMessageMapper {
 			throw exception;
 		}
 
-		MessageBuilder<?> builder =  new DefaultMessageBuilderFactory()
-				.withPayload(payload)
-				.copyHeaders(map(metadata))
-				.setHeader(IntegrationMessageHeaderAccessor.ACKNOWLEDGMENT_CALLBACK, ackCallbackFactory.createCallback(xmlMessage))
-				.setHeaderIfAbsent(MessageHeaders.CONTENT_TYPE, xmlMessage.getHTTPContentType())
-				.setHeaderIfAbsent(IntegrationMessageHeaderAccessor.DELIVERY_ATTEMPT, new AtomicInteger(0));
+		Map<String,Object> headers = new HashMap<>();
+		headers.put(IntegrationMessageHeaderAccessor.ACKNOWLEDGMENT_CALLBACK, ackCallbackFactory.createCallback(xmlMessage, ackEngine));
+		if (setRawMessageHeader) headers.put(SolaceMessageHeaderErrorMessageStrategy.SOLACE_RAW_MESSAGE, xmlMessage);
+
+		Map<String,Object> defaultHeaders = new HashMap<>();
+		defaultHeaders.put(MessageHeaders.CONTENT_TYPE, xmlMessage.getHTTPContentType());
+		defaultHeaders.put(IntegrationMessageHeaderAccessor.DELIVERY_ATTEMPT, new AtomicInteger(0));
+
+		// Built directly around the lazy headers, since a message builder would copy and so decode all of them
+		MessageHeaders messageHeaders = SDTMapMessageHeaders.create(metadata, headers, defaultHeaders);
+		return payload instanceof Throwable ? new ErrorMessage((Throwable) payload, messageHeaders) :
+				new GenericMessage<>(payload, messageHeaders);
+	}
+
+	private boolean isEncoded(SDTMap metadata) {
+		return metadata.containsKey(PAYLOAD_ENCODING_HEADER) || metadata.containsKey(PAYLOAD_SERIALIZER_HEADER) ||
+				metadata.containsKey(JAVA_SERIALIZED_OBJECT_HEADER);
+	}
+
+	private Object decodePayload(byte[] data, SDTMap metadata) {
+		Object payload = data;
+		if (metadata.containsKey(PAYLOAD_ENCODING_HEADER)) {
+			payload = decompress(data, metadata);
+		}
+		if (payload instanceof byte[]) {
+			payload = deserialize((byte[]) payload, metadata);
+		}
+		return payload;
+	}
 
-		if (setRawMessageHeader) builder.setHeader(SolaceMessageHeaderErrorMessageStrategy.SOLACE_RAW_MESSAGE, xmlMessage);
+	private Object decompress(byte[] data, SDTMap metadata) {
+		String encoding = rethrowableCall(metadata::getString, PAYLOAD_ENCODING_HEADER);
+		if (!DeflateCodec.ENCODING.equals(encoding)) {
+			String msg = String.format("Unsupported payload encoding: %s", encoding);
+			SolaceMessageConversionException exception = new SolaceMessageConversionException(msg);
+			logger.warn(msg, exception);
+			throw exception;
+		}
 
-		return builder.build();
+		byte[] inflated = rethrowableCall(d -> DeflateCodec.inflate(d, maxInflatedPayloadSize), data);
+		if (metadata.containsKey(COMPRESSED_TEXT_HEADER) && rethrowableCall(metadata::getBoolean, COMPRESSED_TEXT_HEADER)) {
+			return new String(inflated, StandardCharsets.UTF_8);
+		}
+		return inflated;
+	}
+
+	private Object deserialize(byte[] data, SDTMap metadata) {
+		PayloadSerializer payloadSerializer;
+		if (metadata.containsKey(PAYLOAD_SERIALIZER_HEADER)) {
+			String serializerId = rethrowableCall(metadata::getString, PAYLOAD_SERIALIZER_HEADER);
+			payloadSerializer = rethrowableCall(PayloadSerializers::get, serializerId);
+		} else if (metadata.containsKey(JAVA_SERIALIZED_OBJECT_HEADER) &&
+				rethrowableCall(metadata::getBoolean, JAVA_SERIALIZED_OBJECT_HEADER)) {
+			payloadSerializer = PayloadSerializers.getDefault();
+		} else {
+			return data;
+		}
+		return rethrowableCall(payloadSerializer::deserialize, data);
 	}
 
 	SDTMap map(MessageHeaders headers) {
 		SDTMap metadata = JCSMPFactory.onlyInstance().createMap();
+		map(headers, metadata);
+		return metadata;
+	}
+
+	private void map(MessageHeaders headers, SDTMap metadata) {
 		for (Map.Entry<String,Object> header : headers.entrySet()) {
-			if (header.getKey().equalsIgnoreCase(IntegrationMessageHeaderAccessor.ACKNOWLEDGMENT_CALLBACK)) continue;
+			String key = header.getKey();
+			if (key.equalsIgnoreCase(IntegrationMessageHeaderAccessor.ACKNOWLEDGMENT_CALLBACK)) continue;
+			if (NON_PROPAGATED_HEADERS.contains(key)) continue;
 
 			Object value = header.getValue();
-
-			if (value instanceof UUID) {
-				value = SerializationUtils.serialize(value);
-				rethrowableCall(metadata::putBoolean, getIsHeaderSerializedMetadataKey(header.getKey()), true);
+			if (headerFilter != null && !headerFilter.isPropagated(key, value)) continue;
+
+			byte encoding = compactHeaderValues ? HeaderValueCodec.getEncoding(value) : HeaderValueCodec.NONE;
+			if (encoding != HeaderValueCodec.NONE) {
+				try {
+					HeaderValueCodec.encode(metadata, key, value, encoding);
+				} catch (SDTException e) {
+					throw wrapException(e);
+				}
+			} else {
+				addSDTMapObject(metadata, key, value);
 			}
-
-			addSDTMapObject(metadata, header.getKey(), value);
 		}
-		return metadata;
 	}
 
 	MessageHeaders map(SDTMap metadata) {
@@ -197,31 +546,11 @@ public class XMLMessageMapper {
 			return new MessageHeaders(Collections.emptyMap());
 		}
 
-		Map<String,Object> headers = new HashMap<>();
-		metadata.keySet().stream()
-				.filter(h -> !BINDER_INTERNAL_HEADERS.contains(h))
-				.filter(h -> !h.startsWith(HEADER_JAVA_SERIALIZED_OBJECT_HEADER))
-				.forEach(h -> {
-					Object value = rethrowableCall(metadata::get, h);
-
-					String isSerializedMetadataKey = getIsHeaderSerializedMetadataKey(h);
-					if (metadata.containsKey(isSerializedMetadataKey) &&
-							rethrowableCall(metadata::getBoolean, isSerializedMetadataKey)) {
-						value = SerializationUtils.deserialize(rethrowableCall(metadata::getBytes, h));
-					}
-
-					if (value instanceof ByteArray) {
-						value = ((ByteArray) value).getBuffer();
-					}
-
-					headers.put(h, value);
-				});
-
-		return new MessageHeaders(headers);
+		return SDTMapMessageHeaders.create(metadata, Collections.emptyMap(), Collections.emptyMap());
 	}
 
 	String getIsHeaderSerializedMetadataKey(String headerName) {
-		return String.format("%s%s", HEADER_JAVA_SERIALIZED_OBJECT_HEADER, headerName);
+		return HEADER_JAVA_SERIALIZED_OBJECT_HEADER + headerName;
 	}
 
 
@@ -229,26 +558,48 @@ public class XMLMessageMapper {
 	 * Wrapper function which converts Serializable objects to byte[] if they aren't naturally supported by the SDTMap
 	 */
 	private void addSDTMapObject(SDTMap sdtMap, String key, Object object) throws SolaceMessageConversionException {
-		rethrowableCall((k, o) -> {
+		try {
 			try {
-				sdtMap.putObject(k, o);
+				sdtMap.putObject(key, object);
 			} catch (IllegalArgumentException e) {
-				if (o instanceof Serializable) {
-					rethrowableCall(sdtMap::putBoolean, getIsHeaderSerializedMetadataKey(k), true);
-					rethrowableCall(sdtMap::putBytes, k, rethrowableCall(SerializationUtils::serialize, o));
+				if (object instanceof Serializable) {
+					sdtMap.putBoolean(getIsHeaderSerializedMetadataKey(key), true);
+					sdtMap.putBytes(key, SerializationUtils.serialize(object));
 				} else {
 					throw e;
 				}
 			}
-		}, key, object);
+		} catch (Exception e) {
+			throw wrapException(e);
+		}
 	}
 
-	private <T,R> R rethrowableCall(ThrowingFunction<T,R> consumer, T var) {
-		return consumer.apply(var);
+	// The put methods below are called for every published message, so they avoid allocating lambdas
+
+	private static void putString(SDTMap sdtMap, String key, String value) {
+		try {
+			sdtMap.putString(key, value);
+		} catch (SDTException e) {
+			throw wrapException(e);
+		}
 	}
 
-	private <T,U> void rethrowableCall(ThrowingBiConsumer<T,U> consumer, T var0, U var1) {
-		consumer.accept(var0, var1);
+	private static void putBoolean(SDTMap sdtMap, String key, boolean value) {
+		try {
+			sdtMap.putBoolean(key, value);
+		} catch (SDTException e) {
+			throw wrapException(e);
+		}
+	}
+
+	private static SolaceMessageConversionException wrapException(Exception e) {
+		SolaceMessageConversionException wrappedException = new SolaceMessageConversionException(e);
+		logger.warn(wrappedException);
+		return wrappedException;
+	}
+
+	private <T,R> R rethrowableCall(ThrowingFunction<T,R> consumer, T var) {
+		return consumer.apply(var);
 	}
 
 	@FunctionalInterface
@@ -267,21 +618,4 @@ public class XMLMessageMapper {
 
 		R applyThrows(T t) throws Exception;
 	}
-
-	@FunctionalInterface
-	private interface ThrowingBiConsumer<T,U> extends BiConsumer<T,U> {
-
-		@Override
-		default void accept(T t, U u) {
-			try {
-				applyThrows(t, u);
-			} catch (Exception e) {
-				SolaceMessageConversionException wrappedException = new SolaceMessageConversionException(e);
-				logger.warn(wrappedException);
-				throw wrappedException;
-			}
-		}
-
-		void applyThrows(T t, U u) throws Exception;
-	}
 }
@@ -0,0 +1,68 @@
+package com.solace.spring.cloud.stream.binder.inbound;
+
+import com.solacesystems.jcsmp.BytesMessage;
+import com.solacesystems.jcsmp.JCSMPFactory;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+import org.springframework.integration.support.MessageBuilder;
+import org.springframework.messaging.Message;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+public class BatchCollectorTest {
+	private final BlockingQueue<List<Object>> batches = new ArrayBlockingQueue<>(10);
+	private BatchCollector collector;
+
+	@After
+	public void teardown() {
+		if (collector != null) {
+			collector.stop();
+		}
+	}
+
+	@Test
+	public void testFlushWhenFull() throws Exception {
+		collector = createCollector(3, 60000);
+		collector.start();
+		for (int i = 0; i < 7; i++) {
+			add(i);
+		}
+
+		Assert.assertEquals(Arrays.asList(0, 1, 2), batches.poll(1, TimeUnit.SECONDS));
+		Assert.assertEquals(Arrays.asList(3, 4, 5), batches.poll(1, TimeUnit.SECONDS));
+		Assert.assertNull(batches.poll(100, TimeUnit.MILLISECONDS));
+
+		collector.stop();
+		Assert.assertEquals(Arrays.asList(6), batches.poll(1, TimeUnit.SECONDS));
+	}
+
+	@Test
+	public void testFlushOnTimeout() throws Exception {
+		collector = createCollector(100, 50);
+		collector.start();
+		add(0);
+		add(1);
+
+		Assert.assertEquals(Arrays.asList(0, 1), batches.poll(10, TimeUnit.SECONDS));
+		add(2);
+		Assert.assertEquals(Arrays.asList(2), batches.poll(10, TimeUnit.SECONDS));
+	}
+
+	private BatchCollector createCollector(int maxSize, long timeoutMillis) {
+		return new BatchCollector("test", maxSize, timeoutMillis, (messages, bytesXMLMessages) -> {
+			Assert.assertEquals(messages.size(), bytesXMLMessages.size());
+			batches.add(messages.stream().map(Message::getPayload).collect(Collectors.toList()));
+		});
+	}
+
+	private void add(int payload) {
+		collector.add(MessageBuilder.withPayload(payload).build(),
+				JCSMPFactory.onlyInstance().createMessage(BytesMessage.class));
+	}
+}
@@ -0,0 +1,88 @@
+package com.solace.spring.cloud.stream.binder.inbound;
+
+import com.solace.spring.cloud.stream.binder.util.SolaceMessageConversionException;
+import com.solacesystems.jcsmp.BytesXMLMessage;
+import com.solacesystems.jcsmp.JCSMPFactory;
+import com.solacesystems.jcsmp.TextMessage;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+import org.springframework.integration.support.MessageBuilder;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+public class DecodingPipelineTest {
+	private DecodingPipeline pipeline;
+
+	@After
+	public void teardown() {
+		if (pipeline != null) {
+			pipeline.stop(1000);
+		}
+	}
+
+	@Test
+	public void testDeliveredInOrder() {
+		List<String> delivered = Collections.synchronizedList(new ArrayList<>());
+		List<Thread> deliveryThreads = Collections.synchronizedList(new ArrayList<>());
+		pipeline = new DecodingPipeline("test", 4, 8, bytesXMLMessage -> {
+			sleep(ThreadLocalRandom.current().nextInt(5));
+			return MessageBuilder.withPayload(((TextMessage) bytesXMLMessage).getText()).build();
+		}, (bytesXMLMessage, message, error) -> {
+			Assert.assertNull(error);
+			delivered.add((String) message.getPayload());
+			deliveryThreads.add(Thread.currentThread());
+		});
+		pipeline.start();
+
+		List<String> expected = new ArrayList<>();
+		for (int i = 0; i < 100; i++) {
+			expected.add("message-" + i);
+			pipeline.submit(createMessage("message-" + i));
+		}
+
+		Assert.assertTrue(pipeline.stop(10000));
+		Assert.assertEquals(expected, delivered);
+		Assert.assertEquals(1, deliveryThreads.stream().distinct().count());
+	}
+
+	@Test
+	public void testDecodingFailure() {
+		List<Object> delivered = Collections.synchronizedList(new ArrayList<>());
+		pipeline = new DecodingPipeline("test", 2, 4, bytesXMLMessage -> {
+			String text = ((TextMessage) bytesXMLMessage).getText();
+			if (text.equals("bad")) {
+				throw new SolaceMessageConversionException("Cannot decode " + text);
+			}
+			return MessageBuilder.withPayload(text).build();
+		}, (bytesXMLMessage, message, error) -> delivered.add(error != null ? error : message.getPayload()));
+		pipeline.start();
+
+		pipeline.submit(createMessage("foo"));
+		pipeline.submit(createMessage("bad"));
+		pipeline.submit(createMessage("bar"));
+
+		Assert.assertTrue(pipeline.stop(10000));
+		Assert.assertEquals(3, delivered.size());
+		Assert.assertEquals("foo", delivered.get(0));
+		Assert.assertTrue(delivered.get(1) instanceof SolaceMessageConversionException);
+		Assert.assertEquals("bar", delivered.get(2));
+	}
+
+	private static BytesXMLMessage createMessage(String text) {
+		TextMessage message = JCSMPFactory.onlyInstance().createMessage(TextMessage.class);
+		message.setText(text);
+		return message;
+	}
+
+	private static void sleep(long millis) {
+		try {
+			Thread.sleep(millis);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
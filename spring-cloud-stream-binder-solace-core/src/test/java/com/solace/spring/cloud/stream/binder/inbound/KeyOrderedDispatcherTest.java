@@ -0,0 +1,202 @@
+package com.solace.spring.cloud.stream.binder.inbound;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+import org.springframework.expression.spel.standard.SpelExpressionParser;
+import org.springframework.integration.support.MessageBuilder;
+import org.springframework.messaging.Message;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class KeyOrderedDispatcherTest {
+	private KeyOrderedDispatcher dispatcher;
+
+	@After
+	public void teardown() {
+		if (dispatcher != null) {
+			dispatcher.stop(1000);
+		}
+	}
+
+	@Test
+	public void testOrderPerKey() throws Exception {
+		dispatcher = createDispatcher(4, 10, () -> {}, () -> {});
+		dispatcher.start();
+
+		Map<String, List<Integer>> processed = Collections.synchronizedMap(new HashMap<>());
+		CountDownLatch latch = new CountDownLatch(100);
+		for (int i = 0; i < 100; i++) {
+			String key = "key-" + (i % 7);
+			int sequence = i;
+			dispatcher.dispatch(createMessage(key), () -> {
+				processed.computeIfAbsent(key, k -> Collections.synchronizedList(new ArrayList<>())).add(sequence);
+				latch.countDown();
+			});
+		}
+
+		Assert.assertTrue(latch.await(10, TimeUnit.SECONDS));
+		Assert.assertEquals(7, processed.size());
+		for (List<Integer> sequences : processed.values()) {
+			List<Integer> sorted = new ArrayList<>(sequences);
+			Collections.sort(sorted);
+			Assert.assertEquals(sorted, sequences);
+		}
+	}
+
+	@Test
+	public void testPauseWhenLaneIsFull() throws Exception {
+		AtomicInteger pauseCount = new AtomicInteger();
+		AtomicInteger resumeCount = new AtomicInteger();
+		dispatcher = createDispatcher(2, 2, pauseCount::incrementAndGet, resumeCount::incrementAndGet);
+		dispatcher.start();
+
+		CountDownLatch blocked = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		List<Integer> processed = Collections.synchronizedList(new ArrayList<>());
+		dispatcher.dispatch(createMessage("a"), () -> {
+			blocked.countDown();
+			awaitQuietly(release);
+			processed.add(0);
+		});
+		Assert.assertTrue(blocked.await(10, TimeUnit.SECONDS));
+
+		// Fill the lane, then overflow it without blocking the dispatching thread
+		for (int i = 1; i <= 4; i++) {
+			int sequence = i;
+			dispatcher.dispatch(createMessage("a"), () -> processed.add(sequence));
+			Assert.assertEquals(i > 2, dispatcher.isPaused());
+		}
+		Assert.assertEquals(1, pauseCount.get());
+		Assert.assertEquals(4, dispatcher.getQueuedCount());
+
+		release.countDown();
+		long deadline = System.currentTimeMillis() + 10000;
+		while ((dispatcher.isPaused() || dispatcher.getQueuedCount() > 0) && System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
+		Assert.assertFalse(dispatcher.isPaused());
+		Assert.assertEquals(1, resumeCount.get());
+		deadline = System.currentTimeMillis() + 10000;
+		while (processed.size() < 5 && System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
+		Assert.assertEquals(Arrays.asList(0, 1, 2, 3, 4), processed);
+	}
+
+	@Test
+	public void testStopProcessesQueuedMessages() throws Exception {
+		dispatcher = createDispatcher(2, 10, () -> {}, () -> {});
+		dispatcher.start();
+
+		AtomicInteger processed = new AtomicInteger();
+		for (int i = 0; i < 10; i++) {
+			dispatcher.dispatch(createMessage("key-" + i), processed::incrementAndGet);
+		}
+
+		Assert.assertTrue(dispatcher.stop(10000));
+		Assert.assertEquals(10, processed.get());
+	}
+
+	@Test
+	public void testCloseKeepsFlowsPaused() throws Exception {
+		AtomicInteger resumeCount = new AtomicInteger();
+		dispatcher = createDispatcher(1, 1, () -> {}, resumeCount::incrementAndGet);
+		dispatcher.start();
+
+		CountDownLatch blocked = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		AtomicInteger processed = new AtomicInteger();
+		dispatcher.dispatch(createMessage("a"), () -> {
+			blocked.countDown();
+			awaitQuietly(release);
+			processed.incrementAndGet();
+		});
+		Assert.assertTrue(blocked.await(10, TimeUnit.SECONDS));
+		dispatcher.dispatch(createMessage("a"), processed::incrementAndGet);
+		dispatcher.dispatch(createMessage("a"), processed::incrementAndGet);
+		Assert.assertTrue(dispatcher.isPaused());
+
+		dispatcher.close();
+		release.countDown();
+		Assert.assertTrue(dispatcher.stop(10000));
+		Assert.assertEquals(3, processed.get());
+		Assert.assertEquals(0, resumeCount.get());
+	}
+
+	@Test
+	public void testPauseDoesNotBlockDispatch() throws Exception {
+		AtomicInteger dispatchedDuringPause = new AtomicInteger();
+		CountDownLatch blocked = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		// Stopping a flow may wait for another session's dispatcher thread, which may be dispatching to a full lane
+		dispatcher = createDispatcher(1, 1, () -> {
+			Thread otherSession = new Thread(() -> {
+				dispatcher.dispatch(createMessage("a"), () -> {});
+				dispatchedDuringPause.incrementAndGet();
+			});
+			otherSession.start();
+			try {
+				otherSession.join(5000);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}, () -> {});
+		dispatcher.start();
+
+		dispatcher.dispatch(createMessage("a"), () -> {
+			blocked.countDown();
+			awaitQuietly(release);
+		});
+		Assert.assertTrue(blocked.await(10, TimeUnit.SECONDS));
+		dispatcher.dispatch(createMessage("a"), () -> {});
+		dispatcher.dispatch(createMessage("a"), () -> {});
+		Assert.assertEquals(1, dispatchedDuringPause.get());
+		release.countDown();
+	}
+
+	@Test
+	public void testDispatchAfterStop() {
+		dispatcher = createDispatcher(1, 10, () -> {}, () -> {});
+		dispatcher.start();
+		Assert.assertTrue(dispatcher.stop(10000));
+
+		AtomicInteger processed = new AtomicInteger();
+		dispatcher.dispatch(createMessage("a"), processed::incrementAndGet);
+		Assert.assertEquals(0, processed.get());
+		Assert.assertEquals(0, dispatcher.getQueuedCount());
+	}
+
+	@Test
+	public void testNullKey() {
+		dispatcher = createDispatcher(4, 10, () -> {}, () -> {});
+		Assert.assertEquals(0, dispatcher.laneIndex(null));
+		Assert.assertEquals(dispatcher.laneIndex("foo"), dispatcher.laneIndex("foo"));
+	}
+
+	private static KeyOrderedDispatcher createDispatcher(int laneCount, int laneCapacity, Runnable pause,
+														 Runnable resume) {
+		return new KeyOrderedDispatcher("test", new SpelExpressionParser().parseExpression("headers['key']"),
+				laneCount, laneCapacity, pause, resume);
+	}
+
+	private static Message<?> createMessage(String key) {
+		return MessageBuilder.withPayload("foo").setHeader("key", key).build();
+	}
+
+	private static void awaitQuietly(CountDownLatch latch) {
+		try {
+			latch.await(10, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
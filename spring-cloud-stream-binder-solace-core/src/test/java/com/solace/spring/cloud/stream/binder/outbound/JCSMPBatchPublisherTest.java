@@ -0,0 +1,149 @@
+package com.solace.spring.cloud.stream.binder.outbound;
+
+import com.solace.spring.cloud.stream.binder.util.ErrorChannelSendingCorrelationKey;
+import com.solacesystems.jcsmp.DeliveryMode;
+import com.solacesystems.jcsmp.Destination;
+import com.solacesystems.jcsmp.JCSMPException;
+import com.solacesystems.jcsmp.JCSMPFactory;
+import com.solacesystems.jcsmp.JCSMPSendMultipleEntry;
+import com.solacesystems.jcsmp.TextMessage;
+import com.solacesystems.jcsmp.XMLMessage;
+import com.solacesystems.jcsmp.XMLMessageProducer;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.springframework.messaging.support.GenericMessage;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+public class JCSMPBatchPublisherTest {
+	private final Destination destination = JCSMPFactory.onlyInstance().createTopic("test/batch");
+	private XMLMessageProducer producer;
+	private List<String> published;
+
+	@Before
+	public void setup() throws Exception {
+		producer = Mockito.mock(XMLMessageProducer.class);
+		published = Collections.synchronizedList(new ArrayList<>());
+		acceptAtMost(Integer.MAX_VALUE);
+	}
+
+	@Test
+	public void testPartialSends() throws Exception {
+		acceptAtMost(2);
+		JCSMPBatchPublisher batchPublisher = new JCSMPBatchPublisher("test", producer, 10, 60000);
+		List<CompletableFuture<Void>> confirmations = new ArrayList<>();
+		List<XMLMessage> messages = new ArrayList<>();
+		List<Destination> destinations = new ArrayList<>();
+		for (int i = 0; i < 5; i++) {
+			CompletableFuture<Void> confirmation = new CompletableFuture<>();
+			confirmations.add(confirmation);
+			messages.add(createMessage("message-" + i, confirmation));
+			destinations.add(destination);
+		}
+
+		batchPublisher.addAll(messages, destinations);
+
+		Assert.assertEquals(Arrays.asList("message-0", "message-1", "message-2", "message-3", "message-4"), published);
+		Mockito.verify(producer, Mockito.times(3))
+				.sendMultiple(Mockito.any(JCSMPSendMultipleEntry[].class), Mockito.anyInt(), Mockito.anyInt(),
+						Mockito.anyInt());
+		for (CompletableFuture<Void> confirmation : confirmations) {
+			Assert.assertTrue(confirmation.isDone());
+			Assert.assertFalse(confirmation.isCompletedExceptionally());
+		}
+	}
+
+	@Test
+	public void testNoProgressFailsRemainingMessages() throws Exception {
+		acceptAtMost(0);
+		JCSMPBatchPublisher batchPublisher = new JCSMPBatchPublisher("test", producer, 10, 60000);
+		CompletableFuture<Void> confirmation = new CompletableFuture<>();
+		batchPublisher.add(createMessage("message-0", confirmation), destination);
+		batchPublisher.flush();
+
+		Assert.assertTrue(confirmation.isCompletedExceptionally());
+		Assert.assertTrue(published.isEmpty());
+	}
+
+	@Test
+	public void testLingerFlush() throws Exception {
+		JCSMPBatchPublisher batchPublisher = new JCSMPBatchPublisher("test", producer, 10, 50);
+		CompletableFuture<Void> confirmation = new CompletableFuture<>();
+		batchPublisher.add(createMessage("message-0", confirmation), destination);
+		Assert.assertTrue(published.isEmpty());
+
+		confirmation.get(10, TimeUnit.SECONDS);
+		Assert.assertEquals(Collections.singletonList("message-0"), published);
+	}
+
+	@Test
+	public void testZeroLingerPublishesImmediately() throws Exception {
+		JCSMPBatchPublisher batchPublisher = new JCSMPBatchPublisher("test", producer, 10, 0);
+		CompletableFuture<Void> confirmation = new CompletableFuture<>();
+		batchPublisher.add(createMessage("message-0", confirmation), destination);
+
+		Assert.assertEquals(Collections.singletonList("message-0"), published);
+		Assert.assertTrue(confirmation.isDone());
+	}
+
+	@Test
+	public void testFailurePropagation() throws Exception {
+		Mockito.when(producer.sendMultiple(Mockito.any(JCSMPSendMultipleEntry[].class), Mockito.anyInt(),
+				Mockito.anyInt(), Mockito.anyInt()))
+				.thenAnswer(invocation -> {
+					JCSMPSendMultipleEntry[] entries = (JCSMPSendMultipleEntry[]) invocation.getArguments()[0];
+					int offset = (int) invocation.getArguments()[1];
+					published.add(((TextMessage) entries[offset].getMessage()).getText());
+					return 1;
+				})
+				.thenThrow(new JCSMPException("Test failure"));
+		JCSMPBatchPublisher batchPublisher = new JCSMPBatchPublisher("test", producer, 10, 60000);
+		CompletableFuture<Void> sentConfirmation = new CompletableFuture<>();
+		CompletableFuture<Void> failedConfirmation = new CompletableFuture<>();
+		batchPublisher.addAll(
+				Arrays.asList(createMessage("message-0", sentConfirmation),
+						createMessage("message-1", failedConfirmation)),
+				Arrays.asList(destination, destination));
+
+		Assert.assertEquals(Collections.singletonList("message-0"), published);
+		Assert.assertTrue(sentConfirmation.isDone());
+		Assert.assertFalse(sentConfirmation.isCompletedExceptionally());
+		try {
+			failedConfirmation.get(10, TimeUnit.SECONDS);
+			Assert.fail("Expected the confirmation of the unsent message to fail");
+		} catch (ExecutionException e) {
+			Assert.assertTrue(e.getCause().getCause() instanceof JCSMPException);
+		}
+	}
+
+	private void acceptAtMost(int count) throws JCSMPException {
+		Mockito.when(producer.sendMultiple(Mockito.any(JCSMPSendMultipleEntry[].class), Mockito.anyInt(),
+				Mockito.anyInt(), Mockito.anyInt()))
+				.thenAnswer(invocation -> {
+					JCSMPSendMultipleEntry[] entries = (JCSMPSendMultipleEntry[]) invocation.getArguments()[0];
+					int offset = (int) invocation.getArguments()[1];
+					int sent = Math.min((int) invocation.getArguments()[2], count);
+					for (int i = offset; i < offset + sent; i++) {
+						published.add(((TextMessage) entries[i].getMessage()).getText());
+					}
+					return sent;
+				});
+	}
+
+	private static XMLMessage createMessage(String text, CompletableFuture<Void> confirmation) {
+		TextMessage message = JCSMPFactory.onlyInstance().createMessage(TextMessage.class);
+		message.setText(text);
+		message.setDeliveryMode(DeliveryMode.DIRECT);
+		message.setCorrelationKey(new ErrorChannelSendingCorrelationKey(new GenericMessage<>(text), null, null,
+				confirmation));
+		return message;
+	}
+}
@@ -0,0 +1,122 @@
+package com.solace.spring.cloud.stream.binder.provisioning;
+
+import com.solace.spring.cloud.stream.binder.properties.SolaceConsumerProperties;
+import com.solace.spring.cloud.stream.binder.properties.SolaceProducerProperties;
+import com.solace.spring.cloud.stream.binder.test.InMemoryBroker;
+import com.solace.spring.cloud.stream.binder.util.SolaceProvisioningUtil;
+import com.solacesystems.jcsmp.DeliveryMode;
+import com.solacesystems.jcsmp.JCSMPFactory;
+import com.solacesystems.jcsmp.JCSMPSession;
+import com.solacesystems.jcsmp.JCSMPStreamingPublishEventHandler;
+import com.solacesystems.jcsmp.TextMessage;
+import com.solacesystems.jcsmp.XMLMessageProducer;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.cloud.stream.binder.ExtendedConsumerProperties;
+import org.springframework.cloud.stream.binder.ExtendedProducerProperties;
+import org.springframework.expression.spel.standard.SpelExpressionParser;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+public class SolaceQueueProvisionerTest {
+	private static final String DESTINATION = "test/partitioned";
+	private static final String GROUP = "group";
+
+	private InMemoryBroker broker;
+	private JCSMPSession session;
+	private SolaceQueueProvisioner provisioner;
+
+	@Before
+	public void setup() throws Exception {
+		broker = new InMemoryBroker();
+		session = broker.createSession();
+		session.connect();
+		provisioner = new SolaceQueueProvisioner(session);
+	}
+
+	@After
+	public void teardown() {
+		session.closeSession();
+	}
+
+	@Test
+	public void testRequiredGroupQueuesFollowConsumerInstances() throws Exception {
+		ExtendedProducerProperties<SolaceProducerProperties> producerProperties = createProducerProperties(4);
+		producerProperties.getExtension().setRequiredGroupInstanceCount(2);
+		provisioner.provisionProducerDestination(DESTINATION, producerProperties);
+
+		String queueName = SolaceProvisioningUtil.getQueueName(DESTINATION, GROUP, producerProperties.getExtension());
+		Assert.assertEquals(new HashSet<>(Arrays.asList(queueName + ".0", queueName + ".1")), broker.getQueueNames());
+
+		// The producer's queues are the ones which the consumer instances provision
+		Set<String> consumerQueues = new HashSet<>();
+		for (int instance = 0; instance < 2; instance++) {
+			ExtendedConsumerProperties<SolaceConsumerProperties> consumerProperties =
+					new ExtendedConsumerProperties<>(new SolaceConsumerProperties());
+			consumerProperties.setPartitioned(true);
+			consumerProperties.setInstanceCount(2);
+			consumerProperties.setInstanceIndex(instance);
+			consumerProperties.getExtension().setPartitionCount(4);
+			consumerQueues.add(provisioner.provisionConsumerDestination(DESTINATION, GROUP, consumerProperties)
+					.getName());
+		}
+		Assert.assertEquals(broker.getQueueNames(), consumerQueues);
+
+		XMLMessageProducer producer = session.getMessageProducer((JCSMPStreamingPublishEventHandler) null);
+		for (int partition = 0; partition < 4; partition++) {
+			TextMessage message = JCSMPFactory.onlyInstance().createMessage(TextMessage.class);
+			message.setText("partition-" + partition);
+			producer.send(message, JCSMPFactory.onlyInstance().createTopic(
+					SolaceProvisioningUtil.getPartitionTopicName(DESTINATION, partition)));
+		}
+		producer.close();
+
+		// Instance 0 consumes partitions 0 and 2, instance 1 consumes partitions 1 and 3
+		Assert.assertEquals(2, broker.getQueueDepth(queueName + ".0"));
+		Assert.assertEquals(2, broker.getQueueDepth(queueName + ".1"));
+	}
+
+	@Test
+	public void testRequiredGroupQueuePerPartitionByDefault() {
+		ExtendedProducerProperties<SolaceProducerProperties> producerProperties = createProducerProperties(3);
+		provisioner.provisionProducerDestination(DESTINATION, producerProperties);
+
+		String queueName = SolaceProvisioningUtil.getQueueName(DESTINATION, GROUP, producerProperties.getExtension());
+		Assert.assertEquals(new HashSet<>(Arrays.asList(queueName + ".0", queueName + ".1", queueName + ".2")),
+				broker.getQueueNames());
+	}
+
+	@Test
+	public void testRequiredGroupQueueOfDirectProducer() throws Exception {
+		ExtendedProducerProperties<SolaceProducerProperties> producerProperties =
+				new ExtendedProducerProperties<>(new SolaceProducerProperties());
+		producerProperties.setRequiredGroups(GROUP);
+		producerProperties.getExtension().setDeliveryMode(DeliveryMode.DIRECT);
+		provisioner.provisionProducerDestination(DESTINATION, producerProperties);
+
+		String queueName = SolaceProvisioningUtil.getQueueName(DESTINATION, GROUP, producerProperties.getExtension());
+		Assert.assertEquals(Collections.singleton(queueName), broker.getQueueNames());
+
+		// A message which overrides the binding's delivery mode still reaches the required group
+		XMLMessageProducer producer = session.getMessageProducer((JCSMPStreamingPublishEventHandler) null);
+		TextMessage message = JCSMPFactory.onlyInstance().createMessage(TextMessage.class);
+		message.setDeliveryMode(DeliveryMode.PERSISTENT);
+		producer.send(message, JCSMPFactory.onlyInstance().createTopic(DESTINATION));
+		producer.close();
+		Assert.assertEquals(1, broker.getQueueDepth(queueName));
+	}
+
+	private static ExtendedProducerProperties<SolaceProducerProperties> createProducerProperties(int partitionCount) {
+		ExtendedProducerProperties<SolaceProducerProperties> producerProperties =
+				new ExtendedProducerProperties<>(new SolaceProducerProperties());
+		producerProperties.setPartitionKeyExpression(new SpelExpressionParser().parseExpression("payload"));
+		producerProperties.setPartitionCount(partitionCount);
+		producerProperties.setRequiredGroups(GROUP);
+		return producerProperties;
+	}
+}
@@ -0,0 +1,132 @@
+package com.solace.spring.cloud.stream.binder.serialization;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.springframework.util.SerializationUtils;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+
+public class CompactPayloadSerializerTest {
+	private final CompactPayloadSerializer serializer = new CompactPayloadSerializer();
+
+	@Test
+	public void testValues() throws Exception {
+		for (Object value : Arrays.asList("abc", "", Integer.MIN_VALUE, -1, Long.MAX_VALUE, (short) -7, (byte) 3,
+				'x', 1.5f, Double.NaN, true, false, UUID.randomUUID(), new BigDecimal("-12.345"),
+				new BigInteger("123456789012345678901234567890"), Instant.now(), new Date(), TestEnum.B)) {
+			Assert.assertEquals(value, roundTrip(value));
+		}
+		Assert.assertNull(roundTrip(null));
+		Assert.assertArrayEquals(new byte[]{1, 2, 3}, (byte[]) roundTrip(new byte[]{1, 2, 3}));
+	}
+
+	@Test
+	public void testCollections() throws Exception {
+		Map<String, Object> map = new HashMap<>();
+		map.put("list", Arrays.asList(1, "two", null));
+		map.put("set", new LinkedHashSet<>(Arrays.asList(3L, 4L)));
+		map.put("empty", Collections.emptyMap());
+		Assert.assertEquals(map, roundTrip(map));
+	}
+
+	@Test
+	public void testObject() throws Exception {
+		TestPojo pojo = new TestPojo();
+		pojo.name = "abc";
+		pojo.count = 42;
+		pojo.tags = new ArrayList<>(Arrays.asList("a", "b"));
+		pojo.child = new TestPojo();
+		pojo.child.name = "child";
+		pojo.skipped = "transient";
+
+		TestPojo result = (TestPojo) roundTrip(pojo);
+		Assert.assertEquals(pojo, result);
+		Assert.assertNull(result.skipped);
+		Assert.assertNull(result.child.child);
+	}
+
+	@Test
+	public void testSmallerThanJavaSerialization() throws Exception {
+		TestPojo pojo = new TestPojo();
+		pojo.name = "abc";
+		pojo.count = 42;
+		Assert.assertTrue(serializer.serialize(pojo).length < SerializationUtils.serialize(pojo).length);
+	}
+
+	@Test(expected = UnsupportedPayloadException.class)
+	public void testNoNoArgConstructor() throws Exception {
+		serializer.serialize(new NoNoArgConstructorPojo("abc"));
+	}
+
+	@Test(expected = UnsupportedPayloadException.class)
+	public void testNotSerializable() throws Exception {
+		serializer.serialize(new Object());
+	}
+
+	@Test(expected = UnsupportedPayloadException.class)
+	public void testIncompatibleCollectionField() throws Exception {
+		TestPojo pojo = new TestPojo();
+		pojo.linkedTags = new LinkedList<>();
+		serializer.serialize(pojo);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testTruncated() throws Exception {
+		byte[] data = serializer.serialize("abcdef");
+		serializer.deserialize(Arrays.copyOf(data, data.length - 1));
+	}
+
+	private Object roundTrip(Object value) throws Exception {
+		return serializer.deserialize(serializer.serialize(value));
+	}
+
+	enum TestEnum {A, B}
+
+	static class TestPojo implements Serializable {
+		private String name;
+		private int count;
+		private List<String> tags;
+		private LinkedList<String> linkedTags;
+		private TestPojo child;
+		private transient String skipped;
+
+		@Override
+		public boolean equals(Object o) {
+			if (this == o) return true;
+			if (o == null || getClass() != o.getClass()) return false;
+			TestPojo that = (TestPojo) o;
+			return count == that.count &&
+					Objects.equals(name, that.name) &&
+					Objects.equals(tags, that.tags) &&
+					Objects.equals(linkedTags, that.linkedTags) &&
+					Objects.equals(child, that.child);
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(name, count, tags, linkedTags, child);
+		}
+	}
+
+	static class NoNoArgConstructorPojo implements Serializable {
+		private final String name;
+
+		NoNoArgConstructorPojo(String name) {
+			this.name = name;
+		}
+	}
+}
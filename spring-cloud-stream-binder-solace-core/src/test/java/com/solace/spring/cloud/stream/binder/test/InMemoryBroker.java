@@ -0,0 +1,132 @@
+package com.solace.spring.cloud.stream.binder.test;
+
+import com.solacesystems.jcsmp.JCSMPSession;
+import com.solacesystems.jcsmp.SDTException;
+import com.solacesystems.jcsmp.Topic;
+import com.solacesystems.jcsmp.XMLMessage;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * An in-process stand-in for a Solace message broker, for tests and benchmarks which shouldn't depend on a live broker.
+ * <p>Its sessions implement the parts of {@link JCSMPSession} which the binder uses:</p>
+ * <ul>
+ *     <li>provisioning and deprovisioning durable queues, including endpoint property mismatches</li>
+ *     <li>temporary queues, which are deleted along with the session which created them</li>
+ *     <li>queue topic subscriptions, with {@code *} and {@code >} wildcards</li>
+ *     <li>producers, which acknowledge guaranteed messages through their event handler</li>
+ *     <li>listener and polling flows with auto or client acknowledgement. Exclusive queues deliver to their oldest
+ *     flow, non-exclusive queues spread messages across their flows. Unacknowledged messages are redelivered once
+ *     their flow closes.</li>
+ * </ul>
+ * <p>As on a broker, each session dispatches its producer events and the messages of its listener flows on a single
+ * thread of its own. Messages are copied when published. Message expiry, dead message queues, quotas and
+ * direct topic subscriptions are not supported, nor is anything else which the binder doesn't use. Unsupported
+ * session operations throw {@link UnsupportedOperationException}.</p>
+ */
+public class InMemoryBroker {
+	private final Map<String, InMemoryQueue> queues = new ConcurrentHashMap<>();
+	private final AtomicInteger sessionCount = new AtomicInteger();
+	private volatile int maxUnackedMessagesPerFlow = 10000;
+
+	public JCSMPSession createSession() {
+		return (JCSMPSession) Proxy.newProxyInstance(InMemoryBroker.class.getClassLoader(),
+				new Class<?>[]{JCSMPSession.class}, new InMemorySession(this, sessionCount.incrementAndGet()));
+	}
+
+	/**
+	 * @return the names of the queues which currently exist, sorted
+	 */
+	public Set<String> getQueueNames() {
+		return new TreeSet<>(queues.keySet());
+	}
+
+	/**
+	 * @return the number of messages spooled on the queue which were not yet delivered, or -1 if the queue doesn't exist
+	 */
+	public int getQueueDepth(String queueName) {
+		InMemoryQueue queue = queues.get(queueName);
+		return queue != null ? queue.getDepth() : -1;
+	}
+
+	/**
+	 * @return the number of messages delivered from the queue which were not yet acknowledged, or -1 if the queue
+	 * doesn't exist
+	 */
+	public int getUnackedMessageCount(String queueName) {
+		InMemoryQueue queue = queues.get(queueName);
+		return queue != null ? queue.getUnackedMessageCount() : -1;
+	}
+
+	public int getMaxUnackedMessagesPerFlow() {
+		return maxUnackedMessagesPerFlow;
+	}
+
+	/**
+	 * Flows stop receiving messages while this many of their messages are unacknowledged.
+	 */
+	public void setMaxUnackedMessagesPerFlow(int maxUnackedMessagesPerFlow) {
+		this.maxUnackedMessagesPerFlow = maxUnackedMessagesPerFlow;
+	}
+
+	InMemoryQueue getQueue(String name) {
+		return queues.get(name);
+	}
+
+	/**
+	 * @return the existing queue of this name, or null if the queue was created
+	 */
+	InMemoryQueue putQueueIfAbsent(InMemoryQueue queue) {
+		return queues.putIfAbsent(queue.getName(), queue);
+	}
+
+	InMemoryQueue removeQueue(String name) {
+		return queues.remove(name);
+	}
+
+	/**
+	 * Spool a message on every queue subscribed to the topic.
+	 */
+	void publishToTopic(XMLMessage message, Topic topic) throws SDTException {
+		List<InMemoryQueue> subscribedQueues = new ArrayList<>();
+		for (InMemoryQueue queue : queues.values()) {
+			if (queue.isSubscribed(topic.getName())) {
+				subscribedQueues.add(queue);
+			}
+		}
+		for (InMemoryQueue queue : subscribedQueues) {
+			queue.enqueue(InMemoryMessages.copy(message), topic);
+		}
+	}
+
+	/**
+	 * Match a topic against a subscription. Within a level, {@code *} matches any suffix of the level, and a trailing
+	 * {@code >} level matches one or more levels.
+	 */
+	static boolean matches(String subscription, String topic) {
+		String[] subscriptionLevels = subscription.split("/", -1);
+		String[] topicLevels = topic.split("/", -1);
+
+		for (int i = 0; i < subscriptionLevels.length; i++) {
+			String level = subscriptionLevels[i];
+			if (level.equals(">") && i == subscriptionLevels.length - 1) {
+				return topicLevels.length > i;
+			}
+			if (i >= topicLevels.length) return false;
+
+			if (level.endsWith("*")) {
+				if (!topicLevels[i].startsWith(level.substring(0, level.length() - 1))) return false;
+			} else if (!level.equals(topicLevels[i])) {
+				return false;
+			}
+		}
+		return subscriptionLevels.length == topicLevels.length;
+	}
+}
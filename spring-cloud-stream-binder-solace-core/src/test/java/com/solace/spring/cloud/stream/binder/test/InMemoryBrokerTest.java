@@ -0,0 +1,203 @@
+package com.solace.spring.cloud.stream.binder.test;
+
+import com.solacesystems.jcsmp.BytesXMLMessage;
+import com.solacesystems.jcsmp.ConsumerFlowProperties;
+import com.solacesystems.jcsmp.DeliveryMode;
+import com.solacesystems.jcsmp.EndpointProperties;
+import com.solacesystems.jcsmp.FlowReceiver;
+import com.solacesystems.jcsmp.JCSMPException;
+import com.solacesystems.jcsmp.JCSMPFactory;
+import com.solacesystems.jcsmp.JCSMPProperties;
+import com.solacesystems.jcsmp.JCSMPSession;
+import com.solacesystems.jcsmp.JCSMPStreamingPublishCorrelatingEventHandler;
+import com.solacesystems.jcsmp.PropertyMismatchException;
+import com.solacesystems.jcsmp.Queue;
+import com.solacesystems.jcsmp.TextMessage;
+import com.solacesystems.jcsmp.XMLMessageListener;
+import com.solacesystems.jcsmp.XMLMessageProducer;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+public class InMemoryBrokerTest {
+	private InMemoryBroker broker;
+	private JCSMPSession session;
+
+	@Before
+	public void setup() throws Exception {
+		broker = new InMemoryBroker();
+		session = broker.createSession();
+		session.connect();
+	}
+
+	@After
+	public void teardown() {
+		session.closeSession();
+	}
+
+	@Test
+	public void testTopicMatching() {
+		Assert.assertTrue(InMemoryBroker.matches("a/b/c", "a/b/c"));
+		Assert.assertFalse(InMemoryBroker.matches("a/b/c", "a/b"));
+		Assert.assertFalse(InMemoryBroker.matches("a/b", "a/b/c"));
+		Assert.assertTrue(InMemoryBroker.matches("a/*/c", "a/xyz/c"));
+		Assert.assertTrue(InMemoryBroker.matches("a/x*/c", "a/xyz/c"));
+		Assert.assertFalse(InMemoryBroker.matches("a/y*/c", "a/xyz/c"));
+		Assert.assertTrue(InMemoryBroker.matches("a/>", "a/b"));
+		Assert.assertTrue(InMemoryBroker.matches("a/>", "a/b/c"));
+		Assert.assertFalse(InMemoryBroker.matches("a/>", "a"));
+	}
+
+	@Test
+	public void testProvisionMismatch() throws Exception {
+		Queue queue = JCSMPFactory.onlyInstance().createQueue("test-queue");
+		EndpointProperties endpointProperties = new EndpointProperties();
+		endpointProperties.setAccessType(EndpointProperties.ACCESSTYPE_EXCLUSIVE);
+		session.provision(queue, endpointProperties, JCSMPSession.FLAG_IGNORE_ALREADY_EXISTS);
+		session.provision(queue, endpointProperties, JCSMPSession.FLAG_IGNORE_ALREADY_EXISTS);
+
+		endpointProperties.setAccessType(EndpointProperties.ACCESSTYPE_NONEXCLUSIVE);
+		try {
+			session.provision(queue, endpointProperties, JCSMPSession.FLAG_IGNORE_ALREADY_EXISTS);
+			Assert.fail("Expected a property mismatch");
+		} catch (PropertyMismatchException e) {
+			// Expected
+		} catch (JCSMPException e) {
+			Assert.assertTrue(e.getMessage(), e.getMessage().contains("access type"));
+		}
+
+		session.deprovision(queue, JCSMPSession.FLAG_IGNORE_DOES_NOT_EXIST);
+		Assert.assertFalse(broker.getQueueNames().contains("test-queue"));
+	}
+
+	@Test
+	public void testClientAckRedeliveredOnClose() throws Exception {
+		Queue queue = provisionSubscribedQueue("test-queue", "orders/>");
+		BlockingQueue<BytesXMLMessage> received = new ArrayBlockingQueue<>(10);
+		FlowReceiver flowReceiver = createFlow(queue, listener(received));
+		flowReceiver.start();
+
+		XMLMessageProducer producer = session.getMessageProducer(new NoopEventHandler());
+		producer.send(createMessage("foo"), JCSMPFactory.onlyInstance().createTopic("orders/ca/abc"));
+		producer.send(createMessage("bar"), JCSMPFactory.onlyInstance().createTopic("invoices/ca/abc"));
+
+		BytesXMLMessage message = received.poll(10, TimeUnit.SECONDS);
+		Assert.assertNotNull(message);
+		Assert.assertEquals("foo", ((TextMessage) message).getText());
+		Assert.assertEquals("orders/ca/abc", message.getDestination().getName());
+		Assert.assertFalse(message.getRedelivered());
+		Assert.assertEquals(1, broker.getUnackedMessageCount("test-queue"));
+
+		flowReceiver.close();
+		Assert.assertEquals(1, broker.getQueueDepth("test-queue"));
+
+		FlowReceiver otherFlowReceiver = createFlow(queue, listener(received));
+		otherFlowReceiver.start();
+		message = received.poll(10, TimeUnit.SECONDS);
+		Assert.assertNotNull(message);
+		Assert.assertTrue(message.getRedelivered());
+		message.ackMessage();
+		Assert.assertEquals(0, broker.getUnackedMessageCount("test-queue"));
+		Assert.assertNull(received.poll(100, TimeUnit.MILLISECONDS));
+	}
+
+	@Test
+	public void testPollingFlow() throws Exception {
+		Queue queue = provisionSubscribedQueue("test-queue", "orders/*");
+		FlowReceiver flowReceiver = createFlow(queue, null);
+		flowReceiver.start();
+		Assert.assertNull(flowReceiver.receive(0));
+
+		XMLMessageProducer producer = session.getMessageProducer(new NoopEventHandler());
+		producer.send(createMessage("foo"), JCSMPFactory.onlyInstance().createTopic("orders/abc"));
+		producer.send(createMessage("bar"), queue);
+
+		Assert.assertEquals("foo", ((TextMessage) flowReceiver.receive(1000)).getText());
+		BytesXMLMessage message = flowReceiver.receive(1000);
+		Assert.assertEquals("bar", ((TextMessage) message).getText());
+		Assert.assertEquals(2, broker.getUnackedMessageCount("test-queue"));
+		message.ackMessage();
+		Assert.assertEquals(1, broker.getUnackedMessageCount("test-queue"));
+	}
+
+	@Test
+	public void testProducerAcknowledgement() throws Exception {
+		BlockingQueue<Object> acknowledged = new ArrayBlockingQueue<>(10);
+		BlockingQueue<Object> rejected = new ArrayBlockingQueue<>(10);
+		XMLMessageProducer producer = session.getMessageProducer(new NoopEventHandler() {
+			@Override
+			public void responseReceivedEx(Object key) {
+				acknowledged.add(key);
+			}
+
+			@Override
+			public void handleErrorEx(Object key, JCSMPException cause, long timestamp) {
+				rejected.add(key);
+			}
+		});
+
+		Queue queue = provisionSubscribedQueue("test-queue", "orders/>");
+		TextMessage message = createMessage("foo");
+		message.setCorrelationKey("key-0");
+		producer.send(message, queue);
+		message.setCorrelationKey("key-1");
+		producer.send(message, JCSMPFactory.onlyInstance().createQueue("missing-queue"));
+
+		Assert.assertEquals("key-0", acknowledged.poll(10, TimeUnit.SECONDS));
+		Assert.assertEquals("key-1", rejected.poll(10, TimeUnit.SECONDS));
+		Assert.assertEquals(1, broker.getQueueDepth("test-queue"));
+	}
+
+	private Queue provisionSubscribedQueue(String queueName, String subscription) throws JCSMPException {
+		Queue queue = JCSMPFactory.onlyInstance().createQueue(queueName);
+		session.provision(queue, new EndpointProperties(), JCSMPSession.FLAG_IGNORE_ALREADY_EXISTS);
+		session.addSubscription(queue, JCSMPFactory.onlyInstance().createTopic(subscription),
+				JCSMPSession.WAIT_FOR_CONFIRM);
+		return queue;
+	}
+
+	private FlowReceiver createFlow(Queue queue, XMLMessageListener listener) throws JCSMPException {
+		ConsumerFlowProperties flowProperties = new ConsumerFlowProperties();
+		flowProperties.setEndpoint(queue);
+		flowProperties.setAckMode(JCSMPProperties.SUPPORTED_MESSAGE_ACK_CLIENT);
+		return session.createFlow(listener, flowProperties);
+	}
+
+	private static TextMessage createMessage(String text) {
+		TextMessage message = JCSMPFactory.onlyInstance().createMessage(TextMessage.class);
+		message.setText(text);
+		message.setDeliveryMode(DeliveryMode.PERSISTENT);
+		return message;
+	}
+
+	private static XMLMessageListener listener(BlockingQueue<BytesXMLMessage> received) {
+		return new XMLMessageListener() {
+			@Override
+			public void onReceive(BytesXMLMessage message) {
+				received.add(message);
+			}
+
+			@Override
+			public void onException(JCSMPException e) {}
+		};
+	}
+
+	private static class NoopEventHandler implements JCSMPStreamingPublishCorrelatingEventHandler {
+		@Override
+		public void responseReceivedEx(Object key) {}
+
+		@Override
+		public void handleErrorEx(Object key, JCSMPException cause, long timestamp) {}
+
+		@Override
+		public void responseReceived(String messageID) {}
+
+		@Override
+		public void handleError(String messageID, JCSMPException cause, long timestamp) {}
+	}
+}
@@ -0,0 +1,180 @@
+package com.solace.spring.cloud.stream.binder.test;
+
+import com.solace.spring.cloud.stream.binder.test.InMemoryQueue.SpooledMessage;
+import com.solacesystems.jcsmp.BytesXMLMessage;
+import com.solacesystems.jcsmp.JCSMPException;
+import com.solacesystems.jcsmp.JCSMPFactory;
+import com.solacesystems.jcsmp.XMLMessageListener;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A consumer flow of {@link InMemoryBroker}, standing in for a {@link com.solacesystems.jcsmp.FlowReceiver}.
+ * <p>A listener flow delivers one message per task on its session's dispatcher, so that the flows of a session take
+ * turns. A flow without a listener is polled through {@code receive}.</p>
+ */
+class InMemoryFlow implements InvocationHandler {
+	private final InMemorySession session;
+	private final InMemoryQueue queue;
+	private final XMLMessageListener listener;
+	private final boolean autoAck;
+	private final Map<Long, SpooledMessage> unackedMessages = new LinkedHashMap<>();
+	private final AtomicBoolean deliveryScheduled = new AtomicBoolean(false);
+	private long nextDeliveryId = 0;
+	private volatile boolean started = false;
+	private volatile boolean closed = false;
+
+	private static final Log logger = LogFactory.getLog(InMemoryFlow.class);
+
+	InMemoryFlow(InMemorySession session, InMemoryQueue queue, XMLMessageListener listener, boolean autoAck) {
+		this.session = session;
+		this.queue = queue;
+		this.listener = listener;
+		this.autoAck = autoAck;
+	}
+
+	@Override
+	public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+		switch (method.getName()) {
+			case "start":
+				started = true;
+				queue.dispatch();
+				return null;
+			case "stop":
+				started = false;
+				return null;
+			case "close":
+				close();
+				return null;
+			case "isClosed":
+				return closed;
+			case "receive":
+				return receive(args == null || args.length == 0 ? Long.MAX_VALUE : ((Number) args[0]).longValue());
+			case "receiveNoWait":
+				return receive(0);
+			case "getEndpoint":
+			case "getDestination":
+				return JCSMPFactory.onlyInstance().createQueue(queue.getName());
+			case "equals":
+				return proxy == args[0];
+			case "hashCode":
+				return System.identityHashCode(proxy);
+			case "toString":
+				return String.format("InMemoryFlow{queue=%s}", queue.getName());
+			default:
+				throw new UnsupportedOperationException(String.format("%s is not supported by %s",
+						method.getName(), InMemoryBroker.class.getSimpleName()));
+		}
+	}
+
+	boolean canReceive() {
+		if (!started || closed) return false;
+		synchronized (unackedMessages) {
+			return unackedMessages.size() < session.getBroker().getMaxUnackedMessagesPerFlow();
+		}
+	}
+
+	void scheduleDelivery() {
+		if (listener != null && started && !closed && deliveryScheduled.compareAndSet(false, true)) {
+			session.dispatch(this::deliverNext);
+		}
+	}
+
+	private void deliverNext() {
+		deliveryScheduled.set(false);
+		SpooledMessage spooledMessage = queue.poll(this);
+		if (spooledMessage == null) return;
+
+		BytesXMLMessage message = track(spooledMessage);
+		try {
+			listener.onReceive(message);
+		} catch (RuntimeException e) {
+			logger.warn(String.format("Listener of queue %s threw an exception", queue.getName()), e);
+		}
+		if (autoAck) {
+			message.ackMessage();
+		}
+
+		if (queue.hasMessages()) {
+			scheduleDelivery();
+		}
+	}
+
+	/**
+	 * Polling flows treat a timeout of 0 as not waiting at all.
+	 */
+	private BytesXMLMessage receive(long timeoutMillis) throws JCSMPException {
+		if (listener != null) {
+			throw InMemoryMessages.exception(JCSMPException.class, "Cannot receive from a flow which has a listener");
+		}
+
+		long deadline = timeoutMillis == Long.MAX_VALUE ? Long.MAX_VALUE : System.currentTimeMillis() + timeoutMillis;
+		SpooledMessage spooledMessage;
+		synchronized (queue) {
+			while ((spooledMessage = queue.poll(this)) == null) {
+				long remaining = deadline - System.currentTimeMillis();
+				if (closed || remaining <= 0) return null;
+				try {
+					queue.wait(remaining);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					return null;
+				}
+			}
+		}
+
+		BytesXMLMessage message = track(spooledMessage);
+		if (autoAck) {
+			message.ackMessage();
+		}
+		return message;
+	}
+
+	private BytesXMLMessage track(SpooledMessage spooledMessage) {
+		long deliveryId;
+		synchronized (unackedMessages) {
+			deliveryId = nextDeliveryId++;
+			unackedMessages.put(deliveryId, spooledMessage);
+		}
+		return InMemoryMessages.deliver(spooledMessage, () -> acknowledge(deliveryId));
+	}
+
+	private void acknowledge(long deliveryId) {
+		boolean wasBlocked;
+		synchronized (unackedMessages) {
+			wasBlocked = unackedMessages.size() >= session.getBroker().getMaxUnackedMessagesPerFlow();
+			if (unackedMessages.remove(deliveryId) == null) return; // Already acknowledged
+		}
+		if (wasBlocked) {
+			queue.dispatch();
+		}
+	}
+
+	int getUnackedMessageCount() {
+		synchronized (unackedMessages) {
+			return unackedMessages.size();
+		}
+	}
+
+	void close() {
+		if (closed) return;
+		closed = true;
+		started = false;
+
+		List<SpooledMessage> unacked;
+		synchronized (unackedMessages) {
+			unacked = new ArrayList<>(unackedMessages.values());
+			unackedMessages.clear();
+		}
+		queue.unbind(this, unacked);
+		session.removeFlow(this);
+	}
+}
@@ -0,0 +1,131 @@
+package com.solace.spring.cloud.stream.binder.test;
+
+import com.solace.spring.cloud.stream.binder.test.InMemoryQueue.SpooledMessage;
+import com.solacesystems.common.util.ByteArray;
+import com.solacesystems.jcsmp.BytesMessage;
+import com.solacesystems.jcsmp.BytesXMLMessage;
+import com.solacesystems.jcsmp.JCSMPException;
+import com.solacesystems.jcsmp.JCSMPFactory;
+import com.solacesystems.jcsmp.MapMessage;
+import com.solacesystems.jcsmp.SDTException;
+import com.solacesystems.jcsmp.SDTMap;
+import com.solacesystems.jcsmp.StreamMessage;
+import com.solacesystems.jcsmp.TextMessage;
+import com.solacesystems.jcsmp.XMLContentMessage;
+import com.solacesystems.jcsmp.XMLMessage;
+import org.springframework.util.ClassUtils;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Proxy;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+final class InMemoryMessages {
+	private InMemoryMessages() {}
+
+	/**
+	 * Copy a message as it is published, since publishers may reuse their messages right after sending them.
+	 */
+	static XMLMessage copy(XMLMessage source) throws SDTException {
+		XMLMessage copy;
+		if (source instanceof BytesMessage) {
+			BytesMessage bytesMessage = JCSMPFactory.onlyInstance().createMessage(BytesMessage.class);
+			byte[] data = ((BytesMessage) source).getData();
+			bytesMessage.setData(data != null ? data.clone() : null);
+			copy = bytesMessage;
+		} else if (source instanceof TextMessage) {
+			TextMessage textMessage = JCSMPFactory.onlyInstance().createMessage(TextMessage.class);
+			textMessage.setText(((TextMessage) source).getText());
+			copy = textMessage;
+		} else if (source instanceof MapMessage) {
+			MapMessage mapMessage = JCSMPFactory.onlyInstance().createMessage(MapMessage.class);
+			mapMessage.setMap(copy(((MapMessage) source).getMap()));
+			copy = mapMessage;
+		} else if (source instanceof StreamMessage) {
+			StreamMessage streamMessage = JCSMPFactory.onlyInstance().createMessage(StreamMessage.class);
+			streamMessage.setStream(((StreamMessage) source).getStream());
+			copy = streamMessage;
+		} else if (source instanceof XMLContentMessage) {
+			XMLContentMessage xmlContentMessage = JCSMPFactory.onlyInstance().createMessage(XMLContentMessage.class);
+			xmlContentMessage.setXMLContent(((XMLContentMessage) source).getXMLContent());
+			copy = xmlContentMessage;
+		} else {
+			throw new UnsupportedOperationException(String.format("Cannot publish a %s", source.getClass().getName()));
+		}
+
+		copy.setProperties(copy(source.getProperties()));
+		copy.setHTTPContentType(source.getHTTPContentType());
+		copy.setHTTPContentEncoding(source.getHTTPContentEncoding());
+		if (source.getDeliveryMode() != null) {
+			copy.setDeliveryMode(source.getDeliveryMode());
+		}
+		copy.setTimeToLive(source.getTimeToLive());
+		copy.setDMQEligible(source.isDMQEligible());
+		copy.setCorrelationId(source.getCorrelationId());
+		copy.setApplicationMessageId(source.getApplicationMessageId());
+		copy.setApplicationMessageType(source.getApplicationMessageType());
+		copy.setPriority(source.getPriority());
+		return copy;
+	}
+
+	private static SDTMap copy(SDTMap source) throws SDTException {
+		if (source == null) return null;
+		SDTMap copy = JCSMPFactory.onlyInstance().createMap();
+		for (String key : source.keySet()) {
+			Object value = source.get(key);
+			copy.putObject(key, value instanceof ByteArray ? ((ByteArray) value).getBuffer() : value);
+		}
+		return copy;
+	}
+
+	/**
+	 * @param acknowledgement what acknowledging the delivered message does
+	 * @return the spooled message as its consumer receives it
+	 */
+	static BytesXMLMessage deliver(SpooledMessage spooledMessage, Runnable acknowledgement) {
+		XMLMessage message = spooledMessage.getMessage();
+		Set<Class<?>> interfaces = new LinkedHashSet<>();
+		for (Class<?> type : ClassUtils.getAllInterfacesForClassAsSet(message.getClass())) {
+			if (Modifier.isPublic(type.getModifiers())) { // A proxy cannot mix in other packages' private interfaces
+				interfaces.add(type);
+			}
+		}
+		interfaces.add(BytesXMLMessage.class);
+
+		return (BytesXMLMessage) Proxy.newProxyInstance(InMemoryMessages.class.getClassLoader(),
+				interfaces.toArray(new Class<?>[0]), (proxy, method, args) -> {
+					switch (method.getName()) {
+						case "ackMessage":
+							acknowledgement.run();
+							return null;
+						case "getRedelivered":
+							return spooledMessage.isRedelivered();
+						case "getDestination":
+							return spooledMessage.getDestination();
+						case "equals":
+							return proxy == args[0];
+						case "hashCode":
+							return System.identityHashCode(proxy);
+						default:
+							try {
+								return method.invoke(message, args);
+							} catch (InvocationTargetException e) {
+								throw e.getCause();
+							}
+					}
+				});
+	}
+
+	/**
+	 * Create a JCSMP exception of the given type, or a plain {@link JCSMPException} if the type cannot be created
+	 * from just a message.
+	 */
+	static JCSMPException exception(Class<? extends JCSMPException> type, String message) {
+		try {
+			return type.getConstructor(String.class).newInstance(message);
+		} catch (ReflectiveOperationException e) {
+			return new JCSMPException(message);
+		}
+	}
+}
@@ -0,0 +1,118 @@
+package com.solace.spring.cloud.stream.binder.test;
+
+import com.solacesystems.jcsmp.ClosedFacilityException;
+import com.solacesystems.jcsmp.DeliveryMode;
+import com.solacesystems.jcsmp.Destination;
+import com.solacesystems.jcsmp.JCSMPException;
+import com.solacesystems.jcsmp.JCSMPSendMultipleEntry;
+import com.solacesystems.jcsmp.JCSMPStreamingPublishCorrelatingEventHandler;
+import com.solacesystems.jcsmp.JCSMPStreamingPublishEventHandler;
+import com.solacesystems.jcsmp.Queue;
+import com.solacesystems.jcsmp.Topic;
+import com.solacesystems.jcsmp.XMLMessage;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+
+/**
+ * A producer of {@link InMemoryBroker}, standing in for a {@link com.solacesystems.jcsmp.XMLMessageProducer}.
+ * <p>Guaranteed messages are acknowledged, or rejected if they were sent to a queue which doesn't exist, through the
+ * producer's event handler on its session's dispatcher thread.</p>
+ */
+class InMemoryProducer implements InvocationHandler {
+	private final InMemorySession session;
+	private final Object eventHandler;
+	private volatile boolean closed = false;
+
+	InMemoryProducer(InMemorySession session, Object eventHandler) {
+		this.session = session;
+		this.eventHandler = eventHandler;
+	}
+
+	@Override
+	public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+		switch (method.getName()) {
+			case "send":
+				if (args.length == 2 && args[1] instanceof Destination) {
+					send((XMLMessage) args[0], (Destination) args[1]);
+					return null;
+				}
+				break;
+			case "sendMultiple":
+				JCSMPSendMultipleEntry[] entries = (JCSMPSendMultipleEntry[]) args[0];
+				int offset = args.length > 1 ? (Integer) args[1] : 0;
+				int length = args.length > 2 ? (Integer) args[2] : entries.length;
+				for (int i = offset; i < offset + length; i++) {
+					send(entries[i].getMessage(), entries[i].getDestination());
+				}
+				return length;
+			case "close":
+				close();
+				return null;
+			case "isClosed":
+				return closed;
+			case "equals":
+				return proxy == args[0];
+			case "hashCode":
+				return System.identityHashCode(proxy);
+			case "toString":
+				return "InMemoryProducer";
+		}
+		throw new UnsupportedOperationException(String.format("%s is not supported by %s",
+				method.getName(), InMemoryBroker.class.getSimpleName()));
+	}
+
+	private void send(XMLMessage message, Destination destination) throws JCSMPException {
+		session.checkOpen();
+		if (closed) {
+			throw InMemoryMessages.exception(ClosedFacilityException.class, "Producer is closed");
+		}
+
+		// Read these before the publisher gets a chance to reuse the message
+		boolean guaranteed = message.getDeliveryMode() != DeliveryMode.DIRECT;
+		Object correlationKey = message.getCorrelationKey();
+		String messageId = message.getMessageId();
+
+		if (destination instanceof Topic) {
+			session.getBroker().publishToTopic(message, (Topic) destination);
+		} else if (destination instanceof Queue) {
+			InMemoryQueue queue = session.getBroker().getQueue(destination.getName());
+			if (queue == null) {
+				if (guaranteed) {
+					JCSMPException e = InMemoryMessages.exception(JCSMPException.class,
+							String.format("Queue %s does not exist", destination.getName()));
+					session.dispatch(() -> reject(correlationKey, messageId, e));
+				}
+				return;
+			}
+			queue.enqueue(InMemoryMessages.copy(message), destination);
+		} else {
+			throw new UnsupportedOperationException(String.format("Cannot publish to %s", destination));
+		}
+
+		if (guaranteed) {
+			session.dispatch(() -> acknowledge(correlationKey, messageId));
+		}
+	}
+
+	private void acknowledge(Object correlationKey, String messageId) {
+		if (eventHandler instanceof JCSMPStreamingPublishCorrelatingEventHandler) {
+			((JCSMPStreamingPublishCorrelatingEventHandler) eventHandler).responseReceivedEx(correlationKey);
+		} else if (eventHandler instanceof JCSMPStreamingPublishEventHandler) {
+			((JCSMPStreamingPublishEventHandler) eventHandler).responseReceived(messageId);
+		}
+	}
+
+	private void reject(Object correlationKey, String messageId, JCSMPException e) {
+		long timestamp = System.currentTimeMillis();
+		if (eventHandler instanceof JCSMPStreamingPublishCorrelatingEventHandler) {
+			((JCSMPStreamingPublishCorrelatingEventHandler) eventHandler).handleErrorEx(correlationKey, e, timestamp);
+		} else if (eventHandler instanceof JCSMPStreamingPublishEventHandler) {
+			((JCSMPStreamingPublishEventHandler) eventHandler).handleError(messageId, e, timestamp);
+		}
+	}
+
+	void close() {
+		closed = true;
+	}
+}
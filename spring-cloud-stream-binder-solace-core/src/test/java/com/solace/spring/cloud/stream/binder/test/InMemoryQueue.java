@@ -0,0 +1,202 @@
+package com.solace.spring.cloud.stream.binder.test;
+
+import com.solacesystems.jcsmp.Destination;
+import com.solacesystems.jcsmp.EndpointProperties;
+import com.solacesystems.jcsmp.XMLMessage;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A queue of {@link InMemoryBroker}. Its monitor guards its messages and flows, and is notified whenever a message may
+ * have become available to a flow.
+ */
+class InMemoryQueue {
+	private final String name;
+	private final boolean durable;
+	private final InMemorySession owner;
+	private final Set<String> subscriptions = ConcurrentHashMap.newKeySet();
+	private final Deque<SpooledMessage> messages = new ArrayDeque<>();
+	private final List<InMemoryFlow> flows = new ArrayList<>();
+	private EndpointProperties endpointProperties;
+	private boolean deleted = false;
+
+	/**
+	 * @param owner the session which created this temporary queue, or null if this queue is durable
+	 */
+	InMemoryQueue(String name, EndpointProperties endpointProperties, InMemorySession owner) {
+		this.name = name;
+		this.endpointProperties = endpointProperties != null ? endpointProperties : new EndpointProperties();
+		this.durable = owner == null;
+		this.owner = owner;
+	}
+
+	String getName() {
+		return name;
+	}
+
+	boolean isDurable() {
+		return durable;
+	}
+
+	InMemorySession getOwner() {
+		return owner;
+	}
+
+	synchronized EndpointProperties getEndpointProperties() {
+		return endpointProperties;
+	}
+
+	/**
+	 * The properties of a temporary queue are given by its first flow.
+	 */
+	synchronized void applyTemporaryEndpointProperties(EndpointProperties endpointProperties) {
+		if (!durable && flows.isEmpty() && endpointProperties != null) {
+			this.endpointProperties = endpointProperties;
+		}
+	}
+
+	void addSubscription(String subscription) {
+		subscriptions.add(subscription);
+	}
+
+	void removeSubscription(String subscription) {
+		subscriptions.remove(subscription);
+	}
+
+	boolean isSubscribed(String topic) {
+		for (String subscription : subscriptions) {
+			if (InMemoryBroker.matches(subscription, topic)) return true;
+		}
+		return false;
+	}
+
+	void enqueue(XMLMessage message, Destination destination) {
+		synchronized (this) {
+			if (deleted) return;
+			messages.addLast(new SpooledMessage(message, destination, false));
+		}
+		dispatch();
+	}
+
+	/**
+	 * Wake up every flow which may now be able to take a message.
+	 */
+	void dispatch() {
+		List<InMemoryFlow> listenerFlows;
+		synchronized (this) {
+			notifyAll();
+			if (messages.isEmpty()) return;
+			listenerFlows = new ArrayList<>(flows);
+		}
+		for (InMemoryFlow flow : listenerFlows) {
+			flow.scheduleDelivery();
+		}
+	}
+
+	/**
+	 * @return the next message for this flow, or null if there is none or the flow may not take any right now
+	 */
+	synchronized SpooledMessage poll(InMemoryFlow flow) {
+		if (messages.isEmpty() || !flow.canReceive()) return null;
+		if (isExclusive() && flows.get(0) != flow) return null;
+		return messages.pollFirst();
+	}
+
+	synchronized boolean hasMessages() {
+		return !messages.isEmpty();
+	}
+
+	synchronized void bind(InMemoryFlow flow) {
+		flows.add(flow);
+	}
+
+	/**
+	 * Unbind a flow and respool the messages which it didn't acknowledge, in their original order.
+	 */
+	void unbind(InMemoryFlow flow, List<SpooledMessage> unackedMessages) {
+		synchronized (this) {
+			flows.remove(flow);
+			if (!deleted) {
+				for (int i = unackedMessages.size() - 1; i >= 0; i--) {
+					SpooledMessage unackedMessage = unackedMessages.get(i);
+					messages.addFirst(new SpooledMessage(unackedMessage.getMessage(), unackedMessage.getDestination(),
+							true));
+				}
+			}
+		}
+		dispatch();
+	}
+
+	synchronized void delete() {
+		deleted = true;
+		messages.clear();
+		notifyAll();
+	}
+
+	synchronized int getDepth() {
+		return messages.size();
+	}
+
+	synchronized int getUnackedMessageCount() {
+		int count = 0;
+		for (InMemoryFlow flow : flows) {
+			count += flow.getUnackedMessageCount();
+		}
+		return count;
+	}
+
+	private boolean isExclusive() {
+		Integer accessType = endpointProperties.getAccessType();
+		return accessType == null || accessType == EndpointProperties.ACCESSTYPE_EXCLUSIVE;
+	}
+
+	/**
+	 * @return a description of the first property which differs between these queue properties and the given ones,
+	 * or null if none of the given properties differ
+	 */
+	synchronized String findMismatch(EndpointProperties other) {
+		if (other == null) return null;
+		if (differs(endpointProperties.getAccessType(), other.getAccessType())) return "access type";
+		if (differs(endpointProperties.getPermission(), other.getPermission())) return "permission";
+		if (differs(endpointProperties.getQuota(), other.getQuota())) return "quota";
+		if (differs(endpointProperties.getMaxMsgSize(), other.getMaxMsgSize())) return "max message size";
+		if (differs(endpointProperties.getMaxMsgRedelivery(), other.getMaxMsgRedelivery())) return "max redelivery";
+		if (differs(endpointProperties.getDiscardBehavior(), other.getDiscardBehavior())) return "discard behaviour";
+		if (differs(endpointProperties.isRespectsMsgTTL(), other.isRespectsMsgTTL())) return "respects TTL";
+		return null;
+	}
+
+	private static boolean differs(Object value, Object otherValue) {
+		return otherValue != null && !Objects.equals(value, otherValue);
+	}
+
+	static class SpooledMessage {
+		private final XMLMessage message;
+		private final Destination destination;
+		private final boolean redelivered;
+
+		SpooledMessage(XMLMessage message, Destination destination, boolean redelivered) {
+			this.message = message;
+			this.destination = destination;
+			this.redelivered = redelivered;
+		}
+
+		XMLMessage getMessage() {
+			return message;
+		}
+
+		Destination getDestination() {
+			return destination;
+		}
+
+		boolean isRedelivered() {
+			return redelivered;
+		}
+	}
+}
@@ -0,0 +1,234 @@
+package com.solace.spring.cloud.stream.binder.test;
+
+import com.solacesystems.jcsmp.ClosedFacilityException;
+import com.solacesystems.jcsmp.ConsumerFlowProperties;
+import com.solacesystems.jcsmp.Endpoint;
+import com.solacesystems.jcsmp.EndpointProperties;
+import com.solacesystems.jcsmp.FlowReceiver;
+import com.solacesystems.jcsmp.JCSMPException;
+import com.solacesystems.jcsmp.JCSMPFactory;
+import com.solacesystems.jcsmp.JCSMPProperties;
+import com.solacesystems.jcsmp.JCSMPSession;
+import com.solacesystems.jcsmp.PropertyMismatchException;
+import com.solacesystems.jcsmp.Queue;
+import com.solacesystems.jcsmp.Subscription;
+import com.solacesystems.jcsmp.XMLMessageListener;
+import com.solacesystems.jcsmp.XMLMessageProducer;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * A session of {@link InMemoryBroker}, standing in for a {@link JCSMPSession}.
+ */
+class InMemorySession implements InvocationHandler {
+	private final InMemoryBroker broker;
+	private final String sessionName;
+	private final Map<String, Object> properties = new ConcurrentHashMap<>();
+	private final List<InMemoryFlow> flows = new CopyOnWriteArrayList<>();
+	private final List<InMemoryProducer> producers = new CopyOnWriteArrayList<>();
+	private final List<InMemoryQueue> temporaryQueues = new CopyOnWriteArrayList<>();
+	private final ExecutorService dispatcher;
+	private volatile boolean closed = false;
+
+	InMemorySession(InMemoryBroker broker, int index) {
+		this.broker = broker;
+		this.sessionName = "in-memory-session-" + index;
+		this.properties.put(JCSMPProperties.CLIENT_NAME, "in-memory-client-" + index);
+		this.dispatcher = Executors.newSingleThreadExecutor(runnable -> {
+			Thread thread = new Thread(runnable, sessionName + "-dispatcher");
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	InMemoryBroker getBroker() {
+		return broker;
+	}
+
+	@Override
+	public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+		switch (method.getName()) {
+			case "getSessionName":
+				return sessionName;
+			case "isClosed":
+				return closed;
+			case "closeSession":
+				close();
+				return null;
+			case "getProperty":
+				return properties.get((String) args[0]);
+			case "setProperty":
+				if (args[1] != null) {
+					properties.put((String) args[0], args[1]);
+				} else {
+					properties.remove((String) args[0]);
+				}
+				return null;
+			case "equals":
+				return proxy == args[0];
+			case "hashCode":
+				return System.identityHashCode(proxy);
+			case "toString":
+				return sessionName;
+		}
+
+		checkOpen();
+		switch (method.getName()) {
+			case "connect":
+				return null;
+			case "provision":
+				provision((Endpoint) args[0], (EndpointProperties) args[1], ((Number) args[2]).longValue());
+				return null;
+			case "deprovision":
+				deprovision((Endpoint) args[0], ((Number) args[1]).longValue());
+				return null;
+			case "createTemporaryQueue":
+				return createTemporaryQueue(args != null && args.length > 0 ? (String) args[0] : null);
+			case "addSubscription":
+				if (args.length == 3 && args[0] instanceof Endpoint) {
+					getQueue((Endpoint) args[0]).addSubscription(((Subscription) args[1]).getName());
+					return null;
+				}
+				break;
+			case "removeSubscription":
+				if (args.length == 3 && args[0] instanceof Endpoint) {
+					getQueue((Endpoint) args[0]).removeSubscription(((Subscription) args[1]).getName());
+					return null;
+				}
+				break;
+			case "getMessageProducer":
+				return createProducer(args[0]);
+			case "createFlow":
+				return createFlow((XMLMessageListener) args[0], (ConsumerFlowProperties) args[1],
+						args.length > 2 ? (EndpointProperties) args[2] : null);
+		}
+		throw new UnsupportedOperationException(String.format("%s is not supported by %s",
+				method.getName(), InMemoryBroker.class.getSimpleName()));
+	}
+
+	private void provision(Endpoint endpoint, EndpointProperties endpointProperties, long flags) throws JCSMPException {
+		if (!(endpoint instanceof Queue)) {
+			throw new UnsupportedOperationException(String.format("Only queues can be provisioned, not %s", endpoint));
+		}
+
+		InMemoryQueue existingQueue = broker.putQueueIfAbsent(new InMemoryQueue(endpoint.getName(),
+				endpointProperties, null));
+		if (existingQueue == null) return;
+
+		if ((flags & JCSMPSession.FLAG_IGNORE_ALREADY_EXISTS) == 0) {
+			throw InMemoryMessages.exception(JCSMPException.class,
+					String.format("Queue %s already exists", endpoint.getName()));
+		}
+
+		String mismatch = existingQueue.findMismatch(endpointProperties);
+		if (mismatch != null) {
+			throw InMemoryMessages.exception(PropertyMismatchException.class,
+					String.format("Queue %s already exists with a different %s", endpoint.getName(), mismatch));
+		}
+	}
+
+	private void deprovision(Endpoint endpoint, long flags) throws JCSMPException {
+		InMemoryQueue queue = broker.removeQueue(endpoint.getName());
+		if (queue != null) {
+			queue.delete();
+		} else if ((flags & JCSMPSession.FLAG_IGNORE_DOES_NOT_EXIST) == 0) {
+			throw InMemoryMessages.exception(JCSMPException.class,
+					String.format("Queue %s does not exist", endpoint.getName()));
+		}
+	}
+
+	private Queue createTemporaryQueue(String name) throws JCSMPException {
+		String queueName = name != null ? name : "#P2P/QTMP/" + sessionName + "/" + UUID.randomUUID();
+		InMemoryQueue queue = new InMemoryQueue(queueName, null, this);
+		if (broker.putQueueIfAbsent(queue) != null) {
+			throw InMemoryMessages.exception(JCSMPException.class, String.format("Queue %s already exists", queueName));
+		}
+		temporaryQueues.add(queue);
+		return JCSMPFactory.onlyInstance().createQueue(queueName);
+	}
+
+	private InMemoryQueue getQueue(Endpoint endpoint) throws JCSMPException {
+		InMemoryQueue queue = broker.getQueue(endpoint.getName());
+		if (queue == null) {
+			throw InMemoryMessages.exception(JCSMPException.class,
+					String.format("Queue %s does not exist", endpoint.getName()));
+		}
+		return queue;
+	}
+
+	private XMLMessageProducer createProducer(Object eventHandler) {
+		InMemoryProducer producer = new InMemoryProducer(this, eventHandler);
+		producers.add(producer);
+		return (XMLMessageProducer) Proxy.newProxyInstance(InMemoryBroker.class.getClassLoader(),
+				new Class<?>[]{XMLMessageProducer.class}, producer);
+	}
+
+	private FlowReceiver createFlow(XMLMessageListener listener, ConsumerFlowProperties flowProperties,
+									EndpointProperties endpointProperties) throws JCSMPException {
+		InMemoryQueue queue = getQueue(flowProperties.getEndpoint());
+		if (!queue.isDurable()) {
+			if (queue.getOwner() != this) {
+				throw InMemoryMessages.exception(JCSMPException.class, String.format(
+						"Temporary queue %s belongs to another session", queue.getName()));
+			}
+			queue.applyTemporaryEndpointProperties(endpointProperties);
+		}
+
+		boolean autoAck = !JCSMPProperties.SUPPORTED_MESSAGE_ACK_CLIENT.equals(flowProperties.getAckMode());
+		InMemoryFlow flow = new InMemoryFlow(this, queue, listener, autoAck);
+		queue.bind(flow);
+		flows.add(flow);
+		return (FlowReceiver) Proxy.newProxyInstance(InMemoryBroker.class.getClassLoader(),
+				new Class<?>[]{FlowReceiver.class}, flow);
+	}
+
+	void removeFlow(InMemoryFlow flow) {
+		flows.remove(flow);
+	}
+
+	/**
+	 * Run a task on this session's dispatcher thread, unless the session is closed.
+	 */
+	void dispatch(Runnable task) {
+		if (closed) return;
+		try {
+			dispatcher.execute(task);
+		} catch (RejectedExecutionException e) {
+			// Closed concurrently
+		}
+	}
+
+	void checkOpen() throws JCSMPException {
+		if (closed) {
+			throw InMemoryMessages.exception(ClosedFacilityException.class,
+					String.format("Session %s is closed", sessionName));
+		}
+	}
+
+	private void close() {
+		if (closed) return;
+		for (InMemoryFlow flow : new ArrayList<>(flows)) {
+			flow.close();
+		}
+		for (InMemoryProducer producer : producers) {
+			producer.close();
+		}
+		for (InMemoryQueue queue : temporaryQueues) {
+			broker.removeQueue(queue.getName());
+			queue.delete();
+		}
+		closed = true;
+		dispatcher.shutdown();
+	}
+}
@@ -0,0 +1,113 @@
+package com.solace.spring.cloud.stream.binder.util;
+
+import com.solacesystems.jcsmp.Destination;
+import com.solacesystems.jcsmp.Queue;
+import com.solacesystems.jcsmp.Topic;
+import org.hamcrest.CoreMatchers;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public class DestinationCacheTest {
+	@Test
+	public void testGetTopic() {
+		DestinationCache destinationCache = new DestinationCache(10);
+
+		Destination topic = destinationCache.getTopic("orders/ca/abc");
+		Assert.assertThat(topic, CoreMatchers.instanceOf(Topic.class));
+		Assert.assertEquals("orders/ca/abc", topic.getName());
+		Assert.assertSame(topic, destinationCache.getTopic("orders/ca/abc"));
+		Assert.assertEquals(1, destinationCache.getHitCount());
+		Assert.assertEquals(1, destinationCache.getMissCount());
+	}
+
+	@Test
+	public void testGetQueue() {
+		DestinationCache destinationCache = new DestinationCache(10);
+
+		Destination queue = destinationCache.getQueue("some-queue");
+		Assert.assertThat(queue, CoreMatchers.instanceOf(Queue.class));
+		Assert.assertEquals("some-queue", queue.getName());
+		Assert.assertThat(destinationCache.getTopic("some-queue"), CoreMatchers.instanceOf(Topic.class));
+		Assert.assertEquals(0, destinationCache.getHitCount());
+		Assert.assertEquals(2, destinationCache.getMissCount());
+	}
+
+	@Test
+	public void testEvictLeastRecentlyUsed() {
+		DestinationCache destinationCache = new DestinationCache(2);
+
+		Destination topic0 = destinationCache.getTopic("t/0");
+		destinationCache.getTopic("t/1");
+		destinationCache.getTopic("t/0");
+		destinationCache.getTopic("t/2"); // Evicts t/1
+
+		Assert.assertEquals(2, destinationCache.size());
+		Assert.assertSame(topic0, destinationCache.getTopic("t/0"));
+		long misses = destinationCache.getMissCount();
+		destinationCache.getTopic("t/1");
+		Assert.assertEquals(misses + 1, destinationCache.getMissCount());
+	}
+
+	@Test
+	public void testTopicsAndQueuesShareBound() {
+		DestinationCache destinationCache = new DestinationCache(2);
+
+		destinationCache.getTopic("a");
+		Destination queue = destinationCache.getQueue("b");
+		destinationCache.getTopic("c"); // Evicts topic a
+
+		Assert.assertEquals(2, destinationCache.size());
+		Assert.assertSame(queue, destinationCache.getQueue("b"));
+		long misses = destinationCache.getMissCount();
+		destinationCache.getTopic("a");
+		Assert.assertEquals(misses + 1, destinationCache.getMissCount());
+	}
+
+	@Test
+	public void testStripedBound() {
+		DestinationCache destinationCache = new DestinationCache(1000);
+
+		for (int i = 0; i < 20000; i++) {
+			destinationCache.getTopic("t/" + i);
+			destinationCache.getQueue("q/" + i);
+		}
+
+		Assert.assertEquals(1000, destinationCache.size());
+		// The most recently used destinations are still cached
+		long misses = destinationCache.getMissCount();
+		destinationCache.getQueue("q/19999");
+		destinationCache.getTopic("t/19999");
+		Assert.assertEquals(misses, destinationCache.getMissCount());
+	}
+
+	@Test
+	public void testConcurrentLookups() throws Exception {
+		DestinationCache destinationCache = new DestinationCache(5);
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			List<Future<?>> futures = new ArrayList<>();
+			for (int t = 0; t < 4; t++) {
+				futures.add(executor.submit(() -> {
+					for (int i = 0; i < 1000; i++) {
+						String name = "t/" + (i % 8);
+						Assert.assertEquals(name, destinationCache.getTopic(name).getName());
+					}
+				}));
+			}
+			for (Future<?> future : futures) {
+				future.get();
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+
+		Assert.assertTrue(destinationCache.size() <= 5);
+		Assert.assertEquals(4000, destinationCache.getHitCount() + destinationCache.getMissCount());
+	}
+}
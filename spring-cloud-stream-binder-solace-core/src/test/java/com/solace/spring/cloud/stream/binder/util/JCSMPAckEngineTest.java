@@ -0,0 +1,158 @@
+package com.solace.spring.cloud.stream.binder.util;
+
+import com.solace.spring.cloud.stream.binder.test.InMemoryBroker;
+import com.solacesystems.jcsmp.BytesXMLMessage;
+import com.solacesystems.jcsmp.ConsumerFlowProperties;
+import com.solacesystems.jcsmp.DeliveryMode;
+import com.solacesystems.jcsmp.EndpointProperties;
+import com.solacesystems.jcsmp.FlowReceiver;
+import com.solacesystems.jcsmp.JCSMPFactory;
+import com.solacesystems.jcsmp.JCSMPProperties;
+import com.solacesystems.jcsmp.JCSMPSession;
+import com.solacesystems.jcsmp.JCSMPStreamingPublishEventHandler;
+import com.solacesystems.jcsmp.Queue;
+import com.solacesystems.jcsmp.TextMessage;
+import com.solacesystems.jcsmp.XMLMessage;
+import com.solacesystems.jcsmp.XMLMessageListener;
+import com.solacesystems.jcsmp.XMLMessageProducer;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+public class JCSMPAckEngineTest {
+	private static final String QUEUE = "test-ack-engine";
+
+	private InMemoryBroker broker;
+	private JCSMPSession session;
+	private FlowReceiver flowReceiver;
+
+	@Before
+	public void setup() throws Exception {
+		broker = new InMemoryBroker();
+		session = broker.createSession();
+		session.connect();
+
+		Queue queue = JCSMPFactory.onlyInstance().createQueue(QUEUE);
+		session.provision(queue, new EndpointProperties(), JCSMPSession.FLAG_IGNORE_ALREADY_EXISTS);
+		ConsumerFlowProperties flowProperties = new ConsumerFlowProperties();
+		flowProperties.setEndpoint(queue);
+		flowProperties.setAckMode(JCSMPProperties.SUPPORTED_MESSAGE_ACK_CLIENT);
+		flowReceiver = session.createFlow((XMLMessageListener) null, flowProperties);
+		flowReceiver.start();
+
+		XMLMessageProducer producer = session.getMessageProducer((JCSMPStreamingPublishEventHandler) null);
+		for (int i = 0; i < 20; i++) {
+			TextMessage message = JCSMPFactory.onlyInstance().createMessage(TextMessage.class);
+			message.setText("message-" + i);
+			message.setDeliveryMode(DeliveryMode.PERSISTENT);
+			producer.send(message, queue);
+		}
+		producer.close();
+	}
+
+	@After
+	public void teardown() {
+		flowReceiver.close();
+		session.closeSession();
+	}
+
+	@Test
+	public void testAcknowledgedInBursts() throws Exception {
+		MeterRegistry registry = new SimpleMeterRegistry();
+		JCSMPAckEngine ackEngine = new JCSMPAckEngine("test", 8,
+				new MicrometerSolaceBinderMetrics(registry).consumer("input", QUEUE));
+		ackEngine.start();
+
+		for (int i = 0; i < 20; i++) {
+			BytesXMLMessage message = flowReceiver.receive(1000);
+			Assert.assertNotNull(message);
+			ackEngine.ack(message);
+		}
+
+		long deadline = System.currentTimeMillis() + 10000;
+		while (broker.getUnackedMessageCount(QUEUE) > 0 && System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
+		Assert.assertEquals(0, broker.getUnackedMessageCount(QUEUE));
+		Assert.assertEquals(0, ackEngine.getBacklog());
+		Assert.assertEquals(20, registry.timer(MicrometerSolaceBinderMetrics.PREFIX + "consumer.ack.latency",
+				"queue", QUEUE).count());
+		Assert.assertTrue(ackEngine.stop(1000));
+	}
+
+	@Test
+	public void testStopSendsQueuedAcknowledgements() throws Exception {
+		JCSMPAckEngine ackEngine = new JCSMPAckEngine("test", 100, SolaceBinderMetrics.ConsumerMetrics.NOOP);
+		ackEngine.start();
+		for (int i = 0; i < 20; i++) {
+			ackEngine.ack(flowReceiver.receive(1000));
+		}
+
+		Assert.assertTrue(ackEngine.stop(10000));
+		Assert.assertEquals(0, broker.getUnackedMessageCount(QUEUE));
+	}
+
+	@Test
+	public void testAckInlineOnceStopped() throws Exception {
+		JCSMPAckEngine ackEngine = new JCSMPAckEngine("test", 100, SolaceBinderMetrics.ConsumerMetrics.NOOP);
+		ackEngine.start();
+		Assert.assertTrue(ackEngine.stop(1000));
+
+		XMLMessage message = Mockito.mock(XMLMessage.class);
+		ackEngine.ack(message);
+		Mockito.verify(message).ackMessage();
+		Assert.assertEquals(0, ackEngine.getBacklog());
+	}
+
+	@Test
+	public void testStopTimeoutClearsBacklog() throws Exception {
+		MeterRegistry registry = new SimpleMeterRegistry();
+		JCSMPAckEngine ackEngine = new JCSMPAckEngine("test", 1,
+				new MicrometerSolaceBinderMetrics(registry).consumer("input", QUEUE));
+		ackEngine.start();
+
+		CountDownLatch acking = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		XMLMessage blockingMessage = Mockito.mock(XMLMessage.class);
+		Mockito.doAnswer(invocation -> {
+			acking.countDown();
+			// Sending an acknowledgement isn't interruptible
+			while (true) {
+				try {
+					release.await(10, TimeUnit.SECONDS);
+					return null;
+				} catch (InterruptedException e) {
+					// Keep waiting
+				}
+			}
+		}).when(blockingMessage).ackMessage();
+		ackEngine.ack(blockingMessage);
+		Assert.assertTrue(acking.await(10, TimeUnit.SECONDS));
+		for (int i = 0; i < 5; i++) {
+			ackEngine.ack(Mockito.mock(XMLMessage.class));
+		}
+
+		Assert.assertFalse(ackEngine.stop(100));
+		Assert.assertEquals(0, ackEngine.getBacklog());
+
+		// Only the acknowledgement which was being sent is still counted, until it's sent
+		release.countDown();
+		long deadline = System.currentTimeMillis() + 10000;
+		while (ackBacklog(registry) > 0 && System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
+		Assert.assertEquals(0, ackBacklog(registry), 0);
+	}
+
+	private static double ackBacklog(MeterRegistry registry) {
+		return registry.find(MicrometerSolaceBinderMetrics.PREFIX + "consumer.ack.backlog").tags("queue", QUEUE)
+				.gauge().value();
+	}
+}
@@ -0,0 +1,88 @@
+package com.solace.spring.cloud.stream.binder.util;
+
+import com.solace.spring.cloud.stream.binder.test.InMemoryBroker;
+import com.solacesystems.jcsmp.JCSMPException;
+import com.solacesystems.jcsmp.JCSMPSession;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class JCSMPSessionPoolTest {
+	private InMemoryBroker broker;
+
+	@Before
+	public void setup() {
+		broker = new InMemoryBroker();
+	}
+
+	@Test
+	public void testPoolSizing() throws Exception {
+		JCSMPSessionPool sessionPool = JCSMPSessionPool.connect(3, JCSMPSessionPool.AssignmentStrategy.ROUND_ROBIN,
+				(index, contexts) -> broker.createSession());
+		Assert.assertEquals(3, sessionPool.getSessions().size());
+		Assert.assertSame(sessionPool.getSessions().get(0), sessionPool.getDefaultSession());
+		sessionPool.close();
+
+		sessionPool = JCSMPSessionPool.connect(0, JCSMPSessionPool.AssignmentStrategy.ROUND_ROBIN,
+				(index, contexts) -> broker.createSession());
+		Assert.assertEquals(1, sessionPool.getSessions().size());
+		sessionPool.close();
+	}
+
+	@Test
+	public void testRoundRobinAssignment() throws Exception {
+		JCSMPSessionPool sessionPool = JCSMPSessionPool.connect(3, JCSMPSessionPool.AssignmentStrategy.ROUND_ROBIN,
+				(index, contexts) -> broker.createSession());
+		List<JCSMPSession> sessions = sessionPool.getSessions();
+
+		Assert.assertSame(sessions.get(0), sessionPool.getSession("a", JCSMPSessionPool.Role.PRODUCER));
+		Assert.assertSame(sessions.get(1), sessionPool.getSession("b", JCSMPSessionPool.Role.CONSUMER));
+		Assert.assertSame(sessions.get(2), sessionPool.getSession("c", JCSMPSessionPool.Role.PRODUCER));
+		Assert.assertSame(sessions.get(0), sessionPool.getSession("d", JCSMPSessionPool.Role.PRODUCER));
+
+		// Assignments are sticky
+		Assert.assertSame(sessions.get(1), sessionPool.getSession("b", JCSMPSessionPool.Role.CONSUMER));
+		Assert.assertSame(sessions.get(0), sessionPool.getSession("a", JCSMPSessionPool.Role.PRODUCER));
+		sessionPool.close();
+	}
+
+	@Test
+	public void testDedicatedAssignment() throws Exception {
+		JCSMPSessionPool sessionPool = JCSMPSessionPool.connect(4, JCSMPSessionPool.AssignmentStrategy.DEDICATED,
+				(index, contexts) -> broker.createSession());
+		List<JCSMPSession> sessions = sessionPool.getSessions();
+
+		Assert.assertSame(sessions.get(0), sessionPool.getSession("a", JCSMPSessionPool.Role.PRODUCER));
+		Assert.assertSame(sessions.get(1), sessionPool.getSession("b", JCSMPSessionPool.Role.PRODUCER));
+		Assert.assertSame(sessions.get(0), sessionPool.getSession("c", JCSMPSessionPool.Role.PRODUCER));
+		Assert.assertSame(sessions.get(2), sessionPool.getSession("a", JCSMPSessionPool.Role.CONSUMER));
+		Assert.assertSame(sessions.get(3), sessionPool.getSession("b", JCSMPSessionPool.Role.CONSUMER));
+		sessionPool.close();
+	}
+
+	@Test
+	public void testCloseSessionsAfterFailure() {
+		List<JCSMPSession> created = new ArrayList<>();
+		try {
+			JCSMPSessionPool.connect(4, JCSMPSessionPool.AssignmentStrategy.ROUND_ROBIN, (index, contexts) -> {
+				if (index == 2) {
+					throw new JCSMPException("Test failure");
+				}
+				JCSMPSession session = broker.createSession();
+				created.add(session);
+				return session;
+			});
+			Assert.fail("Expected the pool to fail to connect");
+		} catch (JCSMPException e) {
+			Assert.assertEquals("Test failure", e.getMessage());
+		}
+
+		Assert.assertEquals(2, created.size());
+		for (JCSMPSession session : created) {
+			Assert.assertTrue(session.isClosed());
+		}
+	}
+}
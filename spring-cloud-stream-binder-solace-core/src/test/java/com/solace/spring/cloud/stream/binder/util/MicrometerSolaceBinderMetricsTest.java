@@ -0,0 +1,158 @@
+package com.solace.spring.cloud.stream.binder.util;
+
+import com.solace.spring.cloud.stream.binder.messaging.SolaceBinderHeaders;
+import com.solace.spring.cloud.stream.binder.outbound.JCSMPOutboundMessageHandler;
+import com.solace.spring.cloud.stream.binder.properties.SolaceProducerProperties;
+import com.solace.spring.cloud.stream.binder.test.InMemoryBroker;
+import com.solacesystems.jcsmp.JCSMPSession;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.cloud.stream.binder.ExtendedProducerProperties;
+import org.springframework.cloud.stream.provisioning.ProducerDestination;
+import org.springframework.integration.support.MessageBuilder;
+
+public class MicrometerSolaceBinderMetricsTest {
+	private static final String BINDING = "output";
+	private static final String TOPIC = "test/metrics";
+
+	private MeterRegistry registry;
+	private JCSMPSession session;
+	private JCSMPOutboundMessageHandler messageHandler;
+
+	@Before
+	public void setup() throws Exception {
+		registry = new SimpleMeterRegistry();
+		session = new InMemoryBroker().createSession();
+		session.connect();
+
+		messageHandler = new JCSMPOutboundMessageHandler(new ProducerDestination() {
+			@Override
+			public String getName() {
+				return TOPIC;
+			}
+
+			@Override
+			public String getNameForPartition(int partition) {
+				return TOPIC;
+			}
+		}, session, null, new ExtendedProducerProperties<>(new SolaceProducerProperties()),
+				new JCSMPSessionProducerManager(session));
+		messageHandler.setMetrics(new MicrometerSolaceBinderMetrics(registry), BINDING);
+		messageHandler.start();
+	}
+
+	@After
+	public void teardown() {
+		messageHandler.stop();
+		session.closeSession();
+	}
+
+	@Test
+	public void testPublished() {
+		messageHandler.handleMessage(MessageBuilder.withPayload("foo").build());
+		messageHandler.handleMessage(MessageBuilder.withPayload("bar").build());
+
+		Assert.assertEquals(2, count("producer.published"), 0);
+		Assert.assertEquals(2, registry.timer(MicrometerSolaceBinderMetrics.PREFIX + "producer.mapping",
+				"binding", BINDING, "topic", TOPIC).count());
+	}
+
+	@Test
+	public void testNacked() throws Exception {
+		messageHandler.handleMessage(MessageBuilder.withPayload("foo")
+				.setHeader(SolaceBinderHeaders.TARGET_DESTINATION, "missing-queue")
+				.setHeader(SolaceBinderHeaders.TARGET_DESTINATION_TYPE, "queue")
+				.build());
+
+		long deadline = System.currentTimeMillis() + 10000;
+		while (count("producer.nacks") < 1 && System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
+		Assert.assertEquals(1, count("producer.nacks"), 0);
+	}
+
+	@Test
+	public void testInFlightWindow() throws Exception {
+		PublisherInFlightWindow inFlightWindow = new PublisherInFlightWindow("test", 1, 0,
+				PublisherInFlightWindow.Policy.FAIL_FAST, 0);
+		new MicrometerSolaceBinderMetrics(registry).producer(BINDING, TOPIC).bindInFlightWindow(inFlightWindow);
+
+		inFlightWindow.acquire(new ErrorChannelSendingCorrelationKey(MessageBuilder.withPayload("foo").build(),
+				null, null, null), 10);
+		try {
+			inFlightWindow.acquire(new ErrorChannelSendingCorrelationKey(MessageBuilder.withPayload("bar").build(),
+					null, null, null), 10);
+			Assert.fail("Expected the in-flight window to be full");
+		} catch (PublisherWindowFullException e) {
+			// Expected
+		}
+
+		Assert.assertEquals(1, registry.find(MicrometerSolaceBinderMetrics.PREFIX + "producer.inflight.messages")
+				.tags("topic", TOPIC).gauge().value(), 0);
+		Assert.assertEquals(10, registry.find(MicrometerSolaceBinderMetrics.PREFIX + "producer.inflight.bytes")
+				.tags("topic", TOPIC).gauge().value(), 0);
+		Assert.assertEquals(1, registry.find(MicrometerSolaceBinderMetrics.PREFIX + "producer.inflight.rejected")
+				.tags("topic", TOPIC).functionCounter().count(), 0);
+		Assert.assertEquals(1, registry.find(MicrometerSolaceBinderMetrics.PREFIX +
+				"producer.inflight.utilization.messages").tags("topic", TOPIC).gauge().value(), 0);
+		Assert.assertEquals(0, registry.find(MicrometerSolaceBinderMetrics.PREFIX +
+				"producer.inflight.utilization.bytes").tags("topic", TOPIC).gauge().value(), 0);
+	}
+
+	@Test
+	public void testHeaderFilter() {
+		HeaderPropagationFilter headerFilter = new HeaderPropagationFilter(new String[0], new String[]{"internal-*"});
+		new MicrometerSolaceBinderMetrics(registry).producer(BINDING, TOPIC).bindHeaderFilter(headerFilter);
+
+		Assert.assertTrue(headerFilter.isPropagated("app", "foo"));
+		Assert.assertFalse(headerFilter.isPropagated("internal-a", "foo"));
+
+		Assert.assertEquals(1, registry.find(MicrometerSolaceBinderMetrics.PREFIX + "producer.headers.filtered")
+				.tags("topic", TOPIC).functionCounter().count(), 0);
+		Assert.assertEquals(headerFilter.getFilteredHeaderBytes(),
+				registry.find(MicrometerSolaceBinderMetrics.PREFIX + "producer.headers.filtered.bytes")
+						.tags("topic", TOPIC).functionCounter().count(), 0);
+	}
+
+	@Test
+	public void testDestinationCache() {
+		DestinationCache destinationCache = new DestinationCache(10);
+		new MicrometerSolaceBinderMetrics(registry).producer(BINDING, TOPIC).bindDestinationCache(destinationCache);
+
+		destinationCache.getTopic("a");
+		destinationCache.getTopic("a");
+		destinationCache.getQueue("b");
+
+		Assert.assertEquals(1, registry.find(MicrometerSolaceBinderMetrics.PREFIX + "producer.destination.cache.hits")
+				.tags("topic", TOPIC).functionCounter().count(), 0);
+		Assert.assertEquals(2, registry.find(MicrometerSolaceBinderMetrics.PREFIX + "producer.destination.cache.misses")
+				.tags("topic", TOPIC).functionCounter().count(), 0);
+		Assert.assertEquals(2, registry.find(MicrometerSolaceBinderMetrics.PREFIX + "producer.destination.cache.size")
+				.tags("topic", TOPIC).gauge().value(), 0);
+	}
+
+	@Test
+	public void testBindingsOfSameTopic() {
+		MicrometerSolaceBinderMetrics binderMetrics = new MicrometerSolaceBinderMetrics(registry);
+		Assert.assertSame(binderMetrics.producer(BINDING, TOPIC), binderMetrics.producer(BINDING, TOPIC));
+
+		DestinationCache destinationCache = new DestinationCache(10);
+		DestinationCache otherDestinationCache = new DestinationCache(10);
+		binderMetrics.producer(BINDING, TOPIC).bindDestinationCache(destinationCache);
+		binderMetrics.producer("other-output", TOPIC).bindDestinationCache(otherDestinationCache);
+		otherDestinationCache.getTopic("a");
+
+		Assert.assertEquals(0, registry.find(MicrometerSolaceBinderMetrics.PREFIX + "producer.destination.cache.size")
+				.tags("binding", BINDING, "topic", TOPIC).gauge().value(), 0);
+		Assert.assertEquals(1, registry.find(MicrometerSolaceBinderMetrics.PREFIX + "producer.destination.cache.size")
+				.tags("binding", "other-output", "topic", TOPIC).gauge().value(), 0);
+	}
+
+	private double count(String name) {
+		return registry.counter(MicrometerSolaceBinderMetrics.PREFIX + name, "binding", BINDING, "topic", TOPIC).count();
+	}
+}
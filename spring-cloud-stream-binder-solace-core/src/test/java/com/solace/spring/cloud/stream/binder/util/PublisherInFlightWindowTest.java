@@ -0,0 +1,125 @@
+package com.solace.spring.cloud.stream.binder.util;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.springframework.integration.support.MessageBuilder;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+public class PublisherInFlightWindowTest {
+	@Test
+	public void testReleaseOnConfirm() throws Exception {
+		PublisherInFlightWindow window = new PublisherInFlightWindow("test", 2, 0,
+				PublisherInFlightWindow.Policy.FAIL_FAST, 0);
+
+		ErrorChannelSendingCorrelationKey key0 = createKey();
+		ErrorChannelSendingCorrelationKey key1 = createKey();
+		window.acquire(key0, 10);
+		window.acquire(key1, 20);
+		Assert.assertEquals(2, window.getInFlightMessages());
+		Assert.assertEquals(30, window.getInFlightBytes());
+		Assert.assertEquals(1.0, window.getMessageUtilization(), 0);
+
+		key0.confirm();
+		key0.confirm(); // Releasing twice has no effect
+		Assert.assertEquals(1, window.getInFlightMessages());
+		Assert.assertEquals(20, window.getInFlightBytes());
+
+		key1.send("test failure", new RuntimeException("test"));
+		Assert.assertEquals(0, window.getInFlightMessages());
+		Assert.assertEquals(0, window.getInFlightBytes());
+	}
+
+	@Test
+	public void testFailFast() throws Exception {
+		PublisherInFlightWindow window = new PublisherInFlightWindow("test", 1, 0,
+				PublisherInFlightWindow.Policy.FAIL_FAST, 0);
+
+		window.acquire(createKey(), 10);
+		try {
+			window.acquire(createKey(), 10);
+			Assert.fail("Expected the window to be full");
+		} catch (PublisherWindowFullException e) {
+			Assert.assertEquals(1, window.getRejectedCount());
+			Assert.assertEquals(1, window.getInFlightMessages());
+		}
+	}
+
+	@Test
+	public void testByteLimit() throws Exception {
+		PublisherInFlightWindow window = new PublisherInFlightWindow("test", 0, 100,
+				PublisherInFlightWindow.Policy.FAIL_FAST, 0);
+
+		window.acquire(createKey(), 1000); // Oversized messages are admitted into an empty window
+		try {
+			window.acquire(createKey(), 1);
+			Assert.fail("Expected the window to be full");
+		} catch (PublisherWindowFullException e) {
+			Assert.assertEquals(10.0, window.getByteUtilization(), 0);
+		}
+	}
+
+	@Test
+	public void testBlock() throws Exception {
+		PublisherInFlightWindow window = new PublisherInFlightWindow("test", 1, 0,
+				PublisherInFlightWindow.Policy.BLOCK, 5000);
+
+		ErrorChannelSendingCorrelationKey key0 = createKey();
+		window.acquire(key0, 10);
+
+		CompletableFuture<Void> blocked = CompletableFuture.runAsync(() -> {
+			try {
+				window.acquire(createKey(), 10);
+			} catch (InterruptedException e) {
+				throw new RuntimeException(e);
+			}
+		});
+
+		Thread.sleep(100);
+		Assert.assertFalse(blocked.isDone());
+		key0.confirm();
+		blocked.get(5, TimeUnit.SECONDS);
+		Assert.assertEquals(1, window.getInFlightMessages());
+	}
+
+	@Test(expected = PublisherWindowFullException.class)
+	public void testBlockTimeout() throws Exception {
+		PublisherInFlightWindow window = new PublisherInFlightWindow("test", 1, 0,
+				PublisherInFlightWindow.Policy.BLOCK, 50);
+
+		window.acquire(createKey(), 10);
+		window.acquire(createKey(), 10);
+	}
+
+	@Test
+	public void testDropOldest() throws Exception {
+		PublisherInFlightWindow window = new PublisherInFlightWindow("test", 2, 0,
+				PublisherInFlightWindow.Policy.DROP_OLDEST, 0);
+
+		ErrorChannelSendingCorrelationKey key0 = createKey();
+		ErrorChannelSendingCorrelationKey key1 = createKey();
+		window.acquire(key0, 10);
+		window.acquire(key1, 10);
+		window.acquire(createKey(), 10);
+
+		Assert.assertEquals(2, window.getInFlightMessages());
+		Assert.assertEquals(1, window.getDroppedCount());
+		Assert.assertTrue(key0.getConfirmation().isCompletedExceptionally());
+		try {
+			key0.getConfirmation().get();
+		} catch (ExecutionException e) {
+			Assert.assertTrue(e.getCause().getCause() instanceof PublisherWindowFullException);
+		}
+		Assert.assertFalse(key1.getConfirmation().isDone());
+
+		key0.confirm(); // A late acknowledgement for a dropped message must not release anything else
+		Assert.assertEquals(2, window.getInFlightMessages());
+	}
+
+	private ErrorChannelSendingCorrelationKey createKey() {
+		return new ErrorChannelSendingCorrelationKey(MessageBuilder.withPayload("test").build(), null, null,
+				new CompletableFuture<>());
+	}
+}
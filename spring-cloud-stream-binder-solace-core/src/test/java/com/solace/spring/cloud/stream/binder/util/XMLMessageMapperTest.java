@@ -1,7 +1,10 @@
 package com.solace.spring.cloud.stream.binder.util;
 
+import com.solace.spring.cloud.stream.binder.messaging.SolaceBinderHeaders;
 import com.solace.spring.cloud.stream.binder.properties.SolaceConsumerProperties;
 import com.solace.spring.cloud.stream.binder.properties.SolaceProducerProperties;
+import com.solace.spring.cloud.stream.binder.serialization.CompactPayloadSerializer;
+import com.solace.spring.cloud.stream.binder.serialization.PayloadSerializers;
 import com.solacesystems.jcsmp.BytesMessage;
 import com.solacesystems.jcsmp.DeliveryMode;
 import com.solacesystems.jcsmp.JCSMPFactory;
@@ -17,6 +20,7 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.hamcrest.CoreMatchers;
 import org.junit.Assert;
+import org.junit.Assume;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.Mockito;
@@ -24,20 +28,33 @@ import org.mockito.MockitoAnnotations;
 import org.mockito.Spy;
 import org.springframework.integration.support.AcknowledgmentCallback;
 import org.springframework.integration.support.DefaultMessageBuilderFactory;
+import org.springframework.integration.support.MessageBuilder;
 import org.springframework.integration.support.StaticMessageHeaderAccessor;
 import org.springframework.messaging.Message;
 import org.springframework.messaging.MessageHeaders;
+import org.springframework.util.MimeType;
 import org.springframework.util.MimeTypeUtils;
 import org.springframework.util.SerializationUtils;
 
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.DataFormatException;
 
 public class XMLMessageMapperTest {
 	@Spy
+	// Bytes which mapping a message with a 256 byte payload and 12 headers into a reused message may allocate
+	private static final long REUSABLE_MAPPING_ALLOCATION_BUDGET = 2048;
+
 	private XMLMessageMapper xmlMessageMapper = new XMLMessageMapper();
 
 	@Before
@@ -63,6 +80,32 @@ public class XMLMessageMapperTest {
 		validateXMLMessage(xmlMessage, testSpringMessage);
 	}
 
+	@Test
+	public void testMapSpringMessageToXMLMessage_ByteBuffer() throws Exception {
+		byte[] testPayload = "testPayload".getBytes(StandardCharsets.UTF_8);
+		ByteBuffer heapBuffer = ByteBuffer.wrap(testPayload);
+		ByteBuffer slicedBuffer = ByteBuffer.wrap("xxtestPayloadxx".getBytes(StandardCharsets.UTF_8), 2, testPayload.length);
+		ByteBuffer directBuffer = ByteBuffer.allocateDirect(testPayload.length);
+		directBuffer.put(testPayload).flip();
+
+		for (ByteBuffer buffer : Arrays.asList(heapBuffer, slicedBuffer.slice(), slicedBuffer, directBuffer,
+				heapBuffer.asReadOnlyBuffer())) {
+			int position = buffer.position();
+			Message<?> testSpringMessage = new DefaultMessageBuilderFactory()
+					.withPayload(buffer)
+					.setHeader(MessageHeaders.CONTENT_TYPE, MimeTypeUtils.APPLICATION_OCTET_STREAM_VALUE)
+					.build();
+
+			XMLMessage xmlMessage = xmlMessageMapper.map(testSpringMessage);
+
+			Assert.assertThat(xmlMessage, CoreMatchers.instanceOf(BytesMessage.class));
+			Assert.assertArrayEquals(testPayload, ((BytesMessage) xmlMessage).getData());
+			Assert.assertEquals(position, buffer.position());
+			Assert.assertEquals(DeliveryMode.PERSISTENT, xmlMessage.getDeliveryMode());
+			Assert.assertEquals(MimeTypeUtils.APPLICATION_OCTET_STREAM_VALUE, xmlMessage.getHTTPContentType());
+		}
+	}
+
 	@Test
 	public void testMapSpringMessageToXMLMessage_String() throws Exception {
 		Message<?> testSpringMessage = new DefaultMessageBuilderFactory()
@@ -153,7 +196,7 @@ public class XMLMessageMapperTest {
 		Message<?> testSpringMessage = new DefaultMessageBuilderFactory().withPayload(testPayload).build();
 
 		XMLMessage xmlMessage = xmlMessageMapper.map(testSpringMessage, new SolaceProducerProperties());
-		Mockito.verify(xmlMessageMapper).map(testSpringMessage);
+		Mockito.verify(xmlMessageMapper).map(testSpringMessage, PayloadSerializers.getDefault());
 
 		Assert.assertFalse(xmlMessage.isDMQEligible());
 		Assert.assertEquals(0, xmlMessage.getTimeToLive());
@@ -168,12 +211,405 @@ public class XMLMessageMapperTest {
 		producerProperties.setMsgTtl(100L);
 
 		XMLMessage xmlMessage1 = xmlMessageMapper.map(testSpringMessage, producerProperties);
-		Mockito.verify(xmlMessageMapper).map(testSpringMessage);
+		Mockito.verify(xmlMessageMapper).map(testSpringMessage, PayloadSerializers.getDefault());
 
 		Assert.assertTrue(xmlMessage1.isDMQEligible());
 		Assert.assertEquals(producerProperties.getMsgTtl().longValue(), xmlMessage1.getTimeToLive());
 	}
 
+	@Test
+	public void testMapProducerSpringMessageToXMLMessage_WithDeliveryMode() {
+		Message<?> testSpringMessage = new DefaultMessageBuilderFactory().withPayload("testPayload").build();
+		SolaceProducerProperties producerProperties = new SolaceProducerProperties();
+		producerProperties.setDeliveryMode(DeliveryMode.DIRECT);
+
+		XMLMessage xmlMessage = xmlMessageMapper.map(testSpringMessage, producerProperties);
+
+		Assert.assertEquals(DeliveryMode.DIRECT, xmlMessage.getDeliveryMode());
+	}
+
+	@Test
+	public void testMapProducerSpringMessageToXMLMessage_WithDeliveryModeHeader() throws Exception {
+		SolaceProducerProperties producerProperties = new SolaceProducerProperties();
+		producerProperties.setDeliveryMode(DeliveryMode.DIRECT);
+
+		for (Object deliveryMode : new Object[]{DeliveryMode.NON_PERSISTENT, DeliveryMode.NON_PERSISTENT.name()}) {
+			Message<?> testSpringMessage = new DefaultMessageBuilderFactory()
+					.withPayload("testPayload")
+					.setHeader(SolaceBinderHeaders.DELIVERY_MODE, deliveryMode)
+					.build();
+
+			XMLMessage xmlMessage = xmlMessageMapper.map(testSpringMessage, producerProperties);
+
+			Assert.assertEquals(DeliveryMode.NON_PERSISTENT, xmlMessage.getDeliveryMode());
+			Assert.assertThat(xmlMessage.getProperties().keySet(),
+					CoreMatchers.not(CoreMatchers.hasItem(SolaceBinderHeaders.DELIVERY_MODE)));
+		}
+	}
+
+	@Test(expected = SolaceMessageConversionException.class)
+	public void testFailMapProducerSpringMessageToXMLMessage_InvalidDeliveryModeHeader() {
+		Message<?> testSpringMessage = new DefaultMessageBuilderFactory()
+				.withPayload("testPayload")
+				.setHeader(SolaceBinderHeaders.DELIVERY_MODE, "SOMETIMES")
+				.build();
+		xmlMessageMapper.map(testSpringMessage, new SolaceProducerProperties());
+	}
+
+	@Test
+	public void testMapProducerSpringMessageToXMLMessage_CompressByteArray() throws Exception {
+		byte[] testPayload = createCompressiblePayload().getBytes(StandardCharsets.UTF_8);
+		Message<?> testSpringMessage = new DefaultMessageBuilderFactory()
+				.withPayload(testPayload)
+				.setHeader(MessageHeaders.CONTENT_TYPE, MimeTypeUtils.APPLICATION_JSON_VALUE)
+				.build();
+		SolaceProducerProperties producerProperties = new SolaceProducerProperties();
+		producerProperties.setCompressPayload(true);
+
+		XMLMessage xmlMessage = xmlMessageMapper.map(testSpringMessage, producerProperties);
+
+		Assert.assertThat(xmlMessage, CoreMatchers.instanceOf(BytesMessage.class));
+		Assert.assertTrue(((BytesMessage) xmlMessage).getData().length < testPayload.length);
+		Assert.assertEquals("deflate", xmlMessage.getProperties().getString(XMLMessageMapper.PAYLOAD_ENCODING_HEADER));
+
+		Message<?> springMessage = xmlMessageMapper.map(xmlMessage);
+		Assert.assertArrayEquals(testPayload, (byte[]) springMessage.getPayload());
+		Assert.assertThat(springMessage.getHeaders().keySet(),
+				CoreMatchers.not(CoreMatchers.hasItem(XMLMessageMapper.PAYLOAD_ENCODING_HEADER)));
+	}
+
+	@Test
+	public void testMapProducerSpringMessageToXMLMessage_CompressString() throws Exception {
+		String testPayload = createCompressiblePayload();
+		Message<?> testSpringMessage = new DefaultMessageBuilderFactory()
+				.withPayload(testPayload)
+				.setHeader(MessageHeaders.CONTENT_TYPE, MimeTypeUtils.APPLICATION_JSON_VALUE)
+				.build();
+		SolaceProducerProperties producerProperties = new SolaceProducerProperties();
+		producerProperties.setCompressPayload(true);
+
+		XMLMessage xmlMessage = xmlMessageMapper.map(testSpringMessage, producerProperties);
+
+		Assert.assertThat(xmlMessage, CoreMatchers.instanceOf(BytesMessage.class));
+		Assert.assertEquals(MimeTypeUtils.APPLICATION_JSON_VALUE, xmlMessage.getHTTPContentType());
+		Assert.assertEquals(producerProperties.getDeliveryMode(), xmlMessage.getDeliveryMode());
+
+		Message<?> springMessage = xmlMessageMapper.map(xmlMessage);
+		Assert.assertEquals(testPayload, springMessage.getPayload());
+		Assert.assertThat(springMessage.getHeaders().keySet(),
+				CoreMatchers.not(CoreMatchers.hasItem(XMLMessageMapper.COMPRESSED_TEXT_HEADER)));
+	}
+
+	@Test
+	public void testMapProducerSpringMessageToXMLMessage_CompressSerializable() throws Exception {
+		SerializableFoo testPayload = new SerializableFoo(createCompressiblePayload(), createCompressiblePayload());
+		Message<?> testSpringMessage = new DefaultMessageBuilderFactory().withPayload(testPayload).build();
+		SolaceProducerProperties producerProperties = new SolaceProducerProperties();
+		producerProperties.setCompressPayload(true);
+
+		XMLMessage xmlMessage = xmlMessageMapper.map(testSpringMessage, producerProperties);
+
+		Assert.assertThat(xmlMessage.getProperties().keySet(),
+				CoreMatchers.hasItem(XMLMessageMapper.PAYLOAD_ENCODING_HEADER));
+		Assert.assertEquals(testPayload, xmlMessageMapper.map(xmlMessage).getPayload());
+	}
+
+	@Test
+	public void testMapXMLMessageToSpringMessage_MaxInflatedPayloadSize() throws Exception {
+		byte[] testPayload = createCompressiblePayload().getBytes(StandardCharsets.UTF_8);
+		Message<?> testSpringMessage = new DefaultMessageBuilderFactory().withPayload(testPayload).build();
+		SolaceProducerProperties producerProperties = new SolaceProducerProperties();
+		producerProperties.setCompressPayload(true);
+		XMLMessage xmlMessage = xmlMessageMapper.map(testSpringMessage, producerProperties);
+
+		XMLMessageMapper boundedMapper = new XMLMessageMapper();
+		boundedMapper.setMaxInflatedPayloadSize(testPayload.length);
+		Assert.assertArrayEquals(testPayload, (byte[]) boundedMapper.map(xmlMessage).getPayload());
+
+		boundedMapper.setMaxInflatedPayloadSize(testPayload.length - 1);
+		try {
+			boundedMapper.map(xmlMessage);
+			Assert.fail("Expected the payload to exceed the maximum inflated size");
+		} catch (SolaceMessageConversionException e) {
+			Assert.assertThat(e.getCause(), CoreMatchers.instanceOf(DataFormatException.class));
+		}
+	}
+
+	@Test
+	public void testMapXMLMessageToSpringMessage_DeferredPayload() throws Exception {
+		SerializableFoo testPayload = new SerializableFoo(createCompressiblePayload(), createCompressiblePayload());
+		Message<?> testSpringMessage = new DefaultMessageBuilderFactory().withPayload(testPayload).build();
+		SolaceProducerProperties producerProperties = new SolaceProducerProperties();
+		producerProperties.setCompressPayload(true);
+		XMLMessage xmlMessage = xmlMessageMapper.map(testSpringMessage, producerProperties);
+
+		Message<?> springMessage = xmlMessageMapper.map(xmlMessage, false, true);
+
+		Assert.assertThat(springMessage.getPayload(), CoreMatchers.instanceOf(DeferredPayload.class));
+		DeferredPayload deferredPayload = (DeferredPayload) springMessage.getPayload();
+		Assert.assertFalse(deferredPayload.isDecoded());
+		Assert.assertArrayEquals(((BytesMessage) xmlMessage).getData(), deferredPayload.getRawData());
+		Assert.assertEquals(testPayload, deferredPayload.get());
+		Assert.assertTrue(deferredPayload.isDecoded());
+		Assert.assertEquals(testPayload,
+				new DeferredPayloadMessageConverter().fromMessage(springMessage, SerializableFoo.class));
+	}
+
+	@Test
+	public void testMapXMLMessageToSpringMessage_DeferredPayloadNotEncoded() throws Exception {
+		byte[] testPayload = "testPayload".getBytes();
+		Message<?> testSpringMessage = new DefaultMessageBuilderFactory().withPayload(testPayload).build();
+		XMLMessage xmlMessage = xmlMessageMapper.map(testSpringMessage, new SolaceProducerProperties());
+
+		Assert.assertArrayEquals(testPayload, (byte[]) xmlMessageMapper.map(xmlMessage, false, true).getPayload());
+	}
+
+	@Test
+	public void testMapDeferredPayloadSpringMessageToXMLMessage() throws Exception {
+		SerializableFoo testPayload = new SerializableFoo(createCompressiblePayload(), createCompressiblePayload());
+		Message<?> testSpringMessage = new DefaultMessageBuilderFactory().withPayload(testPayload).build();
+		SolaceProducerProperties producerProperties = new SolaceProducerProperties();
+		producerProperties.setCompressPayload(true);
+		XMLMessage xmlMessage = xmlMessageMapper.map(testSpringMessage, producerProperties);
+		DeferredPayload deferredPayload = (DeferredPayload) xmlMessageMapper.map(xmlMessage, false, true).getPayload();
+
+		Message<?> republishedMessage = new DefaultMessageBuilderFactory().withPayload(deferredPayload).build();
+		XMLMessage republishedXMLMessage = xmlMessageMapper.map(republishedMessage, producerProperties);
+
+		Assert.assertFalse(deferredPayload.isDecoded());
+		Assert.assertArrayEquals(deferredPayload.getRawData(), ((BytesMessage) republishedXMLMessage).getData());
+		Assert.assertEquals(DeflateCodec.ENCODING,
+				republishedXMLMessage.getProperties().getString(XMLMessageMapper.PAYLOAD_ENCODING_HEADER));
+		Assert.assertTrue(republishedXMLMessage.getProperties().getBoolean(XMLMessageMapper.JAVA_SERIALIZED_OBJECT_HEADER));
+		Assert.assertEquals(testPayload, xmlMessageMapper.map(republishedXMLMessage).getPayload());
+	}
+
+	@Test
+	public void testMapProducerSpringMessageToXMLMessage_PayloadSerializer() throws Exception {
+		Map<String, Object> testPayload = new HashMap<>();
+		testPayload.put("id", UUID.randomUUID());
+		testPayload.put("values", Arrays.asList(1, 2L, 3.0));
+		Message<?> testSpringMessage = new DefaultMessageBuilderFactory().withPayload(testPayload).build();
+		SolaceProducerProperties producerProperties = new SolaceProducerProperties();
+		producerProperties.setPayloadSerializer(CompactPayloadSerializer.ID);
+
+		XMLMessage xmlMessage = xmlMessageMapper.map(testSpringMessage, producerProperties);
+
+		Assert.assertThat(xmlMessage, CoreMatchers.instanceOf(BytesMessage.class));
+		Assert.assertEquals(CompactPayloadSerializer.ID,
+				xmlMessage.getProperties().getString(XMLMessageMapper.PAYLOAD_SERIALIZER_HEADER));
+		Assert.assertThat(xmlMessage.getProperties().keySet(),
+				CoreMatchers.not(CoreMatchers.hasItem(XMLMessageMapper.JAVA_SERIALIZED_OBJECT_HEADER)));
+
+		Message<?> springMessage = xmlMessageMapper.map(xmlMessage);
+		Assert.assertEquals(testPayload, springMessage.getPayload());
+		Assert.assertThat(springMessage.getHeaders().keySet(),
+				CoreMatchers.not(CoreMatchers.hasItem(XMLMessageMapper.PAYLOAD_SERIALIZER_HEADER)));
+	}
+
+	@Test
+	public void testMapProducerSpringMessageToXMLMessage_PayloadSerializerFallback() throws Exception {
+		SerializableFoo testPayload = new SerializableFoo("abc123", "HOOPLA!"); // Has no no-arg constructor
+		Message<?> testSpringMessage = new DefaultMessageBuilderFactory().withPayload(testPayload).build();
+		SolaceProducerProperties producerProperties = new SolaceProducerProperties();
+		producerProperties.setPayloadSerializer(CompactPayloadSerializer.ID);
+
+		XMLMessage xmlMessage = xmlMessageMapper.map(testSpringMessage, producerProperties);
+
+		Assert.assertTrue(xmlMessage.getProperties().getBoolean(XMLMessageMapper.JAVA_SERIALIZED_OBJECT_HEADER));
+		Assert.assertThat(xmlMessage.getProperties().keySet(),
+				CoreMatchers.not(CoreMatchers.hasItem(XMLMessageMapper.PAYLOAD_SERIALIZER_HEADER)));
+		Assert.assertEquals(testPayload, xmlMessageMapper.map(xmlMessage).getPayload());
+	}
+
+	@Test(expected = SolaceMessageConversionException.class)
+	public void testMapProducerSpringMessageToXMLMessage_UnknownPayloadSerializer() {
+		Message<?> testSpringMessage = new DefaultMessageBuilderFactory().withPayload("testPayload").build();
+		SolaceProducerProperties producerProperties = new SolaceProducerProperties();
+		producerProperties.setPayloadSerializer("unknown");
+		xmlMessageMapper.map(testSpringMessage, producerProperties);
+	}
+
+	@Test
+	public void testMapProducerSpringMessageToXMLMessage_CompactHeaderNames() throws Exception {
+		SerializableFoo testPayload = new SerializableFoo("abc123", "HOOPLA!");
+		UUID correlationId = UUID.randomUUID();
+		Message<?> testSpringMessage = new DefaultMessageBuilderFactory()
+				.withPayload(testPayload)
+				.setHeader(MessageHeaders.CONTENT_TYPE, "application/x-java-serialized-object")
+				.setHeader("correlationId", correlationId)
+				.setHeader("~test-header", "test-header-val")
+				.build();
+		SolaceProducerProperties producerProperties = new SolaceProducerProperties();
+		producerProperties.setCompactHeaderNames(true);
+
+		XMLMessage xmlMessage = xmlMessageMapper.map(testSpringMessage, producerProperties);
+
+		SDTMap metadata = xmlMessage.getProperties();
+		Assert.assertEquals(Integer.valueOf(HeaderNameDictionary.VERSION),
+				metadata.getInteger(HeaderNameDictionary.VERSION_KEY));
+		Assert.assertEquals("test-header-val", metadata.getString("~~test-header"));
+		for (String name : Arrays.asList(MessageHeaders.CONTENT_TYPE, XMLMessageMapper.BINDER_VERSION_HEADER,
+				XMLMessageMapper.JAVA_SERIALIZED_OBJECT_HEADER, "correlationId", "~test-header")) {
+			Assert.assertThat(metadata.keySet(), CoreMatchers.not(CoreMatchers.hasItem(name)));
+		}
+
+		Message<?> springMessage = xmlMessageMapper.map(xmlMessage);
+		Assert.assertEquals(testPayload, springMessage.getPayload());
+		Assert.assertEquals("application/x-java-serialized-object",
+				springMessage.getHeaders().get(MessageHeaders.CONTENT_TYPE));
+		Assert.assertEquals(correlationId, springMessage.getHeaders().get("correlationId"));
+		Assert.assertEquals("test-header-val", springMessage.getHeaders().get("~test-header"));
+		Assert.assertThat(springMessage.getHeaders().keySet(),
+				CoreMatchers.not(CoreMatchers.hasItem(HeaderNameDictionary.VERSION_KEY)));
+	}
+
+	@Test(expected = SolaceMessageConversionException.class)
+	public void testFailMapXMLMessageToSpringMessage_UnsupportedHeaderDictionary() throws Exception {
+		TextMessage xmlMessage = JCSMPFactory.onlyInstance().createMessage(TextMessage.class);
+		xmlMessage.setText("testPayload");
+		SDTMap metadata = JCSMPFactory.onlyInstance().createMap();
+		metadata.putInteger(HeaderNameDictionary.VERSION_KEY, HeaderNameDictionary.VERSION + 1);
+		xmlMessage.setProperties(metadata);
+		xmlMessageMapper.map(xmlMessage);
+	}
+
+	@Test
+	public void testMapProducerSpringMessageToXMLMessage_CompressBelowThreshold() throws Exception {
+		Message<?> testSpringMessage = new DefaultMessageBuilderFactory().withPayload("testPayload").build();
+		SolaceProducerProperties producerProperties = new SolaceProducerProperties();
+		producerProperties.setCompressPayload(true);
+
+		XMLMessage xmlMessage = xmlMessageMapper.map(testSpringMessage, producerProperties);
+
+		Assert.assertThat(xmlMessage, CoreMatchers.instanceOf(TextMessage.class));
+		Assert.assertThat(xmlMessage.getProperties().keySet(),
+				CoreMatchers.not(CoreMatchers.hasItem(XMLMessageMapper.PAYLOAD_ENCODING_HEADER)));
+	}
+
+	@Test
+	public void testMapProducerSpringMessageToXMLMessage_CompressIncompressible() throws Exception {
+		byte[] testPayload = new byte[4096];
+		new Random(0).nextBytes(testPayload);
+		Message<?> testSpringMessage = new DefaultMessageBuilderFactory().withPayload(testPayload).build();
+		SolaceProducerProperties producerProperties = new SolaceProducerProperties();
+		producerProperties.setCompressPayload(true);
+
+		XMLMessage xmlMessage = xmlMessageMapper.map(testSpringMessage, producerProperties);
+
+		Assert.assertArrayEquals(testPayload, ((BytesMessage) xmlMessage).getData());
+		Assert.assertThat(xmlMessage.getProperties().keySet(),
+				CoreMatchers.not(CoreMatchers.hasItem(XMLMessageMapper.PAYLOAD_ENCODING_HEADER)));
+	}
+
+	@Test
+	public void testMapReusableSpringMessageToXMLMessage() throws Exception {
+		SolaceProducerProperties producerProperties = new SolaceProducerProperties();
+		producerProperties.setDeliveryMode(DeliveryMode.DIRECT);
+		Message<?> testSpringMessage0 = new DefaultMessageBuilderFactory()
+				.withPayload("testPayload0")
+				.setHeader("test-header-1", "test-header-val-1")
+				.build();
+		Message<?> testSpringMessage1 = new DefaultMessageBuilderFactory()
+				.withPayload("testPayload1")
+				.setHeader("test-header-2", "test-header-val-2")
+				.build();
+
+		XMLMessage xmlMessage0 = xmlMessageMapper.mapReusable(testSpringMessage0, producerProperties);
+		Assert.assertEquals("testPayload0", ((TextMessage) xmlMessage0).getText());
+		xmlMessageMapper.release(xmlMessage0);
+
+		XMLMessage xmlMessage1 = xmlMessageMapper.mapReusable(testSpringMessage1, producerProperties);
+		Assert.assertSame(xmlMessage0, xmlMessage1);
+		Assert.assertEquals("testPayload1", ((TextMessage) xmlMessage1).getText());
+		Assert.assertThat(xmlMessage1.getProperties().keySet(), CoreMatchers.hasItem("test-header-2"));
+		Assert.assertThat(xmlMessage1.getProperties().keySet(), CoreMatchers.not(CoreMatchers.hasItem("test-header-1")));
+		Assert.assertEquals(producerProperties.getDeliveryMode(), xmlMessage1.getDeliveryMode());
+		xmlMessageMapper.release(xmlMessage1);
+	}
+
+	@Test
+	public void testMapReusableSpringMessageToXMLMessage_WhileInUse() throws Exception {
+		SolaceProducerProperties producerProperties = new SolaceProducerProperties();
+		producerProperties.setDeliveryMode(DeliveryMode.DIRECT);
+		Message<?> testSpringMessage = new DefaultMessageBuilderFactory().withPayload("testPayload").build();
+
+		XMLMessage xmlMessage0 = xmlMessageMapper.mapReusable(testSpringMessage, producerProperties);
+		XMLMessage xmlMessage1 = xmlMessageMapper.mapReusable(testSpringMessage, producerProperties);
+		Assert.assertNotSame(xmlMessage0, xmlMessage1);
+
+		xmlMessageMapper.release(xmlMessage1); // Not a reusable message, has no effect
+		Assert.assertNotSame(xmlMessage0, xmlMessageMapper.mapReusable(testSpringMessage, producerProperties));
+
+		xmlMessageMapper.release(xmlMessage0);
+		XMLMessage xmlMessage2 = xmlMessageMapper.mapReusable(testSpringMessage, producerProperties);
+		Assert.assertSame(xmlMessage0, xmlMessage2);
+		xmlMessageMapper.release(xmlMessage2);
+	}
+
+	@Test
+	public void testMapReusableSpringMessageToXMLMessage_Persistent() throws Exception {
+		SolaceProducerProperties producerProperties = new SolaceProducerProperties();
+		producerProperties.setDeliveryMode(DeliveryMode.PERSISTENT);
+		Message<?> testSpringMessage = new DefaultMessageBuilderFactory().withPayload("testPayload").build();
+
+		// JCSMP may still retransmit a guaranteed message after it was sent, so it must not be reused
+		XMLMessage xmlMessage0 = xmlMessageMapper.mapReusable(testSpringMessage, producerProperties);
+		xmlMessageMapper.release(xmlMessage0);
+		XMLMessage xmlMessage1 = xmlMessageMapper.mapReusable(testSpringMessage, producerProperties);
+		Assert.assertNotSame(xmlMessage0, xmlMessage1);
+		Assert.assertEquals(DeliveryMode.PERSISTENT, xmlMessage1.getDeliveryMode());
+		Assert.assertEquals("testPayload", ((TextMessage) xmlMessage0).getText());
+		xmlMessageMapper.release(xmlMessage1);
+	}
+
+	/**
+	 * The allocation budget of the reusable publish path: with the message and header map reused, mapping a direct
+	 * message must allocate less than allocating a new message and header map for it.
+	 */
+	@Test
+	public void testMapReusableSpringMessageToXMLMessage_AllocationBudget() throws Exception {
+		ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+		Assume.assumeTrue(threadMXBean instanceof com.sun.management.ThreadMXBean &&
+				((com.sun.management.ThreadMXBean) threadMXBean).isThreadAllocatedMemorySupported());
+		com.sun.management.ThreadMXBean allocations = (com.sun.management.ThreadMXBean) threadMXBean;
+		allocations.setThreadAllocatedMemoryEnabled(true);
+
+		// A spy records every invocation, which would dwarf what is being measured
+		XMLMessageMapper xmlMessageMapper = new XMLMessageMapper();
+		// Java serialization of the id header would dwarf the mapper's own allocations
+		xmlMessageMapper.setCompactHeaderValues(true);
+		SolaceProducerProperties producerProperties = new SolaceProducerProperties();
+		producerProperties.setDeliveryMode(DeliveryMode.DIRECT);
+		MessageBuilder<byte[]> messageBuilder = MessageBuilder.withPayload(new byte[256]);
+		for (int i = 0; i < 10; i++) {
+			messageBuilder.setHeader("test-header-" + i, "test-header-val-" + i);
+		}
+		Message<?> testSpringMessage = messageBuilder.build();
+
+		long allocatingBytes = 0;
+		long reusableBytes = 0;
+		for (int run = 0; run < 2; run++) { // The first run warms up
+			long threadId = Thread.currentThread().getId();
+			long start = allocations.getThreadAllocatedBytes(threadId);
+			for (int i = 0; i < 10000; i++) {
+				xmlMessageMapper.map(testSpringMessage, producerProperties);
+			}
+			allocatingBytes = allocations.getThreadAllocatedBytes(threadId) - start;
+
+			start = allocations.getThreadAllocatedBytes(threadId);
+			for (int i = 0; i < 10000; i++) {
+				xmlMessageMapper.release(xmlMessageMapper.mapReusable(testSpringMessage, producerProperties));
+			}
+			reusableBytes = allocations.getThreadAllocatedBytes(threadId) - start;
+		}
+
+		String allocated = String.format("Reusable mapping allocated %s bytes/message, allocating mapping %s bytes/message",
+				reusableBytes / 10000, allocatingBytes / 10000);
+		Assert.assertTrue(allocated, reusableBytes / 10000 <= REUSABLE_MAPPING_ALLOCATION_BUDGET);
+		Assert.assertTrue(allocated, reusableBytes < allocatingBytes);
+	}
+
 	@Test
 	public void testMapConsumerSpringMessageToXMLMessage() {
 		String testPayload = "testPayload";
@@ -357,6 +793,54 @@ public class XMLMessageMapperTest {
 		validateSpringMessage(springMessage, xmlMessage);
 	}
 
+	@Test
+	public void testMapXMLMessageToSpringMessage_LazyHeaders() throws Exception {
+		TextMessage xmlMessage = JCSMPFactory.onlyInstance().createMessage(TextMessage.class);
+		xmlMessage.setText("testPayload");
+		SDTMap metadata = JCSMPFactory.onlyInstance().createMap();
+		metadata.putString("test-header", "test-header-val");
+		metadata.putBytes("undecodable-header", new byte[]{1, 2, 3});
+		metadata.putBoolean(xmlMessageMapper.getIsHeaderSerializedMetadataKey("undecodable-header"), true);
+		xmlMessage.setProperties(metadata);
+
+		Message<?> springMessage = xmlMessageMapper.map(xmlMessage);
+
+		// Only decoded once accessed
+		Assert.assertEquals("test-header-val", springMessage.getHeaders().get("test-header"));
+		Assert.assertTrue(springMessage.getHeaders().containsKey("undecodable-header"));
+		Assert.assertThat(springMessage.getHeaders().keySet(), CoreMatchers.not(CoreMatchers.hasItem(
+				xmlMessageMapper.getIsHeaderSerializedMetadataKey("undecodable-header"))));
+		try {
+			springMessage.getHeaders().get("undecodable-header");
+			Assert.fail("Expected the header to fail decoding");
+		} catch (SolaceMessageConversionException e) {
+			logger.info("Failed to decode header as expected", e);
+		}
+	}
+
+	@Test
+	public void testMapXMLMessageToSpringMessage_CopyLazyHeaders() throws Exception {
+		TextMessage xmlMessage = JCSMPFactory.onlyInstance().createMessage(TextMessage.class);
+		xmlMessage.setText("testPayload");
+		UUID correlationId = UUID.randomUUID();
+		Map<String,Object> headers = new HashMap<>();
+		headers.put("test-header", "test-header-val");
+		headers.put("correlationId", correlationId);
+		xmlMessage.setProperties(xmlMessageMapper.map(new MessageHeaders(headers)));
+
+		Message<?> springMessage = xmlMessageMapper.map(xmlMessage);
+
+		Map<String,Object> copiedHeaders = new HashMap<>(springMessage.getHeaders());
+		Assert.assertEquals(copiedHeaders, springMessage.getHeaders());
+		Assert.assertEquals(correlationId, copiedHeaders.get("correlationId"));
+		Assert.assertEquals(springMessage.getHeaders().getId(), copiedHeaders.get(MessageHeaders.ID));
+
+		Message<?> copiedMessage = MessageBuilder.fromMessage(springMessage).setHeader("other-header", 1).build();
+		Assert.assertEquals(correlationId, copiedMessage.getHeaders().get("correlationId", UUID.class));
+		Assert.assertEquals("test-header-val", copiedMessage.getHeaders().get("test-header"));
+		Assert.assertNotNull(StaticMessageHeaderAccessor.getAcknowledgmentCallback(copiedMessage));
+	}
+
 	@Test(expected = SolaceMessageConversionException.class)
 	public void testFailMapXMLMessageToSpringMessage_WithNullPayload() {
 		BytesMessage xmlMessage = JCSMPFactory.onlyInstance().createMessage(BytesMessage.class);
@@ -378,6 +862,112 @@ public class XMLMessageMapperTest {
 		Assert.assertEquals(true, sdtMap.getBoolean(xmlMessageMapper.getIsHeaderSerializedMetadataKey(key)));
 	}
 
+	@Test
+	public void testMapMessageHeadersToSDTMap_UUID() throws Exception {
+		String key = "a";
+		UUID value = UUID.randomUUID();
+		Map<String,Object> headers = new HashMap<>();
+		headers.put(key, value);
+		xmlMessageMapper.setCompactHeaderValues(true);
+
+		SDTMap sdtMap = xmlMessageMapper.map(new MessageHeaders(headers));
+
+		Assert.assertEquals(16, sdtMap.getBytes(key).length);
+		Assert.assertEquals(HeaderValueCodec.UUID_ENCODING,
+				sdtMap.getByte(HeaderValueCodec.getMetadataKey(key)).byteValue());
+		Assert.assertThat(sdtMap.keySet(),
+				CoreMatchers.not(CoreMatchers.hasItem(xmlMessageMapper.getIsHeaderSerializedMetadataKey(key))));
+		Assert.assertEquals(value, xmlMessageMapper.map(sdtMap).get(key));
+	}
+
+	@Test
+	public void testMapMessageHeadersToSDTMap_MimeType() throws Exception {
+		Map<String,Object> headers = new HashMap<>();
+		headers.put(MessageHeaders.CONTENT_TYPE, MimeTypeUtils.APPLICATION_JSON);
+		xmlMessageMapper.setCompactHeaderValues(true);
+
+		SDTMap sdtMap = xmlMessageMapper.map(new MessageHeaders(headers));
+
+		Assert.assertEquals(MimeTypeUtils.APPLICATION_JSON_VALUE, sdtMap.getString(MessageHeaders.CONTENT_TYPE));
+		MessageHeaders messageHeaders = xmlMessageMapper.map(sdtMap);
+		Assert.assertEquals(MimeTypeUtils.APPLICATION_JSON, messageHeaders.get(MessageHeaders.CONTENT_TYPE));
+		Assert.assertThat(messageHeaders.keySet(),
+				CoreMatchers.not(CoreMatchers.hasItem(HeaderValueCodec.getMetadataKey(MessageHeaders.CONTENT_TYPE))));
+	}
+
+	@Test
+	public void testMapMessageHeadersToSDTMap_MimeTypeSubclass() throws Exception {
+		MimeType value = new CustomMimeType("application", "json");
+		Map<String,Object> headers = new HashMap<>();
+		headers.put(MessageHeaders.CONTENT_TYPE, value);
+		xmlMessageMapper.setCompactHeaderValues(true);
+
+		SDTMap sdtMap = xmlMessageMapper.map(new MessageHeaders(headers));
+
+		Assert.assertThat(sdtMap.keySet(),
+				CoreMatchers.not(CoreMatchers.hasItem(HeaderValueCodec.getMetadataKey(MessageHeaders.CONTENT_TYPE))));
+		Object decoded = xmlMessageMapper.map(sdtMap).get(MessageHeaders.CONTENT_TYPE);
+		Assert.assertEquals(CustomMimeType.class, decoded.getClass());
+		Assert.assertEquals(value, decoded);
+	}
+
+	@Test
+	public void testMapMessageHeadersToSDTMap_CompactHeaderValuesDisabled() throws Exception {
+		String key = "a";
+		UUID value = UUID.randomUUID();
+		Map<String,Object> headers = new HashMap<>();
+		headers.put(key, value);
+		headers.put(MessageHeaders.CONTENT_TYPE, MimeTypeUtils.APPLICATION_JSON);
+
+		SDTMap sdtMap = xmlMessageMapper.map(new MessageHeaders(headers));
+
+		for (String metadataKey : sdtMap.keySet()) {
+			Assert.assertFalse(metadataKey.startsWith(HeaderValueCodec.METADATA_KEY_PREFIX));
+		}
+		Assert.assertEquals(true, sdtMap.getBoolean(xmlMessageMapper.getIsHeaderSerializedMetadataKey(key)));
+		MessageHeaders messageHeaders = xmlMessageMapper.map(sdtMap);
+		Assert.assertEquals(value, messageHeaders.get(key));
+		Assert.assertEquals(MimeTypeUtils.APPLICATION_JSON, messageHeaders.get(MessageHeaders.CONTENT_TYPE));
+	}
+
+	@Test
+	public void testMapMessageHeadersToSDTMap_Filtered() throws Exception {
+		HeaderPropagationFilter headerFilter = new HeaderPropagationFilter(new String[]{"app-*", "other"},
+				new String[]{"app-internal-*", MessageHeaders.ID});
+		XMLMessageMapper filteringMapper = new XMLMessageMapper(headerFilter);
+		Map<String,Object> headers = new HashMap<>();
+		headers.put("app-a", "a");
+		headers.put("app-internal-b", "b");
+		headers.put("other", 1);
+		headers.put("unmatched", "unmatched");
+
+		for (int i = 0; i < 2; i++) {
+			SDTMap sdtMap = filteringMapper.map(new MessageHeaders(headers));
+
+			Assert.assertEquals("a", sdtMap.getString("app-a"));
+			Assert.assertEquals(Integer.valueOf(1), sdtMap.getInteger("other"));
+			Assert.assertThat(sdtMap.keySet(), CoreMatchers.not(CoreMatchers.hasItem("app-internal-b")));
+			Assert.assertThat(sdtMap.keySet(), CoreMatchers.not(CoreMatchers.hasItem("unmatched")));
+			Assert.assertThat(sdtMap.keySet(), CoreMatchers.not(CoreMatchers.hasItem(MessageHeaders.ID)));
+			Assert.assertThat(sdtMap.keySet(), CoreMatchers.not(CoreMatchers.hasItem(MessageHeaders.TIMESTAMP)));
+		}
+
+		Assert.assertEquals(8, headerFilter.getFilteredHeaderCount());
+		Assert.assertEquals(2 * ("app-internal-b".length() + 1 + "unmatched".length() * 2 +
+				MessageHeaders.ID.length() + 16 + MessageHeaders.TIMESTAMP.length() + 8),
+				headerFilter.getFilteredHeaderBytes());
+	}
+
+	@Test
+	public void testMapMessageHeadersToSDTMap_Confirmation() throws Exception {
+		Map<String,Object> headers = new HashMap<>();
+		headers.put(SolaceBinderHeaders.CONFIRMATION, new CompletableFuture<Void>());
+
+		SDTMap sdtMap = xmlMessageMapper.map(new MessageHeaders(headers));
+
+		Assert.assertThat(sdtMap.keySet(), CoreMatchers.not(CoreMatchers.hasItem(SolaceBinderHeaders.CONFIRMATION)));
+	}
+
 	@Test
 	public void testMapSDTMapToMessageHeaders_Serializable() throws Exception {
 		String key = "a";
@@ -433,6 +1023,14 @@ public class XMLMessageMapperTest {
 		} while (i < 3);
 	}
 
+	private String createCompressiblePayload() {
+		StringBuilder payload = new StringBuilder("[");
+		for (int i = 0; i < 200; i++) {
+			payload.append(String.format("{\"id\":%s,\"status\":\"ACTIVE\",\"region\":\"us-east\"},", i));
+		}
+		return payload.append("{}]").toString();
+	}
+
 	private void validateXMLMessage(XMLMessage xmlMessage, Message<?> springMessage)
 			throws Exception {
 		validateXMLMessage(xmlMessage, springMessage, springMessage.getHeaders());
@@ -453,7 +1051,10 @@ public class XMLMessageMapperTest {
 			Assert.assertThat(metadata.keySet(), CoreMatchers.hasItem(header.getKey()));
 
 			Object actualValue = metadata.get(header.getKey());
-			if (metadata.containsKey(xmlMessageMapper.getIsHeaderSerializedMetadataKey(header.getKey()))) {
+			String encodingKey = HeaderValueCodec.getMetadataKey(header.getKey());
+			if (metadata.containsKey(encodingKey)) {
+				actualValue = HeaderValueCodec.decode(metadata, header.getKey(), metadata.getByte(encodingKey));
+			} else if (metadata.containsKey(xmlMessageMapper.getIsHeaderSerializedMetadataKey(header.getKey()))) {
 				actualValue = SerializationUtils.deserialize(metadata.getBytes(header.getKey()));
 			}
 			Assert.assertEquals(header.getValue(), actualValue);
@@ -492,4 +1093,10 @@ public class XMLMessageMapperTest {
 			Assert.assertEquals(xmlMessage.getHTTPContentType(), contentType);
 		}
 	}
+
+	private static class CustomMimeType extends MimeType {
+		CustomMimeType(String type, String subtype) {
+			super(type, subtype);
+		}
+	}
 }
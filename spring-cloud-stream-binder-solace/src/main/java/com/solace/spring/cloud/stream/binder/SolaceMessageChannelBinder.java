@@ -3,7 +3,9 @@ package com.solace.spring.cloud.stream.binder;
 import com.solace.spring.cloud.stream.binder.inbound.JCSMPInboundChannelAdapter;
 import com.solace.spring.cloud.stream.binder.inbound.JCSMPMessageSource;
 import com.solace.spring.cloud.stream.binder.outbound.JCSMPOutboundMessageHandler;
+import com.solace.spring.cloud.stream.binder.util.JCSMPSessionPool;
 import com.solace.spring.cloud.stream.binder.util.JCSMPSessionProducerManager;
+import com.solace.spring.cloud.stream.binder.util.SolaceBinderMetrics;
 import com.solace.spring.cloud.stream.binder.util.SolaceErrorMessageHandler;
 import com.solace.spring.cloud.stream.binder.util.SolaceMessageHeaderErrorMessageStrategy;
 import com.solace.spring.cloud.stream.binder.util.SolaceProvisioningUtil;
@@ -22,12 +24,23 @@ import com.solace.spring.cloud.stream.binder.properties.SolaceProducerProperties
 import com.solace.spring.cloud.stream.binder.provisioning.SolaceQueueProvisioner;
 import org.springframework.cloud.stream.provisioning.ConsumerDestination;
 import org.springframework.cloud.stream.provisioning.ProducerDestination;
+import org.springframework.expression.Expression;
+import org.springframework.expression.spel.standard.SpelExpressionParser;
 import org.springframework.integration.core.MessageProducer;
+import org.springframework.integration.expression.FunctionExpression;
 import org.springframework.integration.support.DefaultErrorMessageStrategy;
 import org.springframework.integration.support.ErrorMessageStrategy;
+import org.springframework.integration.support.context.NamedComponent;
+import org.springframework.messaging.Message;
 import org.springframework.messaging.MessageChannel;
 import org.springframework.messaging.MessageHandler;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 import java.util.function.Consumer;
 
@@ -39,31 +52,44 @@ public class SolaceMessageChannelBinder
 		implements ExtendedPropertiesBinder<MessageChannel, SolaceConsumerProperties, SolaceProducerProperties>,
 				DisposableBean {
 
-	private final JCSMPSession jcsmpSession;
-	private final JCSMPSessionProducerManager sessionProducerManager;
+	private final JCSMPSessionPool sessionPool;
 	private final String errorHandlerProducerKey = UUID.randomUUID().toString();
 	private SolaceExtendedBindingProperties extendedBindingProperties = new SolaceExtendedBindingProperties();
+	private SolaceBinderMetrics metrics = SolaceBinderMetrics.NOOP;
+	// Handlers created before their binding's channel or adapter exists, keyed by their binding's properties
+	private final Map<ExtendedProducerProperties<?>, JCSMPOutboundMessageHandler> unnamedProducerHandlers =
+			Collections.synchronizedMap(new IdentityHashMap<>());
+	private final Map<ExtendedConsumerProperties<?>, SolaceErrorMessageHandler> unboundErrorMessageHandlers =
+			Collections.synchronizedMap(new IdentityHashMap<>());
 
 	private static final SolaceMessageHeaderErrorMessageStrategy errorMessageStrategy = new SolaceMessageHeaderErrorMessageStrategy();
+	private static final SpelExpressionParser EXPRESSION_PARSER = new SpelExpressionParser();
 
-	public SolaceMessageChannelBinder(JCSMPSession jcsmpSession, SolaceQueueProvisioner solaceQueueProvisioner) {
+	/**
+	 * Sessions are drawn from the provisioner's session pool so that bindings use the same sessions which their
+	 * destinations were provisioned through.
+	 */
+	public SolaceMessageChannelBinder(SolaceQueueProvisioner solaceQueueProvisioner) {
 		super(new String[0], solaceQueueProvisioner);
-		this.jcsmpSession = jcsmpSession;
-		this.sessionProducerManager = new JCSMPSessionProducerManager(jcsmpSession);
+		this.sessionPool = solaceQueueProvisioner.getSessionPool();
 	}
 
 	@Override
 	public void destroy() {
-		sessionProducerManager.release(errorHandlerProducerKey);
-		jcsmpSession.closeSession();
+		for (JCSMPSessionProducerManager producerManager : sessionPool.getProducerManagers()) {
+			producerManager.release(errorHandlerProducerKey);
+		}
+		sessionPool.close();
 	}
 
 	@Override
 	protected MessageHandler createProducerMessageHandler(ProducerDestination destination,
 														  ExtendedProducerProperties<SolaceProducerProperties> producerProperties,
 														  MessageChannel errorChannel) {
-		JCSMPOutboundMessageHandler handler = new JCSMPOutboundMessageHandler(
-				destination, jcsmpSession, errorChannel, producerProperties, sessionProducerManager);
+		JCSMPSession jcsmpSession = sessionPool.getSession(destination.getName(), JCSMPSessionPool.Role.PRODUCER);
+		JCSMPOutboundMessageHandler handler = new JCSMPOutboundMessageHandler(destination, jcsmpSession, errorChannel,
+				producerProperties, sessionPool.getProducerManager(jcsmpSession));
+		unnamedProducerHandlers.put(producerProperties, handler);
 
 		if (errorChannel != null) {
 			handler.setErrorMessageStrategy(new DefaultErrorMessageStrategy());
@@ -72,20 +98,64 @@ public class SolaceMessageChannelBinder
 		return handler;
 	}
 
+	/**
+	 * Binds the producer's metrics once its binding's name is known, before the channel is subscribed to it.
+	 */
+	@Override
+	protected void postProcessOutputChannel(MessageChannel outputChannel,
+											ExtendedProducerProperties<SolaceProducerProperties> producerProperties) {
+		JCSMPOutboundMessageHandler handler = unnamedProducerHandlers.remove(producerProperties);
+		if (handler != null) {
+			handler.setMetrics(metrics, outputChannel instanceof NamedComponent ?
+					((NamedComponent) outputChannel).getComponentName() : null);
+		}
+	}
+
 	@Override
 	protected MessageProducer createConsumerEndpoint(ConsumerDestination destination, String group,
 													 ExtendedConsumerProperties<SolaceConsumerProperties> properties) {
+		JCSMPSession jcsmpSession = sessionPool.getSession(destination.getName(), JCSMPSessionPool.Role.CONSUMER);
 		JCSMPInboundChannelAdapter adapter = new JCSMPInboundChannelAdapter(destination, jcsmpSession,
 				getConsumerEndpointProperties(properties), getConsumerPostStart());
+		adapter.setFlowSessions(getFlowSessions(destination, group, properties, jcsmpSession));
 
 		ErrorInfrastructure errorInfra = registerErrorInfrastructure(destination, group, properties);
-		if(properties.getMaxAttempts() > 1) {
+		adapter.setErrorMessageHandler(unboundErrorMessageHandlers.remove(properties));
+		boolean batchMode = properties.getExtension().getBatchMaxSize() > 0;
+		if (batchMode && properties.getMaxAttempts() > 1) {
+			logger.info(String.format("Ignoring maxAttempts of %s for batch consumer %s, failed batches are split " +
+					"instead of retried", properties.getMaxAttempts(), destination.getName()));
+		}
+
+		if(properties.getMaxAttempts() > 1 && !batchMode) {
 			adapter.setRetryTemplate(buildRetryTemplate(properties));
 			adapter.setRecoveryCallback(errorInfra.getRecoverer());
 		} else {
 			adapter.setErrorChannel(errorInfra.getErrorChannel());
 		}
 
+		adapter.setDeferPayloadDecoding(properties.getExtension().isDeferPayloadDecoding());
+		adapter.setMaxInflatedPayloadSize(properties.getExtension().getMaxInflatedPayloadSize());
+		adapter.setDecodingThreads(properties.getExtension().getDecodingThreads());
+		adapter.setDecodingPipelineCapacity(properties.getExtension().getDecodingPipelineCapacity());
+		if (batchMode) {
+			if (properties.getExtension().getDispatchLanes() > 0) {
+				throw new IllegalArgumentException("Batch consumers cannot use dispatch lanes");
+			}
+			adapter.setBatchMaxSize(properties.getExtension().getBatchMaxSize());
+			adapter.setBatchTimeout(properties.getExtension().getBatchTimeout());
+			adapter.setBatchSplitOnFailure(properties.getExtension().isBatchSplitOnFailure());
+		}
+		if (properties.getExtension().isAsyncAck()) {
+			adapter.setAsyncAck(true);
+			adapter.setAsyncAckMaxBatchSize(properties.getExtension().getAsyncAckMaxBatchSize());
+		}
+		if (properties.getExtension().getDispatchLanes() > 0) {
+			adapter.setDispatchLaneCount(properties.getExtension().getDispatchLanes());
+			adapter.setDispatchLaneCapacity(properties.getExtension().getDispatchLaneCapacity());
+			adapter.setDispatchKeyExpression(getDispatchKeyExpression(properties.getExtension()));
+		}
+		adapter.setMetrics(metrics);
 		adapter.setErrorMessageStrategy(errorMessageStrategy);
 		return adapter;
 	}
@@ -96,7 +166,9 @@ public class SolaceMessageChannelBinder
 																	ExtendedConsumerProperties<SolaceConsumerProperties> consumerProperties) {
 		EndpointProperties endpointProperties = getConsumerEndpointProperties(consumerProperties);
 		Consumer<Queue> postStart = getConsumerPostStart();
+		JCSMPSession jcsmpSession = sessionPool.getSession(destination.getName(), JCSMPSessionPool.Role.CONSUMER);
 		JCSMPMessageSource messageSource = new JCSMPMessageSource(destination, jcsmpSession, consumerProperties, endpointProperties, postStart);
+		messageSource.setMetrics(metrics);
 		ErrorInfrastructure errorInfra = registerErrorInfrastructure(destination, group, consumerProperties, true);
 		return new PolledConsumerResources(messageSource, errorInfra);
 	}
@@ -114,7 +186,11 @@ public class SolaceMessageChannelBinder
 	@Override
 	protected MessageHandler getErrorMessageHandler(ConsumerDestination destination, String group,
 													ExtendedConsumerProperties<SolaceConsumerProperties> consumerProperties) {
-			return new SolaceErrorMessageHandler(destination, consumerProperties, errorHandlerProducerKey, sessionProducerManager);
+			JCSMPSession jcsmpSession = sessionPool.getSession(destination.getName(), JCSMPSessionPool.Role.CONSUMER);
+			SolaceErrorMessageHandler errorMessageHandler = new SolaceErrorMessageHandler(destination,
+					consumerProperties, errorHandlerProducerKey, sessionPool.getProducerManager(jcsmpSession));
+			unboundErrorMessageHandlers.put(consumerProperties, errorMessageHandler);
+			return errorMessageHandler;
 	}
 
 	@Override
@@ -122,6 +198,10 @@ public class SolaceMessageChannelBinder
 																  ExtendedConsumerProperties<SolaceConsumerProperties> consumerProperties) {
 		final MessageHandler handler = getErrorMessageHandler(destination, group, consumerProperties);
 		if (handler != null) {
+			unboundErrorMessageHandlers.remove(consumerProperties);
+			// Polled bindings are named after their queue, like their message source
+			((SolaceErrorMessageHandler) handler).setMetrics(
+					metrics.consumer(destination.getName(), destination.getName()));
 			return handler;
 		} else {
 			return super.getPolledConsumerErrorMessageHandler(destination, group, consumerProperties);
@@ -153,6 +233,55 @@ public class SolaceMessageChannelBinder
 		this.extendedBindingProperties = extendedBindingProperties;
 	}
 
+	public void setMetrics(SolaceBinderMetrics metrics) {
+		this.metrics = metrics;
+	}
+
+	private Expression getDispatchKeyExpression(SolaceConsumerProperties consumerProperties) {
+		String header = consumerProperties.getDispatchKeyHeader();
+		String expression = consumerProperties.getDispatchKeyExpression();
+		if ((header == null) == (expression == null)) {
+			throw new IllegalArgumentException(
+					"Dispatch lanes require exactly one of dispatchKeyHeader or dispatchKeyExpression");
+		}
+		return header != null ?
+				new FunctionExpression<Message<?>>(message -> message.getHeaders().get(header)) :
+				EXPRESSION_PARSER.parseExpression(expression);
+	}
+
+	/**
+	 * A consumer gets one flow per unit of concurrency, each from the session pool, so that flows are spread across
+	 * the pool's sessions as its assignment strategy dictates. Only non-exclusive durable queues can be consumed by
+	 * several flows: an exclusive queue would only deliver to one of them, and a temporary queue can only be consumed
+	 * through the session which created it.
+	 */
+	private List<JCSMPSession> getFlowSessions(ConsumerDestination destination, String group,
+											   ExtendedConsumerProperties<SolaceConsumerProperties> properties,
+											   JCSMPSession jcsmpSession) {
+		int concurrency = properties.getConcurrency();
+		if (concurrency <= 1) {
+			return Collections.singletonList(jcsmpSession);
+		} else if (!SolaceProvisioningUtil.isDurableQueue(group) ||
+				properties.getExtension().getQueueAccessType() != EndpointProperties.ACCESSTYPE_NONEXCLUSIVE) {
+			logger.warn(String.format("Ignoring concurrency %s of queue %s: only non-exclusive durable queues can " +
+					"be consumed by more than one flow", concurrency, destination.getName()));
+			return Collections.singletonList(jcsmpSession);
+		}
+
+		List<JCSMPSession> flowSessions = new ArrayList<>(concurrency);
+		flowSessions.add(jcsmpSession);
+		for (int i = 1; i < concurrency; i++) {
+			flowSessions.add(sessionPool.getSession(destination.getName() + "#" + i, JCSMPSessionPool.Role.CONSUMER));
+		}
+
+		int sessionCount = new HashSet<>(flowSessions).size();
+		if (sessionCount < concurrency) {
+			logger.warn(String.format("The %s flows of queue %s share %s session(s), increase the session pool size " +
+					"for them to be dispatched in parallel", concurrency, destination.getName(), sessionCount));
+		}
+		return flowSessions;
+	}
+
 	/**
 		WORKAROUND (SOL-4272) ----------------------------------------------------------
 		Temporary endpoints are only provisioned when the consumer is created.
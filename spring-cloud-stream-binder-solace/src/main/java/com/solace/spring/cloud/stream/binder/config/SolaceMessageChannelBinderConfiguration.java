@@ -1,20 +1,35 @@
 package com.solace.spring.cloud.stream.binder.config;
 
+import com.solace.spring.cloud.stream.binder.properties.SolaceSessionPoolProperties;
+import com.solace.spring.cloud.stream.binder.util.DeferredPayloadMessageConverter;
+import com.solace.spring.cloud.stream.binder.util.JCSMPSessionPool;
+import com.solace.spring.cloud.stream.binder.util.MicrometerSolaceBinderMetrics;
+import com.solace.spring.cloud.stream.binder.util.SolaceBinderMetrics;
+import com.solacesystems.jcsmp.Context;
+import com.solacesystems.jcsmp.ContextProperties;
 import com.solacesystems.jcsmp.JCSMPException;
+import com.solacesystems.jcsmp.JCSMPProperties;
 import com.solacesystems.jcsmp.JCSMPSession;
 import com.solacesystems.jcsmp.SpringJCSMPFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.cloud.stream.annotation.StreamMessageConverter;
 import com.solace.spring.cloud.stream.binder.SolaceMessageChannelBinder;
 import com.solace.spring.cloud.stream.binder.properties.SolaceExtendedBindingProperties;
 import com.solace.spring.cloud.stream.binder.provisioning.SolaceQueueProvisioner;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.messaging.converter.MessageConverter;
 
 import javax.annotation.PostConstruct;
-
 @Configuration
-@EnableConfigurationProperties({ SolaceExtendedBindingProperties.class })
+@EnableConfigurationProperties({ SolaceExtendedBindingProperties.class, SolaceSessionPoolProperties.class })
 public class SolaceMessageChannelBinderConfiguration {
 	@Autowired
 	private SpringJCSMPFactory springJCSMPFactory;
@@ -22,23 +37,74 @@ public class SolaceMessageChannelBinderConfiguration {
 	@Autowired
 	private SolaceExtendedBindingProperties solaceExtendedBindingProperties;
 
-	private JCSMPSession jcsmpSession;
+	@Autowired
+	private SolaceSessionPoolProperties solaceSessionPoolProperties;
+
+	private JCSMPSessionPool sessionPool;
+
+	private static final Log logger = LogFactory.getLog(SolaceMessageChannelBinderConfiguration.class);
 
 	@PostConstruct
 	private void initSession() throws JCSMPException {
-		jcsmpSession = springJCSMPFactory.createSession();
-		jcsmpSession.connect();
+		sessionPool = JCSMPSessionPool.connect(solaceSessionPoolProperties.getSize(),
+				solaceSessionPoolProperties.getAssignmentStrategy(), (index, contexts) -> {
+					if (index == 0) {
+						return springJCSMPFactory.createSession();
+					}
+
+					// Every additional session gets its own context, and therefore its own I/O thread
+					Context context = springJCSMPFactory.createContext(new ContextProperties());
+					contexts.add(context);
+					JCSMPSession jcsmpSession = springJCSMPFactory.createSession(context);
+					makeClientNameUnique(jcsmpSession, index);
+					return jcsmpSession;
+				});
 	}
 
 	@Bean
-	SolaceMessageChannelBinder solaceMessageChannelBinder() throws Exception {
-		SolaceMessageChannelBinder binder = new SolaceMessageChannelBinder(jcsmpSession, provisioningProvider());
+	SolaceMessageChannelBinder solaceMessageChannelBinder(ObjectProvider<SolaceBinderMetrics> metrics) throws Exception {
+		SolaceMessageChannelBinder binder = new SolaceMessageChannelBinder(provisioningProvider());
 		binder.setExtendedBindingProperties(solaceExtendedBindingProperties);
+		SolaceBinderMetrics binderMetrics = metrics.getIfUnique();
+		if (binderMetrics != null) {
+			binder.setMetrics(binderMetrics);
+		}
 		return binder;
 	}
 
 	@Bean
 	SolaceQueueProvisioner provisioningProvider() {
-		return new SolaceQueueProvisioner(jcsmpSession);
+		return new SolaceQueueProvisioner(sessionPool);
+	}
+
+	@Bean
+	@StreamMessageConverter
+	MessageConverter deferredPayloadMessageConverter() {
+		return new DeferredPayloadMessageConverter();
+	}
+
+	/**
+	 * Records the binder's metrics in the application's meter registry, such as the one which the actuator sets up.
+	 */
+	@Configuration
+	@ConditionalOnClass(name = "io.micrometer.core.instrument.MeterRegistry")
+	static class MicrometerConfiguration {
+		@Bean
+		@ConditionalOnMissingBean
+		SolaceBinderMetrics solaceBinderMetrics(ObjectProvider<MeterRegistry> meterRegistry) {
+			MeterRegistry registry = meterRegistry.getIfAvailable();
+			return registry != null ? new MicrometerSolaceBinderMetrics(registry) : SolaceBinderMetrics.NOOP;
+		}
+	}
+
+	private void makeClientNameUnique(JCSMPSession jcsmpSession, int sessionIndex) {
+		Object clientName = jcsmpSession.getProperty(JCSMPProperties.CLIENT_NAME);
+		if (clientName == null) return; // A unique name will be generated on connect
+
+		try {
+			jcsmpSession.setProperty(JCSMPProperties.CLIENT_NAME, clientName + "-" + sessionIndex);
+		} catch (JCSMPException e) {
+			logger.warn(String.format("Unable to change the client name of pooled session %s", sessionIndex), e);
+		}
 	}
 }
@@ -1,16 +1,21 @@
 package com.solace.spring.cloud.stream.binder;
 
 import com.solace.spring.boot.autoconfigure.SolaceJavaAutoConfiguration;
+import com.solace.spring.cloud.stream.binder.messaging.SolaceBinderHeaders;
 import com.solace.spring.cloud.stream.binder.properties.SolaceConsumerProperties;
 import com.solace.spring.cloud.stream.binder.properties.SolaceProducerProperties;
+import com.solace.spring.cloud.stream.binder.test.InMemoryBroker;
+import com.solace.spring.cloud.stream.binder.util.JCSMPSessionPool;
 import com.solacesystems.jcsmp.ClosedFacilityException;
+import com.solacesystems.jcsmp.Context;
+import com.solacesystems.jcsmp.ContextProperties;
 import com.solacesystems.jcsmp.EndpointProperties;
+import com.solacesystems.jcsmp.JCSMPException;
 import com.solacesystems.jcsmp.JCSMPFactory;
 import com.solacesystems.jcsmp.JCSMPSession;
 import com.solacesystems.jcsmp.PropertyMismatchException;
 import com.solacesystems.jcsmp.Queue;
 import com.solacesystems.jcsmp.SpringJCSMPFactory;
-import org.junit.Assume;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -37,10 +42,16 @@ import org.springframework.test.context.junit4.SpringRunner;
 import org.springframework.util.MimeTypeUtils;
 
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicReference;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -57,14 +68,19 @@ public class SolaceBinderTest
 	@Value("${test.fail.on.connection.exception:false}")
 	private Boolean failOnConnectError;
 
+	@Value("${test.in-memory.broker:false}")
+	private Boolean useInMemoryBroker;
+
 	private JCSMPSession jcsmpSession;
 
+	private final InMemoryBroker inMemoryBroker = new InMemoryBroker();
+
 	private static SolaceExternalResourceHandler externalResource = new SolaceExternalResourceHandler();
 
 
 	@Override
 	protected boolean usesExplicitRouting() {
-		return true;
+		return false; // Partitions are resolved from the partition header, not a routing expression
 	}
 
 	@Override
@@ -75,12 +91,25 @@ public class SolaceBinderTest
 	@Override
 	protected SolaceTestBinder getBinder() throws Exception {
 		if (testBinder == null) {
-			jcsmpSession = externalResource.assumeAndGetActiveSession(springJCSMPFactory, failOnConnectError);
+			jcsmpSession = useInMemoryBroker ? inMemoryBroker.createSession() :
+					externalResource.assumeAndGetActiveSession(springJCSMPFactory, failOnConnectError);
 			testBinder = new SolaceTestBinder(jcsmpSession);
 		}
 		return testBinder;
 	}
 
+	/**
+	 * @return a new session to the same message broker as the test binder's, with its own dispatcher thread
+	 */
+	private JCSMPSession createSession(List<Context> contexts) throws JCSMPException {
+		if (useInMemoryBroker) {
+			return inMemoryBroker.createSession();
+		}
+		Context context = springJCSMPFactory.createContext(new ContextProperties());
+		contexts.add(context);
+		return springJCSMPFactory.createSession(context);
+	}
+
 	@Override
 	protected ExtendedConsumerProperties<SolaceConsumerProperties> createConsumerProperties() {
 		return new ExtendedConsumerProperties<>(new SolaceConsumerProperties());
@@ -96,18 +125,6 @@ public class SolaceBinderTest
 		return null;
 	}
 
-	// NOT YET SUPPORTED ---------------------------------
-	@Override
-	public void testPartitionedModuleJava() {
-		Assume.assumeTrue("Partitioning not currently supported", false);
-	}
-
-	@Override
-	public void testPartitionedModuleSpEL() {
-		Assume.assumeTrue("Partitioning not currently supported", false);
-	}
-	// ---------------------------------------------------
-
 	@Test
 	public void testSendAndReceiveBad() throws Exception {
 		SolaceTestBinder binder = getBinder();
@@ -187,6 +204,33 @@ public class SolaceBinderTest
 		producerBinding.unbind();
 	}
 
+	@Test
+	public void testProducerConfirmation() throws Exception {
+		SolaceTestBinder binder = getBinder();
+
+		DirectChannel moduleOutputChannel = createBindableChannel("output", new BindingProperties());
+
+		String destination0 = String.format("foo%s0", getDestinationNameDelimiter());
+		String group0 = "testProducerConfirmation";
+
+		ExtendedProducerProperties<SolaceProducerProperties> producerProperties = createProducerProperties();
+		producerProperties.setRequiredGroups(group0);
+		Binding<MessageChannel> producerBinding = binder.bindProducer(destination0, moduleOutputChannel, producerProperties);
+
+		CompletableFuture<Void> confirmation = new CompletableFuture<>();
+		Message<?> message = MessageBuilder.withPayload("foo".getBytes())
+				.setHeader(MessageHeaders.CONTENT_TYPE, MimeTypeUtils.TEXT_PLAIN_VALUE)
+				.setHeader(SolaceBinderHeaders.CONFIRMATION, confirmation)
+				.build();
+
+		binderBindUnbindLatency();
+
+		moduleOutputChannel.send(message);
+		confirmation.get(10, TimeUnit.SECONDS);
+		assertThat(confirmation).isCompleted();
+		producerBinding.unbind();
+	}
+
 	@Test
 	public void testFailProducerProvisioningOnRequiredQueuePropertyChange() throws Exception {
 		SolaceTestBinder binder = getBinder();
@@ -335,6 +379,67 @@ public class SolaceBinderTest
 		consumerBinding.unbind();
 	}
 
+	@Test
+	public void testConsumerConcurrency() throws Exception {
+		getBinder(); // Skips the test when there's no message broker
+		int concurrency = 3;
+		JCSMPSessionPool sessionPool = JCSMPSessionPool.connect(concurrency,
+				JCSMPSessionPool.AssignmentStrategy.ROUND_ROBIN, (index, contexts) -> createSession(contexts));
+		SolaceTestBinder binder = new SolaceTestBinder(sessionPool);
+
+		DirectChannel moduleOutputChannel = createBindableChannel("output", new BindingProperties());
+		DirectChannel moduleInputChannel = createBindableChannel("input", new BindingProperties());
+
+		String destination0 = String.format("foo%s0", getDestinationNameDelimiter());
+
+		ExtendedConsumerProperties<SolaceConsumerProperties> consumerProperties = createConsumerProperties();
+		consumerProperties.setConcurrency(concurrency);
+
+		Binding<MessageChannel> producerBinding = binder.bindProducer(
+				destination0, moduleOutputChannel, createProducerProperties());
+		Binding<MessageChannel> consumerBinding = binder.bindConsumer(
+				destination0, "testConsumerConcurrency", moduleInputChannel, consumerProperties);
+
+		try {
+			binderBindUnbindLatency();
+
+			int messageCount = 10;
+			final CountDownLatch latch = new CountDownLatch(messageCount);
+			// Every flow holds on to its first message until all flows have one, which they only can in parallel
+			final CountDownLatch allFlowsBusy = new CountDownLatch(concurrency);
+			final AtomicBoolean overlapped = new AtomicBoolean(true);
+			final Set<Thread> deliveryThreads = Collections.newSetFromMap(new ConcurrentHashMap<>());
+			moduleInputChannel.subscribe(message1 -> {
+				if (deliveryThreads.add(Thread.currentThread())) {
+					allFlowsBusy.countDown();
+					try {
+						if (!allFlowsBusy.await(10, TimeUnit.SECONDS)) {
+							overlapped.set(false);
+						}
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+					}
+				}
+				latch.countDown();
+			});
+
+			for (int i = 0; i < messageCount; i++) {
+				moduleOutputChannel.send(MessageBuilder.withPayload(("foo" + i).getBytes())
+						.setHeader(MessageHeaders.CONTENT_TYPE, MimeTypeUtils.TEXT_PLAIN_VALUE)
+						.build());
+			}
+
+			assertThat(latch.await(30, TimeUnit.SECONDS)).isTrue();
+			assertThat(deliveryThreads).hasSize(concurrency);
+			assertThat(overlapped.get()).isTrue();
+		} finally {
+			producerBinding.unbind();
+			consumerBinding.unbind();
+			binder.cleanup();
+			sessionPool.close();
+		}
+	}
+
 	@Test
 	public void testProducerAdditionalSubscriptions() throws Exception {
 		SolaceTestBinder binder = getBinder();
@@ -3,6 +3,7 @@ package com.solace.spring.cloud.stream.binder;
 import com.solace.spring.cloud.stream.binder.properties.SolaceConsumerProperties;
 import com.solace.spring.cloud.stream.binder.properties.SolaceProducerProperties;
 import com.solace.spring.cloud.stream.binder.provisioning.SolaceQueueProvisioner;
+import com.solace.spring.cloud.stream.binder.util.JCSMPSessionPool;
 import com.solace.spring.cloud.stream.binder.util.SolaceProvisioningUtil;
 import com.solacesystems.jcsmp.JCSMPException;
 import com.solacesystems.jcsmp.JCSMPFactory;
@@ -34,10 +35,17 @@ public class SolaceTestBinder
 	private static final Log logger = LogFactory.getLog(SolaceTestBinder.class);
 
 	public SolaceTestBinder(JCSMPSession jcsmpSession) throws Exception {
+		this(JCSMPSessionPool.connect(1, JCSMPSessionPool.AssignmentStrategy.ROUND_ROBIN,
+				(index, contexts) -> jcsmpSession));
+	}
+
+	/**
+	 * @param sessionPool a connected session pool, whose default session is used to clean up
+	 */
+	public SolaceTestBinder(JCSMPSessionPool sessionPool) {
 		this.applicationContext = new AnnotationConfigApplicationContext(Config.class);
-		this.jcsmpSession = jcsmpSession;
-		jcsmpSession.connect();
-		SolaceMessageChannelBinder binder = new SolaceMessageChannelBinder(jcsmpSession, new SolaceQueueProvisioner(jcsmpSession));
+		this.jcsmpSession = sessionPool.getDefaultSession();
+		SolaceMessageChannelBinder binder = new SolaceMessageChannelBinder(new SolaceQueueProvisioner(sessionPool));
 		binder.setApplicationContext(this.applicationContext);
 		this.setPollableConsumerBinder(binder);
 	}
@@ -49,7 +57,7 @@ public class SolaceTestBinder
 	@Override
 	public Binding<MessageChannel> bindConsumer(String name, String group, MessageChannel moduleInputChannel,
 												ExtendedConsumerProperties<SolaceConsumerProperties> properties) {
-		captureConsumerResources(name, group, properties.getExtension());
+		captureConsumerResources(name, group, properties);
 		return super.bindConsumer(name, group, moduleInputChannel, properties);
 	}
 
@@ -57,7 +65,7 @@ public class SolaceTestBinder
 	public Binding<PollableSource<MessageHandler>> bindPollableConsumer(String name, String group,
 																		PollableSource<MessageHandler> inboundBindTarget,
 																		ExtendedConsumerProperties<SolaceConsumerProperties> properties) {
-		captureConsumerResources(name, group, properties.getExtension());
+		captureConsumerResources(name, group, properties);
 		return super.bindPollableConsumer(name, group, inboundBindTarget, properties);
 	}
 
@@ -66,15 +74,20 @@ public class SolaceTestBinder
 												ExtendedProducerProperties<SolaceProducerProperties> properties) {
 		if (properties.getRequiredGroups() != null) {
 			Arrays.stream(properties.getRequiredGroups())
-					.forEach(g -> captureProducerResources(name, g, properties.getExtension()));
+					.forEach(g -> captureProducerResources(name, g, properties));
 		}
 
 		return super.bindProducer(name, moduleOutputChannel, properties);
 	}
 
-	private void captureConsumerResources(String name, String group, SolaceConsumerProperties consumerProperties) {
+	private void captureConsumerResources(String name, String group,
+										  ExtendedConsumerProperties<SolaceConsumerProperties> properties) {
+		SolaceConsumerProperties consumerProperties = properties.getExtension();
 		boolean isAnonQueue = SolaceProvisioningUtil.isAnonQueue(group);
 		String queueName = SolaceProvisioningUtil.getQueueName(name, group, consumerProperties, isAnonQueue);
+		if (properties.isPartitioned() && !isAnonQueue) {
+			queueName = SolaceProvisioningUtil.getPartitionQueueName(queueName, Math.max(properties.getInstanceIndex(), 0));
+		}
 
 		if (!isAnonQueue) {
 			queues.add(queueName);
@@ -85,9 +98,16 @@ public class SolaceTestBinder
 		}
 	}
 
-	private void captureProducerResources(String name, String group, SolaceProducerProperties producerProperties) {
-		String queueName = SolaceProvisioningUtil.getQueueName(name, group, producerProperties);
-		queues.add(queueName);
+	private void captureProducerResources(String name, String group,
+										  ExtendedProducerProperties<SolaceProducerProperties> properties) {
+		String queueName = SolaceProvisioningUtil.getQueueName(name, group, properties.getExtension());
+		if (properties.isPartitioned()) {
+			for (int partition = 0; partition < properties.getPartitionCount(); partition++) {
+				queues.add(SolaceProvisioningUtil.getPartitionQueueName(queueName, partition));
+			}
+		} else {
+			queues.add(queueName);
+		}
 	}
 
 	@Override